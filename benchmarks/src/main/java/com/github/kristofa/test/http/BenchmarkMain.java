@@ -0,0 +1,28 @@
+package com.github.kristofa.test.http;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the regular JMH command line options and always adds the {@link GCProfiler} so
+ * allocation rates (gc.alloc.rate.norm = bytes allocated per operation) are reported next to the timings. This makes
+ * regressions in per request garbage visible.
+ * <p>
+ * Example: <code>java -jar target/benchmarks.jar GetResponseBenchmark -p expectations=1000</code>
+ *
+ * @author kristof
+ */
+public class BenchmarkMain {
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final Options options =
+            new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+
+}
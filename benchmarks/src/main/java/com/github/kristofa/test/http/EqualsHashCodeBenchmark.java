@@ -0,0 +1,175 @@
+package com.github.kristofa.test.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the explicit hashCode/equals implementations of our value types with the commons-lang reflection based
+ * implementations they replaced.
+ * <p>
+ * The reflection benchmarks call {@link HashCodeBuilder#reflectionHashCode(Object, boolean)} and
+ * {@link EqualsBuilder#reflectionEquals(Object, Object, boolean)} on the same instances, which is what the old
+ * implementations did. For {@link HttpRequestImpl} nested query parameters and headers use their explicit versions in both
+ * cases so the difference shown there is a lower bound.
+ *
+ * @author kristof
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EqualsHashCodeBenchmark {
+
+    private QueryParameter queryParameter;
+    private QueryParameter equalQueryParameter;
+    private HttpMessageHeader header;
+    private HttpMessageHeader equalHeader;
+    private HttpResponseImpl response;
+    private HttpResponseImpl equalResponse;
+    private HttpRequestImpl request;
+    private HttpRequestImpl equalRequest;
+    private FullHttpRequestImpl fullRequest;
+    private FullHttpRequestImpl equalFullRequest;
+
+    @Setup
+    public void setup() {
+        queryParameter = new QueryParameter("customerId", "12345");
+        equalQueryParameter = new QueryParameter("customerId", "12345");
+        header = new HttpMessageHeader("Content-Type", "application/json; charset=UTF-8");
+        equalHeader = new HttpMessageHeader("Content-Type", "application/json; charset=UTF-8");
+        response = new HttpResponseImpl(200, "application/json", "{\"status\":\"ok\"}".getBytes());
+        equalResponse = new HttpResponseImpl(200, "application/json", "{\"status\":\"ok\"}".getBytes());
+
+        request = new HttpRequestImpl();
+        request.method(Method.POST).path("/api/customers/12345/orders").queryParameter("page", "1")
+            .queryParameter("size", "20").httpMessageHeader("Content-Type", "application/json; charset=UTF-8")
+            .httpMessageHeader("Accept", "application/json").content("{\"product\":\"abc\",\"amount\":3}".getBytes());
+        equalRequest = new HttpRequestImpl(request);
+
+        fullRequest = new FullHttpRequestImpl();
+        fullRequest.method(Method.GET).path("/api/customers").queryParameter("page", "1")
+            .httpMessageHeader("Accept", "application/json").domain("localhost").port(8080);
+        equalFullRequest = new FullHttpRequestImpl(fullRequest);
+
+        // Make sure cached hash codes are available for all instances, as they would be after a first lookup.
+        request.hashCode();
+        equalRequest.hashCode();
+        fullRequest.hashCode();
+        equalFullRequest.hashCode();
+    }
+
+    @Benchmark
+    public int queryParameterHashCode() {
+        return queryParameter.hashCode();
+    }
+
+    @Benchmark
+    public int queryParameterReflectionHashCode() {
+        return HashCodeBuilder.reflectionHashCode(queryParameter, false);
+    }
+
+    @Benchmark
+    public boolean queryParameterEquals() {
+        return queryParameter.equals(equalQueryParameter);
+    }
+
+    @Benchmark
+    public boolean queryParameterReflectionEquals() {
+        return EqualsBuilder.reflectionEquals(queryParameter, equalQueryParameter, false);
+    }
+
+    @Benchmark
+    public int headerHashCode() {
+        return header.hashCode();
+    }
+
+    @Benchmark
+    public int headerReflectionHashCode() {
+        return HashCodeBuilder.reflectionHashCode(header, false);
+    }
+
+    @Benchmark
+    public boolean headerEquals() {
+        return header.equals(equalHeader);
+    }
+
+    @Benchmark
+    public boolean headerReflectionEquals() {
+        return EqualsBuilder.reflectionEquals(header, equalHeader, false);
+    }
+
+    @Benchmark
+    public int responseHashCode() {
+        return response.hashCode();
+    }
+
+    @Benchmark
+    public int responseReflectionHashCode() {
+        return HashCodeBuilder.reflectionHashCode(response, false);
+    }
+
+    @Benchmark
+    public boolean responseEquals() {
+        return response.equals(equalResponse);
+    }
+
+    @Benchmark
+    public boolean responseReflectionEquals() {
+        return EqualsBuilder.reflectionEquals(response, equalResponse, false);
+    }
+
+    @Benchmark
+    public int requestHashCode() {
+        return request.hashCode();
+    }
+
+    @Benchmark
+    public int requestReflectionHashCode() {
+        return HashCodeBuilder.reflectionHashCode(request, false);
+    }
+
+    @Benchmark
+    public boolean requestEquals() {
+        return request.equals(equalRequest);
+    }
+
+    @Benchmark
+    public boolean requestReflectionEquals() {
+        return EqualsBuilder.reflectionEquals(request, equalRequest, false);
+    }
+
+    @Benchmark
+    public int fullRequestHashCode() {
+        return fullRequest.hashCode();
+    }
+
+    @Benchmark
+    public int fullRequestReflectionHashCode() {
+        return HashCodeBuilder.reflectionHashCode(fullRequest, false);
+    }
+
+    @Benchmark
+    public boolean fullRequestEquals() {
+        return fullRequest.equals(equalFullRequest);
+    }
+
+    @Benchmark
+    public boolean fullRequestReflectionEquals() {
+        return EqualsBuilder.reflectionEquals(fullRequest, equalFullRequest, false);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.github.kristofa.test.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link AbstractHttpResponseProvider#getResponse(HttpRequest)} for a growing number of expected requests.
+ * <p>
+ * Match modes:
+ * <ul>
+ * <li>EXACT: incoming requests are equal to expected requests.</li>
+ * <li>PROJECTED_FILTER: incoming requests have an additional header and are matched through
+ * {@link AllExceptOriginalHeadersFilter}, which is projectable so only candidates from the projection index are tried.</li>
+ * <li>FILTER: same as PROJECTED_FILTER but through a filter that is not projectable, so all expected requests are
+ * candidates.</li>
+ * </ul>
+ * <p>
+ * Every getResponse consumes a response. Each expected request has {@link #RESPONSES_PER_REQUEST} responses and requests are
+ * sent round robin. Once all responses are consumed the provider is reset and filled again. This happens inside the
+ * measurement but its cost is spread over expectations * {@link #RESPONSES_PER_REQUEST} lookups.
+ *
+ * @author kristof
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GetResponseBenchmark {
+
+    static final int RESPONSES_PER_REQUEST = 32;
+
+    public enum MatchMode {
+        EXACT,
+        PROJECTED_FILTER,
+        FILTER
+    }
+
+    @Param({"10", "100", "1000", "10000"})
+    public int expectations;
+
+    @Param({"EXACT", "PROJECTED_FILTER", "FILTER"})
+    public MatchMode matchMode;
+
+    private DefaultHttpResponseProvider responseProvider;
+    private HttpRequest[] expectedRequests;
+    private HttpResponse[] responses;
+    private HttpRequest[] incomingRequests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        responseProvider = new DefaultHttpResponseProvider(false);
+        if (matchMode == MatchMode.PROJECTED_FILTER) {
+            responseProvider.addHttpRequestMatchingFilter(new AllExceptOriginalHeadersFilter());
+        } else if (matchMode == MatchMode.FILTER) {
+            responseProvider.addHttpRequestMatchingFilter(new NonProjectableFilter());
+        }
+
+        expectedRequests = new HttpRequest[expectations];
+        responses = new HttpResponse[expectations];
+        incomingRequests = new HttpRequest[expectations];
+        for (int i = 0; i < expectations; i++) {
+            final HttpRequestImpl request = new HttpRequestImpl();
+            request.method(Method.POST).path("/api/customers/" + i).queryParameter("page", "1")
+                .httpMessageHeader("Content-Type", "application/json").content(("{\"customer\":" + i + "}").getBytes());
+            expectedRequests[i] = request;
+            responses[i] = new HttpResponseImpl(200, "application/json", ("{\"id\":" + i + "}").getBytes());
+
+            final HttpRequestImpl incomingRequest = new HttpRequestImpl(request);
+            if (matchMode != MatchMode.EXACT) {
+                incomingRequest.httpMessageHeader("User-Agent", "benchmark");
+            }
+            incomingRequests[i] = incomingRequest;
+        }
+        fill();
+    }
+
+    @Benchmark
+    public HttpResponse getResponse() {
+        if (next == expectations * RESPONSES_PER_REQUEST) {
+            fill();
+        }
+        final HttpResponse response = responseProvider.getResponse(incomingRequests[next % expectations]);
+        next++;
+        return response;
+    }
+
+    private void fill() {
+        responseProvider.reset();
+        for (int round = 0; round < RESPONSES_PER_REQUEST; round++) {
+            for (int i = 0; i < expectations; i++) {
+                responseProvider.set(expectedRequests[i], responses[i]);
+            }
+        }
+        next = 0;
+    }
+
+    /**
+     * Same behaviour as {@link AllExceptOriginalHeadersFilter} but not projectable.
+     */
+    private static class NonProjectableFilter extends AbstractHttpRequestMatchingFilter {
+
+        private final AllExceptOriginalHeadersFilter filter = new AllExceptOriginalHeadersFilter();
+
+        @Override
+        public HttpRequestMatchingContext filter(final HttpRequestMatchingContext context) {
+            return filter.filter(context);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.github.kristofa.test.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.kristofa.test.http.transport.TransportRequest;
+
+/**
+ * Benchmarks the per request conversion work done before matching: {@link RequestConvertor#convert(TransportRequest)}
+ * and the {@link HttpRequestImpl} and {@link FullHttpRequestImpl} copy constructors which are used by the matching
+ * filters.
+ *
+ * @author kristof
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestBenchmark {
+
+    @Param({"0", "1024", "65536"})
+    public int contentSize;
+
+    private TransportRequest transportRequest;
+    private HttpRequestImpl httpRequest;
+    private FullHttpRequestImpl fullHttpRequest;
+
+    @Setup
+    public void setup() {
+        final byte[] content = new byte[contentSize];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte)('a' + i % 26);
+        }
+        final Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put("Host", "localhost:51234");
+        headers.put("Content-Type", "application/json; charset=UTF-8");
+        headers.put("Accept", "application/json");
+        headers.put("User-Agent", "Apache-HttpClient/4.2.5");
+        final Map<String, String> queryParameters = new LinkedHashMap<String, String>();
+        queryParameters.put("page", "1");
+        queryParameters.put("size", "20");
+
+        transportRequest =
+            TransportRequests.request("POST", "localhost", 51234, "/api/customers/12345/orders", headers, queryParameters,
+                content);
+        fullHttpRequest = (FullHttpRequestImpl)RequestConvertor.convert(transportRequest);
+        httpRequest = new HttpRequestImpl(fullHttpRequest);
+    }
+
+    @Benchmark
+    public FullHttpRequest convert() {
+        return RequestConvertor.convert(transportRequest);
+    }
+
+    @Benchmark
+    public HttpRequestImpl copyHttpRequestImpl() {
+        return new HttpRequestImpl(httpRequest);
+    }
+
+    @Benchmark
+    public HttpRequestImpl copyFullHttpRequestToHttpRequestImpl() {
+        return new HttpRequestImpl(fullHttpRequest);
+    }
+
+    @Benchmark
+    public FullHttpRequestImpl copyFullHttpRequestImpl() {
+        return new FullHttpRequestImpl(fullHttpRequest);
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.github.kristofa.test.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kristofa.test.http.transport.TransportRequest;
+
+/**
+ * Creates in memory {@link TransportRequest requests} for benchmarks.
+ *
+ * @author kristof
+ */
+final class TransportRequests {
+
+    private TransportRequests() {
+        // Utility class.
+    }
+
+    /**
+     * Creates a new request.
+     *
+     * @param method Http method.
+     * @param domain Domain.
+     * @param port Port.
+     * @param path Path.
+     * @param headers Http headers, name/value pairs.
+     * @param queryParameters Query parameters.
+     * @param content Content, can be empty but not <code>null</code>.
+     * @return Request.
+     */
+    static TransportRequest request(final String method, final String domain, final int port, final String path,
+        final Map<String, String> headers, final Map<String, String> queryParameters, final byte[] content) {
+
+        final List<String> names = Collections.unmodifiableList(new ArrayList<String>(headers.keySet()));
+        final Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            values.put(header.getKey(), Collections.singletonList(header.getValue()));
+        }
+        final List<QueryParameter> parameters = new ArrayList<QueryParameter>();
+        for (final Map.Entry<String, String> parameter : queryParameters.entrySet()) {
+            parameters.add(new QueryParameter(parameter.getKey(), parameter.getValue()));
+        }
+
+        return new TransportRequest() {
+
+            @Override
+            public String getMethod() {
+                return method;
+            }
+
+            @Override
+            public String getPath() {
+                return path;
+            }
+
+            @Override
+            public List<QueryParameter> getQueryParameters() {
+                return parameters;
+            }
+
+            @Override
+            public Collection<String> getHeaderNames() {
+                return names;
+            }
+
+            @Override
+            public List<String> getHeaderValues(final String name) {
+                final List<String> headerValues = values.get(name);
+                return headerValues == null ? Collections.<String> emptyList() : headerValues;
+            }
+
+            @Override
+            public String getDomain() {
+                return domain;
+            }
+
+            @Override
+            public int getPort() {
+                return port;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+        };
+    }
+
+}
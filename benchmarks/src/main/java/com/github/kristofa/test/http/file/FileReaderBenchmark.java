@@ -0,0 +1,109 @@
+package com.github.kristofa.test.http.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.kristofa.test.http.HttpRequest;
+import com.github.kristofa.test.http.HttpRequestImpl;
+import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.Method;
+
+/**
+ * Benchmarks reading a recorded request and response with {@link HttpRequestFileReaderImpl} and
+ * {@link HttpResponseFileReaderImpl}. Files are written to a temporary directory with the matching writers. They will be in
+ * the OS page cache so this measures parsing and copying rather than disk access.
+ * <p>
+ * readResponseMapped memory maps the response entity instead of copying it, as {@link FileHttpResponseProvider} does by
+ * default.
+ *
+ * @author kristof
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileReaderBenchmark {
+
+    @Param({"0", "1024", "65536"})
+    public int entitySize;
+
+    private File directory;
+    private File requestFile;
+    private File requestEntityFile;
+    private File responseFile;
+    private File responseEntityFile;
+    private HttpRequestFileReader requestFileReader;
+    private HttpResponseFileReader responseFileReader;
+    private HttpResponseFileReader mappingResponseFileReader;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = File.createTempFile("FileReaderBenchmark", "");
+        directory.delete();
+        directory.mkdirs();
+
+        final byte[] entity = new byte[entitySize];
+        for (int i = 0; i < entity.length; i++) {
+            entity[i] = (byte)('a' + i % 26);
+        }
+
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.POST).path("/api/customers/12345/orders").queryParameter("page", "1")
+            .queryParameter("size", "20").httpMessageHeader("Content-Type", "application/json; charset=UTF-8")
+            .httpMessageHeader("Accept", "application/json");
+        if (entity.length > 0) {
+            request.content(entity);
+        }
+        final HttpResponse response = new HttpResponseImpl(200, "application/json", entity.length > 0 ? entity : null);
+
+        requestFile = new File(directory, FileNameBuilder.REQUEST_FILE_NAME.getFileName("benchmark", 1));
+        requestEntityFile = new File(directory, FileNameBuilder.REQUEST_ENTITY_FILE_NAME.getFileName("benchmark", 1));
+        responseFile = new File(directory, FileNameBuilder.RESPONSE_FILE_NAME.getFileName("benchmark", 1));
+        responseEntityFile = new File(directory, FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName("benchmark", 1));
+        new HttpRequestFileWriterImpl().write(request, requestFile, requestEntityFile);
+        new HttpResponseFileWriterImpl().write(response, responseFile, responseEntityFile);
+
+        requestFileReader = new HttpRequestFileReaderImpl();
+        responseFileReader = new HttpResponseFileReaderImpl();
+        mappingResponseFileReader = new HttpResponseFileReaderImpl(true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public HttpRequest readRequest() {
+        return requestFileReader.read(requestFile, requestEntityFile);
+    }
+
+    @Benchmark
+    public HttpResponse readResponse() {
+        return responseFileReader.read(responseFile, responseEntityFile);
+    }
+
+    @Benchmark
+    public HttpResponse readResponseMapped() {
+        return mappingResponseFileReader.read(responseFile, responseEntityFile);
+    }
+
+}
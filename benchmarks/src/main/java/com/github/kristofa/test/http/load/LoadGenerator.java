@@ -0,0 +1,178 @@
+package com.github.kristofa.test.http.load;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Drives a number of concurrent clients against a started server and measures throughput and latency.
+ * <p>
+ * Each client runs in its own thread and uses its own {@link DefaultHttpClient} which keeps a single persistent (keep-alive)
+ * connection to the server. Clients send their requests back to back. Every client first sends its warm up requests, which
+ * are not measured. Measuring starts when all clients finished warming up.
+ *
+ * @author kristof
+ */
+public class LoadGenerator {
+
+    private final String url;
+    private final String method;
+    private final String contentType;
+    private final byte[] content;
+    private final int expectedHttpCode;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param url Url to send requests to. Should not be <code>null</code>.
+     * @param method GET or POST.
+     * @param contentType Content type of request entity, only used for POST.
+     * @param content Request entity, only used for POST.
+     * @param expectedHttpCode Http code of a successful response. Other codes are counted as errors.
+     */
+    public LoadGenerator(final String url, final String method, final String contentType, final byte[] content,
+        final int expectedHttpCode) {
+        Validate.notNull(url);
+        Validate.isTrue("GET".equals(method) || "POST".equals(method), "Only GET and POST are supported.");
+        this.url = url;
+        this.method = method;
+        this.contentType = contentType;
+        this.content = content;
+        this.expectedHttpCode = expectedHttpCode;
+    }
+
+    /**
+     * Runs load test. Blocks until all clients are done.
+     *
+     * @param name Name of the scenario, used in result.
+     * @param clients Number of concurrent clients.
+     * @param requestsPerClient Number of measured requests per client.
+     * @param warmUpRequestsPerClient Number of not measured requests per client, sent before measuring starts.
+     * @return Result.
+     * @throws InterruptedException In case we got interrupted while waiting for clients.
+     */
+    public LoadResult run(final String name, final int clients, final int requestsPerClient,
+        final int warmUpRequestsPerClient) throws InterruptedException {
+        Validate.isTrue(clients > 0, "At least 1 client needed.");
+        final CountDownLatch warmedUp = new CountDownLatch(clients);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(clients);
+        final AtomicLong errors = new AtomicLong();
+        final List<Client> clientList = new ArrayList<Client>();
+        for (int i = 0; i < clients; i++) {
+            final Client client =
+                new Client(requestsPerClient, warmUpRequestsPerClient, warmedUp, start, done, errors);
+            final Thread thread = new Thread(client, "load-client-" + i);
+            thread.setDaemon(true);
+            clientList.add(client);
+            thread.start();
+        }
+        warmedUp.await();
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        final long durationNanos = System.nanoTime() - startNanos;
+
+        int total = 0;
+        for (final Client client : clientList) {
+            total += client.count;
+        }
+        final long[] latencies = new long[total];
+        int offset = 0;
+        for (final Client client : clientList) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+        }
+        return new LoadResult(name, clients, errors.get(), durationNanos, latencies);
+    }
+
+    private HttpUriRequest request() {
+        if ("GET".equals(method)) {
+            return new HttpGet(url);
+        }
+        final HttpPost post = new HttpPost(url);
+        if (content != null) {
+            post.setEntity(new ByteArrayEntity(content, contentType == null ? null : ContentType.parse(contentType)));
+        }
+        return post;
+    }
+
+    private class Client implements Runnable {
+
+        private final int requests;
+        private final int warmUpRequests;
+        private final CountDownLatch warmedUp;
+        private final CountDownLatch start;
+        private final CountDownLatch done;
+        private final AtomicLong errors;
+        private final long[] latencies;
+        private int count;
+
+        Client(final int requests, final int warmUpRequests, final CountDownLatch warmedUp, final CountDownLatch start,
+            final CountDownLatch done, final AtomicLong errors) {
+            this.requests = requests;
+            this.warmUpRequests = warmUpRequests;
+            this.warmedUp = warmedUp;
+            this.start = start;
+            this.done = done;
+            this.errors = errors;
+            latencies = new long[requests];
+        }
+
+        @Override
+        public void run() {
+            final HttpClient client = new DefaultHttpClient();
+            boolean countedDown = false;
+            try {
+                for (int i = 0; i < warmUpRequests; i++) {
+                    execute(client);
+                }
+                warmedUp.countDown();
+                countedDown = true;
+                start.await();
+                for (int i = 0; i < requests; i++) {
+                    final long startNanos = System.nanoTime();
+                    if (execute(client)) {
+                        latencies[count++] = System.nanoTime() - startNanos;
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                client.getConnectionManager().shutdown();
+                // In case we failed during warm up.
+                if (!countedDown) {
+                    warmedUp.countDown();
+                }
+                done.countDown();
+            }
+        }
+
+        private boolean execute(final HttpClient client) {
+            try {
+                final HttpResponse response = client.execute(request());
+                // Consume entity so connection can be reused.
+                EntityUtils.consume(response.getEntity());
+                return response.getStatusLine().getStatusCode() == expectedHttpCode;
+            } catch (final IOException e) {
+                return false;
+            }
+        }
+    }
+
+}
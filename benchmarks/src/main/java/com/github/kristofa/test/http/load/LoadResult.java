@@ -0,0 +1,97 @@
+package com.github.kristofa.test.http.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a load test run: throughput and latency percentiles.
+ *
+ * @author kristof
+ */
+public class LoadResult {
+
+    private final String name;
+    private final int clients;
+    private final long errors;
+    private final long durationNanos;
+    private final long[] sortedLatenciesNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name Name of scenario.
+     * @param clients Number of concurrent clients.
+     * @param errors Number of failed requests. Failed requests are not part of latencies.
+     * @param durationNanos Wall clock duration of measured part of run.
+     * @param latenciesNanos Latency of each successful request. Will be sorted.
+     */
+    public LoadResult(final String name, final int clients, final long errors, final long durationNanos,
+        final long[] latenciesNanos) {
+        this.name = name;
+        this.clients = clients;
+        this.errors = errors;
+        this.durationNanos = durationNanos;
+        sortedLatenciesNanos = latenciesNanos;
+        Arrays.sort(sortedLatenciesNanos);
+    }
+
+    /**
+     * Gets number of successful requests.
+     *
+     * @return Number of successful requests.
+     */
+    public long getRequests() {
+        return sortedLatenciesNanos.length;
+    }
+
+    /**
+     * Gets number of failed requests.
+     *
+     * @return Number of failed requests.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets throughput.
+     *
+     * @return Successful requests per second.
+     */
+    public double getThroughput() {
+        if (durationNanos == 0) {
+            return 0;
+        }
+        return sortedLatenciesNanos.length * (double)TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    /**
+     * Gets latency at given percentile.
+     *
+     * @param percentile Percentile, between 0 and 100.
+     * @return Latency in nanoseconds or 0 in case there were no successful requests.
+     */
+    public long getLatencyNanos(final double percentile) {
+        if (sortedLatenciesNanos.length == 0) {
+            return 0;
+        }
+        final int index = (int)Math.ceil(percentile / 100 * sortedLatenciesNanos.length) - 1;
+        return sortedLatenciesNanos[Math.min(Math.max(index, 0), sortedLatenciesNanos.length - 1)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: clients=%d, requests=%d, errors=%d, throughput=%.1f req/s, "
+            + "p50=%.3f ms, p99=%.3f ms, p999=%.3f ms, max=%.3f ms", name, clients, getRequests(), errors, getThroughput(),
+            millis(getLatencyNanos(50)), millis(getLatencyNanos(99)), millis(getLatencyNanos(99.9)),
+            millis(getLatencyNanos(100)));
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1000000.0;
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.github.kristofa.test.http.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+
+import com.github.kristofa.test.http.AllExceptContentTypeHeaderFilter;
+import com.github.kristofa.test.http.ForwardHttpRequestBuilder;
+import com.github.kristofa.test.http.HttpRequest;
+import com.github.kristofa.test.http.HttpRequestImpl;
+import com.github.kristofa.test.http.HttpRequestResponseLogger;
+import com.github.kristofa.test.http.HttpRequestResponseLoggerFactory;
+import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.HttpResponseProvider;
+import com.github.kristofa.test.http.LoggingHttpProxy;
+import com.github.kristofa.test.http.Method;
+import com.github.kristofa.test.http.MockHttpServer;
+import com.github.kristofa.test.http.PassthroughForwardHttpRequestBuilder;
+import com.github.kristofa.test.http.ServerConfig;
+import com.github.kristofa.test.http.SimpleHttpResponseProvider;
+import com.github.kristofa.test.http.client.ConnectionPoolConfig;
+import com.github.kristofa.test.http.file.FileHttpResponseProvider;
+import com.github.kristofa.test.http.file.HttpRequestResponseFileLoggerFactory;
+import com.github.kristofa.test.http.transport.NioTransport;
+import com.github.kristofa.test.http.transport.SimpleTransport;
+import com.github.kristofa.test.http.transport.Transport;
+
+/**
+ * End to end load test of {@link MockHttpServer} and {@link LoggingHttpProxy} over loopback. Uses {@link LoadGenerator} to
+ * drive concurrent keep-alive clients and prints throughput and p50/p99/p999 latency.
+ * <p>
+ * Scenarios:
+ * <ul>
+ * <li>mock-simple: {@link MockHttpServer} with {@link SimpleHttpResponseProvider}.</li>
+ * <li>mock-file: {@link MockHttpServer} with {@link FileHttpResponseProvider}. Request/responses are recorded in a temporary
+ * directory first.</li>
+ * <li>proxy: {@link LoggingHttpProxy} in front of an {@link UpstreamStub}. Requests and responses are passed to a logger
+ * that discards them so the proxy itself is measured, not the disk.</li>
+ * </ul>
+ * As responses of a mock server are consumed, the mock scenarios register a response for every request that will be sent.
+ * <p>
+ * Every scenario runs on the {@link SimpleTransport} (simple), the {@link NioTransport} (nio) or, by default, on both one
+ * after the other so they can be compared.
+ * <p>
+ * Usage: <code>java -cp target/benchmarks.jar com.github.kristofa.test.http.load.LoadTest &lt;scenario&gt; [clients]
+ * [requestsPerClient] [warmUpRequestsPerClient] [simple|nio|both]</code>
+ *
+ * @author kristof
+ */
+public class LoadTest {
+
+    private static final String PATH = "/load/customers";
+    private static final String CONTENT_TYPE = "application/json";
+    private static final byte[] REQUEST_ENTITY = "{\"name\":\"load\"}".getBytes();
+    private static final String RESPONSE_ENTITY = "{\"id\":12345,\"name\":\"load\"}";
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadTest <mock-simple|mock-file|proxy> [clients] [requestsPerClient] "
+                + "[warmUpRequestsPerClient] [simple|nio|both]");
+            System.exit(1);
+        }
+        final String scenario = args[0];
+        final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        final int requestsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        final int warmUpRequestsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        final String transports = args.length > 4 ? args[4] : "both";
+
+        if ("simple".equals(transports) || "both".equals(transports)) {
+            System.out.println(run(scenario, "simple", new SimpleTransport(), clients, requestsPerClient,
+                warmUpRequestsPerClient));
+        }
+        if ("nio".equals(transports) || "both".equals(transports)) {
+            System.out.println(run(scenario, "nio", new NioTransport(), clients, requestsPerClient,
+                warmUpRequestsPerClient));
+        }
+    }
+
+    private static LoadResult run(final String scenario, final String transportName, final Transport transport,
+        final int clients, final int requestsPerClient, final int warmUpRequestsPerClient) throws Exception {
+        final String name = scenario + "/" + transportName;
+        if ("mock-simple".equals(scenario)) {
+            return mockSimple(name, transport, clients, requestsPerClient, warmUpRequestsPerClient);
+        } else if ("mock-file".equals(scenario)) {
+            return mockFile(name, transport, clients, requestsPerClient, warmUpRequestsPerClient);
+        } else if ("proxy".equals(scenario)) {
+            return proxy(name, transport, clients, requestsPerClient, warmUpRequestsPerClient);
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + scenario);
+    }
+
+    /**
+     * Load test {@link MockHttpServer} with {@link SimpleHttpResponseProvider}.
+     *
+     * @param name Name of scenario, used in result.
+     * @param transport Transport to run on.
+     * @param clients Number of concurrent clients.
+     * @param requestsPerClient Number of measured requests per client.
+     * @param warmUpRequestsPerClient Number of warm up requests per client.
+     * @return Result.
+     * @throws IOException In case starting or stopping server fails.
+     * @throws InterruptedException In case we got interrupted.
+     */
+    public static LoadResult mockSimple(final String name, final Transport transport, final int clients,
+        final int requestsPerClient, final int warmUpRequestsPerClient) throws IOException, InterruptedException {
+        final SimpleHttpResponseProvider responseProvider = new SimpleHttpResponseProvider();
+        final int total = clients * (requestsPerClient + warmUpRequestsPerClient);
+        for (int i = 0; i < total; i++) {
+            responseProvider.expect(Method.POST, PATH, CONTENT_TYPE, new String(REQUEST_ENTITY)).respondWith(200,
+                CONTENT_TYPE, RESPONSE_ENTITY);
+        }
+        return runAgainstMock(name, transport, responseProvider, clients, requestsPerClient, warmUpRequestsPerClient);
+    }
+
+    /**
+     * Load test {@link MockHttpServer} with {@link FileHttpResponseProvider}.
+     *
+     * @param name Name of scenario, used in result.
+     * @param transport Transport to run on.
+     * @param clients Number of concurrent clients.
+     * @param requestsPerClient Number of measured requests per client.
+     * @param warmUpRequestsPerClient Number of warm up requests per client.
+     * @return Result.
+     * @throws IOException In case recording or starting/stopping server fails.
+     * @throws InterruptedException In case we got interrupted.
+     */
+    public static LoadResult mockFile(final String name, final Transport transport, final int clients,
+        final int requestsPerClient, final int warmUpRequestsPerClient) throws IOException, InterruptedException {
+        final File directory = File.createTempFile("LoadTest", "");
+        directory.delete();
+        directory.mkdirs();
+        try {
+            final HttpRequestImpl request = new HttpRequestImpl();
+            request.method(Method.POST).path(PATH).httpMessageHeader("Content-Type", CONTENT_TYPE).content(REQUEST_ENTITY);
+            final HttpResponse response = new HttpResponseImpl(200, CONTENT_TYPE, RESPONSE_ENTITY.getBytes());
+            final HttpRequestResponseFileLoggerFactory loggerFactory =
+                new HttpRequestResponseFileLoggerFactory(directory.getPath(), "load");
+            final int total = clients * (requestsPerClient + warmUpRequestsPerClient);
+            for (int i = 0; i < total; i++) {
+                final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+                logger.log(request);
+                logger.log(response);
+            }
+            final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider(directory.getPath(), "load", true);
+            responseProvider.addHttpRequestMatchingFilter(new AllExceptContentTypeHeaderFilter());
+            return runAgainstMock(name, transport, responseProvider, clients, requestsPerClient, warmUpRequestsPerClient);
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Load test {@link LoggingHttpProxy} in front of an {@link UpstreamStub}.
+     *
+     * @param name Name of scenario, used in result.
+     * @param transport Transport to run on.
+     * @param clients Number of concurrent clients.
+     * @param requestsPerClient Number of measured requests per client.
+     * @param warmUpRequestsPerClient Number of warm up requests per client.
+     * @return Result.
+     * @throws IOException In case starting or stopping proxy or upstream fails.
+     * @throws InterruptedException In case we got interrupted.
+     */
+    public static LoadResult proxy(final String name, final Transport transport, final int clients,
+        final int requestsPerClient, final int warmUpRequestsPerClient) throws IOException, InterruptedException {
+        final UpstreamStub upstream = new UpstreamStub(200, CONTENT_TYPE, RESPONSE_ENTITY.getBytes(), transport);
+        final int upstreamPort = upstream.start();
+        try {
+            final int proxyPort = freePort();
+            final LoggingHttpProxy proxy =
+                new LoggingHttpProxy(proxyPort, Collections.<ForwardHttpRequestBuilder> singleton(
+                    new PassthroughForwardHttpRequestBuilder("localhost", upstreamPort)), new DiscardingLoggerFactory(),
+                    new ConnectionPoolConfig(), new ServerConfig().transport(transport));
+            proxy.start();
+            try {
+                final LoadGenerator generator =
+                    new LoadGenerator("http://localhost:" + proxyPort + PATH, "POST", CONTENT_TYPE, REQUEST_ENTITY, 200);
+                return generator.run(name, clients, requestsPerClient, warmUpRequestsPerClient);
+            } finally {
+                proxy.stop();
+            }
+        } finally {
+            upstream.stop();
+        }
+    }
+
+    private static LoadResult runAgainstMock(final String name, final Transport transport,
+        final HttpResponseProvider responseProvider, final int clients,
+        final int requestsPerClient, final int warmUpRequestsPerClient) throws IOException, InterruptedException {
+        final MockHttpServer server = new MockHttpServer(0, responseProvider, new ServerConfig().transport(transport));
+        final int port = server.start();
+        try {
+            final LoadGenerator generator =
+                new LoadGenerator("http://localhost:" + port + PATH, "POST", CONTENT_TYPE, REQUEST_ENTITY, 200);
+            return generator.run(name, clients, requestsPerClient, warmUpRequestsPerClient);
+        } finally {
+            server.stop();
+        }
+    }
+
+    // LoggingHttpProxy does not support port 0.
+    private static int freePort() throws IOException {
+        final ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static class DiscardingLoggerFactory implements HttpRequestResponseLoggerFactory {
+
+        private static final HttpRequestResponseLogger LOGGER = new HttpRequestResponseLogger() {
+
+            @Override
+            public void log(final HttpResponse response) {
+                // Discard.
+            }
+
+            @Override
+            public void log(final HttpRequest request) {
+                // Discard.
+            }
+        };
+
+        @Override
+        public HttpRequestResponseLogger getHttpRequestResponseLogger() {
+            return LOGGER;
+        }
+    }
+
+}
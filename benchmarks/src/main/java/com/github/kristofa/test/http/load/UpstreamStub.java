@@ -0,0 +1,93 @@
+package com.github.kristofa.test.http.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import org.apache.commons.io.IOUtils;
+
+import com.github.kristofa.test.http.transport.RequestHandler;
+import com.github.kristofa.test.http.transport.Transport;
+import com.github.kristofa.test.http.transport.TransportRequest;
+import com.github.kristofa.test.http.transport.TransportResponse;
+import com.github.kristofa.test.http.transport.TransportServer;
+
+/**
+ * Upstream service for load testing the proxy path. Answers every request with the same response, without any matching, so
+ * the measured latency is dominated by the proxy. Runs on a given {@link Transport}.
+ *
+ * @author kristof
+ */
+public class UpstreamStub {
+
+    private static final int WORKER_THREADS = 8;
+
+    private final int httpCode;
+    private final String contentType;
+    private final byte[] content;
+    private final Transport transport;
+    private TransportServer server;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param httpCode Http code of response.
+     * @param contentType Content type of response.
+     * @param content Response entity.
+     * @param transport Transport to run on.
+     */
+    public UpstreamStub(final int httpCode, final String contentType, final byte[] content, final Transport transport) {
+        this.httpCode = httpCode;
+        this.contentType = contentType;
+        this.content = content;
+        this.transport = transport;
+    }
+
+    /**
+     * Starts stub on a free port.
+     *
+     * @return Port stub listens on.
+     * @throws IOException In case starting fails.
+     */
+    public int start() throws IOException {
+        server = transport.start(new InetSocketAddress(0), new StubHandler(), WORKER_THREADS);
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops stub.
+     *
+     * @throws IOException In case closing fails.
+     */
+    public void stop() throws IOException {
+        server.close();
+    }
+
+    private class StubHandler implements RequestHandler {
+
+        @Override
+        public void handle(final TransportRequest request, final TransportResponse response) {
+            try {
+                final InputStream inputStream = request.getInputStream();
+                try {
+                    IOUtils.toByteArray(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+                response.setCode(httpCode);
+                response.setHeader("Content-Type", contentType);
+                response.setContentLength(content.length);
+                final OutputStream outputStream = response.getOutputStream();
+                try {
+                    outputStream.write(content);
+                } finally {
+                    outputStream.close();
+                }
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}
@@ -2,53 +2,97 @@ package com.github.kristofa.test.http;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import com.github.kristofa.test.http.file.FileHttpResponseProvider;
 
 /**
  * Abstract {@link HttpResponseProvider} that contains the following functionality:
  * <ul>
- * <li>Exactly matching HttpRequests</li>
- * <li>In case of non exact match use submitted {@link HttpRequestMatchingFilter} to perform matching.</li>
+ * <li>Exactly matching HttpRequests. Expected requests are indexed by a precomputed {@link HttpRequestFingerprint} so an
+ * exact match costs a single hash lookup.</li>
+ * <li>In case of non exact match use submitted {@link HttpRequestMatchingFilter} to perform matching. In case all filters
+ * are {@link ProjectableHttpRequestMatchingFilter projectable} only expected requests with a matching projection are passed
+ * to the filter chain. Expected requests with a custom {@link ContentMatcher} can't be projected and are always passed to
+ * the filter chain.</li>
  * <li>Support multiple times the same request with potentially different responses that are returned in a fixed order.
  * </ul>
+ * <p>
+ * {@link #getResponse(HttpRequest)} is lock free. It works on an immutable snapshot of the expected requests which is
+ * rebuilt after expected requests or filters have been added. Responses for an expected request are claimed through an
+ * atomic cursor so concurrent identical requests still get their responses in the order in which they were added. Getting
+ * the next response for an expected request takes constant time, no matter how many times the request was expected.
  *
  * If you create your own {@link HttpResponseProvider} it is probably a good idea to extend this class.
- * 
+ *
  * @author kristof
  * @see DefaultHttpResponseProvider
  * @see FileHttpResponseProvider
  */
 public abstract class AbstractHttpResponseProvider implements HttpResponseProvider {
 
-    private final Map<HttpRequest, List<HttpResponseProxy>> requestMap = new HashMap<HttpRequest, List<HttpResponseProxy>>();
-    private final List<HttpRequest> unexpectedRequests = new ArrayList<HttpRequest>();
+    // Guards all mutable state below and the lazy initialization.
+    private final Object lock = new Object();
+    private final Map<HttpRequestFingerprint, Expectation> requestMap =
+        new LinkedHashMap<HttpRequestFingerprint, Expectation>();
+    private final Queue<HttpRequest> unexpectedRequests = new ConcurrentLinkedQueue<HttpRequest>();
     private HttpRequestMatchingFilter requestMatcherFilter;
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
+    // Expected requests indexed by their projection through the complete filter chain. null in case at least one filter is
+    // not projectable.
+    private Map<HttpRequestFingerprint, List<Expectation>> projectionIndex;
+    // Expected requests with a custom content matcher. They are scanned because their projection never equals the projection
+    // of a received request.
+    private final List<Expectation> scannedExpectations = new ArrayList<Expectation>();
+    private boolean projectionIndexUpToDate = false;
+    // Immutable snapshot used by getResponse. null in case it needs to be rebuilt.
+    private volatile ExpectationIndex expectationIndex;
 
     /**
      * Adds an expected HttpRequest and response proxy combination.
-     * 
+     *
      * @param request Expected http request.
      * @param responseProxy Response proxy which gives us access to http response.
      */
     protected final void addExpected(final HttpRequest request, final HttpResponseProxy responseProxy) {
-        List<HttpResponseProxy> list = requestMap.get(request);
-        if (list == null) {
-            list = new ArrayList<HttpResponseProxy>();
-            requestMap.put(request, list);
+        final HttpRequestFingerprint fingerprint = HttpRequestFingerprint.of(request);
+        synchronized (lock) {
+            Expectation expectation = requestMap.get(fingerprint);
+            if (expectation == null) {
+                expectation = new Expectation(request);
+                requestMap.put(fingerprint, expectation);
+                if (projectionIndexUpToDate && projectionIndex != null) {
+                    addToProjectionIndex(expectation);
+                }
+                expectationIndex = null;
+            }
+            expectation.add(responseProxy);
         }
-        list.add(responseProxy);
+    }
+
+    /**
+     * Initializes expected requests and responses, see {@link #lazyInitializeExpectedRequestsAndResponses()}, and builds
+     * the index used for matching. Does nothing in case this was already done.
+     * <p>
+     * This is done automatically with the first call to {@link #getResponse(HttpRequest)}. Call this method before starting
+     * {@link MockHttpServer} in case initializing takes time and the first request should not wait for it.
+     */
+    public final void init() {
+        getExpectationIndex();
     }
 
     /**
      * Override this method if you want to lazily initialize requests/responses.
      *
-     * This method will be called with the first call to {@link AbstractHttpResponseProvider#getResponse(HttpRequest)}.
+     * This method will be called with the first call to {@link AbstractHttpResponseProvider#getResponse(HttpRequest)} or
+     * {@link #init()}.
      *
      * You can initialize expected requests and responses by calling
      * {@link AbstractHttpResponseProvider#addExpected(HttpRequest, HttpResponseProxy)}.
@@ -63,42 +107,36 @@ public abstract class AbstractHttpResponseProvider implements HttpResponseProvid
      * Allows re-use for new test without having to recreate instance.
      */
     protected final void resetState() {
-        requestMap.clear();
-        unexpectedRequests.clear();
+        synchronized (lock) {
+            requestMap.clear();
+            scannedExpectations.clear();
+            unexpectedRequests.clear();
+            projectionIndexUpToDate = false;
+            expectationIndex = null;
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public final synchronized HttpResponse getResponse(final HttpRequest request) {
+    public final HttpResponse getResponse(final HttpRequest request) {
 
-        if (!initialized) {
-            lazyInitializeExpectedRequestsAndResponses();
-            initialized = true;
-        }
+        final ExpectationIndex index = getExpectationIndex();
 
-        final HttpResponseProxy responseProxyForExactMatchingRequest = getFirstNotYetConsumedResponseProxyFor(request);
-        if (responseProxyForExactMatchingRequest != null) {
-            return responseProxyForExactMatchingRequest.consume();
+        final Expectation exactMatch = index.requestMap.get(HttpRequestFingerprint.of(request));
+        if (exactMatch != null) {
+            final HttpResponseProxy responseProxyForExactMatchingRequest = exactMatch.claimNext();
+            if (responseProxyForExactMatchingRequest != null) {
+                return responseProxyForExactMatchingRequest.consume();
+            }
         }
         // Non exact matching...
-        if (requestMatcherFilter != null) {
-            for (final HttpRequest originalRequest : requestMap.keySet()) {
-                final HttpResponseProxy originalResponseProxy = getFirstNotYetConsumedResponseProxyFor(originalRequest);
-                if (originalResponseProxy == null) {
-                    continue;
-                }
-                HttpRequestMatchingContext context =
-                    new HttpRequestMatchingContextImpl(originalRequest, request, originalResponseProxy.getResponse());
-                HttpRequestMatchingFilter next = requestMatcherFilter;
-                while (next != null) {
-                    context = next.filter(context);
-                    if (context.originalRequest().equals(context.otherRequest())) {
-                        originalResponseProxy.consume();
-                        return context.response();
-                    }
-                    next = next.next();
+        if (index.requestMatcherFilter != null) {
+            for (final Expectation expectation : index.getCandidatesForNonExactMatch(request)) {
+                final HttpResponse response = match(index.requestMatcherFilter, expectation, request);
+                if (response != null) {
+                    return response;
                 }
             }
         }
@@ -110,18 +148,22 @@ public abstract class AbstractHttpResponseProvider implements HttpResponseProvid
     /**
      * Adds a {@link HttpRequestMatchingFilter} to the chain of {@link HttpRequestMatchingFilter http request matching
      * filters}.
-     * 
+     *
      * @param filter {@link HttpRequestMatchingFilter}.
      */
     public final void addHttpRequestMatchingFilter(final HttpRequestMatchingFilter filter) {
-        if (requestMatcherFilter == null) {
-            requestMatcherFilter = filter;
-        } else {
-            HttpRequestMatchingFilter matchingFilter = requestMatcherFilter;
-            while (matchingFilter.next() != null) {
-                matchingFilter = matchingFilter.next();
+        synchronized (lock) {
+            if (requestMatcherFilter == null) {
+                requestMatcherFilter = filter;
+            } else {
+                HttpRequestMatchingFilter matchingFilter = requestMatcherFilter;
+                while (matchingFilter.next() != null) {
+                    matchingFilter = matchingFilter.next();
+                }
+                matchingFilter.setNext(filter);
             }
-            matchingFilter.setNext(filter);
+            projectionIndexUpToDate = false;
+            expectationIndex = null;
         }
     }
 
@@ -131,30 +173,164 @@ public abstract class AbstractHttpResponseProvider implements HttpResponseProvid
     @Override
     public final void verify() throws UnsatisfiedExpectationException {
         final Collection<HttpRequest> missingRequests = new ArrayList<HttpRequest>();
-        for (final Entry<HttpRequest, List<HttpResponseProxy>> entry : requestMap.entrySet()) {
-            for (final HttpResponseProxy responseProxy : entry.getValue()) {
-                if (responseProxy.consumed() == false) {
-                    missingRequests.add(entry.getKey());
-                }
+        for (final Expectation expectation : getExpectationIndex().expectations) {
+            for (int pending = expectation.pending(); pending > 0; pending--) {
+                missingRequests.add(expectation.request());
             }
         }
 
         if (!unexpectedRequests.isEmpty() || !missingRequests.isEmpty()) {
-            throw new UnsatisfiedExpectationException(missingRequests, unexpectedRequests);
+            throw new UnsatisfiedExpectationException(missingRequests, new ArrayList<HttpRequest>(unexpectedRequests));
         }
 
     }
 
-    private HttpResponseProxy getFirstNotYetConsumedResponseProxyFor(final HttpRequest request) {
-        final List<HttpResponseProxy> list = requestMap.get(request);
-        if (list != null) {
-            for (final HttpResponseProxy proxy : list) {
-                if (!proxy.consumed()) {
-                    return proxy;
+    private HttpResponse match(final HttpRequestMatchingFilter firstFilter, final Expectation expectation,
+        final HttpRequest request) {
+        while (true) {
+            final int position = expectation.peek();
+            if (position < 0) {
+                return null;
+            }
+            final HttpResponseProxy originalResponseProxy = expectation.responseProxy(position);
+            // The response is only fetched in case a filter needs it or when we have a match.
+            HttpRequestMatchingContext context =
+                new HttpRequestMatchingContextImpl(expectation.request(), request, originalResponseProxy);
+            HttpRequestMatchingFilter next = firstFilter;
+            boolean matches = false;
+            while (next != null && !matches) {
+                context = next.filter(context);
+                matches = context.originalRequest().equals(context.otherRequest());
+                next = next.next();
+            }
+            if (!matches) {
+                return null;
+            }
+            if (expectation.claim(position)) {
+                final HttpResponse originalResponse = originalResponseProxy.consume();
+                if (context instanceof HttpRequestMatchingContextImpl
+                    && ((HttpRequestMatchingContextImpl)context).hasResponseOf(originalResponseProxy)) {
+                    return originalResponse;
                 }
+                return context.response();
             }
+            // Another thread claimed the response in the meanwhile. Try again with next pending response.
+        }
+    }
+
+    private ExpectationIndex getExpectationIndex() {
+        if (!initialized) {
+            synchronized (lock) {
+                if (!initialized) {
+                    lazyInitializeExpectedRequestsAndResponses();
+                    initialized = true;
+                }
+            }
+        }
+        ExpectationIndex index = expectationIndex;
+        if (index == null) {
+            synchronized (lock) {
+                index = expectationIndex;
+                if (index == null) {
+                    if (!projectionIndexUpToDate) {
+                        buildProjectionIndex();
+                    }
+                    index = new ExpectationIndex(requestMap, projectionIndex, scannedExpectations, requestMatcherFilter);
+                    expectationIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private void buildProjectionIndex() {
+        projectionIndex = null;
+        scannedExpectations.clear();
+        HttpRequestMatchingFilter next = requestMatcherFilter;
+        while (next != null) {
+            if (!(next instanceof ProjectableHttpRequestMatchingFilter)) {
+                projectionIndexUpToDate = true;
+                return;
+            }
+            next = next.next();
+        }
+        projectionIndex = new HashMap<HttpRequestFingerprint, List<Expectation>>();
+        for (final Expectation expectation : requestMap.values()) {
+            addToProjectionIndex(expectation);
+        }
+        projectionIndexUpToDate = true;
+    }
+
+    private void addToProjectionIndex(final Expectation expectation) {
+        if (HttpRequestFingerprint.hasCustomContentMatcher(expectation.request())) {
+            scannedExpectations.add(expectation);
+            return;
+        }
+        final HttpRequestFingerprint key = HttpRequestFingerprint.of(project(requestMatcherFilter, expectation.request()));
+        List<Expectation> expectations = projectionIndex.get(key);
+        if (expectations == null) {
+            expectations = new ArrayList<Expectation>();
+            projectionIndex.put(key, expectations);
+        }
+        expectations.add(expectation);
+    }
+
+    // Only to be called when all filters are projectable.
+    private static HttpRequest project(final HttpRequestMatchingFilter firstFilter, final HttpRequest request) {
+        HttpRequest projection = request;
+        HttpRequestMatchingFilter next = firstFilter;
+        while (next != null) {
+            projection = ((ProjectableHttpRequestMatchingFilter)next).project(projection);
+            next = next.next();
+        }
+        return projection;
+    }
+
+    /**
+     * Immutable snapshot of expected requests, projection index and filter chain.
+     */
+    private static final class ExpectationIndex {
+
+        private final Map<HttpRequestFingerprint, Expectation> requestMap;
+        private final List<Expectation> expectations;
+        private final Map<HttpRequestFingerprint, List<Expectation>> projectionIndex;
+        private final List<Expectation> scannedExpectations;
+        private final HttpRequestMatchingFilter requestMatcherFilter;
+
+        ExpectationIndex(final Map<HttpRequestFingerprint, Expectation> requestMap,
+            final Map<HttpRequestFingerprint, List<Expectation>> projectionIndex,
+            final List<Expectation> scannedExpectations, final HttpRequestMatchingFilter requestMatcherFilter) {
+            this.requestMap = new HashMap<HttpRequestFingerprint, Expectation>(requestMap);
+            expectations = new ArrayList<Expectation>(requestMap.values());
+            if (projectionIndex == null) {
+                this.projectionIndex = null;
+            } else {
+                this.projectionIndex = new HashMap<HttpRequestFingerprint, List<Expectation>>(projectionIndex.size());
+                for (final Entry<HttpRequestFingerprint, List<Expectation>> entry : projectionIndex.entrySet()) {
+                    this.projectionIndex.put(entry.getKey(), new ArrayList<Expectation>(entry.getValue()));
+                }
+            }
+            this.scannedExpectations = new ArrayList<Expectation>(scannedExpectations);
+            this.requestMatcherFilter = requestMatcherFilter;
+        }
+
+        Collection<Expectation> getCandidatesForNonExactMatch(final HttpRequest request) {
+            if (projectionIndex == null) {
+                return expectations;
+            }
+            final List<Expectation> candidates =
+                projectionIndex.get(HttpRequestFingerprint.of(project(requestMatcherFilter, request)));
+            if (scannedExpectations.isEmpty()) {
+                return candidates == null ? Collections.<Expectation> emptyList() : candidates;
+            }
+            if (candidates == null) {
+                return scannedExpectations;
+            }
+            final List<Expectation> all = new ArrayList<Expectation>(candidates.size() + scannedExpectations.size());
+            all.addAll(candidates);
+            all.addAll(scannedExpectations);
+            return all;
         }
-        return null;
     }
 
 }
@@ -9,7 +9,8 @@ import java.util.Set;
  * 
  * @author kristof
  */
-public class AllExceptContentTypeHeaderFilter extends AbstractHttpRequestMatchingFilter {
+public class AllExceptContentTypeHeaderFilter extends AbstractHttpRequestMatchingFilter implements
+    ProjectableHttpRequestMatchingFilter {
 
     private final static String CONTENTTYPE_HEADER_NAME = "Content-Type";
 
@@ -25,11 +26,19 @@ public class AllExceptContentTypeHeaderFilter extends AbstractHttpRequestMatchin
         final HttpRequest newOther = filter(otherRequest);
 
         if (originalRequest != newOriginal || otherRequest != newOther) {
-            return new HttpRequestMatchingContextImpl(newOriginal, newOther, context.response());
+            return new HttpRequestMatchingContextImpl(context, newOriginal, newOther);
         }
         return context;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HttpRequest project(final HttpRequest request) {
+        return filter(request);
+    }
+
     private HttpRequest filter(final HttpRequest request) {
         final Set<HttpMessageHeader> httpMessageHeaders = request.getHttpMessageHeaders();
         if (httpMessageHeaders.isEmpty()) {
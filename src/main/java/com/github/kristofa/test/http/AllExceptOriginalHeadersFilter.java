@@ -9,7 +9,8 @@ import java.util.Set;
  * 
  * @author kristof
  */
-public class AllExceptOriginalHeadersFilter extends AbstractHttpRequestMatchingFilter {
+public class AllExceptOriginalHeadersFilter extends AbstractHttpRequestMatchingFilter implements
+    ProjectableHttpRequestMatchingFilter {
 
     /**
      * {@inheritDoc}
@@ -32,11 +33,28 @@ public class AllExceptOriginalHeadersFilter extends AbstractHttpRequestMatchingF
                 otherRequestCopy.removeHttpMessageHeaders(header);
             }
 
-            return new HttpRequestMatchingContextImpl(originalRequest, otherRequestCopy, context.response());
+            return new HttpRequestMatchingContextImpl(context, originalRequest, otherRequestCopy);
 
         }
         return context;
 
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Which headers are removed depends on the original request so the projection removes all http message headers.
+     */
+    @Override
+    public HttpRequest project(final HttpRequest request) {
+        if (request.getHttpMessageHeaders().isEmpty()) {
+            return request;
+        }
+        final HttpRequestImpl copy = new HttpRequestImpl(request);
+        for (final HttpMessageHeader header : request.getHttpMessageHeaders()) {
+            copy.removeHttpMessageHeaders(header.getName());
+        }
+        return copy;
+    }
+
 }
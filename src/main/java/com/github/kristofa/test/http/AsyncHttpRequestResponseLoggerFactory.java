@@ -0,0 +1,401 @@
+package com.github.kristofa.test.http;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HttpRequestResponseLoggerFactory} that decorates another {@link HttpRequestResponseLoggerFactory} and logs
+ * requests and responses asynchronously so {@link LoggingHttpProxy} does not have to wait for them to be written.
+ * <p>
+ * Logging a request or response puts a task on a bounded queue. Dedicated writer threads take tasks from their queue in
+ * batches and pass them to the loggers of the decorated factory. All tasks of a single request/response are handled by the
+ * same writer thread, in order.
+ * <p>
+ * What happens when a queue is full depends on the {@link OverflowPolicy}.
+ * <p>
+ * {@link #flush()} waits until all queued tasks have been written. {@link #close()} flushes and stops the writer threads.
+ * After closing, requests/responses are logged on the calling thread. {@link LoggingHttpProxy#stop()} flushes the factory so
+ * all requests/responses are logged when the proxy is stopped. Close the factory once it is no longer needed so no writer
+ * threads are left behind.
+ * <p>
+ * Response entities that are streamed (see {@link StreamingHttpRequestResponseLogger}) are written on the calling thread as
+ * they arrive. Only the request is logged asynchronously in that case.
+ * <p>
+ * In case a writer thread dies, for example because it got interrupted, tasks for that writer are run on the calling thread
+ * so {@link #flush()} and {@link #close()} never wait forever.
+ *
+ * @see LoggingHttpProxy
+ * @author kristof
+ */
+public class AsyncHttpRequestResponseLoggerFactory implements HttpRequestResponseLoggerFactory, Flushable, Closeable {
+
+    /**
+     * Defines what happens when a request or response is logged while the queue is full.
+     */
+    public static enum OverflowPolicy {
+        /**
+         * Wait until there is room in the queue. Nothing is lost but the proxy slows down to the speed of the writers.
+         */
+        BLOCK,
+        /**
+         * Don't log the request. Its response is not logged either, so the recording never contains a response without
+         * request. The response of a request that was queued is never dropped, it is logged on the calling thread in case
+         * the queue is full. The proxy is hardly slowed down but the recording will be incomplete.
+         */
+        DROP,
+        /**
+         * Log the request or response on the calling thread, as if logging was synchronous. Nothing is lost and the proxy
+         * is only slowed down for the requests that don't fit in the queue.
+         */
+        SPILL
+    };
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(AsyncHttpRequestResponseLoggerFactory.class);
+
+    private static final int DEFAULT_WRITER_THREADS = 1;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long LIVENESS_CHECK_MILLIS = 100;
+
+    private final HttpRequestResponseLoggerFactory loggerFactory;
+    private final OverflowPolicy overflowPolicy;
+    private final Writer[] writers;
+    private final AtomicInteger nextWriter = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new instance with 1 writer thread, a queue capacity of 1024, batches of maximum 64 tasks and
+     * {@link OverflowPolicy#BLOCK}.
+     *
+     * @param loggerFactory Factory to which logging will be delegated. Should not be <code>null</code>.
+     */
+    public AsyncHttpRequestResponseLoggerFactory(final HttpRequestResponseLoggerFactory loggerFactory) {
+        this(loggerFactory, DEFAULT_WRITER_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param loggerFactory Factory to which logging will be delegated. Should not be <code>null</code>.
+     * @param writerThreads Number of writer threads. Should be &gt; 0.
+     * @param queueCapacity Maximum number of queued tasks per writer thread. Should be &gt; 0.
+     * @param maxBatchSize Maximum number of tasks a writer thread takes from its queue at once. Should be &gt; 0.
+     * @param overflowPolicy Defines what happens when a queue is full. Should not be <code>null</code>.
+     */
+    public AsyncHttpRequestResponseLoggerFactory(final HttpRequestResponseLoggerFactory loggerFactory,
+        final int writerThreads, final int queueCapacity, final int maxBatchSize, final OverflowPolicy overflowPolicy) {
+        Validate.notNull(loggerFactory);
+        Validate.isTrue(writerThreads > 0, "writerThreads should be > 0.");
+        Validate.isTrue(queueCapacity > 0, "queueCapacity should be > 0.");
+        Validate.isTrue(maxBatchSize > 0, "maxBatchSize should be > 0.");
+        Validate.notNull(overflowPolicy);
+        this.loggerFactory = loggerFactory;
+        this.overflowPolicy = overflowPolicy;
+        writers = new Writer[writerThreads];
+        for (int i = 0; i < writerThreads; i++) {
+            writers[i] = new Writer(i, queueCapacity, maxBatchSize);
+            writers[i].start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HttpRequestResponseLogger getHttpRequestResponseLogger() {
+        final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+        final Writer writer = writers[Math.abs(nextWriter.getAndIncrement() % writers.length)];
+        if (logger instanceof StreamingHttpRequestResponseLogger) {
+            return new AsyncStreamingLogger((StreamingHttpRequestResponseLogger)logger, writer);
+        }
+        return new AsyncLogger(logger, writer);
+    }
+
+    /**
+     * Gets the number of requests and responses that have not been logged because of {@link OverflowPolicy#DROP}. A dropped
+     * request and its response count as 2.
+     *
+     * @return Number of dropped requests and responses.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Waits until all requests and responses that have been queued before calling this method are logged.
+     *
+     * @throws IOException In case we got interrupted while waiting.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(writers.length);
+        for (final Writer writer : writers) {
+            writer.put(new Runnable() {
+
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+        try {
+            while (!latch.await(LIVENESS_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                for (final Writer writer : writers) {
+                    writer.runQueuedTasksIfDead();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing logs.");
+        }
+    }
+
+    /**
+     * Flushes and stops writer threads. Requests and responses that are logged afterwards are logged on the calling thread.
+     *
+     * @throws IOException In case we got interrupted while waiting for writer threads to stop.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        for (final Writer writer : writers) {
+            writer.put(Writer.STOP);
+        }
+        try {
+            for (final Writer writer : writers) {
+                writer.join();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing.");
+        }
+    }
+
+    /**
+     * Submits a task to given writer.
+     *
+     * @return <code>false</code> in case the task was dropped, <code>true</code> otherwise.
+     */
+    private boolean submit(final Writer writer, final Runnable task, final boolean droppable) {
+        if (closed) {
+            task.run();
+            return true;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                writer.put(task);
+                return true;
+            case DROP:
+                if (!writer.offer(task)) {
+                    if (!droppable) {
+                        task.run();
+                        return true;
+                    }
+                    countDropped();
+                    return false;
+                }
+                return true;
+            case SPILL:
+                if (!writer.offer(task)) {
+                    task.run();
+                }
+                return true;
+            default:
+                throw new IllegalStateException("Unsupported overflow policy: " + overflowPolicy);
+        }
+    }
+
+    private void countDropped() {
+        if (dropped.incrementAndGet() == 1) {
+            LOGGER.warn("Logging queue full. Dropping requests/responses.");
+        }
+    }
+
+    private class AsyncLogger implements HttpRequestResponseLogger {
+
+        private final HttpRequestResponseLogger logger;
+        private final Writer writer;
+        // Set in case the request was dropped, its response is dropped as well.
+        volatile boolean requestDropped = false;
+
+        AsyncLogger(final HttpRequestResponseLogger logger, final Writer writer) {
+            this.logger = logger;
+            this.writer = writer;
+        }
+
+        @Override
+        public void log(final HttpRequest request) {
+            requestDropped = !submit(writer, new Runnable() {
+
+                @Override
+                public void run() {
+                    logger.log(request);
+                }
+            }, true);
+        }
+
+        @Override
+        public void log(final HttpResponse response) {
+            if (requestDropped) {
+                countDropped();
+                return;
+            }
+            submit(writer, new Runnable() {
+
+                @Override
+                public void run() {
+                    logger.log(response);
+                }
+            }, false);
+        }
+    }
+
+    private class AsyncStreamingLogger extends AsyncLogger implements StreamingHttpRequestResponseLogger {
+
+        private final StreamingHttpRequestResponseLogger logger;
+
+        AsyncStreamingLogger(final StreamingHttpRequestResponseLogger logger, final Writer writer) {
+            super(logger, writer);
+            this.logger = logger;
+        }
+
+        @Override
+        public OutputStream logResponse(final int httpCode, final String contentType) throws IOException {
+            if (requestDropped) {
+                countDropped();
+                return new NullOutputStream();
+            }
+            return logger.logResponse(httpCode, contentType);
+        }
+
+        @Override
+        public void abortResponse() {
+            if (!requestDropped) {
+                logger.abortResponse();
+            }
+        }
+    }
+
+    private static class Writer extends Thread {
+
+        static final Runnable STOP = new Runnable() {
+
+            @Override
+            public void run() {
+                // Marker.
+            }
+        };
+
+        private final BlockingQueue<Runnable> queue;
+        private final int maxBatchSize;
+
+        Writer(final int index, final int queueCapacity, final int maxBatchSize) {
+            super("AsyncHttpRequestResponseLogger-" + index);
+            setDaemon(true);
+            queue = new ArrayBlockingQueue<Runnable>(queueCapacity);
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        void put(final Runnable task) {
+            try {
+                while (!queue.offer(task, LIVENESS_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (!isAlive()) {
+                        runQueuedTasksIfDead();
+                        execute(task);
+                        return;
+                    }
+                }
+                // Writer might have died after we queued the task.
+                runQueuedTasksIfDead();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Don't lose the log.
+                task.run();
+            }
+        }
+
+        boolean offer(final Runnable task) {
+            if (!queue.offer(task)) {
+                return false;
+            }
+            runQueuedTasksIfDead();
+            return true;
+        }
+
+        /**
+         * Runs queued tasks on the calling thread in case this writer thread is no longer running.
+         */
+        void runQueuedTasksIfDead() {
+            if (!isAlive()) {
+                Runnable task;
+                while ((task = queue.poll()) != null) {
+                    if (task != STOP) {
+                        execute(task);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<Runnable> batch = new ArrayList<Runnable>(maxBatchSize);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    boolean stop = false;
+                    for (final Runnable task : batch) {
+                        if (task == STOP) {
+                            stop = true;
+                        } else {
+                            execute(task);
+                        }
+                    }
+                    batch.clear();
+                    if (stop) {
+                        // Tasks that were queued while closing.
+                        Runnable task;
+                        while ((task = queue.poll()) != null) {
+                            execute(task);
+                        }
+                        return;
+                    }
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.error("Interrupted. Stop writing logs. Remaining logs are written by the threads that log them.", e);
+            }
+        }
+
+        private void execute(final Runnable task) {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                LOGGER.error("Exception when logging request/response.", e);
+            }
+        }
+    }
+
+}
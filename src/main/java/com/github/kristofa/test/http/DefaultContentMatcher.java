@@ -2,9 +2,6 @@ package com.github.kristofa.test.http;
 
 import java.util.Arrays;
 
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
 /**
  * Simple {@link ContentMatcher} around byte[] which will do an equals on the byte[] as is.
  * 
@@ -44,8 +41,16 @@ class DefaultContentMatcher extends ContentMatcher {
      */
     @Override
     public boolean equals(final Object obj) {
-
-        return EqualsBuilder.reflectionEquals(this, obj, false);
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof DigestContentMatcher) {
+            return obj.equals(this);
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return Arrays.equals(content, ((DefaultContentMatcher)obj).content);
     }
 
     /**
@@ -53,7 +58,7 @@ class DefaultContentMatcher extends ContentMatcher {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, false);
+        return Arrays.hashCode(content);
     }
 
     /**
@@ -8,6 +8,8 @@ package com.github.kristofa.test.http;
  */
 public class DefaultHttpResponseProvider extends AbstractHttpResponseProvider {
 
+    private boolean preEncodeResponses = false;
+
     /**
      * Creates a new instance.
      * 
@@ -27,11 +29,25 @@ public class DefaultHttpResponseProvider extends AbstractHttpResponseProvider {
      * Sets a new request/response.
      * 
      * @param request HttpRequest.
-     * @param response Response that should be returned for given request.
+     * @param response Response that should be returned for given request. Wrap it in a {@link DelayedHttpResponse} to
+     *            simulate a slow service or in a {@link ThrottledHttpResponse} to simulate a slow network.
      */
     public void set(final HttpRequest request, final HttpResponse response) {
 
-        addExpected(request, new DefaultHttpResponseProxy(response));
+        final HttpResponse expectedResponse = preEncodeResponses ? MappedHttpResponse.preEncode(response) : response;
+        addExpected(request, new DefaultHttpResponseProxy(expectedResponse));
+    }
+
+    /**
+     * Enables or disables pre-encoding of response bodies. In case it is enabled the content of responses that are set
+     * afterwards is encoded once into a buffer, see {@link MappedHttpResponse#preEncode(HttpResponse)}, so serving them
+     * does not copy or allocate the content again. {@link #getResponse(HttpRequest)} returns a {@link MappedHttpResponse}
+     * instead of the response that was set in that case. Disabled by default.
+     * 
+     * @param preEncodeResponses <code>true</code> to pre-encode response bodies.
+     */
+    public void setPreEncodeResponses(final boolean preEncodeResponses) {
+        this.preEncodeResponses = preEncodeResponses;
     }
     
     /**
@@ -0,0 +1,82 @@
+package com.github.kristofa.test.http;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link HttpResponse} that {@link MockHttpServer} sends after a {@link ResponseDelay}.
+ * <p>
+ * The delay is waited for on a timer wheel shared by all requests. The thread that handles the request returns immediately
+ * and the response is completed by a small pool of responder threads when the delay expires, so delayed requests don't
+ * occupy worker threads.
+ *
+ * @author kristof
+ */
+public class DelayedHttpResponse implements HttpResponse {
+
+    private final HttpResponse response;
+    private final ResponseDelay delay;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param response Response to send after the delay. Should not be <code>null</code>.
+     * @param delay Delay. Should not be <code>null</code>.
+     */
+    public DelayedHttpResponse(final HttpResponse response, final ResponseDelay delay) {
+        Validate.notNull(response);
+        Validate.notNull(delay);
+        this.response = response;
+        this.delay = delay;
+    }
+
+    /**
+     * Gets the response that is sent after the delay.
+     *
+     * @return Response.
+     */
+    public HttpResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Gets the delay.
+     *
+     * @return Delay.
+     */
+    public ResponseDelay getDelay() {
+        return delay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHttpCode() {
+        return response.getHttpCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentType() {
+        return response.getContentType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getContent() {
+        return response.getContent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return response + ", Delay: " + delay;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.github.kristofa.test.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * {@link ContentMatcher} that does not keep content in memory but only its length and a SHA-256 digest. Content is compared
+ * by digest. Useful for replaying recordings with large request entities, see
+ * {@link com.github.kristofa.test.http.file.FileHttpResponseProvider#setDigestRequestEntities(boolean)}.
+ * <p>
+ * A DigestContentMatcher is equal to a default content matcher with the same content so expected requests that use it
+ * still match incoming requests. It has the same hash code as well.
+ * <p>
+ * In case a content file is given, {@link #getContent()} reads the content from that file on demand, for example to report
+ * unsatisfied expectations. Without content file {@link #getContent()} returns <code>null</code>.
+ * 
+ * @see HttpRequestImpl#contentMatcher(ContentMatcher)
+ * @author kristof
+ */
+public class DigestContentMatcher extends ContentMatcher {
+
+    private final File contentFile;
+    // -1 in case we have no content.
+    private int length = -1;
+    private byte[] digest;
+    // Same as Arrays.hashCode(content) so we have same hash code as DefaultContentMatcher.
+    private int contentHashCode;
+
+    /**
+     * Creates a new instance without content file.
+     */
+    public DigestContentMatcher() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param contentFile File that contains the content. Is only read on request by {@link #getContent()}. Can be
+     *            <code>null</code>.
+     */
+    public DigestContentMatcher(final File contentFile) {
+        this.contentFile = contentFile;
+    }
+
+    /**
+     * Gets content from content file.
+     * 
+     * @return Content or <code>null</code> in case there is no content or no content file.
+     */
+    @Override
+    public byte[] getContent() {
+        if (length == -1 || contentFile == null) {
+            return null;
+        }
+        try {
+            return FileUtils.readFileToByteArray(contentFile);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Calculates length, digest and hash code of content. The content itself is not kept.
+     * 
+     * @param content Content.
+     */
+    @Override
+    public void setContent(final byte[] content) {
+        if (content == null) {
+            length = -1;
+            digest = null;
+            contentHashCode = 0;
+        } else {
+            length = content.length;
+            digest = HttpRequestFingerprint.digest(content);
+            contentHashCode = Arrays.hashCode(content);
+        }
+    }
+
+    /**
+     * Gets the content length.
+     * 
+     * @return Content length or -1 in case there is no content.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets SHA-256 digest of content.
+     * 
+     * @return Digest or <code>null</code> in case there is no content.
+     */
+    byte[] digest() {
+        return digest;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof DigestContentMatcher) {
+            final DigestContentMatcher other = (DigestContentMatcher)obj;
+            return length == other.length && Arrays.equals(digest, other.digest);
+        }
+        if (obj instanceof DefaultContentMatcher) {
+            final byte[] otherContent = ((DefaultContentMatcher)obj).getContent();
+            if (otherContent == null) {
+                return length == -1;
+            }
+            return length == otherContent.length && contentHashCode == Arrays.hashCode(otherContent)
+                && Arrays.equals(digest, HttpRequestFingerprint.digest(otherContent));
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return contentHashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContentMatcher copy() {
+        // Digest is never modified so it can be shared.
+        final DigestContentMatcher copy = new DigestContentMatcher(contentFile);
+        copy.length = length;
+        copy.digest = digest;
+        copy.contentHashCode = contentHashCode;
+        return copy;
+    }
+
+}
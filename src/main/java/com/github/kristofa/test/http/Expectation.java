@@ -0,0 +1,129 @@
+package com.github.kristofa.test.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Expected {@link HttpRequest} together with the {@link HttpResponseProxy response proxies} that should be returned for it,
+ * in the order they were added.
+ * <p>
+ * Response proxies are claimed through an atomic consumption cursor. Concurrent lookups will never hand out the same
+ * response proxy twice and repeated requests get their responses in the order in which they were added. Claiming the next
+ * response and getting the number of pending responses take constant time, independent of how many responses were added
+ * for the same request. Claiming is lock free. Adding response proxies is not thread safe towards other writers and should
+ * be guarded by the caller.
+ *
+ * @see AbstractHttpResponseProvider
+ * @author kristof
+ */
+final class Expectation {
+
+    private static final int NOTHING_PENDING = -1;
+
+    private final HttpRequest request;
+    private volatile HttpResponseProxy[] responseProxies = new HttpResponseProxy[1];
+    private volatile int size = 0;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param request Expected request. Should not be <code>null</code>.
+     */
+    Expectation(final HttpRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Gets expected request.
+     *
+     * @return Expected request.
+     */
+    HttpRequest request() {
+        return request;
+    }
+
+    /**
+     * Adds a response proxy. Callers should make sure there is only 1 thread adding response proxies at the same time.
+     *
+     * @param responseProxy Response proxy. Should not be <code>null</code>.
+     */
+    void add(final HttpResponseProxy responseProxy) {
+        HttpResponseProxy[] proxies = responseProxies;
+        if (size == proxies.length) {
+            final HttpResponseProxy[] newProxies = new HttpResponseProxy[proxies.length * 2];
+            System.arraycopy(proxies, 0, newProxies, 0, size);
+            responseProxies = newProxies;
+            proxies = newProxies;
+        }
+        proxies[size] = responseProxy;
+        // Publish after the proxy has been stored so readers that see the new size also see the proxy.
+        size = size + 1;
+    }
+
+    /**
+     * Gets the position of the first response proxy that has not been claimed yet.
+     *
+     * @return Position or -1 in case all response proxies have been claimed.
+     */
+    int peek() {
+        final int position = cursor.get();
+        return position < size ? position : NOTHING_PENDING;
+    }
+
+    /**
+     * Gets response proxy at given position.
+     *
+     * @param position Position as returned by {@link #peek()}.
+     * @return Response proxy.
+     */
+    HttpResponseProxy responseProxy(final int position) {
+        return responseProxies[position];
+    }
+
+    /**
+     * Claims the response proxy at given position.
+     *
+     * @param position Position as returned by {@link #peek()}.
+     * @return <code>true</code> in case we claimed the response proxy, <code>false</code> in case another thread claimed it
+     *         first.
+     */
+    boolean claim(final int position) {
+        return cursor.compareAndSet(position, position + 1);
+    }
+
+    /**
+     * Claims the first response proxy that has not been claimed yet.
+     *
+     * @return Claimed response proxy or <code>null</code> in case all response proxies have been claimed.
+     */
+    HttpResponseProxy claimNext() {
+        while (true) {
+            final int position = peek();
+            if (position == NOTHING_PENDING) {
+                return null;
+            }
+            if (claim(position)) {
+                return responseProxy(position);
+            }
+        }
+    }
+
+    /**
+     * Gets number of response proxies.
+     *
+     * @return Number of response proxies.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets number of response proxies that have not been claimed yet.
+     *
+     * @return Number of pending response proxies.
+     */
+    int pending() {
+        return Math.max(0, size - cursor.get());
+    }
+
+}
@@ -5,8 +5,6 @@ import java.net.URISyntaxException;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import static org.apache.http.HttpHeaders.HOST;
 
@@ -245,7 +243,9 @@ public final class FullHttpRequestImpl implements FullHttpRequest {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, false);
+        int hash = httpRequest.hashCode();
+        hash = 31 * hash + (domain == null ? 0 : domain.hashCode());
+        return 31 * hash + (port == null ? 0 : port.hashCode());
     }
 
     /**
@@ -253,7 +253,15 @@ public final class FullHttpRequestImpl implements FullHttpRequest {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, false);
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FullHttpRequestImpl)) {
+            return false;
+        }
+        final FullHttpRequestImpl other = (FullHttpRequestImpl)obj;
+        return (domain == null ? other.domain == null : domain.equals(other.domain))
+            && (port == null ? other.port == null : port.equals(other.port)) && httpRequest.equals(other.httpRequest);
     }
 
     private String add(final String value, final Object object) {
@@ -0,0 +1,198 @@
+package com.github.kristofa.test.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link HttpResponse} of which the content is stored gzip compressed in a {@link ByteBuffer}, for example a memory mapped
+ * compressed entity file.
+ * <p>
+ * {@link MockHttpServer} writes the compressed content from {@link #getCompressedContentBuffer()} as is, with
+ * header Content-Encoding: gzip, in case the request contains header Accept-Encoding with gzip. Otherwise it writes
+ * the uncompressed content. Both are sent with header Vary: Accept-Encoding. {@link #getContent()} decompresses the
+ * content with each call.
+ * 
+ * @author kristof
+ */
+public class GzipHttpResponse implements HttpResponse {
+
+    /**
+     * Content encoding of compressed content.
+     */
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int httpCode;
+    private final String contentType;
+    private final ByteBuffer compressedContent;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param httpCode http response code.
+     * @param contentType Content type, can be <code>null</code>.
+     * @param compressedContent Gzip compressed content, can be <code>null</code>. The content is the remaining part of
+     *            the buffer. Should not be modified afterwards.
+     */
+    public GzipHttpResponse(final int httpCode, final String contentType, final ByteBuffer compressedContent) {
+        this.httpCode = httpCode;
+        this.contentType = contentType;
+        this.compressedContent = compressedContent == null ? null : compressedContent.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHttpCode() {
+        return httpCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decompresses the content with each call. Use {@link #getCompressedContentBuffer()} to avoid that.
+     */
+    @Override
+    public byte[] getContent() {
+        if (compressedContent == null) {
+            return null;
+        }
+        try {
+            final InputStream input = new GZIPInputStream(new ByteBufferInputStream(compressedContent.duplicate()));
+            try {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream(compressedContent.capacity() * 4);
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+                return output.toByteArray();
+            } finally {
+                input.close();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Invalid gzip content.", e);
+        }
+    }
+
+    /**
+     * Gets the compressed content without copying it. Each call returns a new read-only buffer so callers can consume
+     * it independently.
+     * 
+     * @return Compressed content or <code>null</code> in case there is no content.
+     */
+    public ByteBuffer getCompressedContentBuffer() {
+        return compressedContent == null ? null : compressedContent.duplicate();
+    }
+
+    /**
+     * Checks if given request accepts gzip content encoding, based on its Accept-Encoding headers.
+     * 
+     * @param request Http request.
+     * @return <code>true</code> in case gzip is accepted.
+     */
+    public static boolean acceptsGzip(final HttpRequest request) {
+        for (final HttpMessageHeader header : request.getHttpMessageHeaders()) {
+            if (!"Accept-Encoding".equalsIgnoreCase(header.getName())) {
+                continue;
+            }
+            for (final String coding : header.getValue().split(",")) {
+                final String[] parameters = coding.split(";");
+                final String name = parameters[0].trim();
+                if ((GZIP.equalsIgnoreCase(name) || "*".equals(name)) && !zeroQuality(parameters)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean zeroQuality(final String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            final String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim()) == 0;
+                } catch (final NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Http code: " + getHttpCode() + ", Content Type: " + (getContentType() == null ? "null" : getContentType())
+            + ", Content: " + (compressedContent == null ? "null" : new String(getContent()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = httpCode;
+        hash = 31 * hash + (contentType == null ? 0 : contentType.hashCode());
+        return 31 * hash + (compressedContent == null ? 0 : compressedContent.hashCode());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final GzipHttpResponse other = (GzipHttpResponse)obj;
+        return httpCode == other.httpCode
+            && (contentType == null ? other.contentType == null : contentType.equals(other.contentType))
+            && (compressedContent == null ? other.compressedContent == null : compressedContent
+                .equals(other.compressedContent));
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+
+}
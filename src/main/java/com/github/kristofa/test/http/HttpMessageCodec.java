@@ -0,0 +1,149 @@
+package com.github.kristofa.test.http;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of {@link HttpRequest http requests} and {@link HttpResponse http responses}, used by the binary
+ * recording formats.
+ * <p>
+ * Request: method, path, number of headers, headers (name, value), number of query parameters, query parameters (key,
+ * value), content. Response: http code (int), content type, content.
+ * <p>
+ * Strings and content are written as length (int, -1 for <code>null</code>) followed by the bytes. Strings are encoded in
+ * UTF-8. Unlike {@link DataOutput#writeUTF(String)} this supports strings of more than 64 KB, for example long header
+ * values or paths.
+ * <p>
+ * Lengths and counts are read from the input, so the read methods take the number of bytes the input holds at most. A
+ * length or count that can't fit in it means the input is corrupt and results in an {@link IOException} instead of a huge
+ * allocation.
+ * 
+ * @author kristof
+ */
+public final class HttpMessageCodec {
+
+    private static final String UTF_8 = "UTF-8";
+
+    private HttpMessageCodec() {
+        // Utility class.
+    }
+
+    /**
+     * Writes a request.
+     * 
+     * @param output Output.
+     * @param request Request.
+     * @throws IOException In case writing fails.
+     */
+    public static void write(final DataOutput output, final HttpRequest request) throws IOException {
+        writeString(output, request.getMethod() == null ? null : request.getMethod().name());
+        writeString(output, request.getPath());
+        output.writeInt(request.getHttpMessageHeaders().size());
+        for (final HttpMessageHeader header : request.getHttpMessageHeaders()) {
+            writeString(output, header.getName());
+            writeString(output, header.getValue());
+        }
+        output.writeInt(request.getQueryParameters().size());
+        for (final QueryParameter parameter : request.getQueryParameters()) {
+            writeString(output, parameter.getKey());
+            writeString(output, parameter.getValue());
+        }
+        writeContent(output, request.getContent());
+    }
+
+    /**
+     * Reads a request written by {@link #write(DataOutput, HttpRequest)}.
+     * 
+     * @param input Input.
+     * @param maxBytes Maximum number of bytes that can be read from input, for example the size of the file it reads.
+     * @return Request.
+     * @throws IOException In case reading fails or the input is corrupt.
+     */
+    public static HttpRequestImpl readRequest(final DataInput input, final long maxBytes) throws IOException {
+        final HttpRequestImpl request = new HttpRequestImpl();
+        final String method = readString(input, maxBytes);
+        if (method != null) {
+            request.method(Method.valueOf(method));
+        }
+        request.path(readString(input, maxBytes));
+        final int headers = readCount(input, maxBytes);
+        for (int i = 0; i < headers; i++) {
+            request.httpMessageHeader(readString(input, maxBytes), readString(input, maxBytes));
+        }
+        final int parameters = readCount(input, maxBytes);
+        for (int i = 0; i < parameters; i++) {
+            request.queryParameter(readString(input, maxBytes), readString(input, maxBytes));
+        }
+        request.content(readContent(input, maxBytes));
+        return request;
+    }
+
+    /**
+     * Writes a response.
+     * 
+     * @param output Output.
+     * @param response Response.
+     * @throws IOException In case writing fails.
+     */
+    public static void write(final DataOutput output, final HttpResponse response) throws IOException {
+        output.writeInt(response.getHttpCode());
+        writeString(output, response.getContentType());
+        writeContent(output, response.getContent());
+    }
+
+    /**
+     * Reads a response written by {@link #write(DataOutput, HttpResponse)}.
+     * 
+     * @param input Input.
+     * @param maxBytes Maximum number of bytes that can be read from input, for example the size of the file it reads.
+     * @return Response.
+     * @throws IOException In case reading fails or the input is corrupt.
+     */
+    public static HttpResponseImpl readResponse(final DataInput input, final long maxBytes) throws IOException {
+        final int httpCode = input.readInt();
+        final String contentType = readString(input, maxBytes);
+        return new HttpResponseImpl(httpCode, contentType, readContent(input, maxBytes));
+    }
+
+    private static void writeString(final DataOutput output, final String value) throws IOException {
+        writeContent(output, value == null ? null : value.getBytes(UTF_8));
+    }
+
+    private static String readString(final DataInput input, final long maxBytes) throws IOException {
+        final byte[] bytes = readContent(input, maxBytes);
+        return bytes == null ? null : new String(bytes, UTF_8);
+    }
+
+    private static void writeContent(final DataOutput output, final byte[] content) throws IOException {
+        if (content == null) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(content.length);
+            output.write(content);
+        }
+    }
+
+    private static byte[] readContent(final DataInput input, final long maxBytes) throws IOException {
+        final int length = input.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > maxBytes) {
+            throw new IOException("Corrupt input, invalid length: " + length);
+        }
+        final byte[] content = new byte[length];
+        input.readFully(content);
+        return content;
+    }
+
+    // Each header or query parameter takes at least 2 lengths of 4 bytes.
+    private static int readCount(final DataInput input, final long maxBytes) throws IOException {
+        final int count = input.readInt();
+        if (count < 0 || count > maxBytes / 8) {
+            throw new IOException("Corrupt input, invalid count: " + count);
+        }
+        return count;
+    }
+
+}
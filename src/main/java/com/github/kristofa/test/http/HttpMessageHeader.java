@@ -1,8 +1,6 @@
 package com.github.kristofa.test.http;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 /**
  * Represents http message header entry.
@@ -13,6 +11,7 @@ public class HttpMessageHeader implements Comparable<HttpMessageHeader> {
 
     private final String name;
     private final String value;
+    private final int hashCode;
 
     /**
      * Create a new header entry instance.
@@ -26,6 +25,7 @@ public class HttpMessageHeader implements Comparable<HttpMessageHeader> {
 
         this.name = name;
         this.value = value;
+        hashCode = 31 * name.hashCode() + value.hashCode();
     }
 
     /**
@@ -51,7 +51,7 @@ public class HttpMessageHeader implements Comparable<HttpMessageHeader> {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, false);
+        return hashCode;
     }
 
     /**
@@ -59,7 +59,14 @@ public class HttpMessageHeader implements Comparable<HttpMessageHeader> {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, false);
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final HttpMessageHeader other = (HttpMessageHeader)obj;
+        return hashCode == other.hashCode && name.equals(other.name) && value.equals(other.value);
     }
 
     /**
@@ -0,0 +1,192 @@
+package com.github.kristofa.test.http;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Immutable fingerprint of a {@link HttpRequest}. Contains method, path, sorted http message headers, sorted query
+ * parameters and a digest of the content.
+ * <p>
+ * A fingerprint is calculated once and has a precomputed hash code so it can be used as key in hash based lookups. Two
+ * fingerprints are equal when the requests they were created from are equal.
+ * <p>
+ * In case a {@link HttpRequestImpl} uses a custom {@link ContentMatcher} the fingerprint will use that content matcher for
+ * equals/hashcode instead of a content digest. A {@link DigestContentMatcher} is treated as default content matcher: its
+ * digest is used.
+ *
+ * @see AbstractHttpResponseProvider
+ * @author kristof
+ */
+final class HttpRequestFingerprint {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String[] EMPTY = new String[0];
+
+    private final Method method;
+    private final String path;
+    private final String[] httpMessageHeaders;
+    private final String[] queryParameters;
+    private final Object content;
+    private final int hashCode;
+
+    private HttpRequestFingerprint(final Method method, final String path, final String[] httpMessageHeaders,
+        final String[] queryParameters, final Object content) {
+        this.method = method;
+        this.path = path;
+        this.httpMessageHeaders = httpMessageHeaders;
+        this.queryParameters = queryParameters;
+        this.content = content;
+
+        int hash = 17;
+        hash = 31 * hash + (method == null ? 0 : method.hashCode());
+        hash = 31 * hash + (path == null ? 0 : path.hashCode());
+        hash = 31 * hash + Arrays.hashCode(httpMessageHeaders);
+        hash = 31 * hash + Arrays.hashCode(queryParameters);
+        hash = 31 * hash + (content == null ? 0 : content.hashCode());
+        hashCode = hash;
+    }
+
+    /**
+     * Creates fingerprint for given request.
+     *
+     * @param request Http request. Should not be <code>null</code>.
+     * @return Fingerprint for request.
+     */
+    static HttpRequestFingerprint of(final HttpRequest request) {
+        return new HttpRequestFingerprint(request.getMethod(), request.getPath(), headers(request.getHttpMessageHeaders()),
+            queryParameters(request.getQueryParameters()), content(request));
+    }
+
+    /**
+     * Indicates if given request uses a custom {@link ContentMatcher}. Fingerprints of such requests only equal fingerprints
+     * of requests with an equal content matcher, never fingerprints of received requests, so they can't be looked up by
+     * fingerprint.
+     *
+     * @param request Http request. Should not be <code>null</code>.
+     * @return <code>true</code> in case request uses a content matcher other than the default or digest content matcher.
+     */
+    static boolean hasCustomContentMatcher(final HttpRequest request) {
+        if (!(request instanceof HttpRequestImpl)) {
+            return false;
+        }
+        final ContentMatcher contentMatcher = ((HttpRequestImpl)request).contentMatcher();
+        return contentMatcher != null && !(contentMatcher instanceof DefaultContentMatcher)
+            && !(contentMatcher instanceof DigestContentMatcher);
+    }
+
+    /**
+     * Calculates digest for given content.
+     *
+     * @param content Content. Should not be <code>null</code>.
+     * @return Digest.
+     */
+    static byte[] digest(final byte[] content) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HttpRequestFingerprint)) {
+            return false;
+        }
+        final HttpRequestFingerprint other = (HttpRequestFingerprint)obj;
+        return hashCode == other.hashCode && method == other.method && equal(path, other.path)
+            && Arrays.equals(httpMessageHeaders, other.httpMessageHeaders)
+            && Arrays.equals(queryParameters, other.queryParameters) && equal(content, other.content);
+    }
+
+    private static boolean equal(final Object o1, final Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    private static String[] headers(final Set<HttpMessageHeader> headers) {
+        if (headers.isEmpty()) {
+            return EMPTY;
+        }
+        // Http message headers are kept in a sorted set so we get them in a deterministic order.
+        final String[] array = new String[headers.size() * 2];
+        int index = 0;
+        for (final HttpMessageHeader header : headers) {
+            array[index++] = header.getName();
+            array[index++] = header.getValue();
+        }
+        return array;
+    }
+
+    private static String[] queryParameters(final Set<QueryParameter> parameters) {
+        if (parameters.isEmpty()) {
+            return EMPTY;
+        }
+        // Query parameters are kept in a sorted set so we get them in a deterministic order.
+        final String[] array = new String[parameters.size() * 2];
+        int index = 0;
+        for (final QueryParameter parameter : parameters) {
+            array[index++] = parameter.getKey();
+            array[index++] = parameter.getValue();
+        }
+        return array;
+    }
+
+    private static Object content(final HttpRequest request) {
+        byte[] content;
+        if (request instanceof HttpRequestImpl) {
+            final ContentMatcher contentMatcher = ((HttpRequestImpl)request).contentMatcher();
+            if (contentMatcher == null) {
+                return null;
+            }
+            if (contentMatcher instanceof DigestContentMatcher) {
+                final byte[] digest = ((DigestContentMatcher)contentMatcher).digest();
+                return digest == null ? null : new ContentDigest(digest);
+            }
+            if (!(contentMatcher instanceof DefaultContentMatcher)) {
+                return contentMatcher;
+            }
+            content = contentMatcher.getContent();
+        } else {
+            content = request.getContent();
+        }
+        return content == null ? null : new ContentDigest(digest(content));
+    }
+
+    private static final class ContentDigest {
+
+        private final byte[] digest;
+        private final int hashCode;
+
+        ContentDigest(final byte[] digest) {
+            this.digest = digest;
+            hashCode = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof ContentDigest && Arrays.equals(digest, ((ContentDigest)obj).digest);
+        }
+    }
+
+}
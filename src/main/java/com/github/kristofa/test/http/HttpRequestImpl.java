@@ -8,8 +8,6 @@ import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 public class HttpRequestImpl implements HttpRequest {
 
@@ -20,6 +18,9 @@ public class HttpRequestImpl implements HttpRequest {
     private String path;
     private final Set<QueryParameter> queryParameters = new TreeSet<QueryParameter>();
     private final Set<HttpMessageHeader> httpMessageHeaders = new TreeSet<HttpMessageHeader>();
+    // Cached hash code of method, path, query parameters and http message headers. 0 means not calculated. Content is not
+    // cached as a ContentMatcher can be changed without us knowing.
+    private int hashCode;
 
     /**
      * Creates a new unintialized instance.
@@ -68,6 +69,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public HttpRequestImpl method(final Method method) {
         this.method = method;
+        hashCode = 0;
         return this;
     }
 
@@ -116,6 +118,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public HttpRequestImpl path(final String path) {
         this.path = path;
+        hashCode = 0;
         return this;
     }
 
@@ -128,6 +131,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public HttpRequestImpl queryParameter(final String key, final String value) {
         queryParameters.add(new QueryParameter(key, value));
+        hashCode = 0;
         return this;
     }
 
@@ -140,6 +144,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public HttpRequestImpl removeQueryParameter(final String key, final String value) {
         queryParameters.remove(new QueryParameter(key, value));
+        hashCode = 0;
         return this;
     }
 
@@ -158,6 +163,7 @@ public class HttpRequestImpl implements HttpRequest {
             }
         }
         queryParameters.removeAll(toRemove);
+        hashCode = 0;
         return this;
     }
 
@@ -170,6 +176,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public HttpRequestImpl httpMessageHeader(final String name, final String value) {
         httpMessageHeaders.add(new HttpMessageHeader(name, value));
+        hashCode = 0;
         return this;
     }
 
@@ -182,6 +189,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public HttpRequestImpl removeHttpMessageHeader(final String name, final String value) {
         httpMessageHeaders.remove(new HttpMessageHeader(name, value));
+        hashCode = 0;
         return this;
     }
 
@@ -201,6 +209,7 @@ public class HttpRequestImpl implements HttpRequest {
         }
 
         httpMessageHeaders.removeAll(toRemove);
+        hashCode = 0;
         return this;
     }
 
@@ -227,6 +236,15 @@ public class HttpRequestImpl implements HttpRequest {
         return Arrays.copyOf(content, content.length);
     }
 
+    /**
+     * Gets the {@link ContentMatcher} used by this request.
+     *
+     * @return Content matcher. Can be <code>null</code>.
+     */
+    ContentMatcher contentMatcher() {
+        return contentMatcher;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -286,8 +304,7 @@ public class HttpRequestImpl implements HttpRequest {
      */
     @Override
     public int hashCode() {
-
-        return HashCodeBuilder.reflectionHashCode(this, false);
+        return 31 * structureHashCode() + (contentMatcher == null ? 0 : contentMatcher.hashCode());
     }
 
     /**
@@ -295,7 +312,19 @@ public class HttpRequestImpl implements HttpRequest {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, false);
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final HttpRequestImpl other = (HttpRequestImpl)obj;
+        if (structureHashCode() != other.structureHashCode()) {
+            return false;
+        }
+        return method == other.method && (path == null ? other.path == null : path.equals(other.path))
+            && queryParameters.equals(other.queryParameters) && httpMessageHeaders.equals(other.httpMessageHeaders)
+            && (contentMatcher == null ? other.contentMatcher == null : contentMatcher.equals(other.contentMatcher));
     }
 
     @Override
@@ -317,6 +346,18 @@ public class HttpRequestImpl implements HttpRequest {
         return StringUtils.join(array, "\n");
     }
 
+    private int structureHashCode() {
+        int hash = hashCode;
+        if (hash == 0) {
+            hash = method == null ? 0 : method.hashCode();
+            hash = 31 * hash + (path == null ? 0 : path.hashCode());
+            hash = 31 * hash + queryParameters.hashCode();
+            hash = 31 * hash + httpMessageHeaders.hashCode();
+            hashCode = hash;
+        }
+        return hash;
+    }
+
     private String add(final String value, final Object object) {
         if (object != null) {
             return value + object;
@@ -30,6 +30,10 @@ public interface HttpRequestMatchingContext {
 
     /**
      * Initial response which can have been modified in the meanwhile.
+     * <p>
+     * Getting the initial response can be expensive, for example when it is read from disk. Implementations can fetch it
+     * lazily so {@link HttpRequestMatchingFilter http request matching filters} that don't change the response should
+     * avoid calling this method.
      * 
      * @return response.
      */
@@ -4,27 +4,63 @@ import org.apache.commons.lang3.Validate;
 
 /**
  * {@link HttpRequestMatchingContext} implementation.
- * 
+ * <p>
+ * The response can be given directly or as a {@link HttpResponseProxy}. In the latter case the response is only fetched
+ * when {@link #response()} is called, so matching does not need to read responses that are never used.
+ *
  * @author kristof
  */
 public class HttpRequestMatchingContextImpl implements HttpRequestMatchingContext {
 
     private final HttpRequest originalRequest;
     private final HttpRequest otherRequest;
-    private final HttpResponse response;
+    private final LazyResponse response;
 
     /**
      * Create a new instance.
-     * 
+     *
      * @param originalRequest Should not be <code>null</code>.
      * @param otherRequest Should not be <code>null</code>.
      * @param response Should not be <code>null</code>.
      */
     public HttpRequestMatchingContextImpl(final HttpRequest originalRequest, final HttpRequest otherRequest,
         final HttpResponse response) {
+        this(originalRequest, otherRequest, new LazyResponse(null, response));
+        Validate.notNull(response);
+    }
+
+    /**
+     * Create a new instance for which the response is fetched from given {@link HttpResponseProxy} the first time it is
+     * requested.
+     *
+     * @param originalRequest Should not be <code>null</code>.
+     * @param otherRequest Should not be <code>null</code>.
+     * @param responseProxy Should not be <code>null</code>.
+     */
+    public HttpRequestMatchingContextImpl(final HttpRequest originalRequest, final HttpRequest otherRequest,
+        final HttpResponseProxy responseProxy) {
+        this(originalRequest, otherRequest, new LazyResponse(responseProxy, null));
+        Validate.notNull(responseProxy);
+    }
+
+    /**
+     * Create a new instance with new requests which keeps the response of given context. In case the response of given
+     * context was not fetched yet it will not be fetched by this constructor.
+     *
+     * @param context Context from which to take response. Should not be <code>null</code>.
+     * @param originalRequest Should not be <code>null</code>.
+     * @param otherRequest Should not be <code>null</code>.
+     */
+    public HttpRequestMatchingContextImpl(final HttpRequestMatchingContext context, final HttpRequest originalRequest,
+        final HttpRequest otherRequest) {
+        this(originalRequest, otherRequest, context instanceof HttpRequestMatchingContextImpl
+            ? ((HttpRequestMatchingContextImpl)context).response : new LazyResponse(null, context.response()));
+    }
+
+    private HttpRequestMatchingContextImpl(final HttpRequest originalRequest, final HttpRequest otherRequest,
+        final LazyResponse response) {
         Validate.notNull(originalRequest);
         Validate.notNull(otherRequest);
-        Validate.notNull(response);
         this.originalRequest = originalRequest;
         this.otherRequest = otherRequest;
         this.response = response;
@@ -51,7 +87,39 @@ public class HttpRequestMatchingContextImpl implements HttpRequestMatchingContex
      */
     @Override
     public HttpResponse response() {
-        return response;
+        return response.get();
+    }
+
+    /**
+     * Indicates if the response of this context is still the unmodified response of given {@link HttpResponseProxy}.
+     *
+     * @param responseProxy Response proxy.
+     * @return <code>true</code> in case response of this context is the response of given proxy, <code>false</code> in case
+     *         it has been replaced.
+     */
+    boolean hasResponseOf(final HttpResponseProxy responseProxy) {
+        return response.responseProxy != null && response.responseProxy == responseProxy;
+    }
+
+    /**
+     * Response that is fetched from a {@link HttpResponseProxy} the first time it is needed.
+     */
+    private static final class LazyResponse {
+
+        private final HttpResponseProxy responseProxy;
+        private HttpResponse response;
+
+        LazyResponse(final HttpResponseProxy responseProxy, final HttpResponse response) {
+            this.responseProxy = responseProxy;
+            this.response = response;
+        }
+
+        HttpResponse get() {
+            if (response == null) {
+                response = responseProxy.getResponse();
+            }
+            return response;
+        }
     }
 
 }
@@ -1,7 +1,6 @@
 package com.github.kristofa.test.http;
 
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
+import java.util.Arrays;
 
 /**
  * HttpResponse implementation.
@@ -65,7 +64,9 @@ public class HttpResponseImpl implements HttpResponse {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, false);
+        int hash = httpCode;
+        hash = 31 * hash + (contentType == null ? 0 : contentType.hashCode());
+        return 31 * hash + Arrays.hashCode(content);
     }
 
     /**
@@ -73,7 +74,16 @@ public class HttpResponseImpl implements HttpResponse {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, false);
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final HttpResponseImpl other = (HttpResponseImpl)obj;
+        return httpCode == other.httpCode
+            && (contentType == null ? other.contentType == null : contentType.equals(other.contentType))
+            && Arrays.equals(content, other.content);
     }
 
 }
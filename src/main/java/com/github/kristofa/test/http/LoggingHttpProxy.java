@@ -1,6 +1,6 @@
 package com.github.kristofa.test.http;
 
-import java.io.ByteArrayInputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -12,18 +12,18 @@ import java.util.HashSet;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
-import org.simpleframework.http.Request;
-import org.simpleframework.http.Response;
-import org.simpleframework.http.core.Container;
-import org.simpleframework.transport.connect.Connection;
-import org.simpleframework.transport.connect.SocketConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.kristofa.test.http.client.ApacheHttpClientImpl;
+import com.github.kristofa.test.http.client.ConnectionPoolConfig;
 import com.github.kristofa.test.http.client.HttpClient;
+import com.github.kristofa.test.http.client.HttpClientConnectionPool;
 import com.github.kristofa.test.http.client.HttpClientResponse;
 import com.github.kristofa.test.http.client.HttpRequestException;
+import com.github.kristofa.test.http.transport.RequestHandler;
+import com.github.kristofa.test.http.transport.TransportRequest;
+import com.github.kristofa.test.http.transport.TransportResponse;
 
 /**
  * Http proxy that supports logging requests/reponses. Its purpose is to be a 'man in the middle' which can be used to
@@ -44,7 +44,20 @@ import com.github.kristofa.test.http.client.HttpRequestException;
  * <li>572: Copying response of forwarding request failed.
  * <li>573: Unknown exception.
  * </ul>
- * The body of the response will contain the error message.
+ * The body of the response will contain the error message. Error responses are only sent as long as nothing of the
+ * forwarded response has been written. A failure while streaming the forwarded response is logged and the response is
+ * closed as is.
+ * <p>
+ * In case the {@link HttpRequestResponseLogger} implements {@link StreamingHttpRequestResponseLogger} response entities are
+ * streamed to the requester and the logger through a fixed size buffer. Otherwise the complete response entity is kept in
+ * memory.
+ * <p>
+ * Requests are forwarded over persistent connections taken from a {@link HttpClientConnectionPool} which is created when
+ * starting the proxy and shut down when stopping it. The pool can be configured with a {@link ConnectionPoolConfig}.
+ * <p>
+ * The threads that handle incoming requests can be configured with a {@link ServerConfig}. As handling a request blocks
+ * until the forwarded request is answered, {@link ServerConfig.ExecutorType#VIRTUAL} allows many more concurrent requests
+ * than a pool of platform threads.
  * 
  * @author kristof
  */
@@ -55,16 +68,20 @@ public class LoggingHttpProxy {
     private final int port;
     private final Collection<ForwardHttpRequestBuilder> requestBuilders = new HashSet<ForwardHttpRequestBuilder>();
     private final HttpRequestResponseLoggerFactory loggerFactory;
-    private Connection connection;
+    private final ConnectionPoolConfig connectionPoolConfig;
+    private final ServerConfig serverConfig;
+    private ServerConnection connection;
     private ProxyImplementation proxy;
+    private HttpClientConnectionPool connectionPool;
 
-    private class ProxyImplementation implements Container {
+    private class ProxyImplementation implements RequestHandler {
 
         private static final int UNKNOWN_EXCEPTION_HTTP_CODE = 573;
         private static final int FORWARD_REQUEST_FAILED_HTTP_CODE = 571;
         private static final int COPY_RESPONSE_FAILED_ERROR_HTTP_CODE = 572;
         private static final int NO_FORWARD_REQUEST_ERROR_HTTP_CODE = 570;
         private static final String CONTENT_TYPE = "Content-Type";
+        private static final int STREAM_BUFFER_SIZE = 8192;
 
         public ProxyImplementation() {
             super();
@@ -74,7 +91,7 @@ public class LoggingHttpProxy {
          * {@inheritDoc}
          */
         @Override
-        public void handle(final Request request, final Response response) {
+        public void handle(final TransportRequest request, final TransportResponse response) {
 
             try {
                 final FullHttpRequest httpRequest = RequestConvertor.convert(request);
@@ -105,34 +122,13 @@ public class LoggingHttpProxy {
                         final HttpClientResponse<InputStream> forwardResponse = forward(forwardHttpRequest);
                         LOGGER.debug("Got response for forward request.");
                         try {
-                            final InputStream inputStream = forwardResponse.getResponseEntity();
-                            byte[] responseEntity;
-                            try {
-                                // This is tricky as we keep the full response in memory... reason is that we need to copy it
-                                // twice.
-                                // Once to return to response, another time to log.
-                                responseEntity = IOUtils.toByteArray(inputStream);
-                            } finally {
-                                inputStream.close();
-                            }
-                            final HttpResponse httpResponse =
-                                new HttpResponseImpl(forwardResponse.getHttpCode(), forwardResponse.getContentType(),
-                                    responseEntity);
-                            LOGGER.debug("Logging response");
-                            logger.log(httpResponse);
-
-                            response.setCode(forwardResponse.getHttpCode());
-                            response.set(CONTENT_TYPE, forwardResponse.getContentType());
-                            final OutputStream outputStream = response.getOutputStream();
-                            try {
-                                final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(responseEntity);
-                                IOUtils.copy(byteArrayInputStream, outputStream);
-                                byteArrayInputStream.close();
-                            } finally {
-                                outputStream.close();
+                            if (logger instanceof StreamingHttpRequestResponseLogger) {
+                                stream(forwardResponse, (StreamingHttpRequestResponseLogger)logger, response);
+                            } else {
+                                copy(forwardResponse, logger, response);
                             }
-
                         } catch (final IOException e) {
+                            // Only thrown before anything has been written to the response.
                             LOGGER.error("IOException when trying to copy response of forward request.", e);
                             errorResponse(response, COPY_RESPONSE_FAILED_ERROR_HTTP_CODE, "Exception when copying streams."
                                 + e.getMessage());
@@ -153,14 +149,115 @@ public class LoggingHttpProxy {
 
         }
 
+        /**
+         * Copies the response entity of the forwarded request to the response after logging it. Keeps the complete
+         * response entity in memory.
+         */
+        private void copy(final HttpClientResponse<InputStream> forwardResponse, final HttpRequestResponseLogger logger,
+            final TransportResponse response) throws IOException {
+            final InputStream inputStream = forwardResponse.getResponseEntity();
+            byte[] responseEntity;
+            try {
+                // This is tricky as we keep the full response in memory... reason is that we need to copy it
+                // twice.
+                // Once to return to response, another time to log.
+                responseEntity = IOUtils.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            final HttpResponse httpResponse =
+                new HttpResponseImpl(forwardResponse.getHttpCode(), forwardResponse.getContentType(), responseEntity);
+            LOGGER.debug("Logging response");
+            logger.log(httpResponse);
+
+            response.setCode(forwardResponse.getHttpCode());
+            response.setHeader(CONTENT_TYPE, forwardResponse.getContentType());
+            final OutputStream outputStream = response.getOutputStream();
+            try {
+                outputStream.write(responseEntity);
+            } catch (final IOException e) {
+                LOGGER.error("IOException when writing response. Response is incomplete.", e);
+            } finally {
+                closeResponse(outputStream);
+            }
+        }
+
+        /**
+         * Copies the response entity of the forwarded request to the response while logging it, through a fixed size
+         * buffer. A failure to log does not affect the response. The logged response is only completed when the complete
+         * entity has been copied, otherwise it is aborted.
+         * 
+         * @throws IOException In case copying fails before anything has been written to the response.
+         */
+        private void stream(final HttpClientResponse<InputStream> forwardResponse,
+            final StreamingHttpRequestResponseLogger logger, final TransportResponse response) throws IOException {
+            OutputStream logStream = null;
+            try {
+                logStream = logger.logResponse(forwardResponse.getHttpCode(), forwardResponse.getContentType());
+            } catch (final IOException e) {
+                LOGGER.error("IOException when starting to log response. Response will not be logged.", e);
+            }
+            boolean complete = false;
+            final InputStream inputStream = forwardResponse.getResponseEntity();
+            try {
+                response.setCode(forwardResponse.getHttpCode());
+                response.setHeader(CONTENT_TYPE, forwardResponse.getContentType());
+                final OutputStream outputStream = response.getOutputStream();
+                try {
+                    final byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, read);
+                        if (logStream != null) {
+                            try {
+                                logStream.write(buffer, 0, read);
+                            } catch (final IOException e) {
+                                LOGGER.error("IOException when logging response. Response will not be logged.", e);
+                                logger.abortResponse();
+                                logStream = null;
+                            }
+                        }
+                    }
+                    complete = true;
+                } catch (final IOException e) {
+                    // Part of the entity may have been sent already so we can't send an error response anymore.
+                    LOGGER.error("IOException when streaming response of forward request. Response is incomplete.", e);
+                } finally {
+                    closeResponse(outputStream);
+                }
+            } finally {
+                inputStream.close();
+                if (logStream != null) {
+                    if (complete) {
+                        try {
+                            logStream.close();
+                        } catch (final IOException e) {
+                            LOGGER.error("IOException when closing response log.", e);
+                        }
+                    } else {
+                        LOGGER.warn("Response entity was not copied completely. Response will not be logged.");
+                        logger.abortResponse();
+                    }
+                }
+            }
+        }
+
+        private void closeResponse(final OutputStream outputStream) {
+            try {
+                outputStream.close();
+            } catch (final IOException e) {
+                LOGGER.error("IOException when closing response.", e);
+            }
+        }
+
         private HttpClientResponse<InputStream> forward(final FullHttpRequest request) throws HttpRequestException {
-            final HttpClient client = new ApacheHttpClientImpl();
+            final HttpClient client = new ApacheHttpClientImpl(connectionPool);
             return client.execute(request);
         }
 
-        private void errorResponse(final Response response, final int httpCode, final String message) {
+        private void errorResponse(final TransportResponse response, final int httpCode, final String message) {
             response.setCode(httpCode);
-            response.set(CONTENT_TYPE, "text/plain;charset=utf-8");
+            response.setHeader(CONTENT_TYPE, "text/plain;charset=utf-8");
             PrintStream body;
             try {
                 body = response.getPrintStream();
@@ -182,12 +279,46 @@ public class LoggingHttpProxy {
      */
     public LoggingHttpProxy(final int port, final Collection<ForwardHttpRequestBuilder> requestBuilders,
         final HttpRequestResponseLoggerFactory loggerFactory) {
+        this(port, requestBuilders, loggerFactory, new ConnectionPoolConfig());
+    }
+
+    /**
+     * Create a new instance.
+     * 
+     * @param port Port at which proxy will be running.
+     * @param requestBuilders Forward request builders. Should not be <code>null</code> and at least 1 should be specified.
+     * @param loggerFactory Request/Response logger factory.. Should not be <code>null</code>.
+     * @param connectionPoolConfig Configuration of the pool of connections used for forwarding requests. Should not be
+     *            <code>null</code>.
+     */
+    public LoggingHttpProxy(final int port, final Collection<ForwardHttpRequestBuilder> requestBuilders,
+        final HttpRequestResponseLoggerFactory loggerFactory, final ConnectionPoolConfig connectionPoolConfig) {
+        this(port, requestBuilders, loggerFactory, connectionPoolConfig, new ServerConfig());
+    }
+
+    /**
+     * Create a new instance.
+     * 
+     * @param port Port at which proxy will be running.
+     * @param requestBuilders Forward request builders. Should not be <code>null</code> and at least 1 should be specified.
+     * @param loggerFactory Request/Response logger factory.. Should not be <code>null</code>.
+     * @param connectionPoolConfig Configuration of the pool of connections used for forwarding requests. Should not be
+     *            <code>null</code>.
+     * @param serverConfig Defines the threads that handle incoming requests. Should not be <code>null</code>.
+     */
+    public LoggingHttpProxy(final int port, final Collection<ForwardHttpRequestBuilder> requestBuilders,
+        final HttpRequestResponseLoggerFactory loggerFactory, final ConnectionPoolConfig connectionPoolConfig,
+        final ServerConfig serverConfig) {
         Validate.isTrue(requestBuilders != null && !requestBuilders.isEmpty(),
             "At least 1 ForwardHttpRequestBuilder should be provided.");
         Validate.notNull(loggerFactory, "HttpRequestResponseLoggerFactory should not be null.");
+        Validate.notNull(connectionPoolConfig, "ConnectionPoolConfig should not be null.");
+        Validate.notNull(serverConfig, "ServerConfig should not be null.");
         this.port = port;
         this.requestBuilders.addAll(requestBuilders);
         this.loggerFactory = loggerFactory;
+        this.connectionPoolConfig = connectionPoolConfig;
+        this.serverConfig = serverConfig;
     }
 
     /**
@@ -200,21 +331,36 @@ public class LoggingHttpProxy {
         if (connection != null) {
             connection.close();
         }
+        if (connectionPool != null) {
+            connectionPool.shutdown();
+        }
 
+        connectionPool = new HttpClientConnectionPool(connectionPoolConfig);
         proxy = new ProxyImplementation();
-        connection = new SocketConnection(proxy);
+        connection = new ServerConnection(proxy, serverConfig, "LoggingHttpProxy");
         final SocketAddress address = new InetSocketAddress(port);
         connection.connect(address);
         LOGGER.debug("Started on port: " + port);
     }
 
     /**
-     * Stops proxy.
+     * Stops proxy. In case the {@link HttpRequestResponseLoggerFactory} is {@link Flushable}, for example
+     * {@link AsyncHttpRequestResponseLoggerFactory}, it will be flushed, so all requests/responses are logged when this
+     * method returns. The factory is not closed so the proxy can be started again. Closing it is up to whoever created it.
      * 
-     * @throws IOException In case closing connection fails.
+     * @throws IOException In case closing connection or flushing logs fails.
      */
     public void stop() throws IOException {
         LOGGER.debug("Stopping and closing connection.");
-        connection.close();
+        try {
+            connection.close();
+        } finally {
+            connectionPool.shutdown();
+            connectionPool = null;
+            if (loggerFactory instanceof Flushable) {
+                LOGGER.debug("Flushing logs.");
+                ((Flushable)loggerFactory).flush();
+            }
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.github.kristofa.test.http;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * {@link HttpResponse} of which the content is backed by a {@link ByteBuffer}, typically a read-only slice of a
+ * {@link MappedByteBuffer}.
+ * <p>
+ * {@link MockHttpServer} writes the content from {@link #getContentBuffer()} so it is never copied to the heap.
+ * {@link #getContent()} returns a copy of the content with each call.
+ * 
+ * @author kristof
+ */
+public class MappedHttpResponse implements HttpResponse {
+
+    private final int httpCode;
+    private final String contentType;
+    private final ByteBuffer content;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param httpCode http response code.
+     * @param contentType Content type, can be <code>null</code>.
+     * @param content Content, can be <code>null</code>. The content is the remaining part of the buffer. Should not be
+     *            modified afterwards.
+     */
+    public MappedHttpResponse(final int httpCode, final String contentType, final ByteBuffer content) {
+        this.httpCode = httpCode;
+        this.contentType = contentType;
+        this.content = content == null ? null : content.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Encodes the content of given response once into a read-only direct buffer so {@link MockHttpServer} can write it
+     * with a single buffer write, without copying it, each time the response is served. Only the body is pre-encoded,
+     * status line and headers are still written for each request.
+     * 
+     * @param response Response. Should not be <code>null</code>.
+     * @return {@link MappedHttpResponse} with the same http code, content type and content or given response in case its
+     *         content is already backed by a buffer ({@link MappedHttpResponse} or {@link GzipHttpResponse}). For a
+     *         {@link DelayedHttpResponse} or {@link ThrottledHttpResponse} the body of the wrapped response is pre-encoded
+     *         and the delay or throttle is kept.
+     */
+    public static HttpResponse preEncode(final HttpResponse response) {
+        if (response instanceof DelayedHttpResponse) {
+            final DelayedHttpResponse delayedResponse = (DelayedHttpResponse)response;
+            return new DelayedHttpResponse(preEncode(delayedResponse.getResponse()), delayedResponse.getDelay());
+        }
+        if (response instanceof ThrottledHttpResponse) {
+            final ThrottledHttpResponse throttledResponse = (ThrottledHttpResponse)response;
+            return new ThrottledHttpResponse(preEncode(throttledResponse.getResponse()), throttledResponse.getThrottle());
+        }
+        if (response instanceof MappedHttpResponse || response instanceof GzipHttpResponse) {
+            return response;
+        }
+        final byte[] content = response.getContent();
+        ByteBuffer buffer = null;
+        if (content != null) {
+            buffer = ByteBuffer.allocateDirect(content.length);
+            buffer.put(content);
+            buffer.flip();
+        }
+        return new MappedHttpResponse(response.getHttpCode(), response.getContentType(), buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHttpCode() {
+        return httpCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Copies the content to a new byte array. Use {@link #getContentBuffer()} to avoid the copy.
+     */
+    @Override
+    public byte[] getContent() {
+        if (content == null) {
+            return null;
+        }
+        final byte[] bytes = new byte[content.capacity()];
+        content.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Gets the content without copying it. Each call returns a new read-only buffer so callers can consume it
+     * independently.
+     * 
+     * @return Content or <code>null</code> in case there is no content.
+     */
+    public ByteBuffer getContentBuffer() {
+        return content == null ? null : content.duplicate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Http code: " + getHttpCode() + ", Content Type: " + (getContentType() == null ? "null" : getContentType())
+            + ", Content: " + (content == null ? "null" : new String(getContent()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = httpCode;
+        hash = 31 * hash + (contentType == null ? 0 : contentType.hashCode());
+        return 31 * hash + (content == null ? 0 : content.hashCode());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final MappedHttpResponse other = (MappedHttpResponse)obj;
+        return httpCode == other.httpCode
+            && (contentType == null ? other.contentType == null : contentType.equals(other.contentType))
+            && (content == null ? other.content == null : content.equals(other.content));
+    }
+
+}
@@ -6,6 +6,8 @@ import java.util.Collection;
 
 import org.apache.commons.lang3.Validate;
 
+import com.github.kristofa.test.http.client.ConnectionPoolConfig;
+
 /**
  * Facade that lets you easily configure and use either the {@link LoggingHttpProxy} for using real services and logging
  * requests/responses or the {@link MockHttpServer} for running your code against mocked http requests/responses. You
@@ -34,6 +36,8 @@ public class MockAndProxyFacade {
         private HttpResponseProvider responseProvider;
         private final Collection<ForwardHttpRequestBuilder> requestBuilders = new ArrayList<ForwardHttpRequestBuilder>();
         private HttpRequestResponseLoggerFactory loggerFactory;
+        private ConnectionPoolConfig connectionPoolConfig = new ConnectionPoolConfig();
+        private ServerConfig serverConfig = new ServerConfig();
         private Mode mode;
 
         /**
@@ -84,6 +88,32 @@ public class MockAndProxyFacade {
             return this;
         }
 
+        /**
+         * Sets the {@link ConnectionPoolConfig} that will be used with {@link LoggingHttpProxy}. Optional, if not set
+         * default pool settings will be used.
+         * 
+         * @param connectionPoolConfig {@link ConnectionPoolConfig}. Should not be <code>null</code>.
+         * @return Builder.
+         */
+        public Builder connectionPoolConfig(final ConnectionPoolConfig connectionPoolConfig) {
+            Validate.notNull(connectionPoolConfig);
+            this.connectionPoolConfig = connectionPoolConfig;
+            return this;
+        }
+
+        /**
+         * Sets the {@link ServerConfig} that will be used for either {@link MockHttpServer} or {@link LoggingHttpProxy}.
+         * Optional, if not set default server settings will be used.
+         * 
+         * @param serverConfig {@link ServerConfig}. Should not be <code>null</code>.
+         * @return Builder.
+         */
+        public Builder serverConfig(final ServerConfig serverConfig) {
+            Validate.notNull(serverConfig);
+            this.serverConfig = serverConfig;
+            return this;
+        }
+
         /**
          * Sets the Mode in which the {@link MockAndProxyFacade} should operate.
          * 
@@ -113,14 +143,15 @@ public class MockAndProxyFacade {
         if (Mode.MOCKING.equals(mode)) {
             Validate.notNull(builder.responseProvider,
                 "You should have set a HttpResponseProvider in builder when using Mocking mode!");
-            mockServer = new MockHttpServer(builder.port, builder.responseProvider);
+            mockServer = new MockHttpServer(builder.port, builder.responseProvider, builder.serverConfig);
         } else {
             // Logging
             Validate.notNull(builder.requestBuilders,
                 "You should have added a ForwardHttpRequestBuilder when using Logging mode!");
             Validate.notNull(builder.loggerFactory,
                 "You should have set a HttpRequestResponseLoggerFactory when using Logging mode!");
-            proxy = new LoggingHttpProxy(builder.port, builder.requestBuilders, builder.loggerFactory);
+            proxy = new LoggingHttpProxy(builder.port, builder.requestBuilders, builder.loggerFactory,
+                    builder.connectionPoolConfig, builder.serverConfig);
         }
     }
 
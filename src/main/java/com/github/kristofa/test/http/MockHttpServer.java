@@ -1,21 +1,26 @@
 package com.github.kristofa.test.http;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
-import org.simpleframework.http.Request;
-import org.simpleframework.http.Response;
-import org.simpleframework.http.core.Container;
-import org.simpleframework.transport.connect.Connection;
-import org.simpleframework.transport.connect.SocketConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.kristofa.test.http.transport.RequestHandler;
+import com.github.kristofa.test.http.transport.TransportRequest;
+import com.github.kristofa.test.http.transport.TransportResponse;
+
 /**
  * Mock Http Server which can be used to return upfront defined responses for a set of http requests.
  *
@@ -28,13 +33,13 @@ public class MockHttpServer {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(MockHttpServer.class);
 
-    public class ExpectationHandler implements Container {
+    public class ExpectationHandler implements RequestHandler {
 
         public ExpectationHandler() {
         }
 
         @Override
-        public void handle(final Request req, final Response response) {
+        public void handle(final TransportRequest req, final TransportResponse response) {
 
             try {
                 final FullHttpRequest receivedFullRequest = RequestConvertor.convert(req);
@@ -44,30 +49,83 @@ public class MockHttpServer {
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Got request: " + receivedRequest);
                 }
-                final HttpResponse expectedResponse = responseProvider.getResponse(receivedRequest);
+                HttpResponse expectedResponse = responseProvider.getResponse(receivedRequest);
+                long delay = 0;
+                ResponseThrottle throttle = responseThrottle;
+                // Delayed and throttled responses can wrap each other.
+                while (true) {
+                    if (expectedResponse instanceof DelayedHttpResponse) {
+                        delay += ((DelayedHttpResponse)expectedResponse).getDelay().nextDelayMillis();
+                        expectedResponse = ((DelayedHttpResponse)expectedResponse).getResponse();
+                    } else if (expectedResponse instanceof ThrottledHttpResponse) {
+                        throttle = ((ThrottledHttpResponse)expectedResponse).getThrottle();
+                        expectedResponse = ((ThrottledHttpResponse)expectedResponse).getResponse();
+                    } else {
+                        break;
+                    }
+                }
+
+                if (delay > 0) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Delaying response for request with " + delay + " ms.");
+                    }
+                    final HttpResponse delayedResponse = expectedResponse;
+                    final ResponseThrottle delayedThrottle = throttle;
+                    timer.schedule(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            respond(receivedRequest, delayedResponse, delayedThrottle, response);
+                        }
+                    }, delay, TimeUnit.MILLISECONDS);
+                } else {
+                    respond(receivedRequest, expectedResponse, throttle, response);
+                }
+            } catch (final Exception e) {
+                LOGGER.error("Unexpected exception.", e);
+                respondWithException(response);
+            }
+        }
 
+        private void respond(final HttpRequest receivedRequest, final HttpResponse expectedResponse,
+            final ResponseThrottle throttle, final TransportResponse response) {
+            try {
                 if (expectedResponse != null) {
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("Got response for request: " + expectedResponse);
                     }
                     response.setCode(expectedResponse.getHttpCode());
                     if (!StringUtils.isEmpty(expectedResponse.getContentType())) {
-                        response.set("Content-Type", expectedResponse.getContentType());
+                        response.setHeader("Content-Type", expectedResponse.getContentType());
+                    }
+                    if (expectedResponse instanceof GzipHttpResponse) {
+                        // Content depends on Accept-Encoding, so caches should not serve one variant for the other.
+                        response.setHeader("Vary", "Accept-Encoding");
                     }
-                    OutputStream body = null;
                     try {
-                        body = response.getOutputStream();
-                        if (expectedResponse.getContent() != null) {
-                            body.write(expectedResponse.getContent());
+                        if (throttle != null) {
+                            trickle(receivedRequest, expectedResponse, throttle, response);
+                        } else if (expectedResponse instanceof GzipHttpResponse
+                            && GzipHttpResponse.acceptsGzip(receivedRequest)) {
+                            // Serve compressed content as is instead of decompressing it.
+                            response.setHeader("Content-Encoding", GzipHttpResponse.GZIP);
+                            write(((GzipHttpResponse)expectedResponse).getCompressedContentBuffer(), response);
+                        } else if (expectedResponse instanceof MappedHttpResponse) {
+                            write(((MappedHttpResponse)expectedResponse).getContentBuffer(), response);
+                        } else {
+                            final OutputStream body = response.getOutputStream();
+                            if (expectedResponse.getContent() != null) {
+                                body.write(expectedResponse.getContent());
+                            }
+                            body.close();
                         }
-                        body.close();
                     } catch (final IOException e) {
                         LOGGER.error("IOException when getting response content.", e);
                     }
                 } else {
                     LOGGER.error("Did receive an unexpected request:" + receivedRequest);
                     response.setCode(noMatchFoundResponseCode);
-                    response.set("Content-Type", "text/plain;charset=utf-8");
+                    response.setHeader("Content-Type", "text/plain;charset=utf-8");
                     PrintStream body;
                     try {
                         body = response.getPrintStream();
@@ -79,35 +137,77 @@ public class MockHttpServer {
                 }
             } catch (final Exception e) {
                 LOGGER.error("Unexpected exception.", e);
-                response.setCode(exceptionResponseCode);
-                try {
-                    response.getPrintStream().close();
-                } catch (final IOException e2) {
-                    LOGGER.error("IOException when writing response content.", e2);
-                }
+                respondWithException(response);
+            }
+        }
+
+        private void respondWithException(final TransportResponse response) {
+            response.setCode(exceptionResponseCode);
+            try {
+                response.getPrintStream().close();
+            } catch (final IOException e) {
+                LOGGER.error("IOException when writing response content.", e);
             }
         }
 
         public void verify() throws UnsatisfiedExpectationException {
             responseProvider.verify();
         }
+
+        // Writes content in chunks as defined by throttle. Only the first chunks are written on the calling thread.
+        private void trickle(final HttpRequest receivedRequest, final HttpResponse expectedResponse,
+            final ResponseThrottle throttle, final TransportResponse response) {
+            final ByteBuffer content;
+            if (expectedResponse instanceof GzipHttpResponse && GzipHttpResponse.acceptsGzip(receivedRequest)) {
+                response.setHeader("Content-Encoding", GzipHttpResponse.GZIP);
+                content = ((GzipHttpResponse)expectedResponse).getCompressedContentBuffer();
+            } else if (expectedResponse instanceof MappedHttpResponse) {
+                content = ((MappedHttpResponse)expectedResponse).getContentBuffer();
+            } else {
+                content = expectedResponse.getContent() == null ? null : ByteBuffer.wrap(expectedResponse.getContent());
+            }
+            if (!throttle.isChunked()) {
+                response.setContentLength(content == null ? 0 : content.remaining());
+            }
+            new ThrottledWriter(content, response, throttle, timer).run();
+        }
+
+        // Writes content straight from the (mapped) buffer, without copying it to a byte array.
+        private void write(final ByteBuffer content, final TransportResponse response) throws IOException {
+            if (content != null) {
+                response.setContentLength(content.remaining());
+            }
+            final WritableByteChannel body = response.getByteChannel();
+            try {
+                while (content != null && content.hasRemaining()) {
+                    body.write(content);
+                }
+            } finally {
+                body.close();
+            }
+        }
     }
 
     private ExpectationHandler handler;
     private final HttpResponseProvider responseProvider;
 
     private final int port;
+    private final ServerConfig serverConfig;
 
     public static final String GET = "GET";
     public static final String POST = "POST";
     public static final String PUT = "PUT";
     public static final String DELETE = "DELETE";
 
-    private Connection connection;
+    private ServerConnection connection;
+    private TimerWheel timer;
+    // Completes delayed and throttled responses so the timer thread never blocks on a client.
+    private ExecutorService responder;
     private int connectedPort = -1;
 
     private int noMatchFoundResponseCode = 598;
     private int exceptionResponseCode = 599;
+    private volatile ResponseThrottle responseThrottle;
 
     /**
      * Creates a new instance.
@@ -116,9 +216,22 @@ public class MockHttpServer {
      * @param responseProvider {@link HttpResponseProvider}. Should not be <code>null</code>.
      */
     public MockHttpServer(final int port, final HttpResponseProvider responseProvider) {
+        this(port, responseProvider, new ServerConfig());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param port Port on which mock server should operate. If you provide 0 as port number a free port will be choosen for you. You can get the port through {@link MockHttpServer#getPort()}
+     * @param responseProvider {@link HttpResponseProvider}. Should not be <code>null</code>.
+     * @param serverConfig Defines the threads that handle requests. Should not be <code>null</code>.
+     */
+    public MockHttpServer(final int port, final HttpResponseProvider responseProvider, final ServerConfig serverConfig) {
         Validate.notNull(responseProvider);
+        Validate.notNull(serverConfig);
         this.port = port;
         this.responseProvider = responseProvider;
+        this.serverConfig = serverConfig;
     }
 
     /**
@@ -129,9 +242,12 @@ public class MockHttpServer {
      */
     public int start() throws IOException {
         handler = new ExpectationHandler();
-        connection = new SocketConnection(handler);
+        responder = Executors.newFixedThreadPool(serverConfig.getWorkerThreads(), new ServerConfig.NamedThreadFactory(
+            "MockHttpServer-responder"));
+        timer = new TimerWheel("MockHttpServer-timer", responder);
+        connection = new ServerConnection(handler, serverConfig, "MockHttpServer");
         final SocketAddress address = new InetSocketAddress(port);
-        final InetSocketAddress connectedAddress = (InetSocketAddress) connection.connect(address);
+        final InetSocketAddress connectedAddress = connection.connect(address);
         connectedPort = connectedAddress.getPort();
         return connectedPort;
     }
@@ -146,12 +262,20 @@ public class MockHttpServer {
     }
 
     /**
-     * Closes the server.
+     * Closes the server. In case the {@link HttpResponseProvider} is {@link Closeable} it is closed as well.
      * 
      * @throws IOException In case closing fails.
      */
     public void stop() throws IOException {
-        connection.close();
+        try {
+            connection.close();
+        } finally {
+            timer.stop();
+            responder.shutdown();
+            if (responseProvider instanceof Closeable) {
+                ((Closeable)responseProvider).close();
+            }
+        }
     }
 
     /**
@@ -185,4 +309,16 @@ public class MockHttpServer {
         exceptionResponseCode = code;
     }
 
+    /**
+     * Sets a throttle for all responses, to simulate a slow network. A {@link ThrottledHttpResponse} uses its own throttle
+     * instead.
+     *
+     * If not set responses are not throttled.
+     * 
+     * @param throttle Throttle for all responses, <code>null</code> to disable throttling.
+     */
+    public void setResponseThrottle(final ResponseThrottle throttle) {
+        responseThrottle = throttle;
+    }
+
 }
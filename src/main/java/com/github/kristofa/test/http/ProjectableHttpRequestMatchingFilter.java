@@ -0,0 +1,33 @@
+package com.github.kristofa.test.http;
+
+/**
+ * A {@link HttpRequestMatchingFilter} that is able to describe what it ignores as a deterministic projection of a single
+ * {@link HttpRequest}.
+ * <p>
+ * {@link AbstractHttpResponseProvider} uses projections to avoid running the chain of {@link HttpRequestMatchingFilter http
+ * request matching filters} against every expected request. Expected requests are projected once and put in a hash index.
+ * An incoming request is projected the same way and only the expected requests with an equal projection are passed to the
+ * filter chain.
+ * <p>
+ * For this to be correct a projection should only remove or normalize the request properties the filter might change or
+ * ignore and leave all other properties untouched. So if {@link HttpRequestMatchingFilter#filter(HttpRequestMatchingContext)}
+ * brings 2 requests in line, their projections should be equal.
+ * <p>
+ * If one of the filters in the chain does not implement this interface {@link AbstractHttpResponseProvider} falls back to
+ * trying all expected requests.
+ *
+ * @see AbstractHttpResponseProvider
+ * @author kristof
+ */
+public interface ProjectableHttpRequestMatchingFilter extends HttpRequestMatchingFilter {
+
+    /**
+     * Projects a request by removing or normalizing the properties this filter can ignore. Should be deterministic and
+     * should not modify given request.
+     *
+     * @param request Http request. Should not be <code>null</code>.
+     * @return Projected request. Can be given request in case there is nothing to remove.
+     */
+    HttpRequest project(final HttpRequest request);
+
+}
@@ -1,8 +1,6 @@
 package com.github.kristofa.test.http;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 /**
  * Defines a query parameter key/value.
@@ -13,6 +11,7 @@ public class QueryParameter implements Comparable<QueryParameter> {
 
     private final String key;
     private final String value;
+    private final int hashCode;
 
     /**
      * Creates a new instance.
@@ -25,6 +24,7 @@ public class QueryParameter implements Comparable<QueryParameter> {
         Validate.notNull(value);
         this.key = key;
         this.value = value;
+        hashCode = 31 * key.hashCode() + value.hashCode();
     }
 
     /**
@@ -50,7 +50,7 @@ public class QueryParameter implements Comparable<QueryParameter> {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, false);
+        return hashCode;
     }
 
     /**
@@ -58,7 +58,14 @@ public class QueryParameter implements Comparable<QueryParameter> {
      */
     @Override
     public boolean equals(final Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, false);
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final QueryParameter other = (QueryParameter)obj;
+        return hashCode == other.hashCode && key.equals(other.key) && value.equals(other.value);
     }
 
     /**
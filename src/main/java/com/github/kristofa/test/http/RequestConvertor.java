@@ -2,15 +2,15 @@ package com.github.kristofa.test.http;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map.Entry;
 
 import org.apache.commons.io.IOUtils;
-import org.simpleframework.http.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.kristofa.test.http.transport.TransportRequest;
+
 /**
- * Converts a Simple framerwork {@link Request} into a {@link FullHttpRequest}.
+ * Converts a {@link TransportRequest} into a {@link FullHttpRequest}.
  * 
  * @author kristof
  */
@@ -18,7 +18,7 @@ class RequestConvertor {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(RequestConvertor.class);
 
-    public static FullHttpRequest convert(final Request request) {
+    public static FullHttpRequest convert(final TransportRequest request) {
         byte[] data = null;
         try {
 
@@ -34,22 +34,22 @@ class RequestConvertor {
         }
 
         final FullHttpRequestImpl httpRequest = new FullHttpRequestImpl();
-        httpRequest.domain(request.getAddress().getDomain());
-        httpRequest.port(request.getAddress().getPort());
+        httpRequest.domain(request.getDomain());
+        httpRequest.port(request.getPort());
         httpRequest.method(Method.valueOf(request.getMethod()));
-        httpRequest.path(request.getPath().getPath());
+        httpRequest.path(request.getPath());
         if (data.length > 0) {
             httpRequest.content(data);
         }
 
-        for (final String headerField : request.getNames()) {
-            for (final String headerFieldValue : request.getValues(headerField)) {
+        for (final String headerField : request.getHeaderNames()) {
+            for (final String headerFieldValue : request.getHeaderValues(headerField)) {
                 httpRequest.httpMessageHeader(headerField, headerFieldValue);
             }
         }
 
-        for (final Entry<String, String> entry : request.getQuery().entrySet()) {
-            httpRequest.queryParameter(entry.getKey(), entry.getValue());
+        for (final QueryParameter parameter : request.getQueryParameters()) {
+            httpRequest.queryParameter(parameter.getKey(), parameter.getValue());
         }
         return httpRequest;
 
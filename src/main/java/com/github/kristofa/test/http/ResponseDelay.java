@@ -0,0 +1,158 @@
+package com.github.kristofa.test.http;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Delay after which {@link MockHttpServer} sends a {@link DelayedHttpResponse}. Can be used to simulate slow services.
+ * <p>
+ * A delay is fixed or follows a distribution, in which case a new value is drawn for each response. Delays are waited for
+ * without occupying a thread, so many delayed requests can be pending at the same time.
+ *
+ * @see DelayedHttpResponse
+ * @author kristof
+ */
+public abstract class ResponseDelay {
+
+    /**
+     * No delay.
+     */
+    public static final ResponseDelay NONE = fixed(0);
+
+    /**
+     * Gets delay for next response.
+     *
+     * @return Delay in milliseconds, &gt;= 0.
+     */
+    public abstract long nextDelayMillis();
+
+    /**
+     * Fixed delay.
+     *
+     * @param millis Delay in milliseconds. Should be &gt;= 0.
+     * @return Delay.
+     */
+    public static ResponseDelay fixed(final long millis) {
+        Validate.isTrue(millis >= 0, "millis should be >= 0.");
+        return new ResponseDelay() {
+
+            @Override
+            public long nextDelayMillis() {
+                return millis;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed(" + millis + ")";
+            }
+        };
+    }
+
+    /**
+     * Delay uniformly distributed between minimum and maximum.
+     *
+     * @param minMillis Minimum delay in milliseconds, inclusive. Should be &gt;= 0.
+     * @param maxMillis Maximum delay in milliseconds, inclusive. Should be &gt;= minMillis.
+     * @return Delay.
+     */
+    public static ResponseDelay uniform(final long minMillis, final long maxMillis) {
+        Validate.isTrue(minMillis >= 0, "minMillis should be >= 0.");
+        Validate.isTrue(maxMillis >= minMillis, "maxMillis should be >= minMillis.");
+        final Random random = new Random();
+        return new ResponseDelay() {
+
+            @Override
+            public long nextDelayMillis() {
+                return minMillis + (long)(random.nextDouble() * (maxMillis - minMillis + 1));
+            }
+
+            @Override
+            public String toString() {
+                return "uniform(" + minMillis + ", " + maxMillis + ")";
+            }
+        };
+    }
+
+    /**
+     * Normally distributed delay. Negative values are cut off to 0.
+     *
+     * @param meanMillis Mean delay in milliseconds. Should be &gt;= 0.
+     * @param standardDeviationMillis Standard deviation in milliseconds. Should be &gt;= 0.
+     * @return Delay.
+     */
+    public static ResponseDelay normal(final long meanMillis, final long standardDeviationMillis) {
+        Validate.isTrue(meanMillis >= 0, "meanMillis should be >= 0.");
+        Validate.isTrue(standardDeviationMillis >= 0, "standardDeviationMillis should be >= 0.");
+        final Random random = new Random();
+        return new ResponseDelay() {
+
+            @Override
+            public long nextDelayMillis() {
+                return Math.max(0, Math.round(meanMillis + random.nextGaussian() * standardDeviationMillis));
+            }
+
+            @Override
+            public String toString() {
+                return "normal(" + meanMillis + ", " + standardDeviationMillis + ")";
+            }
+        };
+    }
+
+    /**
+     * Delay that replays recorded latency percentiles, for example p50, p90, p99 and max as measured on a production
+     * service. Delays between two percentiles are interpolated linearly. Delays below the lowest percentile get the delay
+     * of the lowest percentile.
+     * <p>
+     * Example: <code>percentiles(new double[] {50, 90, 99, 100}, new long[] {20, 80, 250, 1000})</code>
+     *
+     * @param percentiles Percentiles, in ascending order, between 0 and 100.
+     * @param millis Delay in milliseconds for each percentile, in ascending order, &gt;= 0.
+     * @return Delay.
+     */
+    public static ResponseDelay percentiles(final double[] percentiles, final long[] millis) {
+        Validate.notNull(percentiles);
+        Validate.notNull(millis);
+        Validate.isTrue(percentiles.length > 0, "percentiles should not be empty.");
+        Validate.isTrue(percentiles.length == millis.length, "percentiles and millis should have the same length.");
+        for (int i = 0; i < percentiles.length; i++) {
+            Validate.isTrue(percentiles[i] >= 0 && percentiles[i] <= 100, "percentiles should be between 0 and 100.");
+            Validate.isTrue(millis[i] >= 0, "millis should be >= 0.");
+            if (i > 0) {
+                Validate.isTrue(percentiles[i] > percentiles[i - 1], "percentiles should be ascending.");
+                Validate.isTrue(millis[i] >= millis[i - 1], "millis should be ascending.");
+            }
+        }
+        final double[] percentilesCopy = percentiles.clone();
+        final long[] millisCopy = millis.clone();
+        final Random random = new Random();
+        return new ResponseDelay() {
+
+            @Override
+            public long nextDelayMillis() {
+                return interpolate(percentilesCopy, millisCopy, random.nextDouble() * 100);
+            }
+
+            @Override
+            public String toString() {
+                return "percentiles(" + Arrays.toString(percentilesCopy) + ", " + Arrays.toString(millisCopy) + ")";
+            }
+        };
+    }
+
+    // Visible for testing.
+    static long interpolate(final double[] percentiles, final long[] millis, final double percentile) {
+        if (percentile <= percentiles[0]) {
+            return millis[0];
+        }
+        for (int i = 1; i < percentiles.length; i++) {
+            if (percentile <= percentiles[i]) {
+                final double fraction = (percentile - percentiles[i - 1]) / (percentiles[i] - percentiles[i - 1]);
+                return Math.round(millis[i - 1] + fraction * (millis[i] - millis[i - 1]));
+            }
+        }
+        return millis[millis.length - 1];
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.github.kristofa.test.http;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Defines how {@link MockHttpServer} trickles the content of a response to the client, to simulate a slow network. Can be
+ * set for a single response, see {@link ThrottledHttpResponse}, or for all responses, see
+ * {@link MockHttpServer#setResponseThrottle(ResponseThrottle)}.
+ * <p>
+ * The content is written in chunks. The throughput is limited by a token bucket, so the client receives at most
+ * bytes per second on average and at most one chunk at once. In addition a gap can be defined between chunks. Waiting
+ * between chunks is done on a timer wheel shared by all responses, so throttled responses don't occupy a thread while
+ * waiting. Chunks are written by a small pool of responder threads. A client that stops reading only blocks the responder
+ * thread writing to it.
+ * <p>
+ * Defaults:
+ * <ul>
+ * <li>Bytes per second: unlimited (0).</li>
+ * <li>Chunk size: 1024 bytes.</li>
+ * <li>Gap between chunks: 0 ms.</li>
+ * <li>Chunked: <code>false</code>, Content-Length is sent and the content is trickled. In case <code>true</code> no
+ * Content-Length is sent and each chunk is sent as a separate chunk of a chunked transfer encoding (HTTP/1.1).</li>
+ * </ul>
+ *
+ * @see ThrottledHttpResponse
+ * @author kristof
+ */
+public class ResponseThrottle {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private long bytesPerSecond = 0;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long chunkGapMillis = 0;
+    private boolean chunked = false;
+
+    /**
+     * Sets maximum throughput.
+     *
+     * @param bytesPerSecond Maximum number of bytes per second. Should be &gt;= 0. 0 means unlimited.
+     * @return This throttle.
+     */
+    public ResponseThrottle bytesPerSecond(final long bytesPerSecond) {
+        Validate.isTrue(bytesPerSecond >= 0, "bytesPerSecond should be >= 0.");
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Sets the size of the chunks in which content is written.
+     *
+     * @param chunkSize Chunk size in bytes. Should be &gt; 0.
+     * @return This throttle.
+     */
+    public ResponseThrottle chunkSize(final int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "chunkSize should be > 0.");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the gap between writing 2 chunks.
+     *
+     * @param chunkGapMillis Gap in milliseconds. Should be &gt;= 0.
+     * @return This throttle.
+     */
+    public ResponseThrottle chunkGapMillis(final long chunkGapMillis) {
+        Validate.isTrue(chunkGapMillis >= 0, "chunkGapMillis should be >= 0.");
+        this.chunkGapMillis = chunkGapMillis;
+        return this;
+    }
+
+    /**
+     * Sets if content is sent with chunked transfer encoding instead of with Content-Length.
+     *
+     * @param chunked <code>true</code> for chunked transfer encoding.
+     * @return This throttle.
+     */
+    public ResponseThrottle chunked(final boolean chunked) {
+        this.chunked = chunked;
+        return this;
+    }
+
+    /**
+     * Gets maximum throughput.
+     *
+     * @return Maximum number of bytes per second, 0 in case unlimited.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Gets chunk size.
+     *
+     * @return Chunk size in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Gets gap between chunks.
+     *
+     * @return Gap in milliseconds.
+     */
+    public long getChunkGapMillis() {
+        return chunkGapMillis;
+    }
+
+    /**
+     * Indicates if content is sent with chunked transfer encoding.
+     *
+     * @return <code>true</code> for chunked transfer encoding.
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "bytesPerSecond: " + bytesPerSecond + ", chunkSize: " + chunkSize + ", chunkGapMillis: " + chunkGapMillis
+            + ", chunked: " + chunked;
+    }
+
+}
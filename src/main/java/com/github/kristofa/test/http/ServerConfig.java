@@ -0,0 +1,236 @@
+package com.github.kristofa.test.http;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.Validate;
+
+import com.github.kristofa.test.http.transport.SimpleTransport;
+import com.github.kristofa.test.http.transport.Transport;
+
+/**
+ * Configuration of the way {@link MockHttpServer} and {@link LoggingHttpProxy} handle requests.
+ * <p>
+ * Requests are received by a {@link Transport} and read by its worker threads. Depending on the {@link ExecutorType} they are
+ * handled on those worker threads or dispatched to a separate executor, which is created when starting the server and shut
+ * down when stopping it.
+ * <p>
+ * Defaults:
+ * <ul>
+ * <li>Transport: {@link SimpleTransport}</li>
+ * <li>Worker threads: 8</li>
+ * <li>Executor type: {@link ExecutorType#SIMPLE}, requests are handled on the worker threads.</li>
+ * <li>Executor threads: number of available processors. Used by {@link ExecutorType#FIXED} and
+ * {@link ExecutorType#WORK_STEALING}.</li>
+ * <li>Queue capacity: 1024. Used by {@link ExecutorType#FIXED}. Requests that don't fit in the queue get a 503 response.</li>
+ * </ul>
+ *
+ * @see MockHttpServer
+ * @see LoggingHttpProxy
+ * @author kristof
+ */
+public class ServerConfig {
+
+    /**
+     * Defines where requests are handled.
+     */
+    public static enum ExecutorType {
+        /**
+         * Requests are handled on the worker threads of the transport.
+         */
+        SIMPLE,
+        /**
+         * Requests are handled by a fixed number of threads taking requests from a bounded queue.
+         */
+        FIXED,
+        /**
+         * Requests are handled by a work-stealing pool. Requires Java 8 or higher.
+         */
+        WORK_STEALING,
+        /**
+         * Every request is handled on a new virtual thread. Requires Java 21 or higher. Handlers that block, for example
+         * {@link LoggingHttpProxy} waiting for the forwarded request, don't occupy a platform thread while blocked so they
+         * don't limit the number of requests that can be handled concurrently.
+         */
+        VIRTUAL;
+
+        /**
+         * Indicates if this executor type is supported by the running JVM.
+         *
+         * @return <code>true</code> in case it is supported, <code>false</code> otherwise.
+         */
+        public boolean isSupported() {
+            switch (this) {
+                case WORK_STEALING:
+                    return findExecutorsMethod("newWorkStealingPool", int.class) != null;
+                case VIRTUAL:
+                    return findExecutorsMethod("newVirtualThreadPerTaskExecutor") != null;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private static final int DEFAULT_WORKER_THREADS = 8;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private Transport transport = new SimpleTransport();
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+    private ExecutorType executorType = ExecutorType.SIMPLE;
+    private int executorThreads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * Sets the transport, the server engine that receives requests.
+     *
+     * @param transport Transport. Should not be <code>null</code>.
+     * @return This config.
+     */
+    public ServerConfig transport(final Transport transport) {
+        Validate.notNull(transport);
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Sets the number of worker threads of the transport. These threads read requests and, with
+     * {@link ExecutorType#SIMPLE}, handle them.
+     *
+     * @param workerThreads Number of worker threads. Should be &gt; 0.
+     * @return This config.
+     */
+    public ServerConfig workerThreads(final int workerThreads) {
+        Validate.isTrue(workerThreads > 0, "workerThreads should be > 0.");
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    /**
+     * Sets the executor type.
+     *
+     * @param executorType Executor type. Should not be <code>null</code>. Should be supported by the running JVM, see
+     *            {@link ExecutorType#isSupported()}.
+     * @return This config.
+     */
+    public ServerConfig executor(final ExecutorType executorType) {
+        Validate.notNull(executorType);
+        Validate.isTrue(executorType.isSupported(), "Executor type not supported by this JVM: " + executorType);
+        this.executorType = executorType;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that handle requests with {@link ExecutorType#FIXED} and the parallelism with
+     * {@link ExecutorType#WORK_STEALING}.
+     *
+     * @param executorThreads Number of executor threads. Should be &gt; 0.
+     * @return This config.
+     */
+    public ServerConfig executorThreads(final int executorThreads) {
+        Validate.isTrue(executorThreads > 0, "executorThreads should be > 0.");
+        this.executorThreads = executorThreads;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests that wait to be handled with {@link ExecutorType#FIXED}.
+     *
+     * @param queueCapacity Queue capacity. Should be &gt; 0.
+     * @return This config.
+     */
+    public ServerConfig queueCapacity(final int queueCapacity) {
+        Validate.isTrue(queueCapacity > 0, "queueCapacity should be > 0.");
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public ExecutorType getExecutorType() {
+        return executorType;
+    }
+
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Creates the executor that handles requests.
+     *
+     * @param name Prefix for thread names.
+     * @return Executor or <code>null</code> in case requests should be handled on the transport worker threads.
+     */
+    ExecutorService newExecutor(final String name) {
+        switch (executorType) {
+            case SIMPLE:
+                return null;
+            case FIXED:
+                return new ThreadPoolExecutor(executorThreads, executorThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueCapacity), new NamedThreadFactory(name));
+            case WORK_STEALING:
+                return invoke(findExecutorsMethod("newWorkStealingPool", int.class), executorThreads);
+            case VIRTUAL:
+                return invoke(findExecutorsMethod("newVirtualThreadPerTaskExecutor"));
+            default:
+                throw new IllegalStateException("Unsupported executor type: " + executorType);
+        }
+    }
+
+    // Executors methods that are not available in Java 6 are looked up by reflection. Fully qualified because of our
+    // own Method enum.
+    private static java.lang.reflect.Method findExecutorsMethod(final String name, final Class<?>... parameterTypes) {
+        try {
+            return Executors.class.getMethod(name, parameterTypes);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private ExecutorService invoke(final java.lang.reflect.Method method, final Object... args) {
+        if (method == null) {
+            throw new IllegalStateException("Executor type not supported by this JVM: " + executorType);
+        }
+        try {
+            return (ExecutorService)method.invoke(null, args);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException("Could not create executor: " + executorType, e);
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException("Could not create executor: " + executorType, e.getCause());
+        }
+    }
+
+    // Daemon threads named name-n. Also used for the threads that complete delayed and throttled responses.
+    static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.github.kristofa.test.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.kristofa.test.http.transport.RequestHandler;
+import com.github.kristofa.test.http.transport.TransportRequest;
+import com.github.kristofa.test.http.transport.TransportResponse;
+import com.github.kristofa.test.http.transport.TransportServer;
+
+/**
+ * Server for a {@link RequestHandler}, set up according to a {@link ServerConfig}.
+ * <p>
+ * In case the {@link ServerConfig} defines an executor, requests are handed over to it by the transport worker threads.
+ * Transports commit a response when it is closed, not when {@link RequestHandler#handle(TransportRequest, TransportResponse)}
+ * returns, so handling a request on another thread needs no further changes to the handler.
+ *
+ * @author kristof
+ */
+class ServerConnection {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ServerConnection.class);
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final RequestHandler handler;
+    private final ServerConfig config;
+    private final ExecutorService executor;
+    private TransportServer server;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param handler Handler that handles requests.
+     * @param config Server configuration.
+     * @param name Prefix for names of executor threads.
+     */
+    ServerConnection(final RequestHandler handler, final ServerConfig config, final String name) {
+        executor = config.newExecutor(name);
+        this.handler = executor == null ? handler : new DispatchingHandler(handler, executor);
+        this.config = config;
+    }
+
+    /**
+     * Starts the transport, bound to given address.
+     *
+     * @param address Address.
+     * @return Address the server is bound to.
+     * @throws IOException In case binding fails.
+     */
+    InetSocketAddress connect(final SocketAddress address) throws IOException {
+        try {
+            server = config.getTransport().start(address, handler, config.getWorkerThreads());
+        } catch (final IOException e) {
+            shutdownExecutor();
+            throw e;
+        }
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the transport and shuts down the executor, if any.
+     *
+     * @throws IOException In case stopping the transport fails.
+     */
+    void close() throws IOException {
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } finally {
+            shutdownExecutor();
+        }
+    }
+
+    private void shutdownExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static class DispatchingHandler implements RequestHandler {
+
+        private final RequestHandler handler;
+        private final ExecutorService executor;
+
+        DispatchingHandler(final RequestHandler handler, final ExecutorService executor) {
+            this.handler = handler;
+            this.executor = executor;
+        }
+
+        @Override
+        public void handle(final TransportRequest request, final TransportResponse response) {
+            try {
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        handler.handle(request, response);
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                LOGGER.warn("Request rejected by executor: " + request.getPath());
+                try {
+                    response.setCode(SERVICE_UNAVAILABLE);
+                    response.setContentLength(0);
+                    response.close();
+                } catch (final IOException ioe) {
+                    LOGGER.error("Exception when sending 503 response.", ioe);
+                }
+            }
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.github.kristofa.test.http;
 import java.nio.charset.Charset;
 import java.util.List;
 
+import org.apache.commons.lang3.Validate;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URLEncodedUtils;
 
@@ -26,6 +27,7 @@ public class SimpleHttpResponseProvider extends AbstractHttpResponseProvider {
 
     private static final String CONTENT_TYPE_HTTP_HEADER_NAME = "Content-Type";
     private HttpRequestImpl latestRequest;
+    private boolean preEncodeResponses = false;
 
     public SimpleHttpResponseProvider() {
         addHttpRequestMatchingFilter(new AllExceptContentTypeHeaderFilter());
@@ -73,9 +75,63 @@ public class SimpleHttpResponseProvider extends AbstractHttpResponseProvider {
      * @return current {@link SimpleHttpResponseProvider}. Allows chaining calls.
      */
     public SimpleHttpResponseProvider respondWith(final int httpCode, final String contentType, final String requestEntity) {
+        return respondWith(httpCode, contentType, requestEntity, ResponseDelay.NONE);
+    }
+
+    /**
+     * Provide expected response for latest given request which is sent after given delay.
+     * 
+     * @param httpCode Http response code.
+     * @param contentType Content type.
+     * @param requestEntity Data.
+     * @param delay Delay after which response is sent. Should not be <code>null</code>.
+     * @return current {@link SimpleHttpResponseProvider}. Allows chaining calls.
+     * @see DelayedHttpResponse
+     */
+    public SimpleHttpResponseProvider respondWith(final int httpCode, final String contentType,
+        final String requestEntity, final ResponseDelay delay) {
+        return respondWith(httpCode, contentType, requestEntity, delay, null);
+    }
+
+    /**
+     * Provide expected response for latest given request which is sent after given delay and of which the content is
+     * trickled as defined by given throttle.
+     * 
+     * @param httpCode Http response code.
+     * @param contentType Content type.
+     * @param requestEntity Data.
+     * @param delay Delay after which response is sent. Should not be <code>null</code>.
+     * @param throttle Throttle, can be <code>null</code> in which case the content is not throttled.
+     * @return current {@link SimpleHttpResponseProvider}. Allows chaining calls.
+     * @see DelayedHttpResponse
+     * @see ThrottledHttpResponse
+     */
+    public SimpleHttpResponseProvider respondWith(final int httpCode, final String contentType,
+        final String requestEntity, final ResponseDelay delay, final ResponseThrottle throttle) {
+        Validate.notNull(delay);
         final HttpResponseImpl response =
             new HttpResponseImpl(httpCode, contentType, requestEntity == null ? null : requestEntity.getBytes());
-        addExpected(latestRequest, new DefaultHttpResponseProxy(response));
+        HttpResponse expectedResponse = preEncodeResponses ? MappedHttpResponse.preEncode(response) : response;
+        if (throttle != null) {
+            expectedResponse = new ThrottledHttpResponse(expectedResponse, throttle);
+        }
+        if (delay != ResponseDelay.NONE) {
+            expectedResponse = new DelayedHttpResponse(expectedResponse, delay);
+        }
+        addExpected(latestRequest, new DefaultHttpResponseProxy(expectedResponse));
+        return this;
+    }
+
+    /**
+     * Enables or disables pre-encoding of response bodies. In case it is enabled the content of responses that are
+     * provided afterwards is encoded once into a buffer, see {@link MappedHttpResponse#preEncode(HttpResponse)}, so
+     * serving them does not copy or allocate the content again. Disabled by default.
+     * 
+     * @param preEncodeResponses <code>true</code> to pre-encode response bodies.
+     * @return current {@link SimpleHttpResponseProvider}. Allows chaining calls.
+     */
+    public SimpleHttpResponseProvider preEncodeResponses(final boolean preEncodeResponses) {
+        this.preEncodeResponses = preEncodeResponses;
         return this;
     }
 
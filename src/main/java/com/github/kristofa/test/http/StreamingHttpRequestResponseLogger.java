@@ -0,0 +1,41 @@
+package com.github.kristofa.test.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link HttpRequestResponseLogger} that is able to log a response entity while it is being streamed.
+ * <p>
+ * When the logger returned by the {@link HttpRequestResponseLoggerFactory} implements this interface
+ * {@link LoggingHttpProxy} does not keep the complete response entity in memory. Instead it copies the entity from the
+ * forwarded response to the requester through a fixed size buffer and writes each chunk to the {@link OutputStream} returned
+ * by {@link #logResponse(int, String)} as well. Memory use per request is then independent of the entity size.
+ * <p>
+ * {@link HttpRequestResponseLogger#log(HttpResponse)} is not called for responses that are logged this way. In case the
+ * entity can't be copied completely {@link #abortResponse()} is called instead of closing the stream, so a truncated entity
+ * is never recorded as complete.
+ * 
+ * @see LoggingHttpProxy
+ * @author kristof
+ */
+public interface StreamingHttpRequestResponseLogger extends HttpRequestResponseLogger {
+
+    /**
+     * Starts logging a response of which the entity will be streamed.
+     * 
+     * @param httpCode Http code of response.
+     * @param contentType Content type of response. Can be <code>null</code>.
+     * @return Stream to which the response entity will be written. It will be closed when the complete entity has been
+     *         written.
+     * @throws IOException In case we can't start logging the response.
+     */
+    OutputStream logResponse(int httpCode, String contentType) throws IOException;
+
+    /**
+     * Discards the response that was started with {@link #logResponse(int, String)}, instead of closing its stream. Called
+     * when the response entity could not be copied completely, for example because reading the forwarded response or
+     * writing to the requester failed. Nothing of the response is kept.
+     */
+    void abortResponse();
+
+}
@@ -0,0 +1,81 @@
+package com.github.kristofa.test.http;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link HttpResponse} of which {@link MockHttpServer} trickles the content to the client as defined by a
+ * {@link ResponseThrottle}.
+ * <p>
+ * Can be combined with {@link DelayedHttpResponse}, in which case the content is trickled after the delay.
+ *
+ * @author kristof
+ */
+public class ThrottledHttpResponse implements HttpResponse {
+
+    private final HttpResponse response;
+    private final ResponseThrottle throttle;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param response Response of which content should be trickled. Should not be <code>null</code>.
+     * @param throttle Throttle. Should not be <code>null</code>.
+     */
+    public ThrottledHttpResponse(final HttpResponse response, final ResponseThrottle throttle) {
+        Validate.notNull(response);
+        Validate.notNull(throttle);
+        this.response = response;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Gets the response of which content is trickled.
+     *
+     * @return Response.
+     */
+    public HttpResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Gets the throttle.
+     *
+     * @return Throttle.
+     */
+    public ResponseThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHttpCode() {
+        return response.getHttpCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentType() {
+        return response.getContentType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getContent() {
+        return response.getContent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return response + ", Throttle: " + throttle;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.github.kristofa.test.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.kristofa.test.http.transport.TransportResponse;
+
+/**
+ * Trickles content to a {@link TransportResponse} as defined by a {@link ResponseThrottle}. Writes chunks as long as the
+ * throttle allows it and reschedules itself on a {@link TimerWheel} when it has to wait, so no thread is occupied while
+ * waiting. Each chunk is flushed so it is sent to the client right away. The response is closed after the last chunk.
+ * <p>
+ * After waiting, the timer hands the writer to its executor, so a write that blocks on a client that does not read never
+ * runs on the timer thread.
+ *
+ * @author kristof
+ */
+class ThrottledWriter implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ThrottledWriter.class);
+
+    private final ByteBuffer content;
+    private final TransportResponse response;
+    private final ResponseThrottle throttle;
+    private final TimerWheel timer;
+    private final TokenBucket bucket;
+    private final byte[] chunk;
+    private int reserved = 0;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param content Content to write, the remaining part of the buffer. Can be <code>null</code>.
+     * @param response Response to write to.
+     * @param throttle Throttle.
+     * @param timer Timer on which writing next chunks is scheduled.
+     */
+    ThrottledWriter(final ByteBuffer content, final TransportResponse response, final ResponseThrottle throttle,
+        final TimerWheel timer) {
+        this.content = content == null ? ByteBuffer.allocate(0) : content.duplicate();
+        this.response = response;
+        this.throttle = throttle;
+        this.timer = timer;
+        bucket = throttle.getBytesPerSecond() > 0 ? new TokenBucket(throttle.getBytesPerSecond(), throttle.getChunkSize())
+            : null;
+        chunk = new byte[Math.min(throttle.getChunkSize(), this.content.remaining())];
+    }
+
+    /**
+     * Writes chunks until the throttle requires to wait or all content is written.
+     */
+    @Override
+    public void run() {
+        try {
+            final OutputStream body = response.getOutputStream();
+            while (content.hasRemaining()) {
+                final int length = Math.min(chunk.length, content.remaining());
+                if (bucket != null && reserved == 0) {
+                    reserved = length;
+                    final long waitNanos = bucket.take(length, System.nanoTime());
+                    if (waitNanos > 0) {
+                        timer.schedule(this, waitNanos, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                }
+                reserved = 0;
+                content.get(chunk, 0, length);
+                body.write(chunk, 0, length);
+                body.flush();
+                if (content.hasRemaining() && throttle.getChunkGapMillis() > 0) {
+                    timer.schedule(this, throttle.getChunkGapMillis(), TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            body.close();
+        } catch (final IOException e) {
+            LOGGER.debug("IOException when writing throttled response. Client disconnected?", e);
+            closeQuietly();
+        } catch (final IllegalStateException e) {
+            LOGGER.debug("Timer stopped while writing throttled response.", e);
+            closeQuietly();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            response.close();
+        } catch (final IOException e) {
+            LOGGER.debug("IOException when closing throttled response.", e);
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.github.kristofa.test.http;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timer wheel that hands tasks to an {@link Executor} after a delay.
+ * <p>
+ * The wheel is an array of buckets, each covering one tick. A task is put in the bucket of the tick in which it expires
+ * together with the number of remaining revolutions of the wheel. Each tick the timer thread expires the tasks of a single
+ * bucket that have no revolutions left. Scheduling and expiring a task take constant time, no matter how many tasks are
+ * pending. Tasks are handed to the executor at most one tick late.
+ * <p>
+ * The timer thread is started with the first scheduled task and parks while no tasks are pending. It never runs tasks
+ * itself, so a task that blocks, for example writing to a slow client, does not delay other tasks.
+ *
+ * @author kristof
+ */
+class TimerWheel {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+    private static final int DEFAULT_TICK_MILLIS = 1;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket[] wheel;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<Timeout>();
+    private final String name;
+    private final Executor executor;
+    private final Object lifecycleLock = new Object();
+    private Thread thread;
+    private volatile boolean stopped;
+
+    // Only accessed by the timer thread.
+    private long startNanos;
+    private long tick;
+    private int pending;
+
+    /**
+     * Creates a new instance with tick of 1 millisecond and 512 buckets.
+     *
+     * @param name Name of the timer thread.
+     * @param executor Executor that runs expired tasks.
+     */
+    TimerWheel(final String name, final Executor executor) {
+        this(name, executor, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name Name of the timer thread.
+     * @param executor Executor that runs expired tasks.
+     * @param tickDuration Duration of a tick. Should be &gt; 0.
+     * @param unit Unit of tick duration.
+     * @param wheelSize Number of buckets. Is rounded up to a power of 2.
+     */
+    TimerWheel(final String name, final Executor executor, final long tickDuration, final TimeUnit unit,
+        final int wheelSize) {
+        Validate.notNull(executor);
+        Validate.isTrue(tickDuration > 0, "tickDuration should be > 0.");
+        Validate.isTrue(wheelSize > 0 && wheelSize <= 1 << 30, "wheelSize should be > 0 and <= 2^30.");
+        this.name = name;
+        this.executor = executor;
+        tickNanos = unit.toNanos(tickDuration);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task Task. Should not be <code>null</code>.
+     * @param delay Delay.
+     * @param unit Unit of delay.
+     * @throws IllegalStateException In case the timer is stopped.
+     */
+    void schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        Validate.notNull(task);
+        final long deadlineNanos = System.nanoTime() + unit.toNanos(Math.max(0, delay));
+        final Thread timerThread;
+        synchronized (lifecycleLock) {
+            if (stopped) {
+                throw new IllegalStateException("Timer is stopped.");
+            }
+            scheduled.add(new Timeout(task, deadlineNanos));
+            if (thread == null) {
+                thread = new Thread(new Worker(), name);
+                thread.setDaemon(true);
+                thread.start();
+                return;
+            }
+            timerThread = thread;
+        }
+        LockSupport.unpark(timerThread);
+    }
+
+    /**
+     * Stops the timer. Pending tasks don't run.
+     */
+    void stop() {
+        final Thread timerThread;
+        synchronized (lifecycleLock) {
+            stopped = true;
+            timerThread = thread;
+        }
+        if (timerThread != null) {
+            LockSupport.unpark(timerThread);
+            try {
+                timerThread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        scheduled.clear();
+    }
+
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            startNanos = System.nanoTime();
+            tick = 0;
+            while (!stopped) {
+                if (pending == 0 && scheduled.isEmpty()) {
+                    LockSupport.park(this);
+                    // The wheel is empty so we can skip the ticks that passed while parked.
+                    tick = currentTick();
+                    continue;
+                }
+                transferScheduled();
+                final long now = currentTick();
+                while (tick <= now && !stopped) {
+                    expire(wheel[(int)(tick & mask)]);
+                    tick++;
+                }
+                final long sleepNanos = startNanos + tick * tickNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(this, sleepNanos);
+                }
+            }
+        }
+
+        private long currentTick() {
+            return (System.nanoTime() - startNanos) / tickNanos;
+        }
+
+        private void transferScheduled() {
+            Timeout timeout;
+            while ((timeout = scheduled.poll()) != null) {
+                final long deadlineTick = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+                timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+                wheel[(int)(deadlineTick & mask)].add(timeout);
+                pending++;
+            }
+        }
+
+        private void expire(final Bucket bucket) {
+            final Iterator<Timeout> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                final Timeout timeout = iterator.next();
+                if (timeout.remainingRounds <= 0) {
+                    iterator.remove();
+                    pending--;
+                    try {
+                        executor.execute(timeout.task);
+                    } catch (final RejectedExecutionException e) {
+                        LOGGER.debug("Timer task rejected, executor is shut down.", e);
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+            }
+        }
+    }
+
+    private static class Bucket extends LinkedList<Timeout> {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class Timeout {
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private long remainingRounds;
+
+        Timeout(final Runnable task, final long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.github.kristofa.test.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Token bucket that limits throughput. Tokens are added at a fixed rate up to a maximum. Taking more tokens than available
+ * is allowed, the caller should wait until the deficit is refilled.
+ *
+ * @author kristof
+ */
+class TokenBucket {
+
+    private final double tokensPerNano;
+    private final long capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a new, full, instance.
+     *
+     * @param tokensPerSecond Number of tokens added per second. Should be &gt; 0.
+     * @param capacity Maximum number of tokens. Should be &gt; 0.
+     */
+    TokenBucket(final long tokensPerSecond, final long capacity) {
+        Validate.isTrue(tokensPerSecond > 0, "tokensPerSecond should be > 0.");
+        Validate.isTrue(capacity > 0, "capacity should be > 0.");
+        tokensPerNano = tokensPerSecond / (double)TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        tokens = capacity;
+        lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes tokens.
+     *
+     * @param count Number of tokens.
+     * @param nowNanos Current time, as returned by {@link System#nanoTime()}.
+     * @return Time in nanoseconds the caller should wait before using the tokens, 0 in case they were available.
+     */
+    synchronized long take(final long count, final long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = nowNanos;
+        tokens -= count;
+        return tokens >= 0 ? 0 : (long)Math.ceil(-tokens / tokensPerNano);
+    }
+
+}
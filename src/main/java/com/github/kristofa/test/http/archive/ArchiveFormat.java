@@ -0,0 +1,145 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import com.github.kristofa.test.http.HttpMessageCodec;
+import com.github.kristofa.test.http.HttpRequest;
+import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.MappedHttpResponse;
+
+/**
+ * Binary layout of the archive and index files.
+ * <p>
+ * Archive file (&lt;fileName&gt;.archive): {@link #ARCHIVE_MAGIC}, {@link #VERSION} followed by records. Each record has a
+ * header of {@link #RECORD_HEADER_SIZE} bytes: record type (byte), sequence number (int) and payload length (int), followed
+ * by the payload.
+ * <p>
+ * Index file (&lt;fileName&gt;.index): {@link #INDEX_MAGIC}, {@link #VERSION} followed by entries of
+ * {@link #INDEX_ENTRY_SIZE} bytes: record type (byte), sequence number (int), payload offset in the archive file (long) and
+ * payload length (int).
+ * <p>
+ * Request and response payloads are encoded with {@link HttpMessageCodec}.
+ *
+ * @author kristof
+ */
+final class ArchiveFormat {
+
+    static final String ARCHIVE_EXTENSION = ".archive";
+    static final String INDEX_EXTENSION = ".index";
+
+    static final int ARCHIVE_MAGIC = 0x4d485341; // MHSA
+    static final int INDEX_MAGIC = 0x4d485349; // MHSI
+    static final int VERSION = 2;
+    static final int FILE_HEADER_SIZE = 8;
+
+    static final byte REQUEST = 1;
+    static final byte RESPONSE = 2;
+
+    static final int RECORD_HEADER_SIZE = 9;
+    static final int INDEX_ENTRY_SIZE = 17;
+
+    private ArchiveFormat() {
+        // Utility class.
+    }
+
+    static byte[] encode(final HttpRequest request) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            HttpMessageCodec.write(new DataOutputStream(bytes), request);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encode(final HttpResponse response) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            HttpMessageCodec.write(new DataOutputStream(bytes), response);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static HttpRequest decodeRequest(final byte[] payload) {
+        try {
+            return HttpMessageCodec.readRequest(new DataInputStream(new ByteArrayInputStream(payload)), payload.length);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Corrupt request record.", e);
+        }
+    }
+
+    static HttpResponse decodeResponse(final byte[] payload) {
+        try {
+            return HttpMessageCodec.readResponse(new DataInputStream(new ByteArrayInputStream(payload)), payload.length);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Corrupt response record.", e);
+        }
+    }
+
+    /**
+     * Decodes a response without copying its content. The content of the returned response is a slice of given payload.
+     */
+    static MappedHttpResponse decodeResponse(final ByteBuffer payload) {
+        final ByteBuffer input = payload.duplicate();
+        try {
+            final int httpCode = input.getInt();
+            final String contentType = readString(input);
+            final int length = input.getInt();
+            if (length < 0) {
+                return new MappedHttpResponse(httpCode, contentType, null);
+            }
+            input.limit(input.position() + length);
+            return new MappedHttpResponse(httpCode, contentType, input);
+        } catch (final RuntimeException e) {
+            throw new IllegalStateException("Corrupt response record.", e);
+        }
+    }
+
+    static ByteBuffer fileHeader(final int magic) {
+        final ByteBuffer buffer = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        buffer.putInt(magic).putInt(VERSION).flip();
+        return buffer;
+    }
+
+    static ByteBuffer record(final byte type, final int seqNr, final byte[] payload) {
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        buffer.put(type).putInt(seqNr).putInt(payload.length).put(payload).flip();
+        return buffer;
+    }
+
+    static void writeIndexEntry(final DataOutput output, final byte type, final int seqNr, final long offset,
+        final int length) throws IOException {
+        output.writeByte(type);
+        output.writeInt(seqNr);
+        output.writeLong(offset);
+        output.writeInt(length);
+    }
+
+    // String as written by HttpMessageCodec: length followed by the UTF-8 bytes.
+    private static String readString(final ByteBuffer input) {
+        final int length = input.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > input.remaining()) {
+            throw new IllegalStateException("Invalid string length: " + length);
+        }
+        final byte[] utf = new byte[length];
+        input.get(utf);
+        try {
+            return new String(utf, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.Validate;
+
+import com.github.kristofa.test.http.AbstractHttpResponseProvider;
+import com.github.kristofa.test.http.HttpResponseProvider;
+import com.github.kristofa.test.http.LoggingHttpProxy;
+import com.github.kristofa.test.http.MappedHttpResponse;
+import com.github.kristofa.test.http.MockHttpServer;
+
+/**
+ * {@link HttpResponseProvider} that is able to serve responses for requests/responses previously saved by
+ * {@link HttpRequestResponseArchiveLoggerFactory}.
+ * <p>
+ * It supports submitting same request multiple times with different return result.
+ * <p>
+ * It reads the index and all http requests on first use and keeps the requests in memory. Responses are served from a
+ * memory mapping of the archive file, see {@link MappedHttpResponse}, so response entities are not kept on the heap. The
+ * archive file is kept open until {@link #close()} is called, which is done by {@link MockHttpServer#stop()}.
+ *
+ * @see HttpRequestResponseArchiveLoggerFactory
+ * @see LoggingHttpProxy
+ * @author kristof
+ */
+public class ArchiveHttpResponseProvider extends AbstractHttpResponseProvider implements Closeable {
+
+    private final File archiveFile;
+    private final ArchiveReader reader;
+
+    /**
+     * Creates a new instance. Will throw unchecked exception on first use in case:
+     * <ul>
+     * <li>We can not find at least 1 request/response in the archive.
+     * <li>We found a request without persisted response
+     * </ul>
+     *
+     * @param directory Directory from which to read files. Should not be <code>null</code> or blank.
+     * @param fileName Base file name. Should not contain extension. Should be same as used in
+     *            {@link HttpRequestResponseArchiveLoggerFactory}. Should not be <code>null</code> or blank.
+     */
+    public ArchiveHttpResponseProvider(final String directory, final String fileName) {
+        Validate.notBlank(directory);
+        Validate.notBlank(fileName);
+        archiveFile = new File(directory, fileName + ArchiveFormat.ARCHIVE_EXTENSION);
+        reader = new ArchiveReader(archiveFile, new File(directory, fileName + ArchiveFormat.INDEX_EXTENSION));
+    }
+
+    /**
+     * Closes the archive file. It will be opened again in case responses are requested afterwards.
+     *
+     * @throws IOException In case closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void lazyInitializeExpectedRequestsAndResponses() {
+        if (!archiveFile.exists()) {
+            throw new IllegalStateException("No saved http request/responses found. File " + archiveFile + " not found.");
+        }
+        final Map<Integer, ArchiveReader.Entry> requests = new TreeMap<Integer, ArchiveReader.Entry>();
+        final Map<Integer, ArchiveReader.Entry> responses = new TreeMap<Integer, ArchiveReader.Entry>();
+        try {
+            for (final ArchiveReader.Entry entry : reader.entries()) {
+                if (entry.getType() == ArchiveFormat.REQUEST) {
+                    requests.put(entry.getSeqNr(), entry);
+                } else {
+                    responses.put(entry.getSeqNr(), entry);
+                }
+            }
+            if (requests.isEmpty()) {
+                throw new IllegalStateException("No saved http request/responses found in " + archiveFile);
+            }
+            for (final Entry<Integer, ArchiveReader.Entry> request : requests.entrySet()) {
+                final ArchiveReader.Entry response = responses.get(request.getKey());
+                if (response == null) {
+                    throw new IllegalStateException("Found request with seqNr " + request.getKey() + " in " + archiveFile
+                        + " but no matching response.");
+                }
+                addExpected(ArchiveFormat.decodeRequest(reader.read(request.getValue())), new ArchiveHttpResponseProxy(
+                    reader, response));
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.IOException;
+
+import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.HttpResponseProxy;
+
+class ArchiveHttpResponseProxy implements HttpResponseProxy {
+
+    private final ArchiveReader reader;
+    private final ArchiveReader.Entry entry;
+    private boolean isConsumed = false;
+    private volatile HttpResponse response;
+
+    public ArchiveHttpResponseProxy(final ArchiveReader reader, final ArchiveReader.Entry entry) {
+        this.reader = reader;
+        this.entry = entry;
+    }
+
+    @Override
+    public boolean consumed() {
+        return isConsumed;
+    }
+
+    @Override
+    public HttpResponse getResponse() {
+        return readResponse();
+    }
+
+    @Override
+    public HttpResponse consume() {
+        final HttpResponse response = readResponse();
+        isConsumed = true;
+        return response;
+    }
+
+    // The response content is a slice of the mapped archive so it can be kept without using heap.
+    private HttpResponse readResponse() {
+        HttpResponse mappedResponse = response;
+        if (mappedResponse == null) {
+            try {
+                mappedResponse = ArchiveFormat.decodeResponse(reader.map(entry));
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+            response = mappedResponse;
+        }
+        return mappedResponse;
+    }
+
+}
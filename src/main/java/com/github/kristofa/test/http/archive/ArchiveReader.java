@@ -0,0 +1,250 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads records from an archive file written by {@link ArchiveWriter}. See {@link ArchiveFormat}.
+ * <p>
+ * {@link #entries()} reads the index file. Records that were appended to the archive file after the last index entry, for
+ * example because the index was not flushed, are recovered by scanning the archive file from there. Records are read with
+ * positional reads on a single open file so {@link #read(Entry)} can be called concurrently.
+ * <p>
+ * {@link #map(Entry)} gives access to a record without copying it. The complete archive file is mapped once, in case it is
+ * smaller than 2GB. Otherwise each record is mapped separately. Mappings stay valid after {@link #close()}.
+ * <p>
+ * {@link #close()} closes the archive file. It is opened again in case records are read afterwards.
+ *
+ * @see ArchiveWriter
+ * @author kristof
+ */
+class ArchiveReader implements Closeable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ArchiveReader.class);
+
+    private final File archiveFile;
+    private final File indexFile;
+    private volatile FileChannel archive;
+    private volatile MappedByteBuffer mappedArchive;
+
+    /**
+     * Creates a new instance. Files are only opened when needed.
+     *
+     * @param archiveFile Archive file.
+     * @param indexFile Index file.
+     */
+    public ArchiveReader(final File archiveFile, final File indexFile) {
+        this.archiveFile = archiveFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Gets the entries of all complete records in the archive, in the order in which they were written.
+     *
+     * @return Entries.
+     * @throws IOException In case reading fails or in case archive file is not valid.
+     */
+    public List<Entry> entries() throws IOException {
+        final FileChannel channel = channel();
+        final long size = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.FILE_HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != ArchiveFormat.ARCHIVE_MAGIC || header.getInt(4) != ArchiveFormat.VERSION) {
+            throw new IOException(archiveFile + " is not a valid archive file.");
+        }
+
+        final List<Entry> entries = new ArrayList<Entry>();
+        final long indexed = readIndex(entries, size);
+        if (indexed < size) {
+            scan(channel, entries, indexed, size);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the payload of a record.
+     *
+     * @param entry Entry of record.
+     * @return Payload.
+     * @throws IOException In case reading fails or in case entry is outside of the archive file.
+     */
+    public byte[] read(final Entry entry) throws IOException {
+        final FileChannel channel = channel();
+        checkBounds(entry, channel.size());
+        final byte[] payload = new byte[entry.length];
+        readFully(channel, ByteBuffer.wrap(payload), entry.offset);
+        return payload;
+    }
+
+    /**
+     * Gets the payload of a record as read-only buffer backed by a memory mapping of the archive file.
+     *
+     * @param entry Entry of record.
+     * @return Payload.
+     * @throws IOException In case mapping fails or in case entry is outside of the archive file.
+     */
+    public ByteBuffer map(final Entry entry) throws IOException {
+        checkBounds(entry, channel().size());
+        MappedByteBuffer mapped = mappedArchive;
+        if (mapped == null) {
+            synchronized (this) {
+                mapped = mappedArchive;
+                if (mapped == null) {
+                    final FileChannel channel = channel();
+                    if (channel.size() > Integer.MAX_VALUE) {
+                        return channel.map(MapMode.READ_ONLY, entry.offset, entry.length);
+                    }
+                    mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+                    mappedArchive = mapped;
+                }
+            }
+        }
+        final ByteBuffer payload = mapped.duplicate();
+        payload.position((int)entry.offset);
+        payload.limit((int)(entry.offset + entry.length));
+        return payload.slice();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (archive != null) {
+            archive.close();
+            archive = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel channel = archive;
+        if (channel == null) {
+            synchronized (this) {
+                channel = archive;
+                if (channel == null) {
+                    channel = new RandomAccessFile(archiveFile, "r").getChannel();
+                    archive = channel;
+                }
+            }
+        }
+        return channel;
+    }
+
+    // Returns the position in the archive file up to which records are indexed.
+    private long readIndex(final List<Entry> entries, final long archiveSize) throws IOException {
+        long indexed = ArchiveFormat.FILE_HEADER_SIZE;
+        if (!indexFile.exists()) {
+            LOGGER.warn("Index file " + indexFile + " not found. Scanning " + archiveFile);
+            return indexed;
+        }
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (input.readInt() != ArchiveFormat.INDEX_MAGIC || input.readInt() != ArchiveFormat.VERSION) {
+                LOGGER.warn(indexFile + " is not a valid index file. Scanning " + archiveFile);
+                return indexed;
+            }
+            final long entryCount = (indexFile.length() - ArchiveFormat.FILE_HEADER_SIZE) / ArchiveFormat.INDEX_ENTRY_SIZE;
+            for (long i = 0; i < entryCount; i++) {
+                final Entry entry = new Entry(input.readByte(), input.readInt(), input.readLong(), input.readInt());
+                if (entry.offset < ArchiveFormat.FILE_HEADER_SIZE || entry.length < 0
+                    || entry.offset + entry.length > archiveSize) {
+                    break;
+                }
+                entries.add(entry);
+                indexed = entry.offset + entry.length;
+            }
+        } catch (final EOFException e) {
+            LOGGER.warn("Truncated index file " + indexFile + ". Scanning rest of " + archiveFile);
+        } finally {
+            input.close();
+        }
+        return indexed;
+    }
+
+    private void scan(final FileChannel channel, final List<Entry> entries, final long from, final long size)
+        throws IOException {
+        final ByteBuffer recordHeader = ByteBuffer.allocate(ArchiveFormat.RECORD_HEADER_SIZE);
+        long position = from;
+        while (position + ArchiveFormat.RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            readFully(channel, recordHeader, position);
+            final byte type = recordHeader.get(0);
+            final int length = recordHeader.getInt(5);
+            final long offset = position + ArchiveFormat.RECORD_HEADER_SIZE;
+            if ((type != ArchiveFormat.REQUEST && type != ArchiveFormat.RESPONSE) || length < 0 || offset + length > size) {
+                LOGGER.warn("Ignoring incomplete record at position " + position + " of " + archiveFile);
+                return;
+            }
+            entries.add(new Entry(type, recordHeader.getInt(1), offset, length));
+            position = offset + length;
+        }
+    }
+
+    private void checkBounds(final Entry entry, final long archiveSize) throws IOException {
+        if (entry.offset < ArchiveFormat.FILE_HEADER_SIZE || entry.length < 0 || entry.offset + entry.length > archiveSize) {
+            throw new IOException("Record at " + entry.offset + " with length " + entry.length + " is outside of "
+                + archiveFile);
+        }
+    }
+
+    private void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long readPosition = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, readPosition);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + archiveFile);
+            }
+            readPosition += read;
+        }
+    }
+
+    /**
+     * Location of a record in the archive file.
+     */
+    static final class Entry {
+
+        private final byte type;
+        private final int seqNr;
+        private final long offset;
+        private final int length;
+
+        Entry(final byte type, final int seqNr, final long offset, final int length) {
+            this.type = type;
+            this.seqNr = seqNr;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        byte getType() {
+            return type;
+        }
+
+        int getSeqNr() {
+            return seqNr;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends records to an archive file and their entries to the accompanying index file. See {@link ArchiveFormat}.
+ * <p>
+ * Records are written to the archive file immediately. Index entries are buffered and written with {@link #flush()} or
+ * {@link #close()}. {@link ArchiveReader} recovers records for which the index entry is missing.
+ * <p>
+ * Thread safe.
+ *
+ * @see ArchiveReader
+ * @author kristof
+ */
+class ArchiveWriter implements Flushable, Closeable {
+
+    private final FileChannel archive;
+    private final DataOutputStream index;
+    private long position;
+
+    /**
+     * Creates a new instance. Existing archive and index files are overwritten.
+     *
+     * @param archiveFile Archive file.
+     * @param indexFile Index file.
+     * @throws IOException In case we can't create the files.
+     */
+    public ArchiveWriter(final File archiveFile, final File indexFile) throws IOException {
+        archive = new FileOutputStream(archiveFile).getChannel();
+        writeFully(ArchiveFormat.fileHeader(ArchiveFormat.ARCHIVE_MAGIC));
+        position = ArchiveFormat.FILE_HEADER_SIZE;
+        index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        index.writeInt(ArchiveFormat.INDEX_MAGIC);
+        index.writeInt(ArchiveFormat.VERSION);
+        index.flush();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param type {@link ArchiveFormat#REQUEST} or {@link ArchiveFormat#RESPONSE}.
+     * @param seqNr Sequence number of request/response.
+     * @param payload Encoded request or response.
+     * @throws IOException In case writing fails.
+     */
+    public synchronized void append(final byte type, final int seqNr, final byte[] payload) throws IOException {
+        writeFully(ArchiveFormat.record(type, seqNr, payload));
+        ArchiveFormat.writeIndexEntry(index, type, seqNr, position + ArchiveFormat.RECORD_HEADER_SIZE, payload.length);
+        position += ArchiveFormat.RECORD_HEADER_SIZE + payload.length;
+    }
+
+    /**
+     * Writes buffered index entries.
+     *
+     * @throws IOException In case writing fails.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        index.flush();
+    }
+
+    /**
+     * Writes buffered index entries and closes archive and index files.
+     *
+     * @throws IOException In case writing or closing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            index.close();
+        } finally {
+            archive.close();
+        }
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            archive.write(buffer);
+        }
+    }
+
+}
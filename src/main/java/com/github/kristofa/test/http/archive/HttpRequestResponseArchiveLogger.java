@@ -0,0 +1,64 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.IOException;
+
+import com.github.kristofa.test.http.HttpRequest;
+import com.github.kristofa.test.http.HttpRequestResponseLogger;
+import com.github.kristofa.test.http.HttpResponse;
+
+/**
+ * {@link HttpRequestResponseLogger} that appends requests/responses to an archive file through an {@link ArchiveWriter}.
+ *
+ * @see HttpRequestResponseArchiveLoggerFactory
+ * @author kristof
+ */
+class HttpRequestResponseArchiveLogger implements HttpRequestResponseLogger {
+
+    private final ArchiveWriter writer;
+    private final int seqNr;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param writer Writer for archive file.
+     * @param seqNr Sequence number for request / response.
+     */
+    public HttpRequestResponseArchiveLogger(final ArchiveWriter writer, final int seqNr) {
+        this.writer = writer;
+        this.seqNr = seqNr;
+    }
+
+    /**
+     * Gets the seqnr for request/response.
+     *
+     * @return Seqnr for request/response.
+     */
+    public int getSeqNr() {
+        return seqNr;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void log(final HttpRequest request) {
+        append(ArchiveFormat.REQUEST, ArchiveFormat.encode(request));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void log(final HttpResponse response) {
+        append(ArchiveFormat.RESPONSE, ArchiveFormat.encode(response));
+    }
+
+    private void append(final byte type, final byte[] payload) {
+        try {
+            writer.append(type, seqNr, payload);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.github.kristofa.test.http.archive;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.Validate;
+
+import com.github.kristofa.test.http.HttpRequestResponseLogger;
+import com.github.kristofa.test.http.HttpRequestResponseLoggerFactory;
+import com.github.kristofa.test.http.LoggingHttpProxy;
+import com.github.kristofa.test.http.file.HttpRequestResponseFileLoggerFactory;
+
+/**
+ * Factory that creates {@link HttpRequestResponseLogger} instances that log all requests/responses to a single
+ * append-only archive file instead of separate files per request/response as {@link HttpRequestResponseFileLoggerFactory}
+ * does. Following files are written:
+ * <ul>
+ * <li>&lt;fileName&gt;.archive : Contains all requests and responses, including entities. This is a binary file.</li>
+ * <li>&lt;fileName&gt;.index : Contains the offset of each request and response in the archive file. This is a binary
+ * file.</li>
+ * </ul>
+ * Existing archive and index files are overwritten when the first logger is created. Index entries are buffered. They are
+ * written with {@link #flush()}, which is called by {@link LoggingHttpProxy#stop()}, and with {@link #close()}. Requests and
+ * responses that are not in the index are recovered from the archive file by {@link ArchiveHttpResponseProvider}.
+ *
+ * @see ArchiveHttpResponseProvider
+ * @see LoggingHttpProxy
+ * @author kristof
+ */
+public class HttpRequestResponseArchiveLoggerFactory implements HttpRequestResponseLoggerFactory, Flushable, Closeable {
+
+    private final AtomicInteger atomicInteger = new AtomicInteger();
+    private final String directory;
+    private final String fileName;
+    private ArchiveWriter writer;
+    private boolean closed = false;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory Target directory in which to store request/responses. Directory should already exist. Should not be
+     *            <code>null</code> or blank.
+     * @param fileName Base file name. Should not contain extension. Will be suffixed with .archive and .index extension.
+     *            Should not be <code>null</code> or blank.
+     */
+    public HttpRequestResponseArchiveLoggerFactory(final String directory, final String fileName) {
+        Validate.notBlank(directory);
+        Validate.notBlank(fileName);
+        this.directory = directory;
+        this.fileName = fileName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HttpRequestResponseLogger getHttpRequestResponseLogger() {
+        return new HttpRequestResponseArchiveLogger(getWriter(), atomicInteger.incrementAndGet());
+    }
+
+    /**
+     * Writes buffered index entries.
+     *
+     * @throws IOException In case writing fails.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes buffered index entries and closes archive and index file. No new loggers can be created afterwards.
+     *
+     * @throws IOException In case writing or closing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private synchronized ArchiveWriter getWriter() {
+        if (closed) {
+            throw new IllegalStateException("Archive is closed.");
+        }
+        if (writer == null) {
+            try {
+                writer =
+                    new ArchiveWriter(new File(directory, fileName + ArchiveFormat.ARCHIVE_EXTENSION), new File(directory,
+                        fileName + ArchiveFormat.INDEX_EXTENSION));
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return writer;
+    }
+
+}
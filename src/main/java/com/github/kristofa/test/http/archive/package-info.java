@@ -0,0 +1,6 @@
+/**
+ * Provides implementations for storing http request/responses in a single append-only archive file using
+ * {@link com.github.kristofa.test.http.LoggingHttpProxy} and replaying them using
+ * {@link com.github.kristofa.test.http.MockHttpServer}.
+ */
+package com.github.kristofa.test.http.archive;
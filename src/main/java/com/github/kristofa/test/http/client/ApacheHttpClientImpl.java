@@ -3,6 +3,7 @@ package com.github.kristofa.test.http.client;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.commons.lang3.Validate;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -24,7 +25,24 @@ import com.github.kristofa.test.http.Method;
  */
 public class ApacheHttpClientImpl implements HttpClient {
 
+    private final HttpClientConnectionPool connectionPool;
+
+    /**
+     * Creates a new instance that opens a new connection for each request and closes it when the response is closed.
+     */
     public ApacheHttpClientImpl() {
+        connectionPool = null;
+    }
+
+    /**
+     * Creates a new instance that takes its connections from given pool. Closing a response returns the connection to the
+     * pool so it can be reused for a next request.
+     * 
+     * @param connectionPool Connection pool. Should not be <code>null</code>.
+     */
+    public ApacheHttpClientImpl(final HttpClientConnectionPool connectionPool) {
+        Validate.notNull(connectionPool);
+        this.connectionPool = connectionPool;
     }
 
     /**
@@ -72,11 +90,14 @@ public class ApacheHttpClientImpl implements HttpClient {
     }
 
     /**
-     * Gets a new HTTPClient instance. Introduced to facilitate testing.
+     * Gets a HTTPClient instance. Introduced to facilitate testing.
      * 
-     * @return A new HTTPClient instance.
+     * @return The HTTPClient of the connection pool or a new HTTPClient instance in case we don't use a pool.
      */
     /* package */org.apache.http.client.HttpClient getClient() {
+        if (connectionPool != null) {
+            return connectionPool.getClient();
+        }
         // We use a Custom implementation because we don't want to modify the requests/responses.
         return new CustomHttpClient();
     }
@@ -102,7 +123,9 @@ public class ApacheHttpClientImpl implements HttpClient {
             final HttpResponse httpResponse = client.execute(request);
             return buildResponse(client, httpResponse);
         } catch (final IOException e) {
-            client.getConnectionManager().shutdown(); // In case of exception we should close connection manager here.
+            if (connectionPool == null) {
+                client.getConnectionManager().shutdown(); // In case of exception we should close connection manager here.
+            }
             throw e;
         }
     }
@@ -111,7 +134,7 @@ public class ApacheHttpClientImpl implements HttpClient {
         final HttpResponse response) throws IOException {
         final int status = response.getStatusLine().getStatusCode();
         final ApacheHttpClientResponseImpl<InputStream> httpResponse =
-            new ApacheHttpClientResponseImpl<InputStream>(status, client);
+            new ApacheHttpClientResponseImpl<InputStream>(status, client, connectionPool == null);
         httpResponse.setResponseEntity(response.getEntity().getContent());
         if (response.getEntity().getContentType() != null) {
             httpResponse.setContentType(response.getEntity().getContentType().getValue());
@@ -1,5 +1,8 @@
 package com.github.kristofa.test.http.client;
 
+import java.io.Closeable;
+
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -19,6 +22,7 @@ class ApacheHttpClientResponseImpl<T> implements HttpClientResponse<T> {
 
     private final int httpCode;
     private final org.apache.http.client.HttpClient httpClient;
+    private final boolean shutdownConnectionManagerOnClose;
     private String errorMessage;
     private T responseEntity;
     private String contentType;
@@ -30,9 +34,24 @@ class ApacheHttpClientResponseImpl<T> implements HttpClientResponse<T> {
      * @param httpClient The Http client that was used to generate this response.
      */
     public ApacheHttpClientResponseImpl(final int httpCode, final org.apache.http.client.HttpClient httpClient) {
+        this(httpCode, httpClient, true);
+    }
+
+    /**
+     * Create a new response instance.
+     * 
+     * @param httpCode Http code.
+     * @param httpClient The Http client that was used to generate this response.
+     * @param shutdownConnectionManagerOnClose <code>true</code> in case the connection manager of the Http client should be
+     *            shut down when closing response. <code>false</code> in case the connection manager is shared, in that case
+     *            closing the response will close the response entity which releases the connection.
+     */
+    public ApacheHttpClientResponseImpl(final int httpCode, final org.apache.http.client.HttpClient httpClient,
+        final boolean shutdownConnectionManagerOnClose) {
         Validate.notNull(httpClient);
         this.httpCode = httpCode;
         this.httpClient = httpClient;
+        this.shutdownConnectionManagerOnClose = shutdownConnectionManagerOnClose;
     }
 
     /**
@@ -107,7 +126,12 @@ class ApacheHttpClientResponseImpl<T> implements HttpClientResponse<T> {
      */
     @Override
     public void close() {
-        httpClient.getConnectionManager().shutdown();
+        if (shutdownConnectionManagerOnClose) {
+            httpClient.getConnectionManager().shutdown();
+        } else if (responseEntity instanceof Closeable) {
+            // Closing the entity stream reads what is left of it and returns the connection to the pool.
+            IOUtils.closeQuietly((Closeable)responseEntity);
+        }
     }
 
     /*
@@ -0,0 +1,121 @@
+package com.github.kristofa.test.http.client;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.http.HttpHost;
+
+/**
+ * Configuration of a {@link HttpClientConnectionPool}.
+ * <p>
+ * Defaults:
+ * <ul>
+ * <li>Maximum number of connections: 100</li>
+ * <li>Maximum number of connections per route (target host and port): 20</li>
+ * <li>Idle timeout: 30 seconds. Connections that are not used for that long are closed.</li>
+ * </ul>
+ *
+ * @see HttpClientConnectionPool
+ * @author kristof
+ */
+public class ConnectionPoolConfig {
+
+    private static final int DEFAULT_MAX_TOTAL = 100;
+    private static final int DEFAULT_MAX_PER_ROUTE = 20;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private final Map<HttpHost, Integer> maxPerRouteOverrides = new HashMap<HttpHost, Integer>();
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+    /**
+     * Sets the maximum number of connections for all routes together.
+     *
+     * @param maxTotal Maximum number of connections. Should be &gt; 0.
+     * @return This config.
+     */
+    public ConnectionPoolConfig maxTotal(final int maxTotal) {
+        Validate.isTrue(maxTotal > 0, "maxTotal should be > 0.");
+        this.maxTotal = maxTotal;
+        return this;
+    }
+
+    /**
+     * Sets the default maximum number of connections per route.
+     *
+     * @param maxPerRoute Maximum number of connections per route. Should be &gt; 0.
+     * @return This config.
+     */
+    public ConnectionPoolConfig maxPerRoute(final int maxPerRoute) {
+        Validate.isTrue(maxPerRoute > 0, "maxPerRoute should be > 0.");
+        this.maxPerRoute = maxPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections for a specific route.
+     *
+     * @param host Target host. Should not be <code>null</code> or blank.
+     * @param port Target port.
+     * @param max Maximum number of connections to given host and port. Should be &gt; 0.
+     * @return This config.
+     */
+    public ConnectionPoolConfig maxPerRoute(final String host, final int port, final int max) {
+        Validate.notBlank(host);
+        Validate.isTrue(max > 0, "max should be > 0.");
+        maxPerRouteOverrides.put(new HttpHost(host, port), max);
+        return this;
+    }
+
+    /**
+     * Sets the time after which unused connections are closed.
+     *
+     * @param idleTimeoutMillis Idle timeout in milliseconds. Should be &gt; 0.
+     * @return This config.
+     */
+    public ConnectionPoolConfig idleTimeout(final long idleTimeoutMillis) {
+        Validate.isTrue(idleTimeoutMillis > 0, "idleTimeoutMillis should be > 0.");
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of connections for all routes together.
+     *
+     * @return Maximum number of connections.
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * Gets the default maximum number of connections per route.
+     *
+     * @return Maximum number of connections per route.
+     */
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    /**
+     * Gets the routes for which a specific maximum number of connections has been set.
+     *
+     * @return Target hosts with maximum number of connections.
+     */
+    public Map<HttpHost, Integer> getMaxPerRouteOverrides() {
+        return Collections.unmodifiableMap(maxPerRouteOverrides);
+    }
+
+    /**
+     * Gets the time after which unused connections are closed.
+     *
+     * @return Idle timeout in milliseconds.
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+}
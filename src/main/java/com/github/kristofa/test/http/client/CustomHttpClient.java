@@ -1,5 +1,6 @@
 package com.github.kristofa.test.http.client;
 
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.protocol.BasicHttpProcessor;
 
@@ -11,6 +12,22 @@ import org.apache.http.protocol.BasicHttpProcessor;
  */
 class CustomHttpClient extends DefaultHttpClient {
 
+    /**
+     * Creates a new instance with its own connection manager.
+     */
+    CustomHttpClient() {
+        super();
+    }
+
+    /**
+     * Creates a new instance that uses given connection manager.
+     * 
+     * @param connectionManager Connection manager, can be shared with other clients.
+     */
+    CustomHttpClient(final ClientConnectionManager connectionManager) {
+        super(connectionManager);
+    }
+
     @Override
     protected BasicHttpProcessor createHttpProcessor() {
         final BasicHttpProcessor httpproc = new BasicHttpProcessor();
@@ -0,0 +1,116 @@
+package com.github.kristofa.test.http.client;
+
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of persistent (keep-alive) connections that can be shared by {@link ApacheHttpClientImpl} instances.
+ * <p>
+ * Connections are reused for subsequent requests to the same route, which avoids a TCP connect per request. The number of
+ * connections is limited per route and in total, see {@link ConnectionPoolConfig}. A background thread closes connections
+ * that have been idle longer than the configured idle timeout and connections that the server considers expired.
+ * <p>
+ * Call {@link #shutdown()} when done to close all connections and stop the background thread.
+ *
+ * @see ApacheHttpClientImpl#ApacheHttpClientImpl(HttpClientConnectionPool)
+ * @author kristof
+ */
+public class HttpClientConnectionPool {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HttpClientConnectionPool.class);
+
+    private final PoolingClientConnectionManager connectionManager;
+    private final org.apache.http.client.HttpClient client;
+    private final IdleConnectionEvictor evictor;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param config Pool configuration. Should not be <code>null</code>.
+     */
+    public HttpClientConnectionPool(final ConnectionPoolConfig config) {
+        Validate.notNull(config);
+        connectionManager = new PoolingClientConnectionManager();
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        for (final Entry<HttpHost, Integer> entry : config.getMaxPerRouteOverrides().entrySet()) {
+            connectionManager.setMaxPerRoute(new HttpRoute(entry.getKey()), entry.getValue());
+        }
+        client = new CustomHttpClient(connectionManager);
+        evictor = new IdleConnectionEvictor(config.getIdleTimeoutMillis());
+        evictor.start();
+    }
+
+    /**
+     * Closes all connections and stops closing idle connections. The pool can't be used anymore afterwards.
+     */
+    public void shutdown() {
+        evictor.shutdown();
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Gets the client that uses this pool. It is thread safe and should be shared.
+     *
+     * @return Client.
+     */
+    /* package */org.apache.http.client.HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Gets connection manager. Introduced to facilitate testing.
+     *
+     * @return Connection manager.
+     */
+    /* package */PoolingClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    private class IdleConnectionEvictor extends Thread {
+
+        private final Object lock = new Object();
+        private final long idleTimeoutMillis;
+        private volatile boolean shutdown = false;
+
+        IdleConnectionEvictor(final long idleTimeoutMillis) {
+            super("HttpClientConnectionPool-IdleConnectionEvictor");
+            setDaemon(true);
+            this.idleTimeoutMillis = idleTimeoutMillis;
+        }
+
+        @Override
+        public void run() {
+            // Check twice per idle timeout so connections are not kept much longer than the timeout.
+            final long interval = Math.max(1, idleTimeoutMillis / 2);
+            try {
+                while (!shutdown) {
+                    synchronized (lock) {
+                        lock.wait(interval);
+                    }
+                    if (!shutdown) {
+                        connectionManager.closeExpiredConnections();
+                        connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.debug("Idle connection evictor interrupted.");
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.github.kristofa.test.http.file;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Content addressed store for request and response entities. Each distinct entity is stored once, in directory
+ * &lt;fileName&gt;_entities, in a file named after the SHA-256 digest of the entity. Request and response files refer to
+ * these files by a reference that is the path relative to the recording directory, see {@link #getFile(String)}.
+ * <p>
+ * Blob files are never modified once they exist. They are written to a temporary file first and renamed, so concurrent
+ * loggers that write the same entity don't interfere.
+ * 
+ * @see HttpRequestResponseFileLoggerFactory
+ * @author kristof
+ */
+class EntityBlobStore {
+
+    static final String DIRECTORY_SUFFIX = "_entities";
+    /**
+     * Section that is added at the end of request and response files and is followed by the entity reference.
+     */
+    static final String ENTITY_SECTION = "[Entity]";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String EXTENSION = ".txt";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String directory;
+    private final String blobDirectoryName;
+    private final File blobDirectory;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param directory Recording directory.
+     * @param fileName Base file name of recording.
+     */
+    public EntityBlobStore(final String directory, final String fileName) {
+        this.directory = directory;
+        blobDirectoryName = fileName + DIRECTORY_SUFFIX;
+        blobDirectory = new File(directory, blobDirectoryName);
+    }
+
+    /**
+     * Stores entity in case it is not stored yet.
+     * 
+     * @param entity Entity.
+     * @return Reference to the stored entity.
+     * @throws IOException In case storing entity fails.
+     */
+    public String put(final byte[] entity) throws IOException {
+        final String digest = hex(newMessageDigest().digest(entity));
+        final File blobFile = blobFile(digest);
+        if (!blobFile.exists()) {
+            final File tempFile = newTempFile();
+            FileUtils.writeByteArrayToFile(tempFile, entity);
+            commit(tempFile, blobFile);
+        }
+        return reference(digest);
+    }
+
+    /**
+     * Opens a stream to which an entity can be written. The entity is stored when the stream is closed.
+     * 
+     * @param listener Gets the reference of the stored entity when the stream is closed.
+     * @return Output stream. Use {@link BlobOutputStream#abort()} instead of closing it to discard the entity.
+     * @throws IOException In case we can't create stream.
+     */
+    public BlobOutputStream newOutputStream(final Listener listener) throws IOException {
+        final File tempFile = newTempFile();
+        return new BlobOutputStream(tempFile, newMessageDigest(), listener);
+    }
+
+    /**
+     * Appends {@link #ENTITY_SECTION} and given reference to a request or response file.
+     * 
+     * @param file Request or response file.
+     * @param reference Entity reference.
+     * @throws IOException In case writing fails.
+     */
+    public static void appendReference(final File file, final String reference) throws IOException {
+        final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+        try {
+            writeReference(writer, reference);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes {@link #ENTITY_SECTION} and given reference.
+     * 
+     * @param writer Writer of request or response file.
+     * @param reference Entity reference.
+     * @throws IOException In case writing fails.
+     */
+    public static void writeReference(final BufferedWriter writer, final String reference) throws IOException {
+        writer.write(ENTITY_SECTION);
+        writer.newLine();
+        writer.write(reference);
+        writer.newLine();
+    }
+
+    /**
+     * Resolves entity reference read from given request or response file.
+     * 
+     * @param file Request or response file that contains the reference.
+     * @param reference Entity reference.
+     * @return Entity file.
+     */
+    public static File resolve(final File file, final String reference) {
+        return new File(file.getAbsoluteFile().getParentFile(), reference);
+    }
+
+    /**
+     * Gets file for entity reference.
+     * 
+     * @param reference Reference as returned by {@link #put(byte[])}.
+     * @return Entity file.
+     */
+    public File getFile(final String reference) {
+        return new File(directory, reference);
+    }
+
+    /**
+     * Gets file in which given entity is stored.
+     * 
+     * @param entity Entity.
+     * @return Entity file or <code>null</code> in case given entity is not stored.
+     */
+    public File find(final byte[] entity) {
+        final File blobFile = blobFile(hex(newMessageDigest().digest(entity)));
+        return blobFile.exists() ? blobFile : null;
+    }
+
+    /**
+     * Deletes all stored entities.
+     * 
+     * @throws IOException In case deleting fails.
+     */
+    public void delete() throws IOException {
+        if (blobDirectory.exists()) {
+            FileUtils.deleteDirectory(blobDirectory);
+        }
+    }
+
+    private File newTempFile() throws IOException {
+        if (!blobDirectory.isDirectory() && !blobDirectory.mkdirs() && !blobDirectory.isDirectory()) {
+            throw new IOException("Unable to create " + blobDirectory);
+        }
+        return File.createTempFile("entity", ".tmp", blobDirectory);
+    }
+
+    private void commit(final File tempFile, final File blobFile) throws IOException {
+        // In case the blob exists already, possibly written by another logger in the meanwhile, we drop ours.
+        if (blobFile.exists() || !tempFile.renameTo(blobFile)) {
+            if (!tempFile.delete() || !blobFile.exists()) {
+                throw new IOException("Unable to store " + blobFile);
+            }
+        }
+    }
+
+    private File blobFile(final String digest) {
+        return new File(blobDirectory, digest + EXTENSION);
+    }
+
+    private String reference(final String digest) {
+        return blobDirectoryName + "/" + digest + EXTENSION;
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Gets notified when a streamed entity has been stored.
+     */
+    interface Listener {
+
+        /**
+         * Entity has been stored.
+         * 
+         * @param reference Reference to stored entity.
+         * @throws IOException In case handling fails.
+         */
+        void stored(String reference) throws IOException;
+    }
+
+    /**
+     * Stream that stores an entity when it is closed.
+     */
+    class BlobOutputStream extends FilterOutputStream {
+
+        private final File tempFile;
+        private final MessageDigest messageDigest;
+        private final Listener listener;
+        private boolean closed = false;
+
+        private BlobOutputStream(final File tempFile, final MessageDigest messageDigest, final Listener listener)
+            throws IOException {
+            super(new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)), messageDigest));
+            this.tempFile = tempFile;
+            this.messageDigest = messageDigest;
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            super.close();
+            final String digest = hex(messageDigest.digest());
+            commit(tempFile, blobFile(digest));
+            listener.stored(reference(digest));
+        }
+
+        /**
+         * Discards the entity, for example because it is incomplete. Nothing is stored and the listener is not called.
+         */
+        public void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                out.close();
+            } catch (final IOException e) {
+                // Temporary file is deleted anyway.
+            }
+            tempFile.delete();
+        }
+    }
+
+}
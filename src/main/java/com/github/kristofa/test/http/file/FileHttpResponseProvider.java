@@ -1,11 +1,29 @@
 package com.github.kristofa.test.http.file;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.kristofa.test.http.AbstractHttpResponseProvider;
+import com.github.kristofa.test.http.DigestContentMatcher;
 import com.github.kristofa.test.http.HttpRequest;
+import com.github.kristofa.test.http.HttpRequestImpl;
 import com.github.kristofa.test.http.HttpResponseProvider;
 import com.github.kristofa.test.http.LoggingHttpProxy;
+import com.github.kristofa.test.http.MappedHttpResponse;
+import com.github.kristofa.test.http.UnexpectedContentException;
 
 /**
  * {@link HttpResponseProvider} that is able to serve responses for requests/responses previously saved by
@@ -13,8 +31,14 @@ import com.github.kristofa.test.http.LoggingHttpProxy;
  * <p>
  * It supports submitting same request multiple times with different return result.
  * <p>
- * It reads all http requests on construction and keeps them in memory. It does not keep responses in memory. They are read
- * from disk on request and not cached.
+ * It reads all http requests on first use, or when calling {@link #init()}, and keeps them in memory. Request files can be
+ * read in parallel, see {@link #setLoadThreads(int)}, or loaded from a binary index, see
+ * {@link #setUseRequestIndex(boolean)}. Request entities can be kept as digest only, see
+ * {@link #setDigestRequestEntities(boolean)}. By default responses are read from disk on request. They can be kept in a
+ * bounded {@link HttpResponseCache} so frequently replayed responses are only read once. Without cache they are read with
+ * each request. Optionally response entity files are memory mapped the first time a response is needed and served from the
+ * mapping afterwards, see {@link MappedHttpResponse} and {@link #FileHttpResponseProvider(String, String, boolean)}. So
+ * response entities are not kept on the heap.
  * 
  * @see HttpRequestResponseFileLogger
  * @see LoggingHttpProxy
@@ -22,10 +46,18 @@ import com.github.kristofa.test.http.LoggingHttpProxy;
  */
 public class FileHttpResponseProvider extends AbstractHttpResponseProvider {
 
+    private final static Logger LOGGER = LoggerFactory.getLogger(FileHttpResponseProvider.class);
+
     private final String directory;
     private final String fileName;
     private final HttpRequestFileReader httpRequestFileReader;
     private final HttpResponseFileReader httpResponseFileReader;
+    private final boolean mapResponseEntities;
+    private final HttpResponseCache responseCache;
+    private final EntityBlobStore entityBlobStore;
+    private volatile int loadThreads = 1;
+    private volatile boolean useRequestIndex = false;
+    private volatile boolean digestRequestEntities = false;
 
     /**
      * Creates a new instance. Will try to find request/response files and will throw unchecked exception in case:
@@ -39,7 +71,46 @@ public class FileHttpResponseProvider extends AbstractHttpResponseProvider {
      *            extension. Should be same as used in {@link HttpRequestResponseFileLogger}.
      */
     public FileHttpResponseProvider(final String directory, final String fileName) {
-        this(directory, fileName, new HttpRequestFileReaderImpl(), new HttpResponseFileReaderImpl());
+        this(directory, fileName, false);
+    }
+
+    /**
+     * Creates a new instance. Will try to find request/response files and will throw unchecked exception in case:
+     * <ul>
+     * <li>We can not find at least 1 request/response for given directory and file name.
+     * <li>We found a request without persisted response
+     * </ul>
+     * 
+     * @param directory Directory from which to read files.
+     * @param fileName Base file name. Should not contain extension. Will be suffixed with sequence number and .txt
+     *            extension. Should be same as used in {@link HttpRequestResponseFileLogger}.
+     * @param mapResponseEntities <code>true</code> in case response entity files should be memory mapped. Mappings are only
+     *            released when the buffers are garbage collected. On some platforms, like Windows, mapped files can't be
+     *            deleted or overwritten as long as the mapping exists, so they can't be recorded again in the same JVM.
+     *            Every mapped file also counts towards the maximum number of mappings per process.
+     */
+    public FileHttpResponseProvider(final String directory, final String fileName, final boolean mapResponseEntities) {
+        this(directory, fileName, new HttpRequestFileReaderImpl(), new HttpResponseFileReaderImpl(mapResponseEntities),
+            mapResponseEntities, null);
+    }
+
+    /**
+     * Creates a new instance that does not map response entities but keeps responses in given cache. Will try to find
+     * request/response files and will throw unchecked exception in case:
+     * <ul>
+     * <li>We can not find at least 1 request/response for given directory and file name.
+     * <li>We found a request without persisted response
+     * </ul>
+     * 
+     * @param directory Directory from which to read files.
+     * @param fileName Base file name. Should not contain extension. Will be suffixed with sequence number and .txt
+     *            extension. Should be same as used in {@link HttpRequestResponseFileLogger}.
+     * @param responseCache Cache for responses. Should not be <code>null</code>. Can be shared with other providers, for
+     *            example to replay the same recording in multiple tests.
+     */
+    public FileHttpResponseProvider(final String directory, final String fileName, final HttpResponseCache responseCache) {
+        this(directory, fileName, new HttpRequestFileReaderImpl(), new HttpResponseFileReaderImpl(), false, responseCache);
+        Validate.notNull(responseCache);
     }
 
     /**
@@ -57,10 +128,56 @@ public class FileHttpResponseProvider extends AbstractHttpResponseProvider {
      */
     public FileHttpResponseProvider(final String directory, final String fileName,
         final HttpRequestFileReader requestFileReader, final HttpResponseFileReader responseFileReader) {
+        this(directory, fileName, requestFileReader, responseFileReader, false, null);
+    }
+
+    private FileHttpResponseProvider(final String directory, final String fileName,
+        final HttpRequestFileReader requestFileReader, final HttpResponseFileReader responseFileReader,
+        final boolean mapResponseEntities, final HttpResponseCache responseCache) {
         this.directory = directory;
         this.fileName = fileName;
         httpRequestFileReader = requestFileReader;
         httpResponseFileReader = responseFileReader;
+        this.mapResponseEntities = mapResponseEntities;
+        this.responseCache = responseCache;
+        entityBlobStore = new EntityBlobStore(directory, fileName);
+    }
+
+    /**
+     * Sets the number of threads used to read request files. Request files are read in parallel in case the value is &gt;
+     * 1. The default is 1. Should be set before requests are read, so before {@link #init()} or the first request.
+     * 
+     * @param loadThreads Number of threads. Should be &gt; 0.
+     */
+    public void setLoadThreads(final int loadThreads) {
+        Validate.isTrue(loadThreads > 0, "loadThreads should be > 0.");
+        this.loadThreads = loadThreads;
+    }
+
+    /**
+     * Enables or disables the binary request index. In case it is enabled, the requests are read from
+     * &lt;fileName&gt;_request_index.bin in the same directory instead of from the request files. In case that index does
+     * not exist yet or is stale, because request files were added, removed or modified, the request files are read and the
+     * index is written again. So creating a provider with the index enabled and calling {@link #init()} builds the index
+     * upfront. Disabled by default. Should be set before requests are read, so before {@link #init()} or the first request.
+     * 
+     * @param useRequestIndex <code>true</code> to use the request index.
+     */
+    public void setUseRequestIndex(final boolean useRequestIndex) {
+        this.useRequestIndex = useRequestIndex;
+    }
+
+    /**
+     * Enables or disables keeping only a digest of request entities. In case it is enabled expected requests use a
+     * {@link DigestContentMatcher} so only the length and SHA-256 digest of request entities is kept in memory instead of
+     * the complete entity. Incoming requests are matched by digest. Entities are read from disk again when they are needed,
+     * for example when reporting unsatisfied expectations. Disabled by default. Should be set before requests are read, so
+     * before {@link #init()} or the first request.
+     * 
+     * @param digestRequestEntities <code>true</code> to keep only digests of request entities.
+     */
+    public void setDigestRequestEntities(final boolean digestRequestEntities) {
+        this.digestRequestEntities = digestRequestEntities;
     }
 
     /**
@@ -68,34 +185,152 @@ public class FileHttpResponseProvider extends AbstractHttpResponseProvider {
      */
     @Override
     protected void lazyInitializeExpectedRequestsAndResponses() {
+        // List directory once instead of checking each file.
+        final RecordedFiles recordedFiles = new RecordedFiles(directory, fileName);
         int seqNr = 1;
 
-        File requestFile = new File(directory, FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, seqNr));
-        if (!requestFile.exists()) {
-            throw new IllegalStateException("No saved http request/responses found. File " + requestFile + " not found.");
+        if (!recordedFiles.exists(FileNameBuilder.REQUEST_FILE_NAME, seqNr)) {
+            throw new IllegalStateException("No saved http request/responses found. File "
+                + new File(directory, FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, seqNr)) + " not found.");
         }
 
-        while (requestFile.exists()) {
-            final File responseFile = new File(directory, FileNameBuilder.RESPONSE_FILE_NAME.getFileName(fileName, seqNr));
-            if (!responseFile.exists()) {
-                throw new IllegalStateException("Found request file (" + requestFile + ") but no matching response file: "
-                    + responseFile);
+        while (recordedFiles.exists(FileNameBuilder.REQUEST_FILE_NAME, seqNr)) {
+            if (!recordedFiles.exists(FileNameBuilder.RESPONSE_FILE_NAME, seqNr)) {
+                throw new IllegalStateException("Found request file ("
+                    + new File(directory, FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, seqNr))
+                    + ") but no matching response file: "
+                    + new File(directory, FileNameBuilder.RESPONSE_FILE_NAME.getFileName(fileName, seqNr)));
             }
-            submitRequest(fileName, seqNr);
             seqNr++;
-            requestFile = new File(directory, FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, seqNr));
+        }
+        final int requestCount = seqNr - 1;
+
+        final List<HttpRequest> requests = readRequests(requestCount, recordedFiles);
+        // Submit in recorded order so responses for same request keep their order.
+        for (int i = 1; i <= requestCount; i++) {
+            submitRequest(i, requests.get(i - 1));
         }
     }
 
-    private void submitRequest(final String fileName, final int seqNr) {
+    private List<HttpRequest> readRequests(final int requestCount, final RecordedFiles recordedFiles) {
+        if (!useRequestIndex) {
+            return readRequestFiles(requestCount);
+        }
+        final RequestIndexFile requestIndexFile = new RequestIndexFile(directory, fileName, digestRequestEntities);
+        List<HttpRequest> requests = requestIndexFile.read(requestCount, recordedFiles);
+        if (requests == null) {
+            requests = readRequestFiles(requestCount);
+            try {
+                requestIndexFile.write(requests, recordedFiles);
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to write request index.", e);
+            }
+        }
+        return requests;
+    }
+
+    private List<HttpRequest> readRequestFiles(final int requestCount) {
+        if (loadThreads > 1 && requestCount > 1) {
+            return readRequestFilesInParallel(requestCount);
+        }
+        final List<HttpRequest> requests = new ArrayList<HttpRequest>(requestCount);
+        for (int i = 1; i <= requestCount; i++) {
+            requests.add(readRequest(i));
+        }
+        return requests;
+    }
+
+    private List<HttpRequest> readRequestFilesInParallel(final int requestCount) {
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(loadThreads, requestCount), new LoadThreadFactory());
+        try {
+            final List<Future<HttpRequest>> requests = new ArrayList<Future<HttpRequest>>(requestCount);
+            for (int i = 1; i <= requestCount; i++) {
+                final int seqNr = i;
+                requests.add(executor.submit(new Callable<HttpRequest>() {
+
+                    @Override
+                    public HttpRequest call() {
+                        return readRequest(seqNr);
+                    }
+                }));
+            }
+            final List<HttpRequest> result = new ArrayList<HttpRequest>(requestCount);
+            for (final Future<HttpRequest> request : requests) {
+                result.add(request.get());
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading request files.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    private HttpRequest readRequest(final int seqNr) {
         final File requestFile = new File(directory, FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, seqNr));
         final File requestEntityFile =
             new File(directory, FileNameBuilder.REQUEST_ENTITY_FILE_NAME.getFileName(fileName, seqNr));
         final HttpRequest request = httpRequestFileReader.read(requestFile, requestEntityFile);
+        return digestRequestEntities ? digestEntity(request, requestEntityFile, entityBlobStore) : request;
+    }
+
+    /**
+     * Replaces content of given request with a {@link DigestContentMatcher} that reads the entity from the request entity
+     * file, or from the entity blob store for deduplicated recordings, on demand. Does nothing in case request has no
+     * content or is no {@link HttpRequestImpl}. In case neither the request entity file nor a blob exists the content is
+     * kept in memory as we would lose it otherwise.
+     * 
+     * @param request Request.
+     * @param requestEntityFile Request entity file.
+     * @param entityBlobStore Entity blob store of recording.
+     * @return Request.
+     */
+    static HttpRequest digestEntity(final HttpRequest request, final File requestEntityFile,
+        final EntityBlobStore entityBlobStore) {
+        if (!(request instanceof HttpRequestImpl)) {
+            return request;
+        }
+        final byte[] content = request.getContent();
+        if (content != null) {
+            final File entityFile = requestEntityFile.exists() ? requestEntityFile : entityBlobStore.find(content);
+            if (entityFile == null) {
+                LOGGER.debug("No entity file for request, keeping its content in memory: " + requestEntityFile);
+                return request;
+            }
+            try {
+                ((HttpRequestImpl)request).contentMatcher(new DigestContentMatcher(entityFile));
+            } catch (final UnexpectedContentException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return request;
+    }
+
+    private void submitRequest(final int seqNr, final HttpRequest request) {
         final FileHttpResponseProxy responseProxy =
-            new FileHttpResponseProxy(directory, fileName, seqNr, httpResponseFileReader);
+            responseCache == null ? new FileHttpResponseProxy(directory, fileName, seqNr, httpResponseFileReader,
+                mapResponseEntities) : new FileHttpResponseProxy(directory, fileName, seqNr, httpResponseFileReader,
+                responseCache);
         addExpected(request, responseProxy);
     }
 
+    private static class LoadThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "FileHttpResponseProvider-load-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
 }
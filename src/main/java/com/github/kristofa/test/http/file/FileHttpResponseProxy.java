@@ -4,6 +4,7 @@ import java.io.File;
 
 import com.github.kristofa.test.http.HttpResponse;
 import com.github.kristofa.test.http.HttpResponseProxy;
+import com.github.kristofa.test.http.MappedHttpResponse;
 
 class FileHttpResponseProxy implements HttpResponseProxy {
 
@@ -12,13 +13,53 @@ class FileHttpResponseProxy implements HttpResponseProxy {
     private final int seqNr;
     private boolean isConsumed = false;
     private final HttpResponseFileReader httpResponseFileReader;
+    private final boolean cacheResponse;
+    private final HttpResponseCache responseCache;
+    private volatile HttpResponse response;
 
     public FileHttpResponseProxy(final String directory, final String filename, final int seqNr,
         final HttpResponseFileReader responseFileReader) {
+        this(directory, filename, seqNr, responseFileReader, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param directory Directory of response files.
+     * @param filename Base file name.
+     * @param seqNr Sequence number of response.
+     * @param responseFileReader Reads response files.
+     * @param cacheResponse <code>true</code> in case the response is read once and kept. Only use it in case the response
+     *            does not keep its content on the heap, for example a {@link MappedHttpResponse}.
+     */
+    public FileHttpResponseProxy(final String directory, final String filename, final int seqNr,
+        final HttpResponseFileReader responseFileReader, final boolean cacheResponse) {
+        this(directory, filename, seqNr, responseFileReader, cacheResponse, null);
+    }
+
+    /**
+     * Creates a new instance that looks up its response in a shared {@link HttpResponseCache} before reading it.
+     * 
+     * @param directory Directory of response files.
+     * @param filename Base file name.
+     * @param seqNr Sequence number of response.
+     * @param responseFileReader Reads response files.
+     * @param responseCache Shared response cache.
+     */
+    public FileHttpResponseProxy(final String directory, final String filename, final int seqNr,
+        final HttpResponseFileReader responseFileReader, final HttpResponseCache responseCache) {
+        this(directory, filename, seqNr, responseFileReader, false, responseCache);
+    }
+
+    private FileHttpResponseProxy(final String directory, final String filename, final int seqNr,
+        final HttpResponseFileReader responseFileReader, final boolean cacheResponse,
+        final HttpResponseCache responseCache) {
         this.directory = directory;
         this.filename = filename;
         this.seqNr = seqNr;
         httpResponseFileReader = responseFileReader;
+        this.cacheResponse = cacheResponse;
+        this.responseCache = responseCache;
     }
 
     @Override
@@ -39,11 +80,41 @@ class FileHttpResponseProxy implements HttpResponseProxy {
     }
 
     private HttpResponse readResponse() {
-        final File responseFile = new File(directory, FileNameBuilder.RESPONSE_FILE_NAME.getFileName(filename, seqNr));
-        final File responseEntityFile =
-            new File(directory, FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(filename, seqNr));
-        final HttpResponse response = httpResponseFileReader.read(responseFile, responseEntityFile);
+        if (responseCache != null) {
+            // Part of the key so we don't serve stale responses after recording again.
+            final File responseFile = responseFile();
+            final File responseEntityFile = responseEntityFile();
+            final long lastModified = Math.max(responseFile.lastModified(), responseEntityFile.lastModified());
+            final long length = responseFile.length() + responseEntityFile.length();
+            HttpResponse cachedResponse = responseCache.get(directory, filename, seqNr, lastModified, length);
+            if (cachedResponse == null) {
+                cachedResponse = read();
+                responseCache.put(directory, filename, seqNr, lastModified, length, cachedResponse);
+            }
+            return cachedResponse;
+        }
+        if (!cacheResponse) {
+            return read();
+        }
+        HttpResponse cachedResponse = response;
+        if (cachedResponse == null) {
+            cachedResponse = read();
+            response = cachedResponse;
+        }
+        return cachedResponse;
+    }
+
+    private HttpResponse read() {
+        final HttpResponse response = httpResponseFileReader.read(responseFile(), responseEntityFile());
         return response;
     }
 
+    private File responseFile() {
+        return new File(directory, FileNameBuilder.RESPONSE_FILE_NAME.getFileName(filename, seqNr));
+    }
+
+    private File responseEntityFile() {
+        return new File(directory, FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(filename, seqNr));
+    }
+
 }
@@ -40,4 +40,35 @@ enum FileNameBuilder {
     public String getFileName(final String uniqueFileNamePart, final int seqNr) {
         return uniqueFileNamePart + "_" + fileTypeNamePart + "_" + String.format("%05d", seqNr) + ".txt";
     }
+
+    /**
+     * Gets the sequence number from a file name that was built with {@link #getFileName(String, int)}.
+     * 
+     * @param uniqueFileNamePart Unique part of the file name.
+     * @param fileName File name.
+     * @return Sequence number or -1 in case file name was not built by this builder for given unique part.
+     */
+    public int getSeqNr(final String uniqueFileNamePart, final String fileName) {
+        final int prefixLength = uniqueFileNamePart.length() + fileTypeNamePart.length() + 2;
+        final int suffixStart = fileName.length() - 4;
+        if (suffixStart <= prefixLength || !fileName.endsWith(".txt") || !fileName.startsWith(uniqueFileNamePart)
+            || !fileName.startsWith(fileTypeNamePart, uniqueFileNamePart.length() + 1)
+            || fileName.charAt(uniqueFileNamePart.length()) != '_' || fileName.charAt(prefixLength - 1) != '_') {
+            return -1;
+        }
+        // Sequence number is zero padded to at least 5 digits.
+        final int digits = suffixStart - prefixLength;
+        if (digits < 5 || (digits > 5 && fileName.charAt(prefixLength) == '0')) {
+            return -1;
+        }
+        int seqNr = 0;
+        for (int i = prefixLength; i < suffixStart; i++) {
+            final char c = fileName.charAt(i);
+            if (c < '0' || c > '9' || seqNr > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            seqNr = seqNr * 10 + (c - '0');
+        }
+        return seqNr;
+    }
 }
@@ -16,7 +16,8 @@ import com.github.kristofa.test.http.Method;
 
 /**
  * Builds a HttpRequest for which the content is stored on disk. It can reconstruct a HttpRequest which was previously stored
- * with {@link HttpRequestFileWriterImpl}.
+ * with {@link HttpRequestFileWriterImpl}. In case the request file refers to an entity in an {@link EntityBlobStore} that
+ * entity is read instead of the request entity file.
  * 
  * @see HttpRequestFileWriterImpl
  * @author kristof
@@ -64,15 +65,18 @@ class HttpRequestFileReaderImpl implements HttpRequestFileReader {
             readNextLine(reader, QUERY_PARAMETERS);
             final List<KeyValuePair> queryParams = new ArrayList<KeyValuePair>();
             final String nextSection2 = readKeyValuePairs(reader, queryParams);
-            if (nextSection2 != null) {
+            File entityFile = requestEntityFile;
+            if (EntityBlobStore.ENTITY_SECTION.equals(nextSection2)) {
+                entityFile = EntityBlobStore.resolve(requestFile, reader.readLine());
+            } else if (nextSection2 != null) {
                 throw new IllegalStateException("Expected nothing after " + QUERY_PARAMETERS + " but got " + nextSection2);
             }
             for (final KeyValuePair keyValuePair : queryParams) {
                 request.queryParameter(keyValuePair.key, keyValuePair.value);
             }
 
-            if (requestEntityFile.exists()) {
-                final byte[] entity = FileUtils.readFileToByteArray(requestEntityFile);
+            if (entityFile.exists()) {
+                final byte[] entity = FileUtils.readFileToByteArray(entityFile);
                 request.content(entity);
             }
 
@@ -15,26 +15,54 @@ import com.github.kristofa.test.http.QueryParameter;
 /**
  * Is able to write a {@link HttpRequest} to file. A written request can be read in again with
  * {@link HttpRequestFileReaderImpl}.
+ * <p>
+ * In case an {@link EntityBlobStore} is given, entities are stored in that store and the request file refers to them.
+ * Otherwise they are written to the request entity file.
  * 
  * @see HttpRequestFileReaderImpl
  * @author kristof
  */
 class HttpRequestFileWriterImpl implements HttpRequestFileWriter {
 
+    private final EntityBlobStore entityBlobStore;
+
+    /**
+     * Creates a new instance that writes entities to the request entity file.
+     */
+    public HttpRequestFileWriterImpl() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param entityBlobStore Store for entities. <code>null</code> in case entities should be written to the request
+     *            entity file.
+     */
+    public HttpRequestFileWriterImpl(final EntityBlobStore entityBlobStore) {
+        this.entityBlobStore = entityBlobStore;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void write(final HttpRequest request, final File httpRequestFile, final File httpRequestEntityFile) {
         try {
-            writeRequest(request, httpRequestFile);
-            writeRequestEntity(request, httpRequestEntityFile);
+            final byte[] content = request.getContent();
+            if (entityBlobStore != null && content != null) {
+                writeRequest(request, httpRequestFile, entityBlobStore.put(content));
+            } else {
+                writeRequest(request, httpRequestFile, null);
+                writeRequestEntity(request, httpRequestEntityFile);
+            }
         } catch (final IOException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private void writeRequest(final HttpRequest request, final File requestFile) throws IOException {
+    private void writeRequest(final HttpRequest request, final File requestFile, final String entityReference)
+        throws IOException {
 
         final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(requestFile), "UTF-8"));
 
@@ -64,6 +92,9 @@ class HttpRequestFileWriterImpl implements HttpRequestFileWriter {
                 writer.write(parameter.getKey() + "=" + parameter.getValue());
                 writer.newLine();
             }
+            if (entityReference != null) {
+                EntityBlobStore.writeReference(writer, entityReference);
+            }
         } finally {
             writer.close();
         }
@@ -1,12 +1,20 @@
 package com.github.kristofa.test.http.file;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 
 import com.github.kristofa.test.http.HttpRequest;
 import com.github.kristofa.test.http.HttpRequestResponseLogger;
 import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.StreamingHttpRequestResponseLogger;
 
 /**
  * {@link HttpRequestResponseLogger} that logs requests/responses to file. For each request/response that is logged it will
@@ -22,17 +30,31 @@ import com.github.kristofa.test.http.HttpResponse;
  * specified file is not written. This is a binary file.</li>
  * </ul>
  * It use {@link FileNameBuilder} to build these file names.
+ * <p>
+ * Response entities can also be streamed to the response entity file, see {@link StreamingHttpRequestResponseLogger}. In
+ * that case the response entity file is always written, also when the entity is empty. When streaming is aborted the
+ * response and response entity files are deleted, so replaying the recording reports the missing response instead of
+ * serving a truncated entity.
+ * <p>
+ * In case an {@link EntityBlobStore} is used entities are stored in that store instead of the entity files, also when they
+ * are streamed. Request and response files refer to them. Response entities can be stored gzip compressed, also when they
+ * are streamed.
  * 
  * @see FileNameBuilder
  * @author kristof
  */
-class HttpRequestResponseFileLogger implements HttpRequestResponseLogger {
+class HttpRequestResponseFileLogger implements StreamingHttpRequestResponseLogger {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
 
     private final String directory;
     private final String fileName;
     private final int seqNr;
     private final HttpRequestFileWriter requestWriter;
     private final HttpResponseFileWriter responseWriter;
+    private final EntityBlobStore entityBlobStore;
+    private final boolean compressResponseEntities;
+    private OutputStream responseEntityStream;
 
     /**
      * Creates a new instance.
@@ -46,6 +68,26 @@ class HttpRequestResponseFileLogger implements HttpRequestResponseLogger {
      */
     public HttpRequestResponseFileLogger(final String directory, final String fileName, final int seqNr,
         final HttpRequestFileWriter requestWriter, final HttpResponseFileWriter responseWriter) {
+        this(directory, fileName, seqNr, requestWriter, responseWriter, null, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param directory Target directory in which to store request/responses. Directory should already exist.
+     * @param fileName Base file name. Should not contain extension. Will be suffixed with sequence number and .txt
+     *            extension.
+     * @param seqNr Sequence number for request / response.
+     * @param requestWriter Responsible for writing http request to disk.
+     * @param responseWriter Responsible for writing http response to disk.
+     * @param entityBlobStore Store for streamed response entities. Should be the same store as used by given writers.
+     *            <code>null</code> in case entities are written to entity files.
+     * @param compressResponseEntities <code>true</code> in case streamed response entities should be gzip compressed.
+     *            Should be the same as for given response writer.
+     */
+    public HttpRequestResponseFileLogger(final String directory, final String fileName, final int seqNr,
+        final HttpRequestFileWriter requestWriter, final HttpResponseFileWriter responseWriter,
+        final EntityBlobStore entityBlobStore, final boolean compressResponseEntities) {
         Validate.notNull(directory);
         Validate.notBlank(fileName);
         Validate.notNull(requestWriter);
@@ -56,6 +98,8 @@ class HttpRequestResponseFileLogger implements HttpRequestResponseLogger {
         this.seqNr = seqNr;
         this.requestWriter = requestWriter;
         this.responseWriter = responseWriter;
+        this.entityBlobStore = entityBlobStore;
+        this.compressResponseEntities = compressResponseEntities;
     }
 
     /**
@@ -127,4 +171,55 @@ class HttpRequestResponseFileLogger implements HttpRequestResponseLogger {
         responseWriter.write(response, new File(directory, responseFileName), new File(directory, responseEntityFileName));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputStream logResponse(final int httpCode, final String contentType) throws IOException {
+
+        final String responseFileName = FileNameBuilder.RESPONSE_FILE_NAME.getFileName(fileName, seqNr);
+        final String responseEntityFileName = FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(fileName, seqNr);
+        final File responseEntityFile = new File(directory, responseEntityFileName);
+        final File responseFile = new File(directory, responseFileName);
+
+        // Response without content, entity file will not be written by response writer.
+        responseWriter.write(new HttpResponseImpl(httpCode, contentType, null), responseFile, responseEntityFile);
+        final OutputStream entityStream;
+        if (entityBlobStore != null) {
+            entityStream = entityBlobStore.newOutputStream(new EntityBlobStore.Listener() {
+
+                @Override
+                public void stored(final String reference) throws IOException {
+                    EntityBlobStore.appendReference(responseFile, reference);
+                }
+            });
+        } else {
+            entityStream = new BufferedOutputStream(new FileOutputStream(responseEntityFile));
+        }
+        responseEntityStream = entityStream;
+        if (compressResponseEntities) {
+            HttpResponseFileWriterImpl.appendGzipEntityEncoding(responseFile);
+            return new GZIPOutputStream(entityStream, GZIP_BUFFER_SIZE);
+        }
+        return entityStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Deletes the response file and the partial response entity file. With an {@link EntityBlobStore} the partial entity is
+     * not stored.
+     */
+    @Override
+    public void abortResponse() {
+        if (responseEntityStream instanceof EntityBlobStore.BlobOutputStream) {
+            ((EntityBlobStore.BlobOutputStream)responseEntityStream).abort();
+        } else if (responseEntityStream != null) {
+            IOUtils.closeQuietly(responseEntityStream);
+            new File(directory, FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(fileName, seqNr)).delete();
+        }
+        responseEntityStream = null;
+        new File(directory, FileNameBuilder.RESPONSE_FILE_NAME.getFileName(fileName, seqNr)).delete();
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.github.kristofa.test.http.file;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.Validate;
@@ -28,6 +29,8 @@ public class HttpRequestResponseFileLoggerFactory implements HttpRequestResponse
     private final HttpRequestFileWriter requestWriter;
     private final HttpResponseFileWriter responseWriter;
     private final boolean deleteExistingFiles;
+    private final EntityBlobStore entityBlobStore;
+    private final boolean compressResponseEntities;
     private boolean firstRequest = true;
 
     /**
@@ -55,13 +58,56 @@ public class HttpRequestResponseFileLoggerFactory implements HttpRequestResponse
      */
     public HttpRequestResponseFileLoggerFactory(final String directory, final String fileName,
         final boolean deleteExistingFiles) {
+        this(directory, fileName, deleteExistingFiles, false);
+    }
+
+    /**
+     * Creates a new instance that does not compress response entities.
+     * 
+     * @param directory Target directory in which to store request/responses. Directory should already exist. Should not be
+     *            <code>null</code> or blank.
+     * @param fileName Base file name. Should not contain extension. Will be suffixed with sequence number and .txt
+     *            extension. Should not be <code>null</code> or blank.
+     * @param deleteExistingFiles If value is <code>true</code> we will delete all existing files prior to logging new
+     *            requests.
+     * @param deduplicateEntities If value is <code>true</code> request and response entities are stored only once, see
+     *            {@link #HttpRequestResponseFileLoggerFactory(String, String, boolean, boolean, boolean)}.
+     */
+    public HttpRequestResponseFileLoggerFactory(final String directory, final String fileName,
+        final boolean deleteExistingFiles, final boolean deduplicateEntities) {
+        this(directory, fileName, deleteExistingFiles, deduplicateEntities, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param directory Target directory in which to store request/responses. Directory should already exist. Should not be
+     *            <code>null</code> or blank.
+     * @param fileName Base file name. Should not contain extension. Will be suffixed with sequence number and .txt
+     *            extension. Should not be <code>null</code> or blank.
+     * @param deleteExistingFiles If value is <code>true</code> we will delete all existing files prior to logging new
+     *            requests. This is often helpful because if we have less requests than before otherwise old files keep on
+     *            lingering which can cause failing tests.
+     * @param deduplicateEntities If value is <code>true</code> request and response entities are stored only once, in
+     *            directory &lt;fileName&gt;_entities in a file named after the digest of the entity. Request and response
+     *            files refer to these files instead of having their own entity file. Saves disk space and write I/O for
+     *            recordings that contain the same entities many times. Can be replayed with
+     *            {@link FileHttpResponseProvider} as usual.
+     * @param compressResponseEntities If value is <code>true</code> response entities are stored gzip compressed.
+     *            {@link FileHttpResponseProvider} serves them compressed to clients that accept gzip and decompresses them
+     *            for other clients.
+     */
+    public HttpRequestResponseFileLoggerFactory(final String directory, final String fileName,
+        final boolean deleteExistingFiles, final boolean deduplicateEntities, final boolean compressResponseEntities) {
         Validate.notBlank(directory);
         Validate.notBlank(fileName);
         this.directory = directory;
         this.fileName = fileName;
         this.deleteExistingFiles = deleteExistingFiles;
-        requestWriter = new HttpRequestFileWriterImpl();
-        responseWriter = new HttpResponseFileWriterImpl();
+        entityBlobStore = deduplicateEntities ? new EntityBlobStore(directory, fileName) : null;
+        requestWriter = new HttpRequestFileWriterImpl(entityBlobStore);
+        this.compressResponseEntities = compressResponseEntities;
+        responseWriter = new HttpResponseFileWriterImpl(entityBlobStore, compressResponseEntities);
     }
 
     /**
@@ -81,40 +127,29 @@ public class HttpRequestResponseFileLoggerFactory implements HttpRequestResponse
         }
 
         return new HttpRequestResponseFileLogger(directory, fileName, atomicInteger.incrementAndGet(), requestWriter,
-            responseWriter);
+            responseWriter, entityBlobStore, compressResponseEntities);
     }
 
     private void deleteExistingFiles() {
-
-        int seqNr = 1;
-        while (true) {
-            final String requestFileName = FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, seqNr);
-            if (FileDeleteStatus.DID_NOT_EXIST.equals(delete(directory, requestFileName))) {
-                return;
+        // List directory once instead of checking each file.
+        final RecordedFiles recordedFiles = new RecordedFiles(directory, fileName);
+        for (final FileNameBuilder fileNameBuilder : FileNameBuilder.values()) {
+            for (final int seqNr : recordedFiles.getSeqNrs(fileNameBuilder)) {
+                delete(directory, fileNameBuilder.getFileName(fileName, seqNr));
             }
-            final String requestEntityFileName = FileNameBuilder.REQUEST_ENTITY_FILE_NAME.getFileName(fileName, seqNr);
-            delete(directory, requestEntityFileName);
-            final String responseFileName = FileNameBuilder.RESPONSE_FILE_NAME.getFileName(fileName, seqNr);
-            delete(directory, responseFileName);
-            final String responseEntityFileName = FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(fileName, seqNr);
-            delete(directory, responseEntityFileName);
-            seqNr++;
+        }
+        try {
+            // Also entities of a previous deduplicated recording.
+            new EntityBlobStore(directory, fileName).delete();
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to delete entities.", e);
         }
     }
 
-    private FileDeleteStatus delete(final String directory, final String fileName) {
+    private void delete(final String directory, final String fileName) {
         final File file = new File(directory, fileName);
-        if (file.exists()) {
-            if (!file.delete()) {
-                LOGGER.warn("Unable to delete " + file);
-                return FileDeleteStatus.DELETE_FAILED;
-            }
-            return FileDeleteStatus.DELETE_SUCCES;
+        if (!file.delete()) {
+            LOGGER.warn("Unable to delete " + file);
         }
-        return FileDeleteStatus.DID_NOT_EXIST;
     }
-
-    private enum FileDeleteStatus {
-        DID_NOT_EXIST, DELETE_SUCCES, DELETE_FAILED
-    };
 }
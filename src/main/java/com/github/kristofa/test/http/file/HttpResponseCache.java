@@ -0,0 +1,208 @@
+package com.github.kristofa.test.http.file;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import com.github.kristofa.test.http.GzipHttpResponse;
+import com.github.kristofa.test.http.HttpResponse;
+
+/**
+ * Size bounded, least recently used cache of {@link HttpResponse http responses} read by {@link FileHttpResponseProvider}.
+ * Responses are keyed by directory, base file name and sequence number, so one cache can be shared by providers that replay
+ * different recordings. The key also contains last modified time and length of the response files so responses of a
+ * recording that has been recorded again are read again instead of served stale from the cache.
+ * <p>
+ * The cache is bounded by number of responses and by the total size of the response entities. When adding a response
+ * exceeds one of the bounds, least recently used responses are evicted until it fits again. Responses with an entity larger
+ * than the maximum total size are not cached.
+ * <p>
+ * Keeps track of hits, misses and evictions. Thread safe.
+ * 
+ * @see FileHttpResponseProvider
+ * @author kristof
+ */
+public class HttpResponseCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, HttpResponse> responses = new LinkedHashMap<Key, HttpResponse>(16, 0.75f, true);
+    private long bytes = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param maxEntries Maximum number of cached responses. Should be &gt; 0.
+     * @param maxBytes Maximum total size in bytes of the entities of cached responses. Should be &gt; 0.
+     */
+    public HttpResponseCache(final int maxEntries, final long maxBytes) {
+        Validate.isTrue(maxEntries > 0, "maxEntries should be > 0.");
+        Validate.isTrue(maxBytes > 0, "maxBytes should be > 0.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets a cached response.
+     * 
+     * @param directory Directory of recording.
+     * @param fileName Base file name of recording.
+     * @param seqNr Sequence number of response.
+     * @param lastModified Last modified time of response files.
+     * @param length Total length of response files.
+     * @return Cached response or <code>null</code> in case response is not cached.
+     */
+    public synchronized HttpResponse get(final String directory, final String fileName, final int seqNr,
+        final long lastModified, final long length) {
+        final HttpResponse response = responses.get(new Key(directory, fileName, seqNr, lastModified, length));
+        if (response == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return response;
+    }
+
+    /**
+     * Adds a response to the cache, evicting least recently used responses when needed.
+     * 
+     * @param directory Directory of recording.
+     * @param fileName Base file name of recording.
+     * @param seqNr Sequence number of response.
+     * @param lastModified Last modified time of response files.
+     * @param length Total length of response files.
+     * @param response Response. Should not be <code>null</code>.
+     */
+    public synchronized void put(final String directory, final String fileName, final int seqNr,
+        final long lastModified, final long length, final HttpResponse response) {
+        Validate.notNull(response);
+        final long size = size(response);
+        if (size > maxBytes) {
+            return;
+        }
+        final HttpResponse previous = responses.put(new Key(directory, fileName, seqNr, lastModified, length), response);
+        if (previous != null) {
+            bytes -= size(previous);
+        }
+        bytes += size;
+        final Iterator<Map.Entry<Key, HttpResponse>> eldest = responses.entrySet().iterator();
+        while (responses.size() > maxEntries || bytes > maxBytes) {
+            final HttpResponse evicted = eldest.next().getValue();
+            eldest.remove();
+            bytes -= size(evicted);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes all cached responses. Counters are not reset.
+     */
+    public synchronized void clear() {
+        responses.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets the number of cached responses.
+     * 
+     * @return Number of cached responses.
+     */
+    public synchronized int size() {
+        return responses.size();
+    }
+
+    /**
+     * Gets the total size in bytes of the entities of cached responses.
+     * 
+     * @return Total size in bytes of cached entities.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the number of times a response was found in the cache.
+     * 
+     * @return Number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of times a response was not found in the cache.
+     * 
+     * @return Number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of responses that have been evicted to stay within bounds.
+     * 
+     * @return Number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static long size(final HttpResponse response) {
+        if (response instanceof GzipHttpResponse) {
+            // Cached compressed.
+            final ByteBuffer content = ((GzipHttpResponse)response).getCompressedContentBuffer();
+            return content == null ? 0 : content.remaining();
+        }
+        final byte[] content = response.getContent();
+        return content == null ? 0 : content.length;
+    }
+
+    private static final class Key {
+
+        private final String directory;
+        private final String fileName;
+        private final int seqNr;
+        private final long lastModified;
+        private final long length;
+
+        Key(final String directory, final String fileName, final int seqNr, final long lastModified, final long length) {
+            this.directory = directory;
+            this.fileName = fileName;
+            this.seqNr = seqNr;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = seqNr;
+            result = 31 * result + (int)(lastModified ^ lastModified >>> 32);
+            result = 31 * result + (int)(length ^ length >>> 32);
+            result = 31 * result + (directory == null ? 0 : directory.hashCode());
+            result = 31 * result + (fileName == null ? 0 : fileName.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)obj;
+            return seqNr == other.seqNr && lastModified == other.lastModified && length == other.length
+                && StringUtils.equals(directory, other.directory)
+                && StringUtils.equals(fileName, other.fileName);
+        }
+    }
+
+}
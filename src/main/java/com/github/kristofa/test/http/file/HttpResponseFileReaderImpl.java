@@ -5,16 +5,28 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.github.kristofa.test.http.GzipHttpResponse;
 import com.github.kristofa.test.http.HttpResponse;
 import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.MappedHttpResponse;
 
 /**
  * Builds a {@link HttpResponse} for which the content is stored on disk. It can reconstruct a {@link HttpResponse} which was
- * previously stored with {@link HttpResponseFileWriterImpl}.
+ * previously stored with {@link HttpResponseFileWriterImpl}. In case the response file refers to an entity in an
+ * {@link EntityBlobStore} that entity is read instead of the response entity file. Gzip compressed entities are returned as
+ * {@link GzipHttpResponse} so they can be served compressed.
+ * <p>
+ * In case entities are mapped the response entity file is memory mapped and a {@link MappedHttpResponse} is returned instead
+ * of reading the entity into a byte array.
  * 
  * @see HttpResponseFileWriterImpl
  * @author kristof
@@ -24,6 +36,25 @@ class HttpResponseFileReaderImpl implements HttpResponseFileReader {
     private final static String HTTPCODE = "[HttpCode]";
     private final static String CONTENTTYPE = "[ContentType]";
 
+    private final boolean mapEntity;
+
+    /**
+     * Creates a new instance that reads response entities into a byte array.
+     */
+    public HttpResponseFileReaderImpl() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param mapEntity <code>true</code> in case response entity files should be memory mapped, <code>false</code> in case
+     *            they should be read into a byte array.
+     */
+    public HttpResponseFileReaderImpl(final boolean mapEntity) {
+        this.mapEntity = mapEntity;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -49,9 +80,34 @@ class HttpResponseFileReaderImpl implements HttpResponseFileReader {
             if (StringUtils.isBlank(contentType)) {
                 contentType = null;
             }
+            File entityFile = httpResponseEntityFile;
+            boolean gzip = false;
+            String section;
+            while ((section = reader.readLine()) != null) {
+                if (EntityBlobStore.ENTITY_SECTION.equals(section)) {
+                    entityFile = EntityBlobStore.resolve(httpResponseFile, reader.readLine());
+                } else if (HttpResponseFileWriterImpl.ENTITY_ENCODING_SECTION.equals(section)) {
+                    final String encoding = reader.readLine();
+                    if (!GzipHttpResponse.GZIP.equals(encoding)) {
+                        throw new IllegalStateException("Unsupported entity encoding: " + encoding);
+                    }
+                    gzip = true;
+                }
+            }
+            if (gzip) {
+                // Compressed entities are kept compressed, also when they are not mapped.
+                final ByteBuffer entity =
+                    entityFile.exists() ? mapEntity ? map(entityFile) : ByteBuffer.wrap(FileUtils
+                        .readFileToByteArray(entityFile)) : null;
+                return new GzipHttpResponse(httpCode, contentType, entity);
+            }
+            if (mapEntity) {
+                final MappedByteBuffer entity = entityFile.exists() ? map(entityFile) : null;
+                return new MappedHttpResponse(httpCode, contentType, entity);
+            }
             byte[] entity = null;
-            if (httpResponseEntityFile.exists()) {
-                entity = FileUtils.readFileToByteArray(httpResponseEntityFile);
+            if (entityFile.exists()) {
+                entity = FileUtils.readFileToByteArray(entityFile);
             }
             return new HttpResponseImpl(httpCode, contentType, entity);
         } finally {
@@ -59,6 +115,17 @@ class HttpResponseFileReaderImpl implements HttpResponseFileReader {
         }
     }
 
+    private MappedByteBuffer map(final File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            // Mapping stays valid after closing the file.
+            final FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
     private String readNextLine(final BufferedReader reader, final String expectedValue) throws IOException {
         final String value = reader.readLine();
         if (!expectedValue.equals(value)) {
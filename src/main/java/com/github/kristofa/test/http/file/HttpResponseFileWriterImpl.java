@@ -1,32 +1,119 @@
 package com.github.kristofa.test.http.file;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.github.kristofa.test.http.GzipHttpResponse;
 import com.github.kristofa.test.http.HttpResponse;
 
+/**
+ * Is able to write a {@link HttpResponse} to file. A written response can be read in again with
+ * {@link HttpResponseFileReaderImpl}.
+ * <p>
+ * In case an {@link EntityBlobStore} is given, entities are stored in that store and the response file refers to them.
+ * Otherwise they are written to the response entity file.
+ * <p>
+ * Entities can be stored gzip compressed. In that case the response file contains section {@value #ENTITY_ENCODING_SECTION}
+ * followed by gzip.
+ * 
+ * @see HttpResponseFileReaderImpl
+ * @author kristof
+ */
 class HttpResponseFileWriterImpl implements HttpResponseFileWriter {
 
+    /**
+     * Section in response file that is followed by the encoding of the stored entity.
+     */
+    static final String ENTITY_ENCODING_SECTION = "[EntityEncoding]";
+
+    private final EntityBlobStore entityBlobStore;
+    private final boolean compressEntities;
+
+    /**
+     * Creates a new instance that writes entities uncompressed to the response entity file.
+     */
+    public HttpResponseFileWriterImpl() {
+        this(null, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param entityBlobStore Store for entities. <code>null</code> in case entities should be written to the response
+     *            entity file.
+     * @param compressEntities <code>true</code> in case entities should be stored gzip compressed.
+     */
+    public HttpResponseFileWriterImpl(final EntityBlobStore entityBlobStore, final boolean compressEntities) {
+        this.entityBlobStore = entityBlobStore;
+        this.compressEntities = compressEntities;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void write(final HttpResponse response, final File httpResponseFile, final File httpResponseEntityFile) {
         try {
-            writeResponse(response, httpResponseFile);
-            writeResponseEntity(response, httpResponseEntityFile);
+            byte[] entity = response.getContent();
+            if (entity == null) {
+                writeResponse(response, httpResponseFile, false, null);
+                return;
+            }
+            if (compressEntities) {
+                entity = compress(entity);
+            }
+            if (entityBlobStore != null) {
+                writeResponse(response, httpResponseFile, compressEntities, entityBlobStore.put(entity));
+            } else {
+                writeResponse(response, httpResponseFile, compressEntities, null);
+                FileUtils.writeByteArrayToFile(httpResponseEntityFile, entity);
+            }
         } catch (final IOException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private void writeResponse(final HttpResponse httpResponse, final File httpResponseFile) throws IOException {
+    /**
+     * Appends {@link #ENTITY_ENCODING_SECTION} for gzip to a response file.
+     * 
+     * @param httpResponseFile Response file.
+     * @throws IOException In case writing fails.
+     */
+    static void appendGzipEntityEncoding(final File httpResponseFile) throws IOException {
+        final BufferedWriter writer =
+            new BufferedWriter(new OutputStreamWriter(new FileOutputStream(httpResponseFile, true), "UTF-8"));
+        try {
+            writeGzipEntityEncoding(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void writeGzipEntityEncoding(final BufferedWriter writer) throws IOException {
+        writer.write(ENTITY_ENCODING_SECTION);
+        writer.newLine();
+        writer.write(GzipHttpResponse.GZIP);
+        writer.newLine();
+    }
+
+    private byte[] compress(final byte[] entity) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(32, entity.length / 4));
+        final GZIPOutputStream output = new GZIPOutputStream(bytes);
+        output.write(entity);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    private void writeResponse(final HttpResponse httpResponse, final File httpResponseFile, final boolean compressed,
+        final String entityReference) throws IOException {
         final BufferedWriter writer =
             new BufferedWriter(new OutputStreamWriter(new FileOutputStream(httpResponseFile), "UTF-8"));
         try {
@@ -41,15 +128,15 @@ class HttpResponseFileWriterImpl implements HttpResponseFileWriter {
                 writer.write(httpResponse.getContentType());
             }
             writer.newLine();
+            if (compressed) {
+                writeGzipEntityEncoding(writer);
+            }
+            if (entityReference != null) {
+                EntityBlobStore.writeReference(writer, entityReference);
+            }
         } finally {
             writer.close();
         }
     }
 
-    private void writeResponseEntity(final HttpResponse httpResponse, final File httpResponseEntityFile) throws IOException {
-        if (httpResponse.getContent() != null) {
-            FileUtils.writeByteArrayToFile(httpResponseEntityFile, httpResponse.getContent());
-        }
-    }
-
 }
@@ -0,0 +1,69 @@
+package com.github.kristofa.test.http.file;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Sequence numbers of the request/response files that exist in a directory for a given base file name. The directory is
+ * listed once on construction. Checking whether a file exists afterwards does not access the file system.
+ * 
+ * @see FileNameBuilder
+ * @author kristof
+ */
+class RecordedFiles {
+
+    private final Map<FileNameBuilder, SortedSet<Integer>> seqNrs =
+        new EnumMap<FileNameBuilder, SortedSet<Integer>>(FileNameBuilder.class);
+
+    /**
+     * Creates a new instance and lists given directory.
+     * 
+     * @param directory Directory.
+     * @param fileName Base file name.
+     */
+    public RecordedFiles(final String directory, final String fileName) {
+        for (final FileNameBuilder fileNameBuilder : FileNameBuilder.values()) {
+            seqNrs.put(fileNameBuilder, new TreeSet<Integer>());
+        }
+        final String[] fileNames = new File(directory).list();
+        if (fileNames == null) {
+            return;
+        }
+        for (final String name : fileNames) {
+            if (name.startsWith(fileName)) {
+                for (final FileNameBuilder fileNameBuilder : FileNameBuilder.values()) {
+                    final int seqNr = fileNameBuilder.getSeqNr(fileName, name);
+                    if (seqNr != -1) {
+                        seqNrs.get(fileNameBuilder).add(seqNr);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates if a file exists.
+     * 
+     * @param fileNameBuilder Type of file.
+     * @param seqNr Sequence number.
+     * @return <code>true</code> in case file existed when directory was listed.
+     */
+    public boolean exists(final FileNameBuilder fileNameBuilder, final int seqNr) {
+        return seqNrs.get(fileNameBuilder).contains(seqNr);
+    }
+
+    /**
+     * Gets sequence numbers of existing files of given type.
+     * 
+     * @param fileNameBuilder Type of file.
+     * @return Sorted sequence numbers.
+     */
+    public SortedSet<Integer> getSeqNrs(final FileNameBuilder fileNameBuilder) {
+        return seqNrs.get(fileNameBuilder);
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.kristofa.test.http.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.kristofa.test.http.HttpMessageCodec;
+import com.github.kristofa.test.http.HttpRequest;
+
+/**
+ * Binary index file (&lt;fileName&gt;_request_index.bin) that contains all parsed requests of a recording so they can be
+ * loaded with a single sequential read instead of parsing each request file.
+ * <p>
+ * Layout: magic (int), version (int), number of requests (int) followed by an entry per request in sequence number order.
+ * Each entry contains the length and last modification time (long) of the request file and of the request entity file (-1
+ * in case it does not exist) followed by the request encoded with {@link HttpMessageCodec}.
+ * <p>
+ * An index is stale when the number of requests or the length or last modification time of one of the files is different.
+ * Stale, corrupt or missing indexes are not used.
+ * 
+ * @see FileHttpResponseProvider
+ * @author kristof
+ */
+class RequestIndexFile {
+
+    static final String SUFFIX = "_request_index.bin";
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RequestIndexFile.class);
+
+    private static final int MAGIC = 0x4d485251; // MHRQ
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String directory;
+    private final String fileName;
+    private final File indexFile;
+    private final boolean digestEntities;
+    private final EntityBlobStore entityBlobStore;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param directory Directory of recording.
+     * @param fileName Base file name of recording.
+     * @param digestEntities <code>true</code> in case entities of read requests should be replaced by a digest, see
+     *            {@link FileHttpResponseProvider#setDigestRequestEntities(boolean)}.
+     */
+    public RequestIndexFile(final String directory, final String fileName, final boolean digestEntities) {
+        this.directory = directory;
+        this.fileName = fileName;
+        this.digestEntities = digestEntities;
+        entityBlobStore = new EntityBlobStore(directory, fileName);
+        indexFile = new File(directory, fileName + SUFFIX);
+    }
+
+    /**
+     * Reads requests from index.
+     * 
+     * @param requestCount Number of recorded requests.
+     * @param recordedFiles Recorded files.
+     * @return Requests in sequence number order or <code>null</code> in case index does not exist, is stale or corrupt.
+     */
+    public List<HttpRequest> read(final int requestCount, final RecordedFiles recordedFiles) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try {
+            final DataInputStream input =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE));
+            try {
+                if (input.readInt() != MAGIC || input.readInt() != VERSION || input.readInt() != requestCount) {
+                    LOGGER.info("Request index " + indexFile + " is stale.");
+                    return null;
+                }
+                final List<HttpRequest> requests = new ArrayList<HttpRequest>(requestCount);
+                for (int seqNr = 1; seqNr <= requestCount; seqNr++) {
+                    if (!matches(input, FileNameBuilder.REQUEST_FILE_NAME, seqNr, recordedFiles)
+                        || !matches(input, FileNameBuilder.REQUEST_ENTITY_FILE_NAME, seqNr, recordedFiles)) {
+                        LOGGER.info("Request index " + indexFile + " is stale.");
+                        return null;
+                    }
+                    final HttpRequest request = HttpMessageCodec.readRequest(input, indexFile.length());
+                    if (digestEntities) {
+                        // Digest right away so we never keep all entities in memory.
+                        requests.add(FileHttpResponseProvider.digestEntity(request, new File(directory,
+                            FileNameBuilder.REQUEST_ENTITY_FILE_NAME.getFileName(fileName, seqNr)), entityBlobStore));
+                    } else {
+                        requests.add(request);
+                    }
+                }
+                return requests;
+            } finally {
+                input.close();
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to read request index " + indexFile, e);
+            return null;
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Corrupt request index " + indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes index. The index is written to a temporary file first which replaces the existing index when complete.
+     * 
+     * @param requests Requests in sequence number order.
+     * @param recordedFiles Recorded files.
+     * @throws IOException In case writing fails.
+     */
+    public void write(final List<HttpRequest> requests, final RecordedFiles recordedFiles) throws IOException {
+        final File tempFile = new File(directory, fileName + SUFFIX + ".tmp");
+        final DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(requests.size());
+            for (int seqNr = 1; seqNr <= requests.size(); seqNr++) {
+                writeFileInfo(output, FileNameBuilder.REQUEST_FILE_NAME, seqNr, recordedFiles);
+                writeFileInfo(output, FileNameBuilder.REQUEST_ENTITY_FILE_NAME, seqNr, recordedFiles);
+                HttpMessageCodec.write(output, requests.get(seqNr - 1));
+            }
+        } finally {
+            output.close();
+        }
+        if (indexFile.exists() && !indexFile.delete() || !tempFile.renameTo(indexFile)) {
+            tempFile.delete();
+            throw new IOException("Unable to replace " + indexFile);
+        }
+    }
+
+    private boolean matches(final DataInputStream input, final FileNameBuilder fileNameBuilder, final int seqNr,
+        final RecordedFiles recordedFiles) throws IOException {
+        final long length = input.readLong();
+        final long lastModified = input.readLong();
+        if (!recordedFiles.exists(fileNameBuilder, seqNr)) {
+            return length == -1;
+        }
+        final File file = new File(directory, fileNameBuilder.getFileName(fileName, seqNr));
+        return length == file.length() && lastModified == file.lastModified();
+    }
+
+    private void writeFileInfo(final DataOutputStream output, final FileNameBuilder fileNameBuilder, final int seqNr,
+        final RecordedFiles recordedFiles) throws IOException {
+        if (!recordedFiles.exists(fileNameBuilder, seqNr)) {
+            output.writeLong(-1);
+            output.writeLong(-1);
+        } else {
+            final File file = new File(directory, fileNameBuilder.getFileName(fileName, seqNr));
+            output.writeLong(file.length());
+            output.writeLong(file.lastModified());
+        }
+    }
+
+}
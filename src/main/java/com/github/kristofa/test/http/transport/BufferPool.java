@@ -0,0 +1,67 @@
+package com.github.kristofa.test.http.transport;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct buffers of a fixed size. Buffers are allocated when the pool is empty. Released buffers are kept up to a
+ * maximum, others are left to the garbage collector.
+ *
+ * @author kristof
+ */
+class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bufferSize Size of buffers in bytes.
+     * @param maxPooledBuffers Maximum number of buffers kept in the pool.
+     */
+    BufferPool(final int bufferSize, final int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * Takes a buffer from the pool or allocates a new one.
+     *
+     * @return Cleared buffer.
+     */
+    ByteBuffer acquire() {
+        final ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer should not be used afterwards.
+     *
+     * @param buffer Buffer taken from this pool.
+     */
+    void release(final ByteBuffer buffer) {
+        if (pooled.incrementAndGet() <= maxPooledBuffers) {
+            buffer.clear();
+            buffers.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    int getPooledCount() {
+        return pooled.get();
+    }
+
+}
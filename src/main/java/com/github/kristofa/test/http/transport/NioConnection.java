@@ -0,0 +1,310 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection accepted by {@link NioServer}.
+ * <p>
+ * Reading, parsing and writing happen on the selector thread. Requests are handled on worker threads which hand the response
+ * back through {@link #send(List, boolean, boolean)}. One request per connection is handled at a time. Pipelined requests
+ * stay in the input buffer until the response of the previous request is written, so responses are sent in request order.
+ *
+ * @author kristof
+ */
+class NioConnection {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(NioConnection.class);
+
+    private static final byte[] CONTINUE = NioResponse.ascii("HTTP/1.1 100 Continue\r\n\r\n");
+
+    /**
+     * Bytes to write, optionally a buffer from the {@link BufferPool} that should be released once written.
+     */
+    static class Chunk {
+
+        private final ByteBuffer buffer;
+        private final boolean pooled;
+        private final int size;
+
+        Chunk(final ByteBuffer buffer, final boolean pooled) {
+            this.buffer = buffer;
+            this.pooled = pooled;
+            size = buffer.remaining();
+        }
+    }
+
+    private final NioServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final BufferPool pool;
+    private final NioRequestParser parser;
+
+    // Only used on selector thread.
+    private ByteBuffer input;
+    private boolean reading = true;
+
+    // Shared with worker threads, guarded by this.
+    private final LinkedList<Chunk> output = new LinkedList<Chunk>();
+    private long queuedBytes;
+    private boolean responseComplete;
+    private boolean keepAlive;
+    private boolean closed;
+
+    NioConnection(final NioServer server, final SocketChannel channel, final SelectionKey key, final BufferPool pool) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+        this.pool = pool;
+        parser = new NioRequestParser(server.getMaxEntitySize());
+    }
+
+    /**
+     * Reads available bytes and dispatches a request once it is complete. Called on selector thread.
+     */
+    void read() {
+        if (input == null) {
+            input = pool.acquire();
+        }
+        final int read;
+        try {
+            read = channel.read(input);
+        } catch (final IOException e) {
+            LOGGER.debug("IOException when reading. Closing connection.", e);
+            close();
+            return;
+        }
+        if (read == -1) {
+            close();
+            return;
+        }
+        processInput();
+    }
+
+    /**
+     * Writes queued bytes. Once a complete response is written the next request is read, or the connection is closed in case
+     * it should not be kept alive. Called on selector thread.
+     */
+    void write() {
+        while (true) {
+            final Chunk chunk;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                chunk = output.peek();
+            }
+            if (chunk == null) {
+                break;
+            }
+            try {
+                channel.write(chunk.buffer);
+            } catch (final IOException e) {
+                LOGGER.debug("IOException when writing. Closing connection.", e);
+                close();
+                return;
+            }
+            if (chunk.buffer.hasRemaining()) {
+                updateInterest(true);
+                return;
+            }
+            synchronized (this) {
+                output.poll();
+                queuedBytes -= chunk.size;
+                notifyAll();
+            }
+            if (chunk.pooled) {
+                pool.release(chunk.buffer);
+            }
+        }
+
+        final boolean complete;
+        final boolean close;
+        synchronized (this) {
+            complete = responseComplete && output.isEmpty();
+            close = complete && !keepAlive;
+            if (complete) {
+                responseComplete = false;
+            }
+        }
+        if (close) {
+            close();
+        } else if (complete) {
+            reading = true;
+            processInput();
+        } else {
+            updateInterest(false);
+        }
+    }
+
+    /**
+     * Queues response bytes. In case this is not the last part of the response, blocks while too many bytes are queued so a
+     * slow client limits the memory a response uses. Called on worker thread.
+     *
+     * @param chunks Bytes to write.
+     * @param last Indicates if this is the last part of the response.
+     * @param keepAlive In case of last part, indicates if the connection should be kept open.
+     * @throws IOException In case connection is closed or we got interrupted while waiting.
+     */
+    void send(final List<Chunk> chunks, final boolean last, final boolean keepAlive) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                release(chunks);
+                throw new IOException("Connection closed.");
+            }
+            for (final Chunk chunk : chunks) {
+                output.add(chunk);
+                queuedBytes += chunk.size;
+            }
+            if (last) {
+                responseComplete = true;
+                this.keepAlive = keepAlive;
+            }
+        }
+        server.requestWrite(this);
+        if (!last) {
+            synchronized (this) {
+                while (queuedBytes > server.getMaxQueuedBytes() && !closed) {
+                    try {
+                        wait();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting to write response.");
+                    }
+                }
+                if (closed) {
+                    throw new IOException("Connection closed.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes connection and releases its buffers. Worker threads that wait to send are released. Called on selector thread.
+     */
+    void close() {
+        final List<Chunk> pending;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = new ArrayList<Chunk>(output);
+            output.clear();
+            queuedBytes = 0;
+            notifyAll();
+        }
+        release(pending);
+        key.cancel();
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            LOGGER.debug("IOException when closing connection.", e);
+        }
+        if (input != null) {
+            pool.release(input);
+            input = null;
+        }
+    }
+
+    BufferPool getPool() {
+        return pool;
+    }
+
+    private void processInput() {
+        if (input == null) {
+            updateInterest(false);
+            return;
+        }
+        input.flip();
+        NioRequest request = null;
+        try {
+            request = parser.parse(input);
+        } catch (final NioRequestParser.BadRequestException e) {
+            LOGGER.debug("Bad request: " + e.getMessage());
+            badRequest(e.getHttpCode(), e.getMessage());
+            return;
+        } finally {
+            if (input != null) {
+                input.compact();
+            }
+        }
+        if (parser.continueExpected()) {
+            synchronized (this) {
+                output.add(new Chunk(ByteBuffer.wrap(CONTINUE), false));
+                queuedBytes += CONTINUE.length;
+            }
+        }
+        if (input.position() == 0 && parser.isIdle()) {
+            pool.release(input);
+            input = null;
+        }
+        if (request != null) {
+            dispatch(request);
+        }
+        write();
+    }
+
+    private void dispatch(final NioRequest request) {
+        reading = false;
+        final NioResponse response = new NioResponse(this, request.isKeepAlive(), request.isHttp11(),
+            "HEAD".equals(request.getMethod()));
+        try {
+            server.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        server.getHandler().handle(request, response);
+                    } catch (final RuntimeException e) {
+                        LOGGER.error("Exception when handling request.", e);
+                        response.abort();
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            LOGGER.debug("Request rejected, server is stopping.");
+            close();
+        }
+    }
+
+    private void badRequest(final int httpCode, final String message) {
+        reading = false;
+        final NioResponse response = new NioResponse(this, false, true, false);
+        response.setCode(httpCode);
+        response.setHeader("Content-Type", "text/plain;charset=utf-8");
+        try {
+            final PrintStream body = response.getPrintStream();
+            body.print(message);
+            body.close();
+        } catch (final IOException e) {
+            LOGGER.debug("IOException when sending bad request response.", e);
+        }
+    }
+
+    private void updateInterest(final boolean pendingOutput) {
+        if (key.isValid()) {
+            key.interestOps((reading ? SelectionKey.OP_READ : 0) | (pendingOutput ? SelectionKey.OP_WRITE : 0));
+        }
+    }
+
+    private void release(final List<Chunk> chunks) {
+        for (final Chunk chunk : chunks) {
+            if (chunk.pooled) {
+                pool.release(chunk.buffer);
+            }
+        }
+    }
+
+}
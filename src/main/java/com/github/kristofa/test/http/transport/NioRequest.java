@@ -0,0 +1,209 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kristofa.test.http.QueryParameter;
+
+/**
+ * {@link TransportRequest} parsed by {@link NioRequestParser}.
+ *
+ * @author kristof
+ */
+class NioRequest implements TransportRequest {
+
+    private static final byte[] NO_CONTENT = new byte[0];
+
+    // Sorts header values on descending quality value. Stable so values without quality keep their order.
+    private static final Comparator<String> QUALITY_ORDER = new Comparator<String>() {
+
+        @Override
+        public int compare(final String value1, final String value2) {
+            return Float.compare(quality(value2), quality(value1));
+        }
+    };
+
+    private final String method;
+    private final String path;
+    private final List<QueryParameter> queryParameters;
+    private final boolean http11;
+    private final String domain;
+    private final int port;
+    // Lower case name -> header lines with that name. Keeps order in which names were received.
+    private final Map<String, List<String[]>> headers = new LinkedHashMap<String, List<String[]>>();
+    private byte[] content = NO_CONTENT;
+
+    NioRequest(final String method, final String path, final List<QueryParameter> queryParameters, final boolean http11,
+        final String domain, final int port) {
+        this.method = method;
+        this.path = path;
+        this.queryParameters = queryParameters;
+        this.http11 = http11;
+        this.domain = domain;
+        this.port = port;
+    }
+
+    void addHeader(final String name, final String value) {
+        final String key = name.toLowerCase();
+        List<String[]> lines = headers.get(key);
+        if (lines == null) {
+            lines = new ArrayList<String[]>(1);
+            headers.put(key, lines);
+        }
+        lines.add(new String[] {name, value});
+    }
+
+    /**
+     * Gets the unparsed value of a header.
+     *
+     * @param name Lower case header name.
+     * @return Value of first header with given name or <code>null</code> in case there is no such header.
+     */
+    String getHeader(final String name) {
+        final List<String[]> lines = headers.get(name);
+        return lines == null ? null : lines.get(0)[1];
+    }
+
+    void setContent(final byte[] content) {
+        this.content = content;
+    }
+
+    boolean isHttp11() {
+        return http11;
+    }
+
+    /**
+     * Indicates if the client wants to keep the connection open after the response.
+     *
+     * @return <code>true</code> for HTTP/1.1 unless it sent Connection: close, <code>false</code> for HTTP/1.0 unless it
+     *         sent Connection: keep-alive.
+     */
+    boolean isKeepAlive() {
+        final String connection = getHeader("connection");
+        if (http11) {
+            return connection == null || !"close".equalsIgnoreCase(connection.trim());
+        }
+        return connection != null && "keep-alive".equalsIgnoreCase(connection.trim());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<QueryParameter> getQueryParameters() {
+        return queryParameters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getHeaderNames() {
+        final List<String> names = new ArrayList<String>(headers.size());
+        for (final List<String[]> lines : headers.values()) {
+            names.add(lines.get(0)[0]);
+        }
+        return names;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Like the Simple framework, values are ordered on descending quality value so requests are recorded and matched the
+     * same way on both transports.
+     */
+    @Override
+    public List<String> getHeaderValues(final String name) {
+        final List<String[]> lines = headers.get(name.toLowerCase());
+        if (lines == null) {
+            return Collections.emptyList();
+        }
+        final List<String> values = new ArrayList<String>();
+        for (final String[] line : lines) {
+            split(line[1], values);
+        }
+        Collections.sort(values, QUALITY_ORDER);
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    // Splits on commas that are not between quotes.
+    private static void split(final String value, final List<String> values) {
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == ',' && !quoted) {
+                final String token = value.substring(start, i).trim();
+                if (token.length() > 0) {
+                    values.add(token);
+                }
+                start = i + 1;
+            } else if (value.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+    }
+
+    private static float quality(final String value) {
+        final int index = value.indexOf(";q=");
+        if (index == -1) {
+            return 1;
+        }
+        int end = value.indexOf(';', index + 1);
+        if (end == -1) {
+            end = value.length();
+        }
+        try {
+            return Float.parseFloat(value.substring(index + 3, end).trim());
+        } catch (final NumberFormatException e) {
+            return 1;
+        }
+    }
+
+}
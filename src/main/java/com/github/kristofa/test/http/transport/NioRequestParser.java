@@ -0,0 +1,389 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.kristofa.test.http.QueryParameter;
+
+/**
+ * Incremental HTTP/1.x request parser. Call {@link #parse(ByteBuffer)} each time new bytes are available. A request is
+ * returned once its head and complete entity are received. Entities with Content-Length and chunked entities are supported.
+ * <p>
+ * The request head has to fit in the buffer that is passed in. Bytes that belong to the next request are left in the buffer
+ * so pipelined requests can be parsed once the current one is answered.
+ * <p>
+ * Not thread safe. Every connection has its own parser.
+ *
+ * @author kristof
+ */
+class NioRequestParser {
+
+    /**
+     * Thrown in case a request can't be parsed. The connection should be answered with {@link #getHttpCode()} and closed.
+     */
+    static class BadRequestException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int httpCode;
+
+        BadRequestException(final int httpCode, final String message) {
+            super(message);
+            this.httpCode = httpCode;
+        }
+
+        int getHttpCode() {
+            return httpCode;
+        }
+    }
+
+    static final int BAD_REQUEST = 400;
+    static final int ENTITY_TOO_LARGE = 413;
+    static final int HEADERS_TOO_LARGE = 431;
+
+    private static final String HTTP_VERSION_PREFIX = "HTTP/";
+    private static final String HTTP_11 = "HTTP/1.1";
+    private static final String ISO_8859_1 = "ISO-8859-1";
+    private static final String UTF_8 = "UTF-8";
+
+    private static final int HEAD = 0;
+    private static final int BODY = 1;
+    private static final int CHUNK_SIZE = 2;
+    private static final int CHUNK_DATA = 3;
+    private static final int CHUNK_END = 4;
+    private static final int TRAILER = 5;
+
+    private final int maxEntitySize;
+    private int state = HEAD;
+    // Number of bytes of the head scanned so far, so we don't scan them again when more bytes arrive.
+    private int scanned;
+    private NioRequest request;
+    private byte[] content;
+    private int contentOffset;
+    private ByteArrayOutputStream chunkedContent;
+    private int chunkRemaining;
+    private boolean continueExpected;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntitySize Maximum size of request entities in bytes. Requests with a larger entity are rejected with
+     *            {@link #ENTITY_TOO_LARGE} before the entity is read.
+     */
+    NioRequestParser(final int maxEntitySize) {
+        this.maxEntitySize = maxEntitySize;
+    }
+
+    /**
+     * Parses bytes from given buffer.
+     *
+     * @param input Buffer in read mode. Consumed bytes are skipped.
+     * @return Complete request or <code>null</code> in case more bytes are needed.
+     * @throws BadRequestException In case request is invalid or its head does not fit in the buffer.
+     */
+    NioRequest parse(final ByteBuffer input) throws BadRequestException {
+        while (true) {
+            final int before = input.position();
+            final NioRequest complete = step(input);
+            if (complete != null) {
+                return complete;
+            }
+            if (input.position() == before) {
+                // No progress. Need more bytes, unless buffer is full.
+                if (input.remaining() == input.capacity()) {
+                    throw new BadRequestException(state == HEAD ? HEADERS_TOO_LARGE : BAD_REQUEST,
+                        "Request line or headers too large.");
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Indicates if the client waits for a 100 Continue response before sending the entity. Returns <code>true</code> only
+     * once per request.
+     *
+     * @return <code>true</code> in case a 100 Continue response should be sent.
+     */
+    boolean continueExpected() {
+        final boolean expected = continueExpected;
+        continueExpected = false;
+        return expected;
+    }
+
+    /**
+     * Indicates if the parser is waiting for a new request, and so holds no state of a partially received request.
+     *
+     * @return <code>true</code> in case no partial request is received.
+     */
+    boolean isIdle() {
+        return state == HEAD && scanned == 0;
+    }
+
+    private NioRequest step(final ByteBuffer input) throws BadRequestException {
+        switch (state) {
+            case HEAD:
+                return parseHead(input);
+            case BODY:
+                final int length = Math.min(input.remaining(), content.length - contentOffset);
+                input.get(content, contentOffset, length);
+                contentOffset += length;
+                return contentOffset == content.length ? complete(content) : null;
+            case CHUNK_SIZE:
+                final String sizeLine = readLine(input);
+                if (sizeLine != null) {
+                    chunkRemaining = parseChunkSize(sizeLine);
+                    if ((long)chunkedContent.size() + chunkRemaining > maxEntitySize) {
+                        throw new BadRequestException(ENTITY_TOO_LARGE, "Request entity too large.");
+                    }
+                    state = chunkRemaining == 0 ? TRAILER : CHUNK_DATA;
+                }
+                return null;
+            case CHUNK_DATA:
+                final int chunkLength = Math.min(input.remaining(), chunkRemaining);
+                for (int i = 0; i < chunkLength; i++) {
+                    chunkedContent.write(input.get());
+                }
+                chunkRemaining -= chunkLength;
+                if (chunkRemaining == 0) {
+                    state = CHUNK_END;
+                }
+                return null;
+            case CHUNK_END:
+                final String end = readLine(input);
+                if (end != null) {
+                    if (end.length() > 0) {
+                        throw new BadRequestException(BAD_REQUEST, "Expected CRLF after chunk.");
+                    }
+                    state = CHUNK_SIZE;
+                }
+                return null;
+            case TRAILER:
+                final String trailer = readLine(input);
+                if (trailer != null && trailer.length() == 0) {
+                    return complete(chunkedContent.toByteArray());
+                }
+                return null;
+            default:
+                throw new IllegalStateException("Unknown state: " + state);
+        }
+    }
+
+    private NioRequest parseHead(final ByteBuffer input) throws BadRequestException {
+        final int start = input.position();
+        int end = -1;
+        for (int i = start + Math.max(scanned - 3, 0); i + 3 < input.limit(); i++) {
+            if (input.get(i) == '\r' && input.get(i + 1) == '\n' && input.get(i + 2) == '\r' && input.get(i + 3) == '\n') {
+                end = i + 4;
+                break;
+            }
+        }
+        if (end == -1) {
+            scanned = input.limit() - start;
+            return null;
+        }
+        scanned = 0;
+        final byte[] head = new byte[end - start];
+        input.get(head);
+        final String[] lines = string(head, 0, head.length - 4).split("\r\n");
+        request = parseRequestLine(lines[0]);
+        String[] previous = null;
+        for (int i = 1; i < lines.length; i++) {
+            final String line = lines[i];
+            if (line.length() > 0 && (line.charAt(0) == ' ' || line.charAt(0) == '\t') && previous != null) {
+                // Obsolete line folding.
+                previous[1] = previous[1] + ' ' + line.trim();
+                continue;
+            }
+            final int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new BadRequestException(BAD_REQUEST, "Invalid header: " + line);
+            }
+            if (previous != null) {
+                request.addHeader(previous[0], previous[1]);
+            }
+            previous = new String[] {line.substring(0, colon).trim(), line.substring(colon + 1).trim()};
+        }
+        if (previous != null) {
+            request.addHeader(previous[0], previous[1]);
+        }
+
+        final String transferEncoding = request.getHeader("transfer-encoding");
+        final String contentLength = request.getHeader("content-length");
+        if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            chunkedContent = new ByteArrayOutputStream();
+            state = CHUNK_SIZE;
+        } else if (contentLength != null) {
+            final long length = parseContentLength(contentLength);
+            if (length == 0) {
+                return complete(null);
+            }
+            content = new byte[(int)length];
+            contentOffset = 0;
+            state = BODY;
+        } else {
+            return complete(null);
+        }
+        final String expect = request.getHeader("expect");
+        continueExpected = expect != null && "100-continue".equalsIgnoreCase(expect.trim());
+        return null;
+    }
+
+    private NioRequest complete(final byte[] content) {
+        final NioRequest complete = request;
+        if (content != null) {
+            complete.setContent(content);
+        }
+        request = null;
+        this.content = null;
+        chunkedContent = null;
+        continueExpected = false;
+        state = HEAD;
+        return complete;
+    }
+
+    private static NioRequest parseRequestLine(final String line) throws BadRequestException {
+        final String[] parts = line.split(" ");
+        if (parts.length != 3 || parts[0].length() == 0 || parts[1].length() == 0
+            || !parts[2].startsWith(HTTP_VERSION_PREFIX)) {
+            throw new BadRequestException(BAD_REQUEST, "Invalid request line: " + line);
+        }
+        String target = parts[1];
+        String domain = null;
+        int port = -1;
+        final int scheme = target.indexOf("://");
+        if (scheme > 0 && target.charAt(0) != '/') {
+            // Absolute URI, as sent to proxies.
+            final int authorityStart = scheme + 3;
+            int pathStart = target.indexOf('/', authorityStart);
+            if (pathStart == -1) {
+                pathStart = target.length();
+            }
+            final String authority = target.substring(authorityStart, pathStart);
+            final int colon = authority.lastIndexOf(':');
+            if (colon > 0 && authority.indexOf(']', colon) == -1) {
+                domain = authority.substring(0, colon);
+                try {
+                    port = Integer.parseInt(authority.substring(colon + 1));
+                } catch (final NumberFormatException e) {
+                    throw new BadRequestException(BAD_REQUEST, "Invalid port: " + authority);
+                }
+            } else {
+                domain = authority;
+            }
+            target = pathStart == target.length() ? "/" : target.substring(pathStart);
+        }
+        final int question = target.indexOf('?');
+        final String path = decodePath(question == -1 ? target : target.substring(0, question));
+        final List<QueryParameter> queryParameters =
+            question == -1 ? new ArrayList<QueryParameter>(0) : parseQuery(target.substring(question + 1));
+        return new NioRequest(parts[0], path, queryParameters, HTTP_11.equals(parts[2]), domain, port);
+    }
+
+    private static List<QueryParameter> parseQuery(final String query) throws BadRequestException {
+        final List<QueryParameter> parameters = new ArrayList<QueryParameter>();
+        for (final String pair : query.split("&")) {
+            final int equals = pair.indexOf('=');
+            final String key = decodeQuery(equals == -1 ? pair : pair.substring(0, equals));
+            if (key.trim().length() > 0) {
+                parameters.add(new QueryParameter(key, equals == -1 ? "" : decodeQuery(pair.substring(equals + 1))));
+            }
+        }
+        return parameters;
+    }
+
+    private static String decodeQuery(final String value) throws BadRequestException {
+        try {
+            return URLDecoder.decode(value, UTF_8);
+        } catch (final IllegalArgumentException e) {
+            throw new BadRequestException(BAD_REQUEST, "Invalid query: " + value);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Unlike query parameters, a '+' in a path is not a space.
+    private static String decodePath(final String path) throws BadRequestException {
+        if (path.indexOf('%') == -1) {
+            return path;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            final char c = path.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= path.length()) {
+                    throw new BadRequestException(BAD_REQUEST, "Invalid path: " + path);
+                }
+                try {
+                    bytes.write(Integer.parseInt(path.substring(i + 1, i + 3), 16));
+                } catch (final NumberFormatException e) {
+                    throw new BadRequestException(BAD_REQUEST, "Invalid path: " + path);
+                }
+                i += 2;
+            } else {
+                bytes.write(c);
+            }
+        }
+        try {
+            return bytes.toString(UTF_8);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long parseContentLength(final String value) throws BadRequestException {
+        final long length;
+        try {
+            length = Long.parseLong(value.trim());
+        } catch (final NumberFormatException e) {
+            throw new BadRequestException(BAD_REQUEST, "Invalid Content-Length: " + value);
+        }
+        if (length < 0) {
+            throw new BadRequestException(BAD_REQUEST, "Invalid Content-Length: " + value);
+        }
+        if (length > maxEntitySize) {
+            throw new BadRequestException(ENTITY_TOO_LARGE, "Request entity too large: " + value);
+        }
+        return length;
+    }
+
+    private static int parseChunkSize(final String line) throws BadRequestException {
+        final int extension = line.indexOf(';');
+        final String size = (extension == -1 ? line : line.substring(0, extension)).trim();
+        try {
+            final long length = Long.parseLong(size, 16);
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new BadRequestException(ENTITY_TOO_LARGE, "Chunk too large: " + line);
+            }
+            return (int)length;
+        } catch (final NumberFormatException e) {
+            throw new BadRequestException(BAD_REQUEST, "Invalid chunk size: " + line);
+        }
+    }
+
+    // Reads a CRLF terminated line. Returns null in case line is not complete yet.
+    private static String readLine(final ByteBuffer input) {
+        for (int i = input.position(); i + 1 < input.limit(); i++) {
+            if (input.get(i) == '\r' && input.get(i + 1) == '\n') {
+                final byte[] line = new byte[i - input.position()];
+                input.get(line);
+                input.position(input.position() + 2);
+                return string(line, 0, line.length);
+            }
+        }
+        return null;
+    }
+
+    private static String string(final byte[] bytes, final int offset, final int length) {
+        try {
+            return new String(bytes, offset, length, ISO_8859_1);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,382 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kristofa.test.http.transport.NioConnection.Chunk;
+
+/**
+ * {@link TransportResponse} of {@link NioTransport}.
+ * <p>
+ * The entity is written to buffers from the {@link BufferPool}. In case the response is closed before the first buffer is
+ * full, the Content-Length is known and the response is sent at once. Otherwise the head is sent with the first full buffer
+ * and the entity is streamed, chunked in case no Content-Length was set. Flushing the output stream sends the buffered
+ * bytes right away. Read-only buffers written to {@link #getByteChannel()}, like the content of
+ * {@link com.github.kristofa.test.http.MappedHttpResponse}, are sent as is without copying them.
+ * <p>
+ * Used by one thread at a time.
+ *
+ * @author kristof
+ */
+class NioResponse implements TransportResponse {
+
+    private static final String CRLF = "\r\n";
+    private static final byte[] LAST_CHUNK = ascii("0\r\n\r\n");
+    private static final Map<Integer, String> REASONS = new HashMap<Integer, String>();
+
+    static {
+        REASONS.put(100, "Continue");
+        REASONS.put(200, "OK");
+        REASONS.put(201, "Created");
+        REASONS.put(202, "Accepted");
+        REASONS.put(204, "No Content");
+        REASONS.put(206, "Partial Content");
+        REASONS.put(301, "Moved Permanently");
+        REASONS.put(302, "Found");
+        REASONS.put(303, "See Other");
+        REASONS.put(304, "Not Modified");
+        REASONS.put(307, "Temporary Redirect");
+        REASONS.put(400, "Bad Request");
+        REASONS.put(401, "Unauthorized");
+        REASONS.put(403, "Forbidden");
+        REASONS.put(404, "Not Found");
+        REASONS.put(405, "Method Not Allowed");
+        REASONS.put(409, "Conflict");
+        REASONS.put(413, "Request Entity Too Large");
+        REASONS.put(415, "Unsupported Media Type");
+        REASONS.put(431, "Request Header Fields Too Large");
+        REASONS.put(500, "Internal Server Error");
+        REASONS.put(502, "Bad Gateway");
+        REASONS.put(503, "Service Unavailable");
+        REASONS.put(504, "Gateway Timeout");
+    }
+
+    private final NioConnection connection;
+    private final BufferPool pool;
+    private final boolean http11;
+    private final boolean head;
+    private boolean keepAlive;
+
+    private int code = 200;
+    // Lower case name -> name and value.
+    private final Map<String, String[]> headers = new LinkedHashMap<String, String[]>();
+    private long contentLength = -1;
+
+    private ByteBuffer buffer;
+    private long written;
+    private boolean committed;
+    private boolean chunked;
+    private boolean closed;
+
+    private OutputStream outputStream;
+    private WritableByteChannel byteChannel;
+    private PrintStream printStream;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param connection Connection to send response to.
+     * @param keepAlive Indicates if client wants to keep connection open.
+     * @param http11 Indicates if client speaks HTTP/1.1 and so understands chunked entities.
+     * @param head Indicates if this is the response to a HEAD request, which has no entity.
+     */
+    NioResponse(final NioConnection connection, final boolean keepAlive, final boolean http11, final boolean head) {
+        this.connection = connection;
+        pool = connection.getPool();
+        this.keepAlive = keepAlive;
+        this.http11 = http11;
+        this.head = head;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCode(final int code) {
+        this.code = code;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeader(final String name, final String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLength(Long.parseLong(value.trim()));
+        } else {
+            headers.put(name.toLowerCase(), new String[] {name, value});
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentLength(final long length) {
+        contentLength = length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new OutputStream() {
+
+                @Override
+                public void write(final int b) throws IOException {
+                    NioResponse.this.write(new byte[] {(byte)b}, 0, 1);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    NioResponse.this.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    checkOpen();
+                    if (buffer != null && buffer.position() > 0) {
+                        NioResponse.this.flush(false, null);
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    NioResponse.this.close();
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WritableByteChannel getByteChannel() {
+        if (byteChannel == null) {
+            byteChannel = new WritableByteChannel() {
+
+                @Override
+                public boolean isOpen() {
+                    return !closed;
+                }
+
+                @Override
+                public int write(final ByteBuffer src) throws IOException {
+                    return NioResponse.this.write(src);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    NioResponse.this.close();
+                }
+            };
+        }
+        return byteChannel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrintStream getPrintStream() throws UnsupportedEncodingException {
+        if (printStream == null) {
+            printStream = new PrintStream(getOutputStream(), false, "UTF-8");
+        }
+        return printStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush(true, null);
+    }
+
+    /**
+     * Called when handling the request failed. Sends an internal server error in case nothing was sent yet.
+     */
+    void abort() {
+        if (closed) {
+            return;
+        }
+        if (!committed) {
+            code = 500;
+            headers.clear();
+            contentLength = 0;
+            written = 0;
+            if (buffer != null) {
+                buffer.clear();
+            }
+        }
+        keepAlive = false;
+        try {
+            close();
+        } catch (final IOException e) {
+            // Connection is closed, nothing more we can do.
+        }
+    }
+
+    private void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        checkOpen();
+        written += length;
+        if (!hasEntity()) {
+            return;
+        }
+        int position = offset;
+        final int end = offset + length;
+        while (position < end) {
+            if (buffer == null) {
+                buffer = pool.acquire();
+            }
+            final int count = Math.min(buffer.remaining(), end - position);
+            buffer.put(bytes, position, count);
+            position += count;
+            if (!buffer.hasRemaining()) {
+                flush(false, null);
+            }
+        }
+    }
+
+    private int write(final ByteBuffer source) throws IOException {
+        checkOpen();
+        final int length = source.remaining();
+        written += length;
+        if (!hasEntity()) {
+            source.position(source.limit());
+            return length;
+        }
+        if (source.isReadOnly() && length >= pool.getBufferSize()) {
+            // Large immutable content, send it as is.
+            flush(false, source.duplicate());
+            source.position(source.limit());
+            return length;
+        }
+        while (source.hasRemaining()) {
+            if (buffer == null) {
+                buffer = pool.acquire();
+            }
+            if (source.remaining() <= buffer.remaining()) {
+                buffer.put(source);
+            } else {
+                final ByteBuffer part = source.duplicate();
+                part.limit(part.position() + buffer.remaining());
+                buffer.put(part);
+                source.position(part.position());
+            }
+            if (!buffer.hasRemaining()) {
+                flush(false, null);
+            }
+        }
+        return length;
+    }
+
+    // Sends head if not sent yet, buffered entity bytes and given extra bytes.
+    private void flush(final boolean last, final ByteBuffer extra) throws IOException {
+        final List<Chunk> chunks = new ArrayList<Chunk>(6);
+        if (!committed) {
+            if (contentLength < 0 && last && extra == null) {
+                contentLength = written;
+            }
+            if (contentLength < 0 && hasEntity()) {
+                if (http11) {
+                    chunked = true;
+                } else {
+                    // End of entity is indicated by closing the connection.
+                    keepAlive = false;
+                }
+            }
+            chunks.add(new Chunk(ByteBuffer.wrap(head()), false));
+            committed = true;
+        }
+        if (buffer != null) {
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                addEntity(chunks, buffer, true);
+            } else {
+                pool.release(buffer);
+            }
+            buffer = null;
+        }
+        if (extra != null && extra.hasRemaining()) {
+            addEntity(chunks, extra, false);
+        }
+        if (last && chunked) {
+            chunks.add(new Chunk(ByteBuffer.wrap(LAST_CHUNK), false));
+        }
+        connection.send(chunks, last, keepAlive);
+    }
+
+    private void addEntity(final List<Chunk> chunks, final ByteBuffer entity, final boolean pooled) {
+        if (chunked) {
+            chunks.add(new Chunk(ByteBuffer.wrap(ascii(Integer.toHexString(entity.remaining()) + CRLF)), false));
+        }
+        chunks.add(new Chunk(entity, pooled));
+        if (chunked) {
+            chunks.add(new Chunk(ByteBuffer.wrap(ascii(CRLF)), false));
+        }
+    }
+
+    private byte[] head() {
+        final String[] connectionHeader = headers.get("connection");
+        if (connectionHeader != null && "close".equalsIgnoreCase(connectionHeader[1].trim())) {
+            keepAlive = false;
+        }
+        final StringBuilder head = new StringBuilder(256);
+        final String reason = REASONS.get(code);
+        head.append("HTTP/1.1 ").append(code).append(' ').append(reason == null ? "Unknown" : reason).append(CRLF);
+        for (final String[] header : headers.values()) {
+            if (!"connection".equalsIgnoreCase(header[0]) && !"transfer-encoding".equalsIgnoreCase(header[0])) {
+                head.append(header[0]).append(": ").append(header[1]).append(CRLF);
+            }
+        }
+        if (chunked) {
+            head.append("Transfer-Encoding: chunked").append(CRLF);
+        } else if (contentLength >= 0 && code >= 200 && code != 204 && code != 304) {
+            head.append("Content-Length: ").append(contentLength).append(CRLF);
+        }
+        if (!keepAlive) {
+            head.append("Connection: close").append(CRLF);
+        } else if (!http11) {
+            head.append("Connection: keep-alive").append(CRLF);
+        }
+        head.append(CRLF);
+        return ascii(head.toString());
+    }
+
+    private boolean hasEntity() {
+        return !head && code >= 200 && code != 204 && code != 304;
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Response is closed.");
+        }
+    }
+
+    static byte[] ascii(final String value) {
+        try {
+            return value.getBytes("ISO-8859-1");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
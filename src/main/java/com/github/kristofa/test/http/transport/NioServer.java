@@ -0,0 +1,261 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server started by {@link NioTransport}. A single selector thread accepts connections and does all socket I/O. Requests are
+ * handled on a fixed pool of worker threads.
+ *
+ * @author kristof
+ */
+class NioServer implements TransportServer, Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(NioServer.class);
+
+    private static final int BACKLOG = 1024;
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+    private static final long ACCEPT_RETRY_MILLIS = 100;
+
+    private final RequestHandler handler;
+    private final BufferPool pool;
+    private final long maxQueuedBytes;
+    private final int maxEntitySize;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final SelectionKey acceptKey;
+    private final InetSocketAddress address;
+    private final ExecutorService workers;
+    private final ConcurrentLinkedQueue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<NioConnection>();
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+    // Only accessed by the selector thread. Time at which accepting connections is resumed after it failed, 0 if not paused.
+    private long acceptRetryNanos;
+
+    /**
+     * Binds to given address and starts selector and worker threads.
+     *
+     * @param address Address to bind to.
+     * @param handler Handles requests.
+     * @param workerThreads Number of worker threads.
+     * @param pool Buffer pool for reading requests and writing responses.
+     * @param maxQueuedBytes Maximum number of response bytes queued per connection before a worker thread has to wait.
+     * @param maxEntitySize Maximum size of request entities in bytes. Larger requests are answered with 413.
+     * @throws IOException In case binding fails.
+     */
+    NioServer(final SocketAddress address, final RequestHandler handler, final int workerThreads, final BufferPool pool,
+        final long maxQueuedBytes, final int maxEntitySize) throws IOException {
+        this.handler = handler;
+        this.pool = pool;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.maxEntitySize = maxEntitySize;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(address, BACKLOG);
+            serverChannel.configureBlocking(false);
+            acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (final IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.address = (InetSocketAddress)serverChannel.socket().getLocalSocketAddress();
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory(this.address.getPort()));
+        selectorThread = new Thread(this, "NioTransport-selector-" + this.address.getPort());
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(STOP_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Selector loop.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                final long acceptPauseMillis = resumeAccepting();
+                if (acceptPauseMillis > 0) {
+                    selector.select(acceptPauseMillis);
+                } else {
+                    selector.select();
+                }
+                NioConnection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    connection.write();
+                }
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        connection = (NioConnection)key.attachment();
+                        if (key.isWritable()) {
+                            connection.write();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("IOException in selector loop. Server stops.", e);
+        } catch (final ClosedSelectorException e) {
+            LOGGER.error("Selector closed. Server stops.", e);
+        } finally {
+            for (final SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection) {
+                    ((NioConnection)key.attachment()).close();
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (final IOException e) {
+                LOGGER.error("IOException when closing server socket.", e);
+            }
+        }
+    }
+
+    /**
+     * Asks the selector thread to write queued bytes of given connection.
+     *
+     * @param connection Connection.
+     */
+    void requestWrite(final NioConnection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs a task on a worker thread.
+     *
+     * @param task Task.
+     */
+    void execute(final Runnable task) {
+        workers.execute(task);
+    }
+
+    RequestHandler getHandler() {
+        return handler;
+    }
+
+    long getMaxQueuedBytes() {
+        return maxQueuedBytes;
+    }
+
+    int getMaxEntitySize() {
+        return maxEntitySize;
+    }
+
+    // Failing to accept, for example because we ran out of file descriptors, should not stop the server. We stop accepting
+    // for a while so the selector loop does not spin on the pending connection.
+    private void accept() {
+        final SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+        } catch (final IOException e) {
+            LOGGER.error("IOException when accepting connection. Retrying in " + ACCEPT_RETRY_MILLIS + " ms.", e);
+            acceptKey.interestOps(0);
+            acceptRetryNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ACCEPT_RETRY_MILLIS);
+            return;
+        }
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new NioConnection(this, channel, key, pool));
+        } catch (final IOException e) {
+            LOGGER.debug("IOException when accepting connection.", e);
+            try {
+                channel.close();
+            } catch (final IOException closeException) {
+                LOGGER.debug("IOException when closing connection.", closeException);
+            }
+        }
+    }
+
+    // Returns the number of milliseconds accepting is still paused, 0 in case connections are accepted.
+    private long resumeAccepting() {
+        if (acceptRetryNanos == 0) {
+            return 0;
+        }
+        final long remainingNanos = acceptRetryNanos - System.nanoTime();
+        if (remainingNanos > 0) {
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+        }
+        acceptRetryNanos = 0;
+        acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        return 0;
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final int port;
+        private final AtomicInteger count = new AtomicInteger();
+
+        WorkerThreadFactory(final int port) {
+            this.port = port;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "NioTransport-worker-" + port + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link Transport} built on java.nio. An alternative to {@link SimpleTransport} that allocates less per request.
+ * <p>
+ * A single selector thread accepts connections, reads requests and writes responses. Requests are handled on a fixed pool
+ * of worker threads. Requests are read and responses are written through pooled direct buffers. Connections are kept alive
+ * and pipelined requests are answered in order.
+ * <p>
+ * Requests are presented the same way as by {@link SimpleTransport}: comma separated header values are split and ordered on
+ * quality value and domain and port are only known when the request line contains an absolute URI. So requests recorded on
+ * one transport match on the other.
+ * <p>
+ * Defaults:
+ * <ul>
+ * <li>Buffer size: 16 KB. Request line and headers should fit in a single buffer.</li>
+ * <li>Maximum number of pooled buffers: 256.</li>
+ * <li>Maximum size of request entities: 16 MB. The entity is kept in memory, larger requests are answered with 413 Request
+ * Entity Too Large.</li>
+ * <li>Maximum number of response bytes queued per connection: 4 buffers. A worker thread that streams a response to a slow
+ * client waits when more bytes are queued.</li>
+ * </ul>
+ *
+ * @author kristof
+ */
+public class NioTransport implements Transport {
+
+    private static final int DEFAULT_BUFFER_SIZE = 16384;
+    private static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+    private static final int QUEUED_BUFFERS_PER_CONNECTION = 4;
+    private static final int DEFAULT_MAX_ENTITY_SIZE = 16 * 1024 * 1024;
+
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final int maxEntitySize;
+
+    /**
+     * Creates a new instance with default settings.
+     */
+    public NioTransport() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bufferSize Size of the buffers used to read requests and write responses. Should be &gt; 0.
+     * @param maxPooledBuffers Maximum number of buffers kept for reuse. Should be &gt;= 0.
+     */
+    public NioTransport(final int bufferSize, final int maxPooledBuffers) {
+        this(bufferSize, maxPooledBuffers, DEFAULT_MAX_ENTITY_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bufferSize Size of the buffers used to read requests and write responses. Should be &gt; 0.
+     * @param maxPooledBuffers Maximum number of buffers kept for reuse. Should be &gt;= 0.
+     * @param maxEntitySize Maximum size of request entities in bytes. Requests with a larger entity are answered with 413
+     *            Request Entity Too Large. Should be &gt;= 0.
+     */
+    public NioTransport(final int bufferSize, final int maxPooledBuffers, final int maxEntitySize) {
+        Validate.isTrue(bufferSize > 0, "bufferSize should be > 0.");
+        Validate.isTrue(maxPooledBuffers >= 0, "maxPooledBuffers should be >= 0.");
+        Validate.isTrue(maxEntitySize >= 0, "maxEntitySize should be >= 0.");
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.maxEntitySize = maxEntitySize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TransportServer start(final SocketAddress address, final RequestHandler handler, final int workerThreads)
+        throws IOException {
+        Validate.notNull(handler);
+        Validate.isTrue(workerThreads > 0, "workerThreads should be > 0.");
+        return new NioServer(address, handler, workerThreads, new BufferPool(bufferSize, maxPooledBuffers),
+            (long)bufferSize * QUEUED_BUFFERS_PER_CONNECTION, maxEntitySize);
+    }
+
+}
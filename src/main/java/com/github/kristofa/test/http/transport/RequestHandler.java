@@ -0,0 +1,18 @@
+package com.github.kristofa.test.http.transport;
+
+/**
+ * Handles requests received by a {@link Transport}.
+ *
+ * @author kristof
+ */
+public interface RequestHandler {
+
+    /**
+     * Handles a request. The response is committed when it is closed, either directly or by closing one of its streams.
+     *
+     * @param request Request.
+     * @param response Response.
+     */
+    void handle(TransportRequest request, TransportResponse response);
+
+}
@@ -0,0 +1,181 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.simpleframework.http.Request;
+import org.simpleframework.http.Response;
+import org.simpleframework.http.core.Container;
+import org.simpleframework.http.core.ContainerServer;
+import org.simpleframework.transport.connect.Connection;
+import org.simpleframework.transport.connect.SocketConnection;
+
+import com.github.kristofa.test.http.QueryParameter;
+
+/**
+ * {@link Transport} that runs on the <a href="http://www.simpleframework.org">Simple framework</a>. This is the default
+ * transport.
+ *
+ * @author kristof
+ */
+public class SimpleTransport implements Transport {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TransportServer start(final SocketAddress address, final RequestHandler handler, final int workerThreads)
+        throws IOException {
+        final Connection connection = new SocketConnection(new ContainerServer(new HandlerContainer(handler), workerThreads));
+        try {
+            return new SimpleServer(connection, (InetSocketAddress)connection.connect(address));
+        } catch (final IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private static class SimpleServer implements TransportServer {
+
+        private final Connection connection;
+        private final InetSocketAddress address;
+
+        SimpleServer(final Connection connection, final InetSocketAddress address) {
+            this.connection = connection;
+            this.address = address;
+        }
+
+        @Override
+        public InetSocketAddress getAddress() {
+            return address;
+        }
+
+        @Override
+        public void close() throws IOException {
+            connection.close();
+        }
+    }
+
+    private static class HandlerContainer implements Container {
+
+        private final RequestHandler handler;
+
+        HandlerContainer(final RequestHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void handle(final Request request, final Response response) {
+            handler.handle(new SimpleRequest(request), new SimpleResponse(response));
+        }
+    }
+
+    private static class SimpleRequest implements TransportRequest {
+
+        private final Request request;
+
+        SimpleRequest(final Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public String getPath() {
+            return request.getPath().getPath();
+        }
+
+        @Override
+        public List<QueryParameter> getQueryParameters() {
+            final List<QueryParameter> parameters = new ArrayList<QueryParameter>();
+            for (final Entry<String, String> entry : request.getQuery().entrySet()) {
+                parameters.add(new QueryParameter(entry.getKey(), entry.getValue()));
+            }
+            return parameters;
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return request.getNames();
+        }
+
+        @Override
+        public List<String> getHeaderValues(final String name) {
+            return request.getValues(name);
+        }
+
+        @Override
+        public String getDomain() {
+            return request.getAddress().getDomain();
+        }
+
+        @Override
+        public int getPort() {
+            return request.getAddress().getPort();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return request.getInputStream();
+        }
+    }
+
+    private static class SimpleResponse implements TransportResponse {
+
+        private final Response response;
+
+        SimpleResponse(final Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public void setCode(final int code) {
+            response.setCode(code);
+        }
+
+        @Override
+        public void setHeader(final String name, final String value) {
+            response.set(name, value);
+        }
+
+        @Override
+        public void setContentLength(final long length) {
+            if (length <= Integer.MAX_VALUE) {
+                response.setContentLength((int)length);
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return response.getOutputStream();
+        }
+
+        @Override
+        public WritableByteChannel getByteChannel() throws IOException {
+            return response.getByteChannel();
+        }
+
+        @Override
+        public PrintStream getPrintStream() throws IOException {
+            return response.getPrintStream();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.close();
+        }
+    }
+
+}
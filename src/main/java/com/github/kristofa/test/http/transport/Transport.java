@@ -0,0 +1,31 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * Http server engine on which {@link com.github.kristofa.test.http.MockHttpServer} and
+ * {@link com.github.kristofa.test.http.LoggingHttpProxy} run.
+ * <p>
+ * A transport accepts connections, parses requests and hands them to a {@link RequestHandler}. Responses are committed when
+ * they are closed, which does not have to happen on the thread that called
+ * {@link RequestHandler#handle(TransportRequest, TransportResponse)}.
+ *
+ * @see SimpleTransport
+ * @see NioTransport
+ * @author kristof
+ */
+public interface Transport {
+
+    /**
+     * Starts a server.
+     *
+     * @param address Address to bind to.
+     * @param handler Handles requests.
+     * @param workerThreads Number of threads that call the handler.
+     * @return Started server.
+     * @throws IOException In case starting fails, for example because the address is in use.
+     */
+    TransportServer start(SocketAddress address, RequestHandler handler, int workerThreads) throws IOException;
+
+}
@@ -0,0 +1,75 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+
+import com.github.kristofa.test.http.QueryParameter;
+
+/**
+ * Request received by a {@link Transport}.
+ *
+ * @author kristof
+ */
+public interface TransportRequest {
+
+    /**
+     * Gets the request method.
+     *
+     * @return Request method, for example GET.
+     */
+    String getMethod();
+
+    /**
+     * Gets the decoded path, without query string.
+     *
+     * @return Path.
+     */
+    String getPath();
+
+    /**
+     * Gets the decoded query parameters.
+     *
+     * @return Query parameters. Empty in case there are none.
+     */
+    List<QueryParameter> getQueryParameters();
+
+    /**
+     * Gets the names of the request headers.
+     *
+     * @return Header names.
+     */
+    Collection<String> getHeaderNames();
+
+    /**
+     * Gets the values of a request header. Comma separated values are returned as separate values.
+     *
+     * @param name Header name, case insensitive.
+     * @return Values. Empty in case header is not present.
+     */
+    List<String> getHeaderValues(String name);
+
+    /**
+     * Gets the domain in case the request line contains an absolute URI.
+     *
+     * @return Domain or <code>null</code>.
+     */
+    String getDomain();
+
+    /**
+     * Gets the port in case the request line contains an absolute URI with port.
+     *
+     * @return Port or -1.
+     */
+    int getPort();
+
+    /**
+     * Gets the request entity.
+     *
+     * @return Request entity. Empty stream in case there is none.
+     * @throws IOException In case getting the entity fails.
+     */
+    InputStream getInputStream() throws IOException;
+
+}
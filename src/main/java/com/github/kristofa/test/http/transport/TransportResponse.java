@@ -0,0 +1,71 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Response to a {@link TransportRequest}. Code and headers should be set before the entity is written. The response is
+ * committed when it is closed, either directly or by closing one of its streams.
+ *
+ * @author kristof
+ */
+public interface TransportResponse {
+
+    /**
+     * Sets the http response code.
+     *
+     * @param code Http response code.
+     */
+    void setCode(int code);
+
+    /**
+     * Sets a response header, replacing an existing header with the same name.
+     *
+     * @param name Header name.
+     * @param value Header value.
+     */
+    void setHeader(String name, String value);
+
+    /**
+     * Sets the length of the response entity. Optional. If not set the transport determines the length itself or streams
+     * the entity.
+     *
+     * @param length Length in bytes.
+     */
+    void setContentLength(long length);
+
+    /**
+     * Gets a stream to write the response entity to. Flushing the stream sends the bytes written so far to the client,
+     * with chunked transfer encoding in case no Content-Length was set.
+     *
+     * @return Stream.
+     * @throws IOException In case getting the stream fails.
+     */
+    OutputStream getOutputStream() throws IOException;
+
+    /**
+     * Gets a channel to write the response entity to.
+     *
+     * @return Channel.
+     * @throws IOException In case getting the channel fails.
+     */
+    WritableByteChannel getByteChannel() throws IOException;
+
+    /**
+     * Gets a print stream, using UTF-8, to write the response entity to.
+     *
+     * @return Print stream.
+     * @throws IOException In case getting the stream fails.
+     */
+    PrintStream getPrintStream() throws IOException;
+
+    /**
+     * Commits the response.
+     *
+     * @throws IOException In case committing fails.
+     */
+    void close() throws IOException;
+
+}
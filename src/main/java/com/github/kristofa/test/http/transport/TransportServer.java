@@ -0,0 +1,29 @@
+package com.github.kristofa.test.http.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Server started by a {@link Transport}.
+ *
+ * @author kristof
+ */
+public interface TransportServer extends Closeable {
+
+    /**
+     * Gets the address the server is bound to.
+     *
+     * @return Address. In case the server was started on port 0 this contains the chosen port.
+     */
+    InetSocketAddress getAddress();
+
+    /**
+     * Stops accepting connections, closes open connections and stops the worker threads.
+     *
+     * @throws IOException In case closing fails.
+     */
+    @Override
+    void close() throws IOException;
+
+}
@@ -2,6 +2,7 @@ package com.github.kristofa.test.http;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -181,4 +182,17 @@ public class AllExceptContentTypeHeaderFilterTest {
         assertEquals(mockResponse, context.response());
     }
 
+    @Test
+    public void testProject() {
+        final HttpRequestImpl httpRequestImpl = new HttpRequestImpl();
+        httpRequestImpl.method(Method.GET).path(PATH1).httpMessageHeader(HEADER_1_NAME, HEADER_1_VALUE)
+            .httpMessageHeader(HEADER_CONTENT_TYPE, HEADER_CONTENT_TYPE_VALUE);
+
+        final HttpRequest projection = matcher.project(httpRequestImpl);
+        assertEquals(1, projection.getHttpMessageHeaders().size());
+        assertEquals(1, projection.getHttpMessageHeaders(HEADER_CONTENT_TYPE).size());
+        assertEquals("Should not modify input request.", 2, httpRequestImpl.getHttpMessageHeaders().size());
+        assertSame(projection, matcher.project(projection));
+    }
+
 }
@@ -2,6 +2,8 @@ package com.github.kristofa.test.http;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import org.junit.Before;
@@ -67,4 +69,19 @@ public class AllExceptOriginalHeadersFilterTest {
 
     }
 
+    @Test
+    public void testProject() {
+        final HttpRequestImpl request2 = new HttpRequestImpl(request);
+        request2.httpMessageHeader("another", "header");
+
+        final HttpRequest projection = matcher.project(request2);
+        assertTrue(projection.getHttpMessageHeaders().isEmpty());
+        assertEquals(matcher.project(request), projection);
+        assertEquals("Should not modify input request.", 2, request2.getHttpMessageHeaders().size());
+
+        final HttpRequestImpl request3 = new HttpRequestImpl(request);
+        request3.removeHttpMessageHeaders(CONTENT_TYPE);
+        assertSame(request3, matcher.project(request3));
+    }
+
 }
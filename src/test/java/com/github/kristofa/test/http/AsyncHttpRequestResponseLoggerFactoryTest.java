@@ -0,0 +1,283 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.github.kristofa.test.http.AsyncHttpRequestResponseLoggerFactory.OverflowPolicy;
+
+public class AsyncHttpRequestResponseLoggerFactoryTest {
+
+    private HttpRequestResponseLoggerFactory mockLoggerFactory;
+    private AsyncHttpRequestResponseLoggerFactory asyncLoggerFactory;
+
+    @Before
+    public void setUp() {
+        mockLoggerFactory = mock(HttpRequestResponseLoggerFactory.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (asyncLoggerFactory != null) {
+            asyncLoggerFactory.close();
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullLoggerFactory() {
+        new AsyncHttpRequestResponseLoggerFactory(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWriterThreads() {
+        new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 0, 10, 10, OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    public void testFlushLogsInOrder() throws IOException {
+        final HttpRequestResponseLogger mockLogger = mock(HttpRequestResponseLogger.class);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(mockLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 2, 10, 3, OverflowPolicy.BLOCK);
+
+        final HttpRequest request = new HttpRequestImpl().path("/a");
+        final HttpResponse response = new HttpResponseImpl(200, "text/plain", null);
+        final HttpRequestResponseLogger logger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        logger.log(request);
+        logger.log(response);
+        asyncLoggerFactory.flush();
+
+        final InOrder inOrder = inOrder(mockLogger);
+        inOrder.verify(mockLogger).log(request);
+        inOrder.verify(mockLogger).log(response);
+    }
+
+    @Test
+    public void testManyLogsFlushed() throws IOException {
+        final RecordingLogger recordingLogger = new RecordingLogger(null);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(recordingLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 3, 2, 2, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 100; i++) {
+            asyncLoggerFactory.getHttpRequestResponseLogger().log(new HttpRequestImpl().path("/" + i));
+        }
+        asyncLoggerFactory.flush();
+        assertEquals(100, recordingLogger.requests.size());
+        assertEquals(0, asyncLoggerFactory.getDroppedCount());
+    }
+
+    @Test
+    public void testDrop() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingLogger blockingLogger = new RecordingLogger(release);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(blockingLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 1, 1, 1, OverflowPolicy.DROP);
+
+        final HttpRequestResponseLogger logger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        logger.log(new HttpRequestImpl().path("/1"));
+        blockingLogger.started.await();
+        // Writer thread is blocked so queue of 1 fills up.
+        logger.log(new HttpRequestImpl().path("/2"));
+        logger.log(new HttpRequestImpl().path("/3"));
+        logger.log(new HttpRequestImpl().path("/4"));
+        assertEquals(2, asyncLoggerFactory.getDroppedCount());
+        release.countDown();
+        asyncLoggerFactory.flush();
+        assertEquals(2, blockingLogger.requests.size());
+    }
+
+    @Test
+    public void testDropDropsResponseOfDroppedRequestOnly() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingLogger blockingLogger = new RecordingLogger(release);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(blockingLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 1, 1, 1, OverflowPolicy.DROP);
+
+        asyncLoggerFactory.getHttpRequestResponseLogger().log(new HttpRequestImpl().path("/1"));
+        blockingLogger.started.await();
+        final HttpRequestResponseLogger queuedLogger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        queuedLogger.log(new HttpRequestImpl().path("/2"));
+        final HttpRequestResponseLogger droppedLogger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        droppedLogger.log(new HttpRequestImpl().path("/3"));
+
+        final HttpResponse droppedResponse = new HttpResponseImpl(200, "text/plain", null);
+        droppedLogger.log(droppedResponse);
+        assertEquals(2, asyncLoggerFactory.getDroppedCount());
+        // Queue is still full but the response of a queued request is never dropped.
+        final HttpResponse queuedResponse = new HttpResponseImpl(201, "text/plain", null);
+        queuedLogger.log(queuedResponse);
+        assertEquals(2, asyncLoggerFactory.getDroppedCount());
+
+        release.countDown();
+        asyncLoggerFactory.flush();
+        assertEquals(2, blockingLogger.requests.size());
+        assertEquals(1, blockingLogger.responses.size());
+        assertSame(queuedResponse, blockingLogger.responses.get(0));
+    }
+
+    @Test
+    public void testDropStreamingResponseOfDroppedRequest() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingLogger blockingLogger = new RecordingLogger(release);
+        final StreamingHttpRequestResponseLogger mockLogger = mock(StreamingHttpRequestResponseLogger.class);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(blockingLogger, blockingLogger, mockLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 1, 1, 1, OverflowPolicy.DROP);
+
+        asyncLoggerFactory.getHttpRequestResponseLogger().log(new HttpRequestImpl().path("/1"));
+        blockingLogger.started.await();
+        asyncLoggerFactory.getHttpRequestResponseLogger().log(new HttpRequestImpl().path("/2"));
+        final StreamingHttpRequestResponseLogger droppedLogger =
+            (StreamingHttpRequestResponseLogger)asyncLoggerFactory.getHttpRequestResponseLogger();
+        droppedLogger.log(new HttpRequestImpl().path("/3"));
+        final OutputStream outputStream = droppedLogger.logResponse(200, "text/plain");
+        outputStream.write("discarded".getBytes());
+        outputStream.close();
+        droppedLogger.abortResponse();
+        release.countDown();
+
+        assertEquals(2, asyncLoggerFactory.getDroppedCount());
+        verify(mockLogger, never()).logResponse(200, "text/plain");
+        verify(mockLogger, never()).abortResponse();
+    }
+
+    @Test
+    public void testFlushAfterWriterDied() throws IOException {
+        final RecordingLogger recordingLogger = new RecordingLogger(null);
+        final HttpRequestResponseLogger interruptingLogger = mock(HttpRequestResponseLogger.class);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }).when(interruptingLogger).log(any(HttpRequest.class));
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(interruptingLogger, recordingLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 1, 1, 1, OverflowPolicy.BLOCK);
+
+        // Writer thread gets interrupted and stops.
+        asyncLoggerFactory.getHttpRequestResponseLogger().log(new HttpRequestImpl().path("/interrupt"));
+        final HttpRequestResponseLogger logger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        for (int i = 0; i < 3; i++) {
+            logger.log(new HttpRequestImpl().path("/" + i));
+        }
+        asyncLoggerFactory.flush();
+        assertEquals(3, recordingLogger.requests.size());
+        asyncLoggerFactory.close();
+    }
+
+    @Test
+    public void testSpill() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingLogger blockingLogger = new RecordingLogger(release);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(blockingLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory, 1, 1, 1, OverflowPolicy.SPILL);
+
+        final HttpRequestResponseLogger logger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        logger.log(new HttpRequestImpl().path("/1"));
+        blockingLogger.started.await();
+        logger.log(new HttpRequestImpl().path("/2"));
+        // Queue is full so this one is logged on this thread.
+        final HttpRequest spilled = new HttpRequestImpl().path("/3");
+        logger.log(spilled);
+        assertTrue(blockingLogger.requests.contains(spilled));
+        assertSame(Thread.currentThread(), blockingLogger.threads.get(blockingLogger.requests.indexOf(spilled)));
+        release.countDown();
+        asyncLoggerFactory.flush();
+        assertEquals(3, blockingLogger.requests.size());
+        assertEquals(0, asyncLoggerFactory.getDroppedCount());
+    }
+
+    @Test
+    public void testLogAfterClose() throws IOException {
+        final RecordingLogger recordingLogger = new RecordingLogger(null);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(recordingLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory);
+        final HttpRequestResponseLogger logger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        logger.log(new HttpRequestImpl().path("/1"));
+        asyncLoggerFactory.close();
+        assertEquals(1, recordingLogger.requests.size());
+
+        logger.log(new HttpRequestImpl().path("/2"));
+        assertEquals(2, recordingLogger.requests.size());
+        assertSame(Thread.currentThread(), recordingLogger.threads.get(1));
+        // Closing twice is fine.
+        asyncLoggerFactory.close();
+    }
+
+    @Test
+    public void testStreamingLogger() throws IOException {
+        final StreamingHttpRequestResponseLogger mockLogger = mock(StreamingHttpRequestResponseLogger.class);
+        final OutputStream mockOutputStream = mock(OutputStream.class);
+        when(mockLogger.logResponse(200, "text/plain")).thenReturn(mockOutputStream);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(mockLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory);
+
+        final HttpRequestResponseLogger logger = asyncLoggerFactory.getHttpRequestResponseLogger();
+        assertTrue(logger instanceof StreamingHttpRequestResponseLogger);
+        assertSame(mockOutputStream, ((StreamingHttpRequestResponseLogger)logger).logResponse(200, "text/plain"));
+        verify(mockLogger).logResponse(200, "text/plain");
+    }
+
+    @Test
+    public void testNonStreamingLogger() {
+        final HttpRequestResponseLogger mockLogger = mock(HttpRequestResponseLogger.class);
+        when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(mockLogger);
+        asyncLoggerFactory = new AsyncHttpRequestResponseLoggerFactory(mockLoggerFactory);
+        assertFalse(asyncLoggerFactory.getHttpRequestResponseLogger() instanceof StreamingHttpRequestResponseLogger);
+    }
+
+    private static class RecordingLogger implements HttpRequestResponseLogger {
+
+        private final List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<HttpRequest>());
+        private final List<HttpResponse> responses = Collections.synchronizedList(new ArrayList<HttpResponse>());
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingLogger(final CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void log(final HttpRequest request) {
+            requests.add(request);
+            threads.add(Thread.currentThread());
+            started.countDown();
+            if (release != null && Thread.currentThread().getName().startsWith("AsyncHttpRequestResponseLogger")) {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void log(final HttpResponse response) {
+            responses.add(response);
+        }
+    }
+
+}
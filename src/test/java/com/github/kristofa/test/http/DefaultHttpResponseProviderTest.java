@@ -3,9 +3,19 @@ package com.github.kristofa.test.http;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -131,6 +141,103 @@ public class DefaultHttpResponseProviderTest {
         expectVerifyToFail(httpResponseProviderIgnoreAdditionalHeaders, httpRequest, requestWithOtherContent);
     }
     
+    @Test
+    public void testSetAndGetResponseIgnoreAdditionalHeadersMultipleExpectedRequests()
+        throws UnsatisfiedExpectationException {
+        httpResponseProviderIgnoreAdditionalHeaders = new DefaultHttpResponseProvider(true);
+        final HttpRequestImpl otherPathRequest = new HttpRequestImpl(httpRequest);
+        otherPathRequest.path("/otherpath");
+        final HttpResponseImpl otherPathResponse = new HttpResponseImpl(HTTP_CODE, null, null);
+        httpResponseProviderIgnoreAdditionalHeaders.set(httpRequest, httpResponse);
+        httpResponseProviderIgnoreAdditionalHeaders.set(otherPathRequest, otherPathResponse);
+
+        final HttpRequestImpl requestWithAdditionalParam = new HttpRequestImpl(otherPathRequest);
+        requestWithAdditionalParam.httpMessageHeader("param2", "value2");
+        assertSame(otherPathResponse, httpResponseProviderIgnoreAdditionalHeaders.getResponse(requestWithAdditionalParam));
+
+        final HttpRequestImpl requestWithAdditionalParam2 = new HttpRequestImpl(httpRequest);
+        requestWithAdditionalParam2.httpMessageHeader("param2", "value2");
+        assertSame(httpResponse, httpResponseProviderIgnoreAdditionalHeaders.getResponse(requestWithAdditionalParam2));
+
+        httpResponseProviderIgnoreAdditionalHeaders.verify(); // Expect no exception.
+    }
+
+    @Test
+    public void testSetAndGetResponseNotProjectableFilter() throws UnsatisfiedExpectationException {
+        httpResponseProviderIgnoreAdditionalHeaders = new DefaultHttpResponseProvider(true);
+        httpResponseProviderIgnoreAdditionalHeaders.addHttpRequestMatchingFilter(new AbstractHttpRequestMatchingFilter() {
+
+            @Override
+            public HttpRequestMatchingContext filter(final HttpRequestMatchingContext context) {
+                final HttpRequestImpl otherRequest = new HttpRequestImpl(context.otherRequest());
+                otherRequest.removeQueryParameters(QUERY_PARAM);
+                otherRequest.queryParameter(QUERY_PARAM, QUERY_PARAM_VALUE);
+                return new HttpRequestMatchingContextImpl(context.originalRequest(), otherRequest, context.response());
+            }
+        });
+        httpResponseProviderIgnoreAdditionalHeaders.set(httpRequest, httpResponse);
+
+        final HttpRequestImpl requestWithOtherQueryParam = new HttpRequestImpl(httpRequest);
+        requestWithOtherQueryParam.removeQueryParameters(QUERY_PARAM);
+        requestWithOtherQueryParam.queryParameter(QUERY_PARAM, "other value");
+        requestWithOtherQueryParam.httpMessageHeader("param2", "value2");
+
+        assertSame(httpResponse, httpResponseProviderIgnoreAdditionalHeaders.getResponse(requestWithOtherQueryParam));
+
+        httpResponseProviderIgnoreAdditionalHeaders.verify(); // Expect no exception.
+    }
+
+    @Test
+    public void testSameRequestMultipleTimesReturnsResponsesInOrder() throws UnsatisfiedExpectationException {
+        httpResponseProviderIgnoreAdditionalHeaders = new DefaultHttpResponseProvider(false);
+        final HttpResponseImpl secondResponse = new HttpResponseImpl(HTTP_CODE, null, null);
+        httpResponseProviderIgnoreAdditionalHeaders.set(httpRequest, httpResponse);
+        httpResponseProviderIgnoreAdditionalHeaders.set(httpRequest, secondResponse);
+
+        assertSame(httpResponse, httpResponseProviderIgnoreAdditionalHeaders.getResponse(new HttpRequestImpl(httpRequest)));
+        assertSame(secondResponse, httpResponseProviderIgnoreAdditionalHeaders.getResponse(new HttpRequestImpl(httpRequest)));
+        assertNull(httpResponseProviderIgnoreAdditionalHeaders.getResponse(new HttpRequestImpl(httpRequest)));
+    }
+
+    @Test
+    public void testConcurrentGetResponse() throws Exception {
+        final int nrOfResponses = 2000;
+        final int nrOfThreads = 8;
+        httpResponseProviderIgnoreAdditionalHeaders = new DefaultHttpResponseProvider(true);
+        for (int i = 0; i < nrOfResponses; i++) {
+            httpResponseProviderIgnoreAdditionalHeaders.set(httpRequest, new HttpResponseImpl(HTTP_CODE, null, null));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(nrOfThreads);
+        try {
+            final List<Future<List<HttpResponse>>> futures = new ArrayList<Future<List<HttpResponse>>>();
+            for (int thread = 0; thread < nrOfThreads; thread++) {
+                futures.add(executor.submit(new Callable<List<HttpResponse>>() {
+
+                    @Override
+                    public List<HttpResponse> call() {
+                        final List<HttpResponse> responses = new ArrayList<HttpResponse>();
+                        for (int i = 0; i < nrOfResponses / nrOfThreads; i++) {
+                            final HttpRequestImpl request = new HttpRequestImpl(httpRequest);
+                            request.httpMessageHeader("param2", "value2");
+                            responses.add(httpResponseProviderIgnoreAdditionalHeaders.getResponse(request));
+                        }
+                        return responses;
+                    }
+                }));
+            }
+            final Set<HttpResponse> uniqueResponses =
+                Collections.newSetFromMap(new IdentityHashMap<HttpResponse, Boolean>());
+            for (final Future<List<HttpResponse>> future : futures) {
+                uniqueResponses.addAll(future.get());
+            }
+            assertEquals("Every response should be returned exactly once.", nrOfResponses, uniqueResponses.size());
+        } finally {
+            executor.shutdown();
+        }
+        httpResponseProviderIgnoreAdditionalHeaders.verify(); // Expect no exception.
+    }
+
     @Test
     public void testReset() throws UnsatisfiedExpectationException {
     	 httpResponseProviderIgnoreAdditionalHeaders = new DefaultHttpResponseProvider(false);
@@ -168,4 +275,79 @@ public class DefaultHttpResponseProviderTest {
         }
     }
 
+    @Test
+    public void testPreEncodeResponses() throws UnsatisfiedExpectationException {
+        final DefaultHttpResponseProvider responseProvider = new DefaultHttpResponseProvider(false);
+        responseProvider.setPreEncodeResponses(true);
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(METHOD).path(PATH);
+        final HttpResponseImpl response = new HttpResponseImpl(HTTP_CODE, CONTENT_TYPE, "content".getBytes());
+        responseProvider.set(request, response);
+        responseProvider.set(request, response);
+
+        for (int i = 0; i < 2; i++) {
+            final HttpResponse preEncodedResponse = responseProvider.getResponse(request);
+            assertTrue(preEncodedResponse instanceof MappedHttpResponse);
+            assertEquals(HTTP_CODE, preEncodedResponse.getHttpCode());
+            assertEquals(CONTENT_TYPE, preEncodedResponse.getContentType());
+            assertEquals("content", new String(preEncodedResponse.getContent()));
+        }
+        responseProvider.verify();
+    }
+
+    @Test
+    public void testCustomContentMatcherWithProjectableFilter() throws Exception {
+        final DefaultHttpResponseProvider responseProvider = new DefaultHttpResponseProvider(true);
+        final HttpRequestImpl expectedRequest = new HttpRequestImpl();
+        expectedRequest.method(Method.POST).path(PATH)
+            .contentMatcher(new WhitespaceInsensitiveContentMatcher("{\"a\": 1}".getBytes()));
+        responseProvider.set(expectedRequest, httpResponse);
+
+        final HttpRequestImpl receivedRequest = new HttpRequestImpl();
+        receivedRequest.method(Method.POST).path(PATH).httpMessageHeader("User-Agent", "test")
+            .content("{\"a\":1}".getBytes());
+
+        assertSame(httpResponse, responseProvider.getResponse(receivedRequest));
+        responseProvider.verify();
+    }
+
+    private static class WhitespaceInsensitiveContentMatcher extends ContentMatcher {
+
+        private byte[] content;
+
+        WhitespaceInsensitiveContentMatcher(final byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public byte[] getContent() {
+            return content;
+        }
+
+        @Override
+        public void setContent(final byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof ContentMatcher
+                && normalize(content).equals(normalize(((ContentMatcher)obj).getContent()));
+        }
+
+        @Override
+        public int hashCode() {
+            return normalize(content).hashCode();
+        }
+
+        @Override
+        public ContentMatcher copy() {
+            return new WhitespaceInsensitiveContentMatcher(content);
+        }
+
+        private static String normalize(final byte[] content) {
+            return content == null ? "" : new String(content).replaceAll("\\s", "");
+        }
+    }
+
 }
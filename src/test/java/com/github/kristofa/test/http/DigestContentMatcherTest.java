@@ -0,0 +1,98 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class DigestContentMatcherTest {
+
+    private final static byte[] CONTENT = "abcd".getBytes();
+
+    @Test
+    public void testSetContent() {
+        final DigestContentMatcher matcher = new DigestContentMatcher();
+        assertEquals(-1, matcher.getLength());
+        assertNull(matcher.digest());
+        matcher.setContent(CONTENT);
+        assertEquals(CONTENT.length, matcher.getLength());
+        assertEquals(32, matcher.digest().length);
+        assertNull("Content is not kept.", matcher.getContent());
+        matcher.setContent(null);
+        assertEquals(-1, matcher.getLength());
+        assertNull(matcher.digest());
+    }
+
+    @Test
+    public void testGetContentFromFile() throws IOException {
+        final File file = new File("target/DigestContentMatcherTest.txt");
+        FileUtils.writeByteArrayToFile(file, CONTENT);
+        final DigestContentMatcher matcher = new DigestContentMatcher(file);
+        assertNull(matcher.getContent());
+        matcher.setContent(CONTENT);
+        assertEquals(new String(CONTENT), new String(matcher.getContent()));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        final DigestContentMatcher matcher = new DigestContentMatcher();
+        matcher.setContent(CONTENT);
+        final DigestContentMatcher equalMatcher = new DigestContentMatcher();
+        equalMatcher.setContent("abcd".getBytes());
+        final DigestContentMatcher notEqualMatcher = new DigestContentMatcher();
+        notEqualMatcher.setContent("abce".getBytes());
+
+        assertTrue(matcher.equals(matcher));
+        assertTrue(matcher.equals(equalMatcher));
+        assertEquals(matcher.hashCode(), equalMatcher.hashCode());
+        assertFalse(matcher.equals(notEqualMatcher));
+        assertFalse(matcher.equals(null));
+        assertFalse(matcher.equals(new DigestContentMatcher()));
+        assertTrue(new DigestContentMatcher().equals(new DigestContentMatcher()));
+    }
+
+    @Test
+    public void testEqualsDefaultContentMatcher() {
+        final DigestContentMatcher matcher = new DigestContentMatcher();
+        matcher.setContent(CONTENT);
+        final DefaultContentMatcher defaultMatcher = new DefaultContentMatcher("abcd".getBytes());
+
+        assertTrue(matcher.equals(defaultMatcher));
+        assertTrue(defaultMatcher.equals(matcher));
+        assertEquals(defaultMatcher.hashCode(), matcher.hashCode());
+        assertFalse(matcher.equals(new DefaultContentMatcher("abce".getBytes())));
+        assertFalse(new DefaultContentMatcher("abce".getBytes()).equals(matcher));
+        assertFalse(matcher.equals(new DefaultContentMatcher()));
+        assertTrue(new DigestContentMatcher().equals(new DefaultContentMatcher()));
+    }
+
+    @Test
+    public void testCopy() {
+        final DigestContentMatcher matcher = new DigestContentMatcher();
+        matcher.setContent(CONTENT);
+        final ContentMatcher copy = matcher.copy();
+        assertNotSame(matcher, copy);
+        assertEquals(matcher, copy);
+    }
+
+    @Test
+    public void testHttpRequestImpl() throws UnexpectedContentException {
+        final HttpRequestImpl request = new HttpRequestImpl().method(Method.POST).path("/").content(CONTENT);
+        final HttpRequestImpl digestRequest = new HttpRequestImpl(request).contentMatcher(new DigestContentMatcher());
+
+        assertEquals(request, digestRequest);
+        assertEquals(digestRequest, request);
+        assertEquals(request.hashCode(), digestRequest.hashCode());
+        assertEquals(HttpRequestFingerprint.of(request), HttpRequestFingerprint.of(digestRequest));
+        assertFalse(HttpRequestFingerprint.of(new HttpRequestImpl(request).content("abce".getBytes())).equals(
+            HttpRequestFingerprint.of(digestRequest)));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExpectationTest {
+
+    private HttpRequest request;
+    private Expectation expectation;
+
+    @Before
+    public void setup() {
+        request = mock(HttpRequest.class);
+        expectation = new Expectation(request);
+    }
+
+    @Test
+    public void testRequest() {
+        assertSame(request, expectation.request());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, expectation.size());
+        assertEquals(0, expectation.pending());
+        assertEquals(-1, expectation.peek());
+        assertNull(expectation.claimNext());
+    }
+
+    @Test
+    public void testClaimNextInOrder() {
+        final int nrOfProxies = 100;
+        final HttpResponseProxy[] proxies = new HttpResponseProxy[nrOfProxies];
+        for (int i = 0; i < nrOfProxies; i++) {
+            proxies[i] = mock(HttpResponseProxy.class);
+            expectation.add(proxies[i]);
+        }
+        assertEquals(nrOfProxies, expectation.size());
+        assertEquals(nrOfProxies, expectation.pending());
+
+        for (int i = 0; i < nrOfProxies; i++) {
+            assertSame(proxies[i], expectation.claimNext());
+            assertEquals(nrOfProxies - i - 1, expectation.pending());
+        }
+        assertNull(expectation.claimNext());
+        assertEquals(0, expectation.pending());
+    }
+
+    @Test
+    public void testPeekAndClaim() {
+        final HttpResponseProxy proxy1 = mock(HttpResponseProxy.class);
+        final HttpResponseProxy proxy2 = mock(HttpResponseProxy.class);
+        expectation.add(proxy1);
+        expectation.add(proxy2);
+
+        final int position = expectation.peek();
+        assertEquals(0, position);
+        assertSame(proxy1, expectation.responseProxy(position));
+        assertTrue(expectation.claim(position));
+        assertFalse("Position already claimed.", expectation.claim(position));
+        assertEquals(1, expectation.peek());
+        assertSame(proxy2, expectation.claimNext());
+        assertEquals(-1, expectation.peek());
+    }
+
+    @Test
+    public void testAddAfterAllClaimed() {
+        final HttpResponseProxy proxy1 = mock(HttpResponseProxy.class);
+        final HttpResponseProxy proxy2 = mock(HttpResponseProxy.class);
+        expectation.add(proxy1);
+        assertSame(proxy1, expectation.claimNext());
+        assertEquals(0, expectation.pending());
+
+        expectation.add(proxy2);
+        assertEquals(1, expectation.pending());
+        assertSame(proxy2, expectation.claimNext());
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GzipHttpResponseTest {
+
+    private final static String CONTENT = "{\"items\":[1,2,3,4,5,6,7,8,9,10]}";
+
+    private byte[] compressed;
+
+    @Before
+    public void setup() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final GZIPOutputStream output = new GZIPOutputStream(bytes);
+        output.write(CONTENT.getBytes());
+        output.close();
+        compressed = bytes.toByteArray();
+    }
+
+    @Test
+    public void testGetContent() {
+        final GzipHttpResponse response = new GzipHttpResponse(200, "application/json", ByteBuffer.wrap(compressed));
+        assertEquals(200, response.getHttpCode());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(CONTENT, new String(response.getContent()));
+        assertEquals("Content can be read multiple times.", CONTENT, new String(response.getContent()));
+    }
+
+    @Test
+    public void testGetCompressedContentBuffer() {
+        final GzipHttpResponse response = new GzipHttpResponse(200, "application/json", ByteBuffer.wrap(compressed));
+        final ByteBuffer buffer = response.getCompressedContentBuffer();
+        assertEquals(compressed.length, buffer.remaining());
+        buffer.position(buffer.limit());
+        assertEquals("Each call returns an independent buffer.", compressed.length,
+            response.getCompressedContentBuffer().remaining());
+        assertTrue(buffer.isReadOnly());
+    }
+
+    @Test
+    public void testNoContent() {
+        final GzipHttpResponse response = new GzipHttpResponse(204, null, null);
+        assertNull(response.getContent());
+        assertNull(response.getCompressedContentBuffer());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInvalidContent() {
+        new GzipHttpResponse(200, null, ByteBuffer.wrap(CONTENT.getBytes())).getContent();
+    }
+
+    @Test
+    public void testEquals() {
+        final GzipHttpResponse response = new GzipHttpResponse(200, "application/json", ByteBuffer.wrap(compressed));
+        final GzipHttpResponse equalResponse =
+            new GzipHttpResponse(200, "application/json", ByteBuffer.wrap(compressed.clone()));
+        assertEquals(response, equalResponse);
+        assertEquals(response.hashCode(), equalResponse.hashCode());
+        assertFalse(response.equals(new GzipHttpResponse(201, "application/json", ByteBuffer.wrap(compressed))));
+        assertFalse(response.equals(null));
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertFalse(GzipHttpResponse.acceptsGzip(new HttpRequestImpl()));
+        assertTrue(GzipHttpResponse.acceptsGzip(new HttpRequestImpl().httpMessageHeader("Accept-Encoding", "gzip")));
+        assertTrue(GzipHttpResponse.acceptsGzip(new HttpRequestImpl().httpMessageHeader("accept-encoding",
+            "deflate, GZIP;q=0.5")));
+        assertTrue(GzipHttpResponse.acceptsGzip(new HttpRequestImpl().httpMessageHeader("Accept-Encoding", "*")));
+        assertFalse(GzipHttpResponse.acceptsGzip(new HttpRequestImpl().httpMessageHeader("Accept-Encoding", "deflate")));
+        assertFalse(GzipHttpResponse.acceptsGzip(new HttpRequestImpl().httpMessageHeader("Accept-Encoding",
+            "gzip;q=0, deflate")));
+        assertFalse(GzipHttpResponse.acceptsGzip(new HttpRequestImpl().httpMessageHeader("Accept-Encoding",
+            "gzip; q=0.0")));
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class HttpMessageCodecTest {
+
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    @Test
+    public void testRequest() throws IOException {
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.PUT).path("/api/\u00e9").queryParameter("a", "1").queryParameter("a", "2")
+            .httpMessageHeader("Content-Type", "application/json").content("{}".getBytes());
+        assertEquals(request, HttpMessageCodec.readRequest(input(request), MAX_BYTES));
+    }
+
+    @Test
+    public void testRequestWithValuesLargerThan64KB() throws IOException {
+        final String large = StringUtils.repeat("\u00e9", 40000);
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.GET).path("/" + large).queryParameter("q", large).httpMessageHeader("X-Large", large);
+        assertEquals(request, HttpMessageCodec.readRequest(input(request), MAX_BYTES));
+    }
+
+    @Test
+    public void testEmptyRequest() throws IOException {
+        final HttpRequestImpl request = new HttpRequestImpl();
+        assertEquals(request, HttpMessageCodec.readRequest(input(request), MAX_BYTES));
+    }
+
+    @Test
+    public void testResponse() throws IOException {
+        final HttpResponseImpl response = new HttpResponseImpl(201, "text/plain", "created".getBytes());
+        assertEquals(response, HttpMessageCodec.readResponse(input(response), MAX_BYTES));
+    }
+
+    @Test
+    public void testEmptyResponse() throws IOException {
+        final HttpResponseImpl response = new HttpResponseImpl(204, null, null);
+        assertEquals(response, HttpMessageCodec.readResponse(input(response), MAX_BYTES));
+    }
+
+    private DataInputStream input(final HttpRequest request) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HttpMessageCodec.write(new DataOutputStream(bytes), request);
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private DataInputStream input(final HttpResponse response) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HttpMessageCodec.write(new DataOutputStream(bytes), response);
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testContentLengthLargerThanInput() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(200);
+        output.writeInt(-1);
+        output.writeInt(Integer.MAX_VALUE);
+        HttpMessageCodec.readResponse(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeContentLength() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(200);
+        output.writeInt(-2);
+        HttpMessageCodec.readResponse(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testHeaderCountLargerThanInput() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(-1);
+        output.writeInt(-1);
+        output.writeInt(Integer.MAX_VALUE);
+        HttpMessageCodec.readRequest(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpRequestFingerprintTest {
+
+    private final static byte[] CONTENT = "content".getBytes();
+    private final static String PATH = "/test/a";
+    private static final String QUERY_PARAM_KEY = "key1";
+    private static final String QUERY_PARAM_VALUE = "value1";
+    private static final String HTTP_MESSAGE_HEADER_NAME = "Content-Type";
+    private static final String HTTP_MESSAGE_HEADER_VALUE = "application/json";
+
+    private HttpRequestImpl httpRequest;
+
+    @Before
+    public void setup() {
+        httpRequest = new HttpRequestImpl();
+        httpRequest.method(Method.POST).path(PATH).content(CONTENT).queryParameter(QUERY_PARAM_KEY, QUERY_PARAM_VALUE)
+            .httpMessageHeader(HTTP_MESSAGE_HEADER_NAME, HTTP_MESSAGE_HEADER_VALUE);
+    }
+
+    @Test
+    public void testEqualsAndHashCodeForCopy() {
+        final HttpRequestFingerprint fingerprint = HttpRequestFingerprint.of(httpRequest);
+        final HttpRequestFingerprint copyFingerprint = HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest));
+
+        assertTrue(fingerprint.equals(fingerprint));
+        assertTrue(fingerprint.equals(copyFingerprint));
+        assertEquals(fingerprint.hashCode(), copyFingerprint.hashCode());
+        assertFalse(fingerprint.equals(null));
+        assertFalse(fingerprint.equals(httpRequest));
+    }
+
+    @Test
+    public void testEqualsFullHttpRequest() {
+        final FullHttpRequestImpl fullRequest = new FullHttpRequestImpl();
+        fullRequest.method(Method.POST).path(PATH).content(CONTENT).queryParameter(QUERY_PARAM_KEY, QUERY_PARAM_VALUE)
+            .httpMessageHeader(HTTP_MESSAGE_HEADER_NAME, HTTP_MESSAGE_HEADER_VALUE).domain("localhost").port(8080);
+
+        assertEquals(HttpRequestFingerprint.of(httpRequest), HttpRequestFingerprint.of(fullRequest));
+    }
+
+    @Test
+    public void testHeaderOrderDoesNotMatter() {
+        final HttpRequestImpl request1 = new HttpRequestImpl();
+        request1.method(Method.GET).path(PATH).httpMessageHeader("a", "1").httpMessageHeader("b", "2");
+        final HttpRequestImpl request2 = new HttpRequestImpl();
+        request2.method(Method.GET).path(PATH).httpMessageHeader("b", "2").httpMessageHeader("a", "1");
+
+        assertEquals(HttpRequestFingerprint.of(request1), HttpRequestFingerprint.of(request2));
+    }
+
+    @Test
+    public void testNotEquals() {
+        final HttpRequestFingerprint fingerprint = HttpRequestFingerprint.of(httpRequest);
+
+        assertFalse(fingerprint.equals(HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest).method(Method.PUT))));
+        assertFalse(fingerprint.equals(HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest).path("/other"))));
+        assertFalse(fingerprint.equals(HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest).content("other"
+            .getBytes()))));
+        assertFalse(fingerprint.equals(HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest).content(null))));
+        assertFalse(fingerprint.equals(HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest).queryParameter(
+            QUERY_PARAM_KEY, "value2"))));
+        assertFalse(fingerprint.equals(HttpRequestFingerprint.of(new HttpRequestImpl(httpRequest)
+            .removeHttpMessageHeaders(HTTP_MESSAGE_HEADER_NAME))));
+    }
+
+}
@@ -197,4 +197,39 @@ public class HttpRequestImplTest {
         assertEquals(copyInitializedRequest, httpRequest);
 
     }
+
+    @Test
+    public void testHashCodeAndEqualsFollowModifications() {
+        httpRequest.method(Method.GET).path(PATH).queryParameter(QUERY_PARAM_KEY, QUERY_PARAM_VALUE)
+            .httpMessageHeader(HTTP_MESSAGE_HEADER_NAME, HTTP_MESSAGE_HEADER_VALUE).content(CONTENT);
+        final HttpRequestImpl copy = new HttpRequestImpl(httpRequest);
+        assertEquals(httpRequest.hashCode(), copy.hashCode());
+        assertEquals(httpRequest, copy);
+
+        copy.path("/other");
+        assertFalse(httpRequest.equals(copy));
+        copy.path(PATH);
+        assertEquals(httpRequest.hashCode(), copy.hashCode());
+        assertEquals(httpRequest, copy);
+
+        copy.queryParameter(QUERY_PARAM_KEY2, QUERY_PARAM_VALUE2);
+        assertFalse(httpRequest.equals(copy));
+        copy.removeQueryParameters(QUERY_PARAM_KEY2);
+        assertEquals(httpRequest, copy);
+
+        copy.httpMessageHeader(HTTP_MESSAGE_HEADER_NAME2, HTTP_MESSAGE_HEADER_VALUE2);
+        assertFalse(httpRequest.equals(copy));
+        copy.removeHttpMessageHeader(HTTP_MESSAGE_HEADER_NAME2, HTTP_MESSAGE_HEADER_VALUE2);
+        assertEquals(httpRequest, copy);
+
+        copy.content("other".getBytes());
+        assertFalse(httpRequest.equals(copy));
+        copy.content(CONTENT);
+        assertEquals(httpRequest.hashCode(), copy.hashCode());
+        assertEquals(httpRequest, copy);
+
+        copy.method(Method.PUT);
+        assertFalse(httpRequest.equals(copy));
+        assertFalse(httpRequest.equals(new FullHttpRequestImpl()));
+    }
 }
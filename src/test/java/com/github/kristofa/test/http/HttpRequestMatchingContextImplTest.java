@@ -0,0 +1,80 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpRequestMatchingContextImplTest {
+
+    private HttpRequest originalRequest;
+    private HttpRequest otherRequest;
+    private HttpResponse response;
+    private HttpResponseProxy responseProxy;
+
+    @Before
+    public void setup() {
+        originalRequest = mock(HttpRequest.class);
+        otherRequest = mock(HttpRequest.class);
+        response = mock(HttpResponse.class);
+        responseProxy = mock(HttpResponseProxy.class);
+        when(responseProxy.getResponse()).thenReturn(response);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullResponse() {
+        new HttpRequestMatchingContextImpl(originalRequest, otherRequest, (HttpResponse)null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullResponseProxy() {
+        new HttpRequestMatchingContextImpl(originalRequest, otherRequest, (HttpResponseProxy)null);
+    }
+
+    @Test
+    public void testGetters() {
+        final HttpRequestMatchingContextImpl context =
+            new HttpRequestMatchingContextImpl(originalRequest, otherRequest, response);
+        assertSame(originalRequest, context.originalRequest());
+        assertSame(otherRequest, context.otherRequest());
+        assertSame(response, context.response());
+        assertFalse(context.hasResponseOf(responseProxy));
+    }
+
+    @Test
+    public void testResponseProxyIsResolvedLazilyAndOnce() {
+        final HttpRequestMatchingContextImpl context =
+            new HttpRequestMatchingContextImpl(originalRequest, otherRequest, responseProxy);
+        verifyZeroInteractions(responseProxy);
+        assertTrue(context.hasResponseOf(responseProxy));
+
+        assertSame(response, context.response());
+        assertSame(response, context.response());
+        verify(responseProxy, times(1)).getResponse();
+    }
+
+    @Test
+    public void testKeepResponseOfContext() {
+        final HttpRequestMatchingContextImpl context =
+            new HttpRequestMatchingContextImpl(originalRequest, otherRequest, responseProxy);
+        final HttpRequest newOtherRequest = mock(HttpRequest.class);
+        final HttpRequestMatchingContextImpl newContext =
+            new HttpRequestMatchingContextImpl(context, originalRequest, newOtherRequest);
+
+        verifyZeroInteractions(responseProxy);
+        assertSame(originalRequest, newContext.originalRequest());
+        assertSame(newOtherRequest, newContext.otherRequest());
+        assertTrue(newContext.hasResponseOf(responseProxy));
+        assertSame(response, newContext.response());
+        assertSame(response, context.response());
+        verify(responseProxy, times(1)).getResponse();
+    }
+
+}
@@ -1,16 +1,19 @@
 package com.github.kristofa.test.http;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
@@ -20,8 +23,19 @@ import org.apache.http.impl.client.DefaultHttpClient;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.mockito.InOrder;
 
+import com.github.kristofa.test.http.archive.ArchiveHttpResponseProvider;
+import com.github.kristofa.test.http.archive.HttpRequestResponseArchiveLoggerFactory;
+import com.github.kristofa.test.http.client.ConnectionPoolConfig;
+import com.github.kristofa.test.http.transport.NioTransport;
+import com.github.kristofa.test.http.transport.SimpleTransport;
+import com.github.kristofa.test.http.transport.Transport;
+
+@RunWith(Parameterized.class)
 public class LoggingHttpProxyTest {
 
     private final static int PROXY_PORT = 51234;
@@ -34,11 +48,22 @@ public class LoggingHttpProxyTest {
     private HttpRequestResponseLoggerFactory mockLoggerFactory;
     private HttpRequestResponseLogger mockLogger;
     private SimpleHttpResponseProvider responseProvider;
+    private final Transport transport;
+    private ForwardHttpRequestBuilder forwardHttpRequestBuilder;
+
+    public LoggingHttpProxyTest(final Transport transport) {
+        this.transport = transport;
+    }
+
+    @Parameters
+    public static Collection<Object[]> transports() {
+        return Arrays.asList(new Object[][] { {new SimpleTransport()}, {new NioTransport()}});
+    }
 
     @Before
     public void setup() throws Exception {
 
-        final ForwardHttpRequestBuilder forwardHttpRequestBuilder = new ForwardHttpRequestBuilder() {
+        forwardHttpRequestBuilder = new ForwardHttpRequestBuilder() {
 
             @Override
             public FullHttpRequest getForwardRequest(final FullHttpRequest request) {
@@ -53,11 +78,12 @@ public class LoggingHttpProxyTest {
         mockLogger = mock(HttpRequestResponseLogger.class);
         when(mockLoggerFactory.getHttpRequestResponseLogger()).thenReturn(mockLogger);
 
-        proxy = new LoggingHttpProxy(PROXY_PORT, Arrays.asList(forwardHttpRequestBuilder), mockLoggerFactory);
+        proxy = new LoggingHttpProxy(PROXY_PORT, Arrays.asList(forwardHttpRequestBuilder), mockLoggerFactory,
+            new ConnectionPoolConfig(), new ServerConfig().transport(transport));
         proxy.start();
 
         responseProvider = new SimpleHttpResponseProvider();
-        server = new MockHttpServer(PORT, responseProvider);
+        server = new MockHttpServer(PORT, responseProvider, new ServerConfig().transport(transport));
         server.start();
 
         client = new DefaultHttpClient();
@@ -123,4 +149,46 @@ public class LoggingHttpProxyTest {
 
     }
 
+    @Test
+    public void testRestartKeepsLoggerFactoryOpen() throws IOException {
+        final File directory = new File("target/LoggingHttpProxyTest");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        final HttpRequestResponseArchiveLoggerFactory loggerFactory =
+            new HttpRequestResponseArchiveLoggerFactory(directory.getPath(), "restart");
+        proxy.stop();
+        proxy = new LoggingHttpProxy(PROXY_PORT, Arrays.asList(forwardHttpRequestBuilder), loggerFactory,
+            new ConnectionPoolConfig(), new ServerConfig().transport(transport));
+        responseProvider.expect(Method.GET, "/").respondWith(200, "text/plain", "OK");
+        responseProvider.expect(Method.GET, "/").respondWith(200, "text/plain", "OK");
+
+        proxy.start();
+        assertEquals(200, get(PROXY_URL + "/"));
+        proxy.stop();
+        proxy.start();
+        assertEquals("Factory should not be closed by stop.", 200, get(PROXY_URL + "/"));
+        proxy.stop();
+        loggerFactory.close();
+        // tearDown stops the proxy.
+        proxy = new LoggingHttpProxy(PROXY_PORT, Arrays.asList(forwardHttpRequestBuilder), mockLoggerFactory,
+            new ConnectionPoolConfig(), new ServerConfig().transport(transport));
+        proxy.start();
+
+        final ArchiveHttpResponseProvider replay = new ArchiveHttpResponseProvider(directory.getPath(), "restart");
+        try {
+            replay.verify();
+            fail("Expected both requests to be recorded.");
+        } catch (final UnsatisfiedExpectationException e) {
+            assertEquals(2, e.getMissingHttpRequests().size());
+        } finally {
+            replay.close();
+        }
+    }
+
+    private int get(final String url) throws IOException {
+        final HttpResponse response = client.execute(new HttpGet(url));
+        IOUtils.toString(response.getEntity().getContent());
+        return response.getStatusLine().getStatusCode();
+    }
+
 }
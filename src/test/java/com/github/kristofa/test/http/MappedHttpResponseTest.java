@@ -0,0 +1,91 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedHttpResponseTest {
+
+    private final static int HTTP_RESPONSE_CODE = 200;
+    private final static String CONTENT_TYPE = "application/json; charset=UTF-8";
+    private final static byte[] CONTENT = new String("content").getBytes();
+
+    private MappedHttpResponse response;
+    private MappedHttpResponse responseNoContentAndType;
+
+    @Before
+    public void setup() {
+        response = new MappedHttpResponse(HTTP_RESPONSE_CODE, CONTENT_TYPE, ByteBuffer.wrap(CONTENT));
+        responseNoContentAndType = new MappedHttpResponse(HTTP_RESPONSE_CODE, null, null);
+    }
+
+    @Test
+    public void testGetContent() {
+        assertArrayEquals(CONTENT, response.getContent());
+        assertNotSame("We expect a copy with each call.", response.getContent(), response.getContent());
+        assertNull(responseNoContentAndType.getContent());
+    }
+
+    @Test
+    public void testGetContentBuffer() {
+        final ByteBuffer buffer = response.getContentBuffer();
+        assertTrue(buffer.isReadOnly());
+        assertEquals(CONTENT.length, buffer.remaining());
+        buffer.get(new byte[CONTENT.length]);
+        assertEquals("Consuming a buffer should not affect other callers.", CONTENT.length, response
+            .getContentBuffer().remaining());
+        assertNull(responseNoContentAndType.getContentBuffer());
+    }
+
+    @Test
+    public void testContentIsRemainingPartOfBuffer() {
+        final ByteBuffer buffer = ByteBuffer.wrap("headercontent".getBytes());
+        buffer.position(6);
+        final MappedHttpResponse slicedResponse = new MappedHttpResponse(HTTP_RESPONSE_CODE, CONTENT_TYPE, buffer);
+        assertArrayEquals(CONTENT, slicedResponse.getContent());
+        assertEquals(response, slicedResponse);
+    }
+
+    @Test
+    public void testHashCodeAndEquals() {
+        final MappedHttpResponse equalResponse =
+            new MappedHttpResponse(HTTP_RESPONSE_CODE, CONTENT_TYPE, ByteBuffer.wrap(CONTENT.clone()));
+        assertEquals(response, equalResponse);
+        assertEquals(response.hashCode(), equalResponse.hashCode());
+        assertFalse(response.equals(responseNoContentAndType));
+        assertFalse(response.equals(new HttpResponseImpl(HTTP_RESPONSE_CODE, CONTENT_TYPE, CONTENT)));
+        assertEquals(responseNoContentAndType, new MappedHttpResponse(HTTP_RESPONSE_CODE, null, null));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("Http code: 200, Content Type: application/json; charset=UTF-8, Content: content", response.toString());
+        assertEquals("Http code: 200, Content Type: null, Content: null", responseNoContentAndType.toString());
+    }
+
+    @Test
+    public void testPreEncode() {
+        final HttpResponse preEncoded =
+            MappedHttpResponse.preEncode(new HttpResponseImpl(HTTP_RESPONSE_CODE, CONTENT_TYPE, CONTENT));
+        assertTrue(preEncoded instanceof MappedHttpResponse);
+        assertEquals(HTTP_RESPONSE_CODE, preEncoded.getHttpCode());
+        assertEquals(CONTENT_TYPE, preEncoded.getContentType());
+        assertArrayEquals(CONTENT, preEncoded.getContent());
+        final ByteBuffer buffer = ((MappedHttpResponse)preEncoded).getContentBuffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(CONTENT.length, buffer.remaining());
+
+        assertNull(MappedHttpResponse.preEncode(new HttpResponseImpl(HTTP_RESPONSE_CODE, null, null)).getContent());
+        assertSame("Already buffer backed.", response, MappedHttpResponse.preEncode(response));
+    }
+
+}
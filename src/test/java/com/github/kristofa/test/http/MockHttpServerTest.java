@@ -7,12 +7,32 @@
  */
 package com.github.kristofa.test.http;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
@@ -25,44 +45,49 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicResponseHandler;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.junit.After;
-import org.junit.AfterClass;
 import org.junit.Before;
-import org.junit.BeforeClass;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import com.github.kristofa.test.http.transport.NioTransport;
+import com.github.kristofa.test.http.transport.SimpleTransport;
+import com.github.kristofa.test.http.transport.Transport;
+
+@RunWith(Parameterized.class)
 public class MockHttpServerTest {
 
     private static final String UTF_8 = "UTF-8";
-    private static MockHttpServer server;
-    private static SimpleHttpResponseProvider responseProvider;
+    private final Transport transport;
+    private MockHttpServer server;
+    private SimpleHttpResponseProvider responseProvider;
     private HttpClient client;
-    private static String baseUrl;
-    
+    private String baseUrl;
 
-    @BeforeClass
-    public static void setUpBeforeClass() throws Exception {
-        responseProvider = new SimpleHttpResponseProvider();
-        server = new MockHttpServer(0, responseProvider);
-        final int port = server.start();
-        assertTrue(port != -1);
-        baseUrl = "http://localhost:" + server.getPort();
+    public MockHttpServerTest(final Transport transport) {
+        this.transport = transport;
     }
 
-    @AfterClass
-    public static void tearDownAfterClass() throws Exception {
-
-        server.stop();
+    @Parameters
+    public static Collection<Object[]> transports() {
+        return Arrays.asList(new Object[][] { {new SimpleTransport()}, {new NioTransport()}});
     }
 
     @Before
     public void setUp() throws Exception {
+        responseProvider = new SimpleHttpResponseProvider();
+        server = new MockHttpServer(0, responseProvider, new ServerConfig().transport(transport));
+        final int port = server.start();
+        assertTrue(port != -1);
+        baseUrl = "http://localhost:" + server.getPort();
         client = new DefaultHttpClient();
-        responseProvider.reset();
     }
 
     @After
-    public void tearDown() {
+    public void tearDown() throws Exception {
         client.getConnectionManager().shutdown();
+        server.stop();
     }
 
     @Test
@@ -294,8 +319,8 @@ public class MockHttpServerTest {
     
     @Test
     public void testStartMultipleServers() throws IOException {
-    	MockHttpServer server2 = new MockHttpServer(0, responseProvider);
-    	MockHttpServer server3 = new MockHttpServer(0, responseProvider);
+    	MockHttpServer server2 = new MockHttpServer(0, responseProvider, new ServerConfig().transport(transport));
+    	MockHttpServer server3 = new MockHttpServer(0, responseProvider, new ServerConfig().transport(transport));
     	
     	final int server2Port = server2.start();
     	try
@@ -318,4 +343,233 @@ public class MockHttpServerTest {
     	}
     }
 
+    @Test
+    public void testShouldHandleRequestsOnExecutor() throws IOException {
+        final MockHttpServer executorServer = new MockHttpServer(0, responseProvider,
+            new ServerConfig().transport(transport).workerThreads(2).executor(ServerConfig.ExecutorType.FIXED)
+                .executorThreads(2));
+        final int executorServerPort = executorServer.start();
+        try {
+            responseProvider.expect(Method.GET, "/").respondWith(200, "text/plain", "OK");
+
+            final HttpGet req = new HttpGet("http://localhost:" + executorServerPort + "/");
+            final HttpResponse response = client.execute(req);
+
+            assertEquals("OK", IOUtils.toString(response.getEntity().getContent()));
+            assertEquals(200, response.getStatusLine().getStatusCode());
+        } finally {
+            executorServer.stop();
+        }
+    }
+
+    @Test
+    public void testShouldHandleLargeEntities() throws IOException {
+        final String entity = StringUtils.repeat("0123456789", 10000);
+        responseProvider.expect(Method.POST, "/large", "text/plain; charset=UTF-8", entity).respondWith(200, "text/plain",
+            entity);
+
+        final HttpPost req = new HttpPost(baseUrl + "/large");
+        req.setEntity(new StringEntity(entity, UTF_8));
+        final HttpResponse response = client.execute(req);
+
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals(entity, IOUtils.toString(response.getEntity().getContent()));
+    }
+
+    @Test
+    public void testShouldDelayResponse() throws IOException {
+        responseProvider.expect(Method.GET, "/slow").respondWith(200, "text/plain", "OK", ResponseDelay.fixed(200));
+
+        final long start = System.currentTimeMillis();
+        final HttpResponse response = client.execute(new HttpGet(baseUrl + "/slow"));
+
+        assertEquals("OK", IOUtils.toString(response.getEntity().getContent()));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+
+    @Test
+    public void testDelayedResponsesDontOccupyWorkerThreads() throws Exception {
+        final int requests = 20;
+        final MockHttpServer singleThreadServer =
+            new MockHttpServer(0, responseProvider, new ServerConfig().transport(transport).workerThreads(1));
+        final int singleThreadServerPort = singleThreadServer.start();
+        final ExecutorService clients = Executors.newFixedThreadPool(requests);
+        try {
+            for (int i = 0; i < requests; i++) {
+                responseProvider.expect(Method.GET, "/slow").respondWith(200, "text/plain", "OK",
+                    ResponseDelay.fixed(500));
+            }
+            final List<Future<String>> responses = new ArrayList<Future<String>>();
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < requests; i++) {
+                responses.add(clients.submit(new Callable<String>() {
+
+                    @Override
+                    public String call() throws Exception {
+                        final URLConnection connection =
+                            new URL("http://localhost:" + singleThreadServerPort + "/slow").openConnection();
+                        final InputStream content = connection.getInputStream();
+                        try {
+                            return IOUtils.toString(content);
+                        } finally {
+                            content.close();
+                        }
+                    }
+                }));
+            }
+            for (final Future<String> response : responses) {
+                assertEquals("OK", response.get());
+            }
+            // Sequential handling would take requests * 500 ms.
+            assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            clients.shutdown();
+            singleThreadServer.stop();
+        }
+    }
+
+    @Test
+    public void testShouldThrottleResponse() throws IOException {
+        final String entity = StringUtils.repeat("a", 4096);
+        responseProvider.expect(Method.GET, "/throttled").respondWith(200, "text/plain", entity, ResponseDelay.NONE,
+            new ResponseThrottle().bytesPerSecond(8192).chunkSize(1024));
+
+        final long start = System.currentTimeMillis();
+        final HttpResponse response = client.execute(new HttpGet(baseUrl + "/throttled"));
+
+        assertEquals(entity, IOUtils.toString(response.getEntity().getContent()));
+        assertEquals("4096", response.getFirstHeader("Content-Length").getValue());
+        // First chunk is sent at once, the remaining 3072 bytes take 375 ms.
+        assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+
+    @Test
+    public void testShouldTrickleChunkedResponse() throws IOException {
+        final String entity = StringUtils.repeat("0123456789", 50);
+        server.setResponseThrottle(new ResponseThrottle().chunkSize(100).chunkGapMillis(30).chunked(true));
+        responseProvider.expect(Method.GET, "/chunked").respondWith(200, "text/plain", entity);
+
+        final long start = System.currentTimeMillis();
+        final HttpResponse response = client.execute(new HttpGet(baseUrl + "/chunked"));
+
+        assertEquals(entity, IOUtils.toString(response.getEntity().getContent()));
+        assertEquals("chunked", response.getFirstHeader("Transfer-Encoding").getValue());
+        assertTrue(System.currentTimeMillis() - start >= 4 * 30);
+    }
+
+    @Test
+    public void testThrottledResponsesDontOccupyWorkerThreads() throws Exception {
+        final int requests = 50;
+        final String entity = StringUtils.repeat("a", 2000);
+        final MockHttpServer singleThreadServer =
+            new MockHttpServer(0, responseProvider, new ServerConfig().transport(transport).workerThreads(1));
+        singleThreadServer.setResponseThrottle(new ResponseThrottle().bytesPerSecond(4000).chunkSize(500));
+        final int singleThreadServerPort = singleThreadServer.start();
+        final ExecutorService clients = Executors.newFixedThreadPool(requests);
+        try {
+            for (int i = 0; i < requests; i++) {
+                responseProvider.expect(Method.GET, "/throttled").respondWith(200, "text/plain", entity);
+            }
+            final List<Future<String>> responses = new ArrayList<Future<String>>();
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < requests; i++) {
+                responses.add(clients.submit(new Callable<String>() {
+
+                    @Override
+                    public String call() throws Exception {
+                        final URLConnection connection =
+                            new URL("http://localhost:" + singleThreadServerPort + "/throttled").openConnection();
+                        final InputStream content = connection.getInputStream();
+                        try {
+                            return IOUtils.toString(content);
+                        } finally {
+                            content.close();
+                        }
+                    }
+                }));
+            }
+            for (final Future<String> response : responses) {
+                assertEquals(entity, response.get());
+            }
+            // Sequential handling would take requests * 375 ms.
+            assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            clients.shutdown();
+            singleThreadServer.stop();
+        }
+    }
+
+    @Test
+    public void testClientThatDoesNotReadDoesNotStallOtherResponses() throws Exception {
+        // Larger than the socket buffers so writing the throttled response blocks.
+        final String largeEntity = StringUtils.repeat("a", 16 * 1024 * 1024);
+        responseProvider.expect(Method.GET, "/large").respondWith(200, "text/plain", largeEntity, ResponseDelay.NONE,
+            new ResponseThrottle().chunkSize(64 * 1024).chunkGapMillis(1));
+        responseProvider.expect(Method.GET, "/slow").respondWith(200, "text/plain", "OK", ResponseDelay.fixed(100));
+        responseProvider.expect(Method.GET, "/throttled").respondWith(200, "text/plain", "0123456789",
+            ResponseDelay.NONE, new ResponseThrottle().chunkSize(2).chunkGapMillis(10));
+
+        final Socket stalledClient = new Socket();
+        try {
+            stalledClient.setReceiveBufferSize(1024);
+            stalledClient.connect(new InetSocketAddress("localhost", server.getPort()));
+            final OutputStream request = stalledClient.getOutputStream();
+            request.write("GET /large HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(UTF_8));
+            request.flush();
+            // Give the server time to fill the socket buffers.
+            Thread.sleep(500);
+
+            final long start = System.currentTimeMillis();
+            assertEquals("OK", get("/slow"));
+            assertEquals("0123456789", get("/throttled"));
+            assertTrue(System.currentTimeMillis() - start < 3000);
+        } finally {
+            stalledClient.close();
+        }
+    }
+
+    @Test
+    public void testGzipResponseVariesOnAcceptEncoding() throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write("OK".getBytes(UTF_8));
+        gzip.close();
+        final DefaultHttpResponseProvider gzipResponseProvider = new DefaultHttpResponseProvider(true);
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.GET).path("/gzip");
+        for (int i = 0; i < 2; i++) {
+            gzipResponseProvider.set(request,
+                new GzipHttpResponse(200, "text/plain", ByteBuffer.wrap(compressed.toByteArray())));
+        }
+        final MockHttpServer gzipServer =
+            new MockHttpServer(0, gzipResponseProvider, new ServerConfig().transport(transport));
+        final String gzipUrl = "http://localhost:" + gzipServer.start() + "/gzip";
+        try {
+            final HttpGet compressedRequest = new HttpGet(gzipUrl);
+            compressedRequest.setHeader("Accept-Encoding", "gzip");
+            final HttpResponse compressedResponse = client.execute(compressedRequest);
+            assertArrayEquals(compressed.toByteArray(), IOUtils.toByteArray(compressedResponse.getEntity().getContent()));
+            assertEquals("gzip", compressedResponse.getFirstHeader("Content-Encoding").getValue());
+            assertEquals("Accept-Encoding", compressedResponse.getFirstHeader("Vary").getValue());
+
+            final HttpResponse plainResponse = client.execute(new HttpGet(gzipUrl));
+            assertEquals("OK", IOUtils.toString(plainResponse.getEntity().getContent()));
+            assertNull(plainResponse.getFirstHeader("Content-Encoding"));
+            assertEquals("Accept-Encoding", plainResponse.getFirstHeader("Vary").getValue());
+        } finally {
+            gzipServer.stop();
+        }
+    }
+
+    private String get(final String path) throws IOException {
+        final URLConnection connection = new URL(baseUrl + path).openConnection();
+        connection.setReadTimeout(5000);
+        final InputStream content = connection.getInputStream();
+        try {
+            return IOUtils.toString(content);
+        } finally {
+            content.close();
+        }
+    }
+
 }
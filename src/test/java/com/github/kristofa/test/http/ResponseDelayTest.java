@@ -0,0 +1,100 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ResponseDelayTest {
+
+    private static final int SAMPLES = 10000;
+
+    @Test
+    public void testFixed() {
+        assertEquals(150, ResponseDelay.fixed(150).nextDelayMillis());
+        assertEquals(0, ResponseDelay.NONE.nextDelayMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFixedNegative() {
+        ResponseDelay.fixed(-1);
+    }
+
+    @Test
+    public void testUniform() {
+        final ResponseDelay delay = ResponseDelay.uniform(10, 20);
+        boolean gotMin = false;
+        boolean gotMax = false;
+        for (int i = 0; i < SAMPLES; i++) {
+            final long millis = delay.nextDelayMillis();
+            assertTrue(millis >= 10 && millis <= 20);
+            gotMin |= millis == 10;
+            gotMax |= millis == 20;
+        }
+        assertTrue(gotMin);
+        assertTrue(gotMax);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUniformMaxSmallerThanMin() {
+        ResponseDelay.uniform(20, 10);
+    }
+
+    @Test
+    public void testNormal() {
+        final ResponseDelay delay = ResponseDelay.normal(100, 10);
+        long sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            final long millis = delay.nextDelayMillis();
+            assertTrue(millis >= 0);
+            sum += millis;
+        }
+        final double mean = (double)sum / SAMPLES;
+        assertTrue(mean > 98 && mean < 102);
+    }
+
+    @Test
+    public void testNormalIsNeverNegative() {
+        final ResponseDelay delay = ResponseDelay.normal(0, 100);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(delay.nextDelayMillis() >= 0);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        final ResponseDelay delay = ResponseDelay.percentiles(new double[] {50, 90, 100}, new long[] {10, 50, 200});
+        int belowMedian = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            final long millis = delay.nextDelayMillis();
+            assertTrue(millis >= 10 && millis <= 200);
+            if (millis <= 10) {
+                belowMedian++;
+            }
+        }
+        assertTrue(belowMedian > SAMPLES * 0.45 && belowMedian < SAMPLES * 0.55);
+    }
+
+    @Test
+    public void testInterpolate() {
+        final double[] percentiles = {50, 90, 100};
+        final long[] millis = {10, 50, 200};
+        assertEquals(10, ResponseDelay.interpolate(percentiles, millis, 0));
+        assertEquals(10, ResponseDelay.interpolate(percentiles, millis, 50));
+        assertEquals(30, ResponseDelay.interpolate(percentiles, millis, 70));
+        assertEquals(50, ResponseDelay.interpolate(percentiles, millis, 90));
+        assertEquals(125, ResponseDelay.interpolate(percentiles, millis, 95));
+        assertEquals(200, ResponseDelay.interpolate(percentiles, millis, 100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentilesNotAscending() {
+        ResponseDelay.percentiles(new double[] {90, 50}, new long[] {10, 50});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentilesDifferentLength() {
+        ResponseDelay.percentiles(new double[] {50, 90}, new long[] {10});
+    }
+
+}
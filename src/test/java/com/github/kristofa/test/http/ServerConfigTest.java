@@ -0,0 +1,95 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.github.kristofa.test.http.ServerConfig.ExecutorType;
+
+public class ServerConfigTest {
+
+    @Test
+    public void testDefaults() {
+        final ServerConfig config = new ServerConfig();
+        assertEquals(8, config.getWorkerThreads());
+        assertEquals(ExecutorType.SIMPLE, config.getExecutorType());
+        assertEquals(Runtime.getRuntime().availableProcessors(), config.getExecutorThreads());
+        assertEquals(1024, config.getQueueCapacity());
+    }
+
+    @Test
+    public void testSetters() {
+        final ServerConfig config =
+            new ServerConfig().workerThreads(2).executor(ExecutorType.FIXED).executorThreads(4).queueCapacity(16);
+        assertEquals(2, config.getWorkerThreads());
+        assertEquals(ExecutorType.FIXED, config.getExecutorType());
+        assertEquals(4, config.getExecutorThreads());
+        assertEquals(16, config.getQueueCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWorkerThreads() {
+        new ServerConfig().workerThreads(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullExecutor() {
+        new ServerConfig().executor(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidExecutorThreads() {
+        new ServerConfig().executorThreads(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQueueCapacity() {
+        new ServerConfig().queueCapacity(0);
+    }
+
+    @Test
+    public void testNewExecutorSimple() {
+        assertTrue(ExecutorType.SIMPLE.isSupported());
+        assertNull(new ServerConfig().newExecutor("test"));
+    }
+
+    @Test
+    public void testNewExecutorFixed() throws Exception {
+        assertExecutes(new ServerConfig().executor(ExecutorType.FIXED).executorThreads(2).newExecutor("test"));
+    }
+
+    @Test
+    public void testNewExecutorWorkStealing() throws Exception {
+        Assume.assumeTrue(ExecutorType.WORK_STEALING.isSupported());
+        assertExecutes(new ServerConfig().executor(ExecutorType.WORK_STEALING).newExecutor("test"));
+    }
+
+    @Test
+    public void testNewExecutorVirtual() throws Exception {
+        Assume.assumeTrue(ExecutorType.VIRTUAL.isSupported());
+        assertExecutes(new ServerConfig().executor(ExecutorType.VIRTUAL).newExecutor("test"));
+    }
+
+    private void assertExecutes(final ExecutorService executor) throws Exception {
+        assertNotNull(executor);
+        try {
+            assertEquals("done", executor.submit(new Callable<String>() {
+
+                @Override
+                public String call() {
+                    return "done";
+                }
+            }).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Collection;
@@ -137,4 +138,15 @@ public class SimpleHttpResponseProviderTest {
         }
     }
 
+    @Test
+    public void testPreEncodeResponses() {
+        responseProvider.preEncodeResponses(true).expect(Method.GET, PATH).respondWith(HTTP_CODE, CONTENT_TYPE, DATA);
+
+        final HttpResponse response = responseProvider.getResponse(new HttpRequestImpl().method(Method.GET).path(PATH));
+        assertTrue(response instanceof MappedHttpResponse);
+        assertEquals(HTTP_CODE, response.getHttpCode());
+        assertEquals(CONTENT_TYPE, response.getContentType());
+        assertArrayEquals(DATA.getBytes(), response.getContent());
+    }
+
 }
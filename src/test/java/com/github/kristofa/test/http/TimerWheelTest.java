@@ -0,0 +1,134 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+    private ExecutorService executor;
+    private TimerWheel timer;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        // Small wheel so delays span multiple revolutions.
+        timer = new TimerWheel("TimerWheelTest", executor, 1, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRunsTaskOnExecutor() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        timer.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse("TimerWheelTest".equals(threads.get(0)));
+    }
+
+    @Test
+    public void testRunsTaskAfterDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        timer.schedule(countDown(latch), 50, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testRunsTasksInOrderOfDeadline() throws InterruptedException {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(3);
+        timer.schedule(record(order, 3, latch), 60, TimeUnit.MILLISECONDS);
+        timer.schedule(record(order, 1, latch), 0, TimeUnit.MILLISECONDS);
+        timer.schedule(record(order, 2, latch), 25, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, order.size());
+        assertEquals(Integer.valueOf(1), order.get(0));
+        assertEquals(Integer.valueOf(2), order.get(1));
+        assertEquals(Integer.valueOf(3), order.get(2));
+    }
+
+    @Test
+    public void testRunsManyTasks() throws InterruptedException {
+        final int tasks = 10000;
+        final CountDownLatch latch = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            timer.schedule(countDown(latch), i % 100, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testResumesAfterIdle() throws InterruptedException {
+        final CountDownLatch first = new CountDownLatch(1);
+        timer.schedule(countDown(first), 1, TimeUnit.MILLISECONDS);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        final CountDownLatch second = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        timer.schedule(countDown(second), 20, TimeUnit.MILLISECONDS);
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void testStopDropsPendingTasks() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(countDown(latch), 200, TimeUnit.MILLISECONDS);
+        timer.stop();
+        assertFalse(latch.await(400, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleAfterStop() {
+        timer.stop();
+        timer.schedule(countDown(new CountDownLatch(1)), 1, TimeUnit.MILLISECONDS);
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    private static Runnable record(final List<Integer> order, final int value, final CountDownLatch latch) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                order.add(value);
+                latch.countDown();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.kristofa.test.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testStartsFull() {
+        final TokenBucket bucket = new TokenBucket(1000, 100);
+        final long now = System.nanoTime();
+        assertEquals(0, bucket.take(100, now));
+    }
+
+    @Test
+    public void testWaitForDeficit() {
+        final TokenBucket bucket = new TokenBucket(1000, 100);
+        final long now = System.nanoTime();
+        assertEquals(0, bucket.take(100, now));
+        assertEquals(SECOND / 10, bucket.take(100, now), 1000);
+        // Deficit of previous take is refilled, next take has to wait again.
+        assertEquals(SECOND / 10, bucket.take(100, now + SECOND / 10), 1000);
+    }
+
+    @Test
+    public void testRefillIsLimitedByCapacity() {
+        final TokenBucket bucket = new TokenBucket(1000, 100);
+        final long now = System.nanoTime();
+        assertEquals(0, bucket.take(100, now));
+        assertEquals(0, bucket.take(100, now + 10 * SECOND));
+        assertEquals(SECOND / 20, bucket.take(50, now + 10 * SECOND), 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new TokenBucket(0, 100);
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.github.kristofa.test.http.archive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.kristofa.test.http.HttpRequestImpl;
+import com.github.kristofa.test.http.HttpRequestResponseLogger;
+import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.MappedHttpResponse;
+import com.github.kristofa.test.http.Method;
+
+public class ArchiveHttpResponseProviderTest {
+
+    private final static String DIRECTORY = "target/";
+    private final static String FILE_NAME = "archiveProviderTest";
+
+    private HttpRequestImpl request1;
+    private HttpRequestImpl request2;
+    private HttpResponseImpl response1;
+    private HttpResponseImpl response2;
+    private HttpResponseImpl response3;
+    private File indexFile;
+
+    @Before
+    public void setup() throws IOException {
+        new File(DIRECTORY, FILE_NAME + ArchiveFormat.ARCHIVE_EXTENSION).delete();
+        indexFile = new File(DIRECTORY, FILE_NAME + ArchiveFormat.INDEX_EXTENSION);
+        indexFile.delete();
+
+        request1 = new HttpRequestImpl();
+        request1.method(Method.POST).path("/customers").httpMessageHeader("Content-Type", "application/json")
+            .content("{}".getBytes());
+        request2 = new HttpRequestImpl();
+        request2.method(Method.GET).path("/customers").queryParameter("id", "5");
+        response1 = new HttpResponseImpl(201, "application/json", "{\"id\":5}".getBytes());
+        response2 = new HttpResponseImpl(200, "application/json", "{\"name\":\"a\"}".getBytes());
+        response3 = new HttpResponseImpl(404, null, null);
+    }
+
+    @Test
+    public void testGetResponse() throws IOException {
+        record(true);
+
+        final ArchiveHttpResponseProvider provider = new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME);
+        try {
+            assertResponse(response1, provider.getResponse(request1));
+            assertResponse(response2, provider.getResponse(request2));
+            // Same request recorded twice with different response.
+            assertResponse(response3, provider.getResponse(request2));
+            assertNull(provider.getResponse(request2));
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void testGetResponseAfterClose() throws IOException {
+        record(true);
+
+        final ArchiveHttpResponseProvider provider = new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME);
+        assertResponse(response1, provider.getResponse(request1));
+        provider.close();
+        assertResponse(response2, provider.getResponse(request2));
+        provider.close();
+    }
+
+    @Test
+    public void testRecoverUnindexedRecords() throws IOException {
+        // Index entries are not flushed.
+        record(false);
+        assertEquals("Only header in index file.", ArchiveFormat.FILE_HEADER_SIZE, indexFile.length());
+
+        final ArchiveHttpResponseProvider provider = new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME);
+        try {
+            assertResponse(response1, provider.getResponse(request1));
+            assertResponse(response2, provider.getResponse(request2));
+            assertResponse(response3, provider.getResponse(request2));
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void testMissingIndexFile() throws IOException {
+        record(true);
+        indexFile.delete();
+
+        final ArchiveHttpResponseProvider provider = new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME);
+        try {
+            assertResponse(response1, provider.getResponse(request1));
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void testIncompleteRecordIgnored() throws IOException {
+        record(true);
+        // Simulates a record that was only partially written.
+        final FileOutputStream output =
+            new FileOutputStream(new File(DIRECTORY, FILE_NAME + ArchiveFormat.ARCHIVE_EXTENSION), true);
+        try {
+            output.write(new byte[] {ArchiveFormat.REQUEST, 0, 0, 0, 4, 0, 0, 1, 0, 1, 2});
+        } finally {
+            output.close();
+        }
+
+        final ArchiveHttpResponseProvider provider = new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME);
+        try {
+            assertResponse(response1, provider.getResponse(request1));
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoArchive() {
+        new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME).getResponse(request1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRequestWithoutResponse() throws IOException {
+        final HttpRequestResponseArchiveLoggerFactory factory =
+            new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        factory.getHttpRequestResponseLogger().log(request1);
+        factory.close();
+
+        new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME).getResponse(request1);
+    }
+
+    @Test
+    public void testResponseIsMapped() throws IOException {
+        record(true);
+
+        final ArchiveHttpResponseProvider provider = new ArchiveHttpResponseProvider(DIRECTORY, FILE_NAME);
+        try {
+            final HttpResponse response = provider.getResponse(request1);
+            assertTrue(response instanceof MappedHttpResponse);
+            final ByteBuffer content = ((MappedHttpResponse)response).getContentBuffer();
+            assertTrue(content.isReadOnly());
+            assertEquals(response1.getContent().length, content.remaining());
+        } finally {
+            provider.close();
+        }
+    }
+
+    private void assertResponse(final HttpResponse expected, final HttpResponse actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getHttpCode(), actual.getHttpCode());
+        assertEquals(expected.getContentType(), actual.getContentType());
+        assertArrayEquals(expected.getContent(), actual.getContent());
+    }
+
+    private void record(final boolean close) throws IOException {
+        final HttpRequestResponseArchiveLoggerFactory factory =
+            new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        log(factory.getHttpRequestResponseLogger(), request1, response1);
+        log(factory.getHttpRequestResponseLogger(), request2, response2);
+        log(factory.getHttpRequestResponseLogger(), request2, response3);
+        if (close) {
+            factory.close();
+        }
+    }
+
+    private void log(final HttpRequestResponseLogger logger, final HttpRequestImpl request, final HttpResponseImpl response) {
+        logger.log(request);
+        logger.log(response);
+    }
+
+}
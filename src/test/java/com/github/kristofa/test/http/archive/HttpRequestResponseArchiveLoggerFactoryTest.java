@@ -0,0 +1,127 @@
+package com.github.kristofa.test.http.archive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.kristofa.test.http.HttpRequestImpl;
+import com.github.kristofa.test.http.HttpRequestResponseLogger;
+import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.Method;
+
+public class HttpRequestResponseArchiveLoggerFactoryTest {
+
+    private final static String DIRECTORY = "target/";
+    private final static String FILE_NAME = "archiveLoggerFactoryTest";
+
+    private File archiveFile;
+    private File indexFile;
+
+    @Before
+    public void setup() {
+        archiveFile = new File(DIRECTORY, FILE_NAME + ArchiveFormat.ARCHIVE_EXTENSION);
+        indexFile = new File(DIRECTORY, FILE_NAME + ArchiveFormat.INDEX_EXTENSION);
+        archiveFile.delete();
+        indexFile.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlankDirectory() {
+        new HttpRequestResponseArchiveLoggerFactory(" ", FILE_NAME);
+    }
+
+    @Test
+    public void testGetHttpRequestResponseLogger() throws IOException {
+        final HttpRequestResponseArchiveLoggerFactory factory =
+            new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        assertFalse("Files should only be created when needed.", archiveFile.exists());
+
+        final HttpRequestResponseLogger logger = factory.getHttpRequestResponseLogger();
+        assertTrue(logger instanceof HttpRequestResponseArchiveLogger);
+        assertEquals("Seqnr starts at 1.", 1, ((HttpRequestResponseArchiveLogger)logger).getSeqNr());
+        final HttpRequestResponseLogger logger2 = factory.getHttpRequestResponseLogger();
+        assertEquals("We expect seqnr to increment by 1.", 2, ((HttpRequestResponseArchiveLogger)logger2).getSeqNr());
+        factory.close();
+
+        assertTrue(archiveFile.exists());
+        assertTrue(indexFile.exists());
+    }
+
+    @Test
+    public void testLogWritesSingleArchive() throws IOException {
+        final HttpRequestResponseArchiveLoggerFactory factory =
+            new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        final HttpRequestResponseLogger logger = factory.getHttpRequestResponseLogger();
+        final HttpRequestResponseLogger logger2 = factory.getHttpRequestResponseLogger();
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.PUT).path("/a/b").queryParameter("q", "1").httpMessageHeader("Content-Type", "text/plain")
+            .content("request".getBytes());
+        final HttpResponseImpl response = new HttpResponseImpl(201, "text/plain", "response".getBytes());
+        final HttpResponseImpl response2 = new HttpResponseImpl(204, null, null);
+
+        // Logging of requests/responses can be interleaved.
+        logger.log(request);
+        logger2.log(request);
+        logger2.log(response2);
+        logger.log(response);
+        factory.flush();
+
+        final ArchiveReader reader = new ArchiveReader(archiveFile, indexFile);
+        try {
+            final List<ArchiveReader.Entry> entries = reader.entries();
+            assertEquals(4, entries.size());
+            assertEntry(entries.get(0), ArchiveFormat.REQUEST, 1);
+            assertEntry(entries.get(1), ArchiveFormat.REQUEST, 2);
+            assertEntry(entries.get(2), ArchiveFormat.RESPONSE, 2);
+            assertEntry(entries.get(3), ArchiveFormat.RESPONSE, 1);
+            assertEquals(request, ArchiveFormat.decodeRequest(reader.read(entries.get(1))));
+            assertEquals(response2, ArchiveFormat.decodeResponse(reader.read(entries.get(2))));
+            assertEquals(response, ArchiveFormat.decodeResponse(reader.read(entries.get(3))));
+        } finally {
+            reader.close();
+            factory.close();
+        }
+    }
+
+    @Test
+    public void testExistingArchiveIsOverwritten() throws IOException {
+        HttpRequestResponseArchiveLoggerFactory factory = new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        factory.getHttpRequestResponseLogger().log(new HttpRequestImpl().method(Method.GET).path("/1"));
+        factory.getHttpRequestResponseLogger().log(new HttpRequestImpl().method(Method.GET).path("/2"));
+        factory.close();
+
+        factory = new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        factory.getHttpRequestResponseLogger().log(new HttpRequestImpl().method(Method.GET).path("/3"));
+        factory.close();
+
+        final ArchiveReader reader = new ArchiveReader(archiveFile, indexFile);
+        try {
+            final List<ArchiveReader.Entry> entries = reader.entries();
+            assertEquals(1, entries.size());
+            assertEquals("/3", ArchiveFormat.decodeRequest(reader.read(entries.get(0))).getPath());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetLoggerAfterClose() throws IOException {
+        final HttpRequestResponseArchiveLoggerFactory factory =
+            new HttpRequestResponseArchiveLoggerFactory(DIRECTORY, FILE_NAME);
+        factory.close();
+        factory.getHttpRequestResponseLogger();
+    }
+
+    private void assertEntry(final ArchiveReader.Entry entry, final byte type, final int seqNr) {
+        assertEquals(type, entry.getType());
+        assertEquals(seqNr, entry.getSeqNr());
+    }
+
+}
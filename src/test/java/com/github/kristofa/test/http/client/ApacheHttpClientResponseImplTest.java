@@ -5,8 +5,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionManager;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -125,4 +132,25 @@ public class ApacheHttpClientResponseImplTest {
 
     }
 
+    @Test
+    public void testCloseShutsDownConnectionManager() {
+        final ClientConnectionManager mockConnectionManager = mock(ClientConnectionManager.class);
+        when(mockClient.getConnectionManager()).thenReturn(mockConnectionManager);
+        final ApacheHttpClientResponseImpl<InputStream> response =
+            new ApacheHttpClientResponseImpl<InputStream>(HTTP_RESPONSE_CODE, mockClient);
+        response.close();
+        verify(mockConnectionManager).shutdown();
+    }
+
+    @Test
+    public void testClosePooledReleasesEntity() throws IOException {
+        final InputStream mockInputStream = mock(InputStream.class);
+        final ApacheHttpClientResponseImpl<InputStream> response =
+            new ApacheHttpClientResponseImpl<InputStream>(HTTP_RESPONSE_CODE, mockClient, false);
+        response.setResponseEntity(mockInputStream);
+        response.close();
+        verify(mockInputStream).close();
+        verify(mockClient, never()).getConnectionManager();
+    }
+
 }
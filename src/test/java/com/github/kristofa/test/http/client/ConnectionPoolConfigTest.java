@@ -0,0 +1,54 @@
+package com.github.kristofa.test.http.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.http.HttpHost;
+import org.junit.Test;
+
+public class ConnectionPoolConfigTest {
+
+    @Test
+    public void testDefaults() {
+        final ConnectionPoolConfig config = new ConnectionPoolConfig();
+        assertEquals(100, config.getMaxTotal());
+        assertEquals(20, config.getMaxPerRoute());
+        assertEquals(30000, config.getIdleTimeoutMillis());
+        assertTrue(config.getMaxPerRouteOverrides().isEmpty());
+    }
+
+    @Test
+    public void testSetters() {
+        final ConnectionPoolConfig config =
+            new ConnectionPoolConfig().maxTotal(10).maxPerRoute(5).maxPerRoute("localhost", 8080, 2).idleTimeout(1000);
+        assertEquals(10, config.getMaxTotal());
+        assertEquals(5, config.getMaxPerRoute());
+        assertEquals(1000, config.getIdleTimeoutMillis());
+        final Map<HttpHost, Integer> overrides = config.getMaxPerRouteOverrides();
+        assertEquals(1, overrides.size());
+        assertEquals(Integer.valueOf(2), overrides.get(new HttpHost("localhost", 8080)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxTotal() {
+        new ConnectionPoolConfig().maxTotal(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxPerRoute() {
+        new ConnectionPoolConfig().maxPerRoute(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRouteHost() {
+        new ConnectionPoolConfig().maxPerRoute(" ", 8080, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIdleTimeout() {
+        new ConnectionPoolConfig().idleTimeout(0);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.github.kristofa.test.http.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpClientConnectionPoolTest {
+
+    private HttpClientConnectionPool pool;
+
+    @Before
+    public void setUp() {
+        pool =
+            new HttpClientConnectionPool(new ConnectionPoolConfig().maxTotal(10).maxPerRoute(5)
+                .maxPerRoute("localhost", 8080, 2).idleTimeout(1000));
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullConfig() {
+        new HttpClientConnectionPool(null);
+    }
+
+    @Test
+    public void testLimits() {
+        final PoolingClientConnectionManager connectionManager = pool.getConnectionManager();
+        assertEquals(10, connectionManager.getMaxTotal());
+        assertEquals(5, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(2, connectionManager.getMaxPerRoute(new HttpRoute(new HttpHost("localhost", 8080))));
+        assertEquals(5, connectionManager.getMaxPerRoute(new HttpRoute(new HttpHost("localhost", 8081))));
+    }
+
+    @Test
+    public void testClientIsShared() {
+        assertSame(pool.getClient(), pool.getClient());
+        assertSame(pool.getConnectionManager(), pool.getClient().getConnectionManager());
+        assertSame(pool.getClient(), new ApacheHttpClientImpl(pool).getClient());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testApacheHttpClientImplNullPool() {
+        new ApacheHttpClientImpl(null);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.github.kristofa.test.http.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityBlobStoreTest {
+
+    private final static String DIRECTORY = "target/";
+    private final static String FILE_NAME = "EntityBlobStoreTest";
+
+    private EntityBlobStore store;
+
+    @Before
+    public void setup() throws IOException {
+        store = new EntityBlobStore(DIRECTORY, FILE_NAME);
+        store.delete();
+    }
+
+    @Test
+    public void testPut() throws IOException {
+        final String reference = store.put("entity".getBytes());
+        assertTrue(reference.startsWith(FILE_NAME + EntityBlobStore.DIRECTORY_SUFFIX + "/"));
+        assertEquals("Same entity should give same reference.", reference, store.put("entity".getBytes()));
+        assertFalse(reference.equals(store.put("other entity".getBytes())));
+
+        final File file = store.getFile(reference);
+        assertEquals("entity", FileUtils.readFileToString(file));
+        assertEquals(file, store.find("entity".getBytes()));
+        assertNull(store.find("unknown".getBytes()));
+        assertEquals("Only blobs, no temporary files expected.", 2,
+            new File(DIRECTORY, FILE_NAME + EntityBlobStore.DIRECTORY_SUFFIX).list().length);
+    }
+
+    @Test
+    public void testNewOutputStream() throws IOException {
+        final String reference = store.put("entity".getBytes());
+        final String[] streamedReference = new String[1];
+        final OutputStream outputStream = store.newOutputStream(new EntityBlobStore.Listener() {
+
+            @Override
+            public void stored(final String reference) {
+                streamedReference[0] = reference;
+            }
+        });
+        outputStream.write("ent".getBytes());
+        outputStream.write('i');
+        outputStream.write("ty".getBytes());
+        assertNull("Should only be stored when closing.", streamedReference[0]);
+        outputStream.close();
+        outputStream.close();
+        assertEquals(reference, streamedReference[0]);
+        assertEquals(1, new File(DIRECTORY, FILE_NAME + EntityBlobStore.DIRECTORY_SUFFIX).list().length);
+    }
+
+    @Test
+    public void testAbortOutputStream() throws IOException {
+        final String[] streamedReference = new String[1];
+        final EntityBlobStore.BlobOutputStream outputStream = store.newOutputStream(new EntityBlobStore.Listener() {
+
+            @Override
+            public void stored(final String reference) {
+                streamedReference[0] = reference;
+            }
+        });
+        outputStream.write("truncated".getBytes());
+        outputStream.abort();
+        outputStream.close();
+        assertNull("Aborted entity should not be stored.", streamedReference[0]);
+        assertEquals(0, new File(DIRECTORY, FILE_NAME + EntityBlobStore.DIRECTORY_SUFFIX).list().length);
+    }
+
+    @Test
+    public void testResolve() {
+        final File requestFile = new File(DIRECTORY, "request.txt");
+        assertEquals(new File(DIRECTORY, "a_entities/b.txt").getAbsoluteFile(),
+            EntityBlobStore.resolve(requestFile, "a_entities/b.txt"));
+    }
+
+    @Test
+    public void testDelete() throws IOException {
+        final File file = store.getFile(store.put("entity".getBytes()));
+        assertTrue(file.exists());
+        store.delete();
+        assertFalse(file.exists());
+        assertFalse(new File(DIRECTORY, FILE_NAME + EntityBlobStore.DIRECTORY_SUFFIX).exists());
+    }
+
+}
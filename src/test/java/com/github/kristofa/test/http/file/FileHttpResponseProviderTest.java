@@ -1,25 +1,39 @@
 package com.github.kristofa.test.http.file;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 
 import java.util.Collection;
 import java.util.Set;
 
 import org.junit.Test;
 
+import com.github.kristofa.test.http.AbstractHttpRequestMatchingFilter;
 import com.github.kristofa.test.http.HttpMessageHeader;
 import com.github.kristofa.test.http.HttpRequest;
 import com.github.kristofa.test.http.HttpRequestImpl;
 import com.github.kristofa.test.http.HttpRequestMatchingContext;
 import com.github.kristofa.test.http.HttpRequestMatchingContextImpl;
 import com.github.kristofa.test.http.HttpRequestMatchingFilter;
+import com.github.kristofa.test.http.HttpRequestResponseLogger;
 import com.github.kristofa.test.http.HttpResponse;
 import com.github.kristofa.test.http.HttpResponseImpl;
+import com.github.kristofa.test.http.MappedHttpResponse;
 import com.github.kristofa.test.http.Method;
 import com.github.kristofa.test.http.UnsatisfiedExpectationException;
 
@@ -57,6 +71,69 @@ public class FileHttpResponseProviderTest {
         }
     }
 
+    @Test
+    public void testGetResponseWithResponseCache() throws UnsatisfiedExpectationException {
+        final HttpResponseCache responseCache = new HttpResponseCache(10, 1024);
+        final HttpRequestImpl request1 = new HttpRequestImpl();
+        request1.method(Method.GET).httpMessageHeader("Content-Type", "application/json").queryParameter("a", "b")
+            .path("/a/b");
+        final HttpRequestImpl request2 = new HttpRequestImpl();
+        request2.method(Method.POST).httpMessageHeader("Content-Type", "application/json").queryParameter("b", "c")
+            .path("/b/c");
+
+        // Replay same recording twice with shared cache.
+        for (int run = 0; run < 2; run++) {
+            final FileHttpResponseProvider provider =
+                new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "ExpectedHttpResponseFileProviderTest", responseCache);
+            assertEquals(200, provider.getResponse(request1).getHttpCode());
+            assertEquals(200, provider.getResponse(request2).getHttpCode());
+            assertEquals(401, provider.getResponse(request1).getHttpCode());
+            provider.verify();
+        }
+        assertEquals(3, responseCache.getMissCount());
+        assertEquals(3, responseCache.getHitCount());
+        assertEquals(3, responseCache.size());
+    }
+
+    @Test
+    public void testResponseCacheAfterRecordingAgain() {
+        final String fileName = "FileHttpResponseProviderTest_rerecord";
+        final HttpResponseCache responseCache = new HttpResponseCache(10, 1024);
+        final HttpRequest request = new HttpRequestImpl().method(Method.GET).path("/");
+        for (final String content : new String[] {"ok", "recorded again"}) {
+            final HttpRequestResponseLogger logger =
+                new HttpRequestResponseFileLoggerFactory("target/", fileName, true).getHttpRequestResponseLogger();
+            logger.log(request);
+            logger.log(new HttpResponseImpl(200, "text/plain", content.getBytes()));
+
+            final HttpResponse response =
+                new FileHttpResponseProvider("target/", fileName, responseCache).getResponse(request);
+            assertEquals(content, new String(response.getContent()));
+        }
+        assertEquals(2, responseCache.getMissCount());
+    }
+
+    @Test
+    public void testResponseCacheSharedBetweenRecordings() throws UnsatisfiedExpectationException {
+        final HttpResponseCache responseCache = new HttpResponseCache(10, 1024);
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.GET).httpMessageHeader("Content-Type", "application/json").queryParameter("a", "b")
+            .path("/a/b");
+        final HttpRequestImpl otherRecordingRequest = new HttpRequestImpl();
+        otherRecordingRequest.method(Method.GET).httpMessageHeader("Content-Type", "application/json")
+            .queryParameter("a", "1").path("/a/b");
+
+        new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "ExpectedHttpResponseFileProviderTest", responseCache)
+            .getResponse(request);
+        new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "FileHttpResponseProviderTest", responseCache)
+            .getResponse(otherRecordingRequest);
+
+        // Same sequence number but different recording so no hit.
+        assertEquals(2, responseCache.getMissCount());
+        assertEquals(0, responseCache.getHitCount());
+        assertEquals(2, responseCache.size());
+    }
+
     @Test
     public void testGetResponseSucces() throws UnsatisfiedExpectationException {
         final FileHttpResponseProvider expectedHttpResponseFileProvider =
@@ -206,4 +283,277 @@ public class FileHttpResponseProviderTest {
         assertEquals(200, response3.getHttpCode());
 
     }
+
+    @Test
+    public void testFilterDoesNotReadResponsesUntilMatch() {
+        final HttpResponseFileReader responseFileReader = mock(HttpResponseFileReader.class);
+        final HttpResponse response = new HttpResponseImpl(200, "application/json", null);
+        when(responseFileReader.read(any(File.class), any(File.class))).thenReturn(response);
+        final FileHttpResponseProvider responseProvider =
+            new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "ExpectedHttpResponseFileProviderTest",
+                new HttpRequestFileReaderImpl(), responseFileReader);
+        // Filter that ignores query parameters but does not touch response.
+        responseProvider.addHttpRequestMatchingFilter(new AbstractHttpRequestMatchingFilter() {
+
+            @Override
+            public HttpRequestMatchingContext filter(final HttpRequestMatchingContext context) {
+                final HttpRequestImpl copyOriginal = new HttpRequestImpl(context.originalRequest());
+                removeAllQueryParams(copyOriginal);
+                final HttpRequestImpl copyOther = new HttpRequestImpl(context.otherRequest());
+                removeAllQueryParams(copyOther);
+                return new HttpRequestMatchingContextImpl(context, copyOriginal, copyOther);
+            }
+
+            private void removeAllQueryParams(final HttpRequestImpl request) {
+                for (final String key : new String[] {"a", "b"}) {
+                    request.removeQueryParameters(key);
+                }
+            }
+        });
+
+        final HttpRequestImpl unexpectedRequest = new HttpRequestImpl();
+        unexpectedRequest.method(Method.DELETE).path("/a/b");
+        assertNull(responseProvider.getResponse(unexpectedRequest));
+        verify(responseFileReader, never()).read(any(File.class), any(File.class));
+
+        final HttpRequestImpl request = new HttpRequestImpl();
+        request.method(Method.POST).httpMessageHeader("Content-Type", "application/json").queryParameter("b", "d")
+            .path("/b/c");
+        assertSame(response, responseProvider.getResponse(request));
+        verify(responseFileReader, times(1)).read(any(File.class), any(File.class));
+    }
+
+    @Test
+    public void testInitReadsRequests() {
+        final HttpRequestFileReader requestFileReader = mock(HttpRequestFileReader.class);
+        when(requestFileReader.read(any(File.class), any(File.class))).thenReturn(new HttpRequestImpl());
+        final FileHttpResponseProvider responseProvider =
+            new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "ExpectedHttpResponseFileProviderTest", requestFileReader,
+                mock(HttpResponseFileReader.class));
+        verify(requestFileReader, never()).read(any(File.class), any(File.class));
+        responseProvider.init();
+        verify(requestFileReader, times(3)).read(any(File.class), any(File.class));
+        responseProvider.init();
+        verify(requestFileReader, times(3)).read(any(File.class), any(File.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLoadThreads() {
+        new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "ExpectedHttpResponseFileProviderTest").setLoadThreads(0);
+    }
+
+    @Test
+    public void testParallelLoading() throws UnsatisfiedExpectationException {
+        final String fileName = "FileHttpResponseProviderTest_parallel";
+        final HttpRequestResponseFileLoggerFactory loggerFactory =
+            new HttpRequestResponseFileLoggerFactory("target/", fileName, true);
+        final int requestCount = 100;
+        for (int i = 0; i < requestCount; i++) {
+            final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+            // Every request is recorded twice with different response.
+            logger.log(new HttpRequestImpl().method(Method.GET).path("/" + i / 2));
+            logger.log(new HttpResponseImpl(200, "text/plain", String.valueOf(i).getBytes()));
+        }
+
+        final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider("target/", fileName);
+        responseProvider.setLoadThreads(4);
+        responseProvider.init();
+        for (int i = 0; i < requestCount; i++) {
+            final HttpResponse response =
+                responseProvider.getResponse(new HttpRequestImpl().method(Method.GET).path("/" + i / 2));
+            assertEquals("Responses should be in recorded order.", String.valueOf(i), new String(response.getContent()));
+        }
+        responseProvider.verify();
+    }
+
+    @Test
+    public void testParallelLoadingException() {
+        final HttpRequestFileReader requestFileReader = mock(HttpRequestFileReader.class);
+        final IllegalStateException exception = new IllegalStateException("Invalid file.");
+        when(requestFileReader.read(any(File.class), any(File.class))).thenThrow(exception);
+        final FileHttpResponseProvider responseProvider =
+            new FileHttpResponseProvider(TEST_FILE_DIRECTORY, "ExpectedHttpResponseFileProviderTest", requestFileReader,
+                mock(HttpResponseFileReader.class));
+        responseProvider.setLoadThreads(2);
+        try {
+            responseProvider.init();
+            fail("Expected exception.");
+        } catch (final IllegalStateException e) {
+            assertSame(exception, e);
+        }
+    }
+
+    @Test
+    public void testRequestIndex() throws UnsatisfiedExpectationException {
+        final String fileName = "FileHttpResponseProviderTest_index";
+        final File indexFile = new File("target/", fileName + RequestIndexFile.SUFFIX);
+        indexFile.delete();
+        final HttpRequestResponseFileLoggerFactory loggerFactory =
+            new HttpRequestResponseFileLoggerFactory("target/", fileName, true);
+        final int requestCount = 10;
+        for (int i = 0; i < requestCount; i++) {
+            final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+            logger.log(new HttpRequestImpl().method(Method.POST).path("/" + i).queryParameter("a", "b")
+                .httpMessageHeader("Content-Type", "text/plain").content(String.valueOf(i).getBytes()));
+            logger.log(new HttpResponseImpl(200, "text/plain", String.valueOf(i).getBytes()));
+        }
+
+        final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider("target/", fileName);
+        responseProvider.setUseRequestIndex(true);
+        responseProvider.init();
+        assertTrue("Index should be written.", indexFile.exists());
+
+        final HttpRequestFileReader requestFileReader = mock(HttpRequestFileReader.class);
+        final FileHttpResponseProvider indexedResponseProvider =
+            new FileHttpResponseProvider("target/", fileName, requestFileReader, new HttpResponseFileReaderImpl());
+        indexedResponseProvider.setUseRequestIndex(true);
+        for (int i = 0; i < requestCount; i++) {
+            final HttpResponse response =
+                indexedResponseProvider.getResponse(new HttpRequestImpl().method(Method.POST).path("/" + i)
+                    .queryParameter("a", "b").httpMessageHeader("Content-Type", "text/plain")
+                    .content(String.valueOf(i).getBytes()));
+            assertNotNull(response);
+            assertEquals(String.valueOf(i), new String(response.getContent()));
+        }
+        indexedResponseProvider.verify();
+        verify(requestFileReader, never()).read(any(File.class), any(File.class));
+    }
+
+    @Test
+    public void testStaleRequestIndex() {
+        final String fileName = "FileHttpResponseProviderTest_staleIndex";
+        final HttpRequestResponseFileLoggerFactory loggerFactory =
+            new HttpRequestResponseFileLoggerFactory("target/", fileName, true);
+        final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+        logger.log(new HttpRequestImpl().method(Method.GET).path("/"));
+        logger.log(new HttpResponseImpl(200, "text/plain", "ok".getBytes()));
+
+        final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider("target/", fileName);
+        responseProvider.setUseRequestIndex(true);
+        responseProvider.init();
+
+        final File requestFile = new File("target/", FileNameBuilder.REQUEST_FILE_NAME.getFileName(fileName, 1));
+        assertTrue(requestFile.setLastModified(requestFile.lastModified() - 10000));
+
+        final HttpRequestFileReader requestFileReader = mock(HttpRequestFileReader.class);
+        final HttpRequest request = new HttpRequestImpl().method(Method.GET).path("/");
+        when(requestFileReader.read(any(File.class), any(File.class))).thenReturn(request);
+        final FileHttpResponseProvider indexedResponseProvider =
+            new FileHttpResponseProvider("target/", fileName, requestFileReader, new HttpResponseFileReaderImpl());
+        indexedResponseProvider.setUseRequestIndex(true);
+        indexedResponseProvider.init();
+        verify(requestFileReader, times(1)).read(any(File.class), any(File.class));
+
+        // Index has been rebuilt so it should be used next time.
+        final HttpRequestFileReader unusedRequestFileReader = mock(HttpRequestFileReader.class);
+        final FileHttpResponseProvider reindexedResponseProvider =
+            new FileHttpResponseProvider("target/", fileName, unusedRequestFileReader, new HttpResponseFileReaderImpl());
+        reindexedResponseProvider.setUseRequestIndex(true);
+        reindexedResponseProvider.init();
+        verify(unusedRequestFileReader, never()).read(any(File.class), any(File.class));
+    }
+
+    @Test
+    public void testCorruptRequestIndexIsRebuilt() throws IOException {
+        final String fileName = "FileHttpResponseProviderTest_corruptIndex";
+        final File indexFile = new File("target/", fileName + RequestIndexFile.SUFFIX);
+        indexFile.delete();
+        final HttpRequestResponseFileLoggerFactory loggerFactory =
+            new HttpRequestResponseFileLoggerFactory("target/", fileName, true);
+        final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+        final HttpRequest request = new HttpRequestImpl().method(Method.POST).path("/").content("x".getBytes());
+        logger.log(request);
+        logger.log(new HttpResponseImpl(200, "text/plain", "ok".getBytes()));
+
+        final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider("target/", fileName);
+        responseProvider.setUseRequestIndex(true);
+        responseProvider.init();
+
+        // The index ends with the content length of the request followed by its single byte of content.
+        final RandomAccessFile index = new RandomAccessFile(indexFile, "rw");
+        try {
+            index.seek(index.length() - 5);
+            index.writeInt(Integer.MAX_VALUE);
+        } finally {
+            index.close();
+        }
+
+        final HttpRequestFileReader requestFileReader = mock(HttpRequestFileReader.class);
+        when(requestFileReader.read(any(File.class), any(File.class))).thenReturn(request);
+        final FileHttpResponseProvider indexedResponseProvider =
+            new FileHttpResponseProvider("target/", fileName, requestFileReader, new HttpResponseFileReaderImpl());
+        indexedResponseProvider.setUseRequestIndex(true);
+        indexedResponseProvider.init();
+        verify(requestFileReader, times(1)).read(any(File.class), any(File.class));
+    }
+
+    @Test
+    public void testDigestRequestEntities() throws UnsatisfiedExpectationException {
+        final String fileName = "FileHttpResponseProviderTest_digest";
+        new File("target/", fileName + RequestIndexFile.SUFFIX).delete();
+        final HttpRequestResponseFileLoggerFactory loggerFactory =
+            new HttpRequestResponseFileLoggerFactory("target/", fileName, true);
+        final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+        logger.log(new HttpRequestImpl().method(Method.POST).path("/").content("body".getBytes()));
+        logger.log(new HttpResponseImpl(200, "text/plain", "ok".getBytes()));
+
+        for (final boolean useRequestIndex : new boolean[] {false, true, true}) {
+            final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider("target/", fileName);
+            responseProvider.setDigestRequestEntities(true);
+            responseProvider.setUseRequestIndex(useRequestIndex);
+            assertNull(responseProvider.getResponse(new HttpRequestImpl().method(Method.POST).path("/")
+                .content("other body".getBytes())));
+            final HttpResponse response =
+                responseProvider.getResponse(new HttpRequestImpl().method(Method.POST).path("/")
+                    .content("body".getBytes()));
+            assertNotNull(response);
+            assertEquals("ok", new String(response.getContent()));
+            try {
+                responseProvider.verify();
+                fail("Expected exception.");
+            } catch (final UnsatisfiedExpectationException e) {
+                assertEquals(1, e.getUnexpectedHttpRequests().size());
+            }
+        }
+
+        final FileHttpResponseProvider responseProvider = new FileHttpResponseProvider("target/", fileName);
+        responseProvider.setDigestRequestEntities(true);
+        try {
+            responseProvider.verify();
+            fail("Expected exception.");
+        } catch (final UnsatisfiedExpectationException e) {
+            // Entity is read from disk again for reporting.
+            assertEquals("body", new String(e.getMissingHttpRequests().iterator().next().getContent()));
+        }
+    }
+
+    @Test
+    public void testDigestEntityWithoutEntityFileKeepsContent() {
+        final HttpRequest request = new HttpRequestImpl().method(Method.POST).path("/").content("body".getBytes());
+        final HttpRequest digested =
+            FileHttpResponseProvider.digestEntity(request, new File("target/", "FileHttpResponseProviderTest_none.txt"),
+                new EntityBlobStore("target/", "FileHttpResponseProviderTest_none"));
+        assertEquals("body", new String(digested.getContent()));
+        assertEquals(new HttpRequestImpl().method(Method.POST).path("/").content("body".getBytes()), digested);
+    }
+
+    @Test
+    public void testResponseEntitiesAreOnlyMappedOnRequest() {
+        final String fileName = "FileHttpResponseProviderTest_mapping";
+        final HttpRequestResponseFileLoggerFactory loggerFactory =
+            new HttpRequestResponseFileLoggerFactory("target/", fileName, true);
+        final HttpRequestResponseLogger logger = loggerFactory.getHttpRequestResponseLogger();
+        logger.log(new HttpRequestImpl().method(Method.GET).path("/"));
+        logger.log(new HttpResponseImpl(200, "text/plain", "ok".getBytes()));
+
+        final HttpResponse response = new FileHttpResponseProvider("target/", fileName)
+            .getResponse(new HttpRequestImpl().method(Method.GET).path("/"));
+        assertFalse(response instanceof MappedHttpResponse);
+        assertEquals("ok", new String(response.getContent()));
+
+        final HttpResponse mappedResponse = new FileHttpResponseProvider("target/", fileName, true)
+            .getResponse(new HttpRequestImpl().method(Method.GET).path("/"));
+        assertTrue(mappedResponse instanceof MappedHttpResponse);
+        assertEquals("ok", new String(mappedResponse.getContent()));
+    }
 }
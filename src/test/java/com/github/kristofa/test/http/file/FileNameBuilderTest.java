@@ -17,4 +17,34 @@ public class FileNameBuilderTest {
             FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName("unique4", 4));
     }
 
+    @Test
+    public void testGetSeqNr() {
+        assertEquals(1, FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique_request_00001.txt"));
+        assertEquals(2,
+            FileNameBuilder.REQUEST_ENTITY_FILE_NAME.getSeqNr("unique", "unique_request_entity_00002.txt"));
+        assertEquals(3, FileNameBuilder.RESPONSE_FILE_NAME.getSeqNr("unique", "unique_response_00003.txt"));
+        assertEquals(123456,
+            FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getSeqNr("unique", "unique_response_entity_123456.txt"));
+        for (final FileNameBuilder fileNameBuilder : FileNameBuilder.values()) {
+            assertEquals(42, fileNameBuilder.getSeqNr("unique", fileNameBuilder.getFileName("unique", 42)));
+        }
+    }
+
+    @Test
+    public void testGetSeqNrNoMatch() {
+        assertEquals("Other type.", -1,
+            FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique_request_entity_00001.txt"));
+        assertEquals("Other unique part.", -1,
+            FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique2_request_00001.txt"));
+        assertEquals("Not padded.", -1,
+            FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique_request_1.txt"));
+        assertEquals("Too much padding.", -1,
+            FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique_request_000001.txt"));
+        assertEquals("Other extension.", -1,
+            FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique_request_00001.bak"));
+        assertEquals("Not a number.", -1,
+            FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique_request_0000a.txt"));
+        assertEquals(-1, FileNameBuilder.REQUEST_FILE_NAME.getSeqNr("unique", "unique.txt"));
+    }
+
 }
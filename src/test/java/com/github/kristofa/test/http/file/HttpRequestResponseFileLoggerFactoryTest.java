@@ -8,16 +8,21 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.kristofa.test.http.GzipHttpResponse;
 import com.github.kristofa.test.http.HttpRequestImpl;
 import com.github.kristofa.test.http.HttpRequestResponseLogger;
+import com.github.kristofa.test.http.HttpResponse;
 import com.github.kristofa.test.http.HttpResponseImpl;
 import com.github.kristofa.test.http.Method;
+import com.github.kristofa.test.http.StreamingHttpRequestResponseLogger;
+import com.github.kristofa.test.http.UnsatisfiedExpectationException;
 
 public class HttpRequestResponseFileLoggerFactoryTest {
 
@@ -138,4 +143,83 @@ public class HttpRequestResponseFileLoggerFactoryTest {
         return fileList;
     }
 
+    @Test
+    public void testDeduplicateEntities() throws IOException, UnsatisfiedExpectationException {
+        final String fileName = "testDeduplicatedFile";
+        final HttpRequestResponseFileLoggerFactory factory =
+            new HttpRequestResponseFileLoggerFactory(DIRECTORY, fileName, true, true);
+        for (int i = 1; i <= 3; i++) {
+            final StreamingHttpRequestResponseLogger logger =
+                (StreamingHttpRequestResponseLogger)factory.getHttpRequestResponseLogger();
+            logger.log(new HttpRequestImpl().method(Method.POST).path("/" + i).content("[]".getBytes()));
+            if (i == 3) {
+                final OutputStream outputStream = logger.logResponse(200, "application/json");
+                outputStream.write("{}".getBytes());
+                outputStream.close();
+            } else {
+                logger.log(new HttpResponseImpl(200, "application/json", "{}".getBytes()));
+            }
+            assertFalse(new File(DIRECTORY, FileNameBuilder.REQUEST_ENTITY_FILE_NAME.getFileName(fileName, i)).exists());
+            assertFalse(new File(DIRECTORY, FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(fileName, i)).exists());
+        }
+        final File entityDirectory = new File(DIRECTORY, fileName + EntityBlobStore.DIRECTORY_SUFFIX);
+        assertEquals("Expected 1 request and 1 response entity.", 2, entityDirectory.list().length);
+
+        for (final boolean mapResponseEntities : new boolean[] {true, false}) {
+            final FileHttpResponseProvider responseProvider =
+                new FileHttpResponseProvider(DIRECTORY, fileName, mapResponseEntities);
+            for (int i = 1; i <= 3; i++) {
+                final HttpResponse response =
+                    responseProvider.getResponse(new HttpRequestImpl().method(Method.POST).path("/" + i)
+                        .content("[]".getBytes()));
+                assertNotNull(response);
+                assertEquals("{}", new String(response.getContent()));
+            }
+            responseProvider.verify();
+        }
+
+        new HttpRequestResponseFileLoggerFactory(DIRECTORY, fileName, true).getHttpRequestResponseLogger();
+        assertFalse("Entities should be deleted with existing files.", entityDirectory.exists());
+    }
+
+    @Test
+    public void testCompressResponseEntities() throws IOException, UnsatisfiedExpectationException {
+        final String fileName = "testCompressedFile";
+        final String content = "{\"items\":[1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1]}";
+        for (final boolean deduplicateEntities : new boolean[] {false, true}) {
+            final HttpRequestResponseFileLoggerFactory factory =
+                new HttpRequestResponseFileLoggerFactory(DIRECTORY, fileName, true, deduplicateEntities, true);
+            for (int i = 1; i <= 2; i++) {
+                final StreamingHttpRequestResponseLogger logger =
+                    (StreamingHttpRequestResponseLogger)factory.getHttpRequestResponseLogger();
+                logger.log(new HttpRequestImpl().method(Method.GET).path("/" + i));
+                if (i == 2) {
+                    final OutputStream outputStream = logger.logResponse(200, "application/json");
+                    outputStream.write(content.getBytes());
+                    outputStream.close();
+                } else {
+                    logger.log(new HttpResponseImpl(200, "application/json", content.getBytes()));
+                }
+            }
+            if (!deduplicateEntities) {
+                final File entityFile =
+                    new File(DIRECTORY, FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(fileName, 1));
+                assertTrue(entityFile.length() < content.length());
+            }
+
+            for (final boolean mapResponseEntities : new boolean[] {true, false}) {
+                final FileHttpResponseProvider responseProvider =
+                    new FileHttpResponseProvider(DIRECTORY, fileName, mapResponseEntities);
+                for (int i = 1; i <= 2; i++) {
+                    final HttpResponse response =
+                        responseProvider.getResponse(new HttpRequestImpl().method(Method.GET).path("/" + i));
+                    assertTrue(response instanceof GzipHttpResponse);
+                    assertEquals("application/json", response.getContentType());
+                    assertEquals(content, new String(response.getContent()));
+                }
+                responseProvider.verify();
+            }
+        }
+    }
+
 }
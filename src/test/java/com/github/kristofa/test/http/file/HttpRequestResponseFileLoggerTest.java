@@ -1,6 +1,8 @@
 package com.github.kristofa.test.http.file;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -8,6 +10,9 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.io.FileUtils;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -98,4 +103,41 @@ public class HttpRequestResponseFileLoggerTest {
         verify(mockResponseWriter).write(httpResponseImpl, expectedResponseFile1, expectedResponseEntityFile1);
         verifyNoMoreInteractions(mockRequestWriter, mockResponseWriter);
     }
+
+    @Test
+    public void testLogResponseStreaming() throws IOException {
+        final File expectedResponseFile1 = new File(TEMP_DIR, FILE_NAME + "_response_00010.txt");
+        final File expectedResponseEntityFile1 = new File(TEMP_DIR, FILE_NAME + "_response_entity_00010.txt");
+        expectedResponseEntityFile1.delete();
+        try {
+            final OutputStream outputStream = logger.logResponse(HTTP_CODE, CONTENTTYPE);
+            try {
+                outputStream.write(RESPONSE_CONTENT, 0, 5);
+                outputStream.write(RESPONSE_CONTENT, 5, RESPONSE_CONTENT.length - 5);
+            } finally {
+                outputStream.close();
+            }
+
+            verify(mockResponseWriter).write(new HttpResponseImpl(HTTP_CODE, CONTENTTYPE, null), expectedResponseFile1,
+                expectedResponseEntityFile1);
+            verifyNoMoreInteractions(mockRequestWriter, mockResponseWriter);
+            assertArrayEquals(RESPONSE_CONTENT, FileUtils.readFileToByteArray(expectedResponseEntityFile1));
+        } finally {
+            expectedResponseEntityFile1.delete();
+        }
+    }
+
+    @Test
+    public void testAbortResponseStreaming() throws IOException {
+        final File responseFile = new File(TEMP_DIR, FILE_NAME + "_response_00010.txt");
+        final File responseEntityFile = new File(TEMP_DIR, FILE_NAME + "_response_entity_00010.txt");
+        FileUtils.writeStringToFile(responseFile, "written by response writer");
+        final OutputStream outputStream = logger.logResponse(HTTP_CODE, CONTENTTYPE);
+        outputStream.write(RESPONSE_CONTENT, 0, 5);
+
+        logger.abortResponse();
+
+        assertFalse(responseFile.exists());
+        assertFalse(responseEntityFile.exists());
+    }
 }
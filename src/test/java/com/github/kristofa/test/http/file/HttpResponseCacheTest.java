@@ -0,0 +1,142 @@
+package com.github.kristofa.test.http.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.HttpResponseImpl;
+
+public class HttpResponseCacheTest {
+
+    private static final String DIRECTORY = "target";
+    private static final String FILE_NAME = "recording";
+    private static final long LAST_MODIFIED = 1000;
+    private static final long LENGTH = 100;
+
+    private HttpResponseCache cache;
+
+    @Before
+    public void setup() {
+        cache = new HttpResponseCache(3, 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxEntries() {
+        new HttpResponseCache(0, 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxBytes() {
+        new HttpResponseCache(10, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutNull() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, null);
+    }
+
+    @Test
+    public void testGetAndPut() {
+        final HttpResponse response = response(10);
+        assertNull(cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response);
+        assertSame(response, cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+        assertSame(response, cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.getBytes());
+    }
+
+    @Test
+    public void testKeyedByRecording() {
+        final HttpResponse response = response(10);
+        final HttpResponse otherRecordingResponse = response(20);
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response);
+        cache.put(DIRECTORY, "otherRecording", 1, LAST_MODIFIED, LENGTH, otherRecordingResponse);
+        assertNull(cache.get("otherDirectory", FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+        assertSame(response, cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+        assertSame(otherRecordingResponse, cache.get(DIRECTORY, "otherRecording", 1, LAST_MODIFIED, LENGTH));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testKeyedByResponseFile() {
+        final HttpResponse response = response(10);
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response);
+        assertNull("Recorded again.", cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED + 1, LENGTH));
+        assertNull("Recorded again.", cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH + 1));
+        assertSame(response, cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedByEntries() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response(1));
+        cache.put(DIRECTORY, FILE_NAME, 2, LAST_MODIFIED, LENGTH, response(1));
+        cache.put(DIRECTORY, FILE_NAME, 3, LAST_MODIFIED, LENGTH, response(1));
+        // 1 becomes most recently used.
+        cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH);
+        cache.put(DIRECTORY, FILE_NAME, 4, LAST_MODIFIED, LENGTH, response(1));
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull("2 is least recently used so should be evicted.", cache.get(DIRECTORY, FILE_NAME, 2, LAST_MODIFIED, LENGTH));
+        assertEquals(1, cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH).getContent().length);
+        assertEquals(1, cache.get(DIRECTORY, FILE_NAME, 3, LAST_MODIFIED, LENGTH).getContent().length);
+        assertEquals(1, cache.get(DIRECTORY, FILE_NAME, 4, LAST_MODIFIED, LENGTH).getContent().length);
+    }
+
+    @Test
+    public void testEvictByBytes() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response(40));
+        cache.put(DIRECTORY, FILE_NAME, 2, LAST_MODIFIED, LENGTH, response(40));
+        cache.put(DIRECTORY, FILE_NAME, 3, LAST_MODIFIED, LENGTH, response(40));
+
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getBytes());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH));
+    }
+
+    @Test
+    public void testResponseLargerThanMaxBytesNotCached() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response(101));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testReplace() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response(40));
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response(20));
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.getBytes());
+    }
+
+    @Test
+    public void testResponseWithoutContent() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, new HttpResponseImpl(204, null, null));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void testClear() {
+        cache.put(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH, response(40));
+        cache.get(DIRECTORY, FILE_NAME, 1, LAST_MODIFIED, LENGTH);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertEquals("Counters are not reset.", 1, cache.getHitCount());
+    }
+
+    private HttpResponse response(final int size) {
+        return new HttpResponseImpl(200, "text/plain", new byte[size]);
+    }
+
+}
@@ -1,16 +1,22 @@
 package com.github.kristofa.test.http.file;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import com.github.kristofa.test.http.HttpResponse;
+import com.github.kristofa.test.http.MappedHttpResponse;
 
 public class HttpResponseFileReaderImplTest {
 
@@ -43,6 +49,29 @@ public class HttpResponseFileReaderImplTest {
         assertNull(response.getContent());
     }
 
+    @Test
+    public void testReadValidFileMapped() throws IOException {
+        final File entityFile = new File(TEST_FILE_DIRECTORY, "HttpResponseFileReaderImplTest_entity_valid_file.txt");
+        final HttpResponse response =
+            new HttpResponseFileReaderImpl(true).read(new File(TEST_FILE_DIRECTORY,
+                "HttpResponseFileReaderImplTest_valid_file.txt"), entityFile);
+        assertTrue(response instanceof MappedHttpResponse);
+        assertEquals(200, response.getHttpCode());
+        assertEquals("application/json", response.getContentType());
+        assertArrayEquals(FileUtils.readFileToByteArray(entityFile), response.getContent());
+    }
+
+    @Test
+    public void testReadValidFileNoEntityMapped() {
+        final HttpResponse response =
+            new HttpResponseFileReaderImpl(true).read(new File(TEST_FILE_DIRECTORY,
+                "HttpResponseFileReaderImplTest_valid_file_no_contenttype.txt"), new File(TEST_FILE_DIRECTORY,
+                "HttpResponseFileReaderImplTest_no_entity.txt"));
+        assertEquals(200, response.getHttpCode());
+        assertNull(response.getContentType());
+        assertNull(response.getContent());
+    }
+
     @Test
     public void testReadInvalidFile() {
 
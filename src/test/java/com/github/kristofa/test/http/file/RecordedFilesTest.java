@@ -0,0 +1,60 @@
+package com.github.kristofa.test.http.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecordedFilesTest {
+
+    private final static File DIRECTORY = new File("target/RecordedFilesTest");
+    private final static String FILE_NAME = "recording";
+
+    @Before
+    public void setup() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+        DIRECTORY.mkdirs();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    public void testListFiles() throws IOException {
+        create(FileNameBuilder.REQUEST_FILE_NAME.getFileName(FILE_NAME, 1));
+        create(FileNameBuilder.RESPONSE_FILE_NAME.getFileName(FILE_NAME, 1));
+        create(FileNameBuilder.RESPONSE_ENTITY_FILE_NAME.getFileName(FILE_NAME, 1));
+        create(FileNameBuilder.REQUEST_FILE_NAME.getFileName(FILE_NAME, 3));
+        create(FileNameBuilder.REQUEST_FILE_NAME.getFileName("other", 2));
+        create("unrelated.txt");
+
+        final RecordedFiles recordedFiles = new RecordedFiles(DIRECTORY.getPath(), FILE_NAME);
+        assertEquals(Arrays.asList(1, 3),
+            Arrays.asList(recordedFiles.getSeqNrs(FileNameBuilder.REQUEST_FILE_NAME).toArray()));
+        assertTrue(recordedFiles.exists(FileNameBuilder.RESPONSE_FILE_NAME, 1));
+        assertTrue(recordedFiles.exists(FileNameBuilder.RESPONSE_ENTITY_FILE_NAME, 1));
+        assertFalse(recordedFiles.exists(FileNameBuilder.REQUEST_ENTITY_FILE_NAME, 1));
+        assertFalse(recordedFiles.exists(FileNameBuilder.REQUEST_FILE_NAME, 2));
+    }
+
+    @Test
+    public void testUnexistingDirectory() {
+        final RecordedFiles recordedFiles = new RecordedFiles("target/RecordedFilesTest/unexisting", FILE_NAME);
+        assertTrue(recordedFiles.getSeqNrs(FileNameBuilder.REQUEST_FILE_NAME).isEmpty());
+    }
+
+    private void create(final String fileName) throws IOException {
+        FileUtils.touch(new File(DIRECTORY, fileName));
+    }
+
+}
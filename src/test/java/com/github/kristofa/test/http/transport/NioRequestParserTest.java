@@ -0,0 +1,196 @@
+package com.github.kristofa.test.http.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.kristofa.test.http.QueryParameter;
+
+public class NioRequestParserTest {
+
+    private static final int MAX_ENTITY_SIZE = 100;
+
+    private NioRequestParser parser;
+    private ByteBuffer input;
+
+    @Before
+    public void setUp() {
+        parser = new NioRequestParser(MAX_ENTITY_SIZE);
+        input = ByteBuffer.allocate(256);
+    }
+
+    @Test
+    public void testParseGet() throws Exception {
+        final NioRequest request = parse("GET /a%20b/c+d?x=1&y=a+b&z=%26 HTTP/1.1\r\nHost: localhost:8080\r\n"
+            + "Accept: text/plain;q=0.5, application/json\r\n\r\n");
+        assertEquals("GET", request.getMethod());
+        assertEquals("/a b/c+d", request.getPath());
+        assertEquals(Arrays.asList(new QueryParameter("x", "1"), new QueryParameter("y", "a b"), new QueryParameter("z",
+            "&")), request.getQueryParameters());
+        assertEquals(Arrays.asList("Host", "Accept"), request.getHeaderNames());
+        assertEquals(Arrays.asList("localhost:8080"), request.getHeaderValues("host"));
+        assertEquals(Arrays.asList("application/json", "text/plain;q=0.5"), request.getHeaderValues("Accept"));
+        assertNull(request.getDomain());
+        assertEquals(-1, request.getPort());
+        assertTrue(request.isHttp11());
+        assertTrue(request.isKeepAlive());
+        assertEquals(0, IOUtils.toByteArray(request.getInputStream()).length);
+        assertFalse(input.hasRemaining());
+        assertTrue(parser.isIdle());
+    }
+
+    @Test
+    public void testParseAbsoluteUri() throws Exception {
+        final NioRequest request = parse("GET http://example.com:8080/path?a=b HTTP/1.0\r\n\r\n");
+        assertEquals("example.com", request.getDomain());
+        assertEquals(8080, request.getPort());
+        assertEquals("/path", request.getPath());
+        assertFalse(request.isHttp11());
+        assertFalse(request.isKeepAlive());
+    }
+
+    @Test
+    public void testParseInParts() throws Exception {
+        final String request = "POST /post HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello";
+        for (int i = 0; i < request.length() - 1; i++) {
+            input.put((byte)request.charAt(i));
+            input.flip();
+            assertNull(parser.parse(input));
+            input.compact();
+        }
+        input.put((byte)request.charAt(request.length() - 1));
+        input.flip();
+        final NioRequest parsed = parser.parse(input);
+        assertEquals("hello", IOUtils.toString(parsed.getInputStream()));
+    }
+
+    @Test
+    public void testParseChunked() throws Exception {
+        final NioRequest request = parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + "5;ext=1\r\nhello\r\n6\r\n world\r\n0\r\nTrailer: x\r\n\r\n");
+        assertEquals("hello world", IOUtils.toString(request.getInputStream()));
+    }
+
+    @Test
+    public void testParsePipelined() throws Exception {
+        put("GET /1 HTTP/1.1\r\n\r\nGET /2 HTTP/1.1\r\n\r\nGET /3");
+        input.flip();
+        assertEquals("/1", parser.parse(input).getPath());
+        assertEquals("/2", parser.parse(input).getPath());
+        assertNull(parser.parse(input));
+        assertEquals("GET /3", new String(remaining()));
+    }
+
+    @Test
+    public void testExpectContinue() throws Exception {
+        put("PUT / HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 2\r\n\r\n");
+        input.flip();
+        assertNull(parser.parse(input));
+        assertTrue(parser.continueExpected());
+        assertFalse(parser.continueExpected());
+    }
+
+    @Test
+    public void testHeadersTooLarge() {
+        final StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\nX-Large: ");
+        while (request.length() < input.capacity()) {
+            request.append('x');
+        }
+        put(request.substring(0, input.capacity()));
+        input.flip();
+        assertBadRequest(NioRequestParser.HEADERS_TOO_LARGE);
+    }
+
+    @Test
+    public void testInvalidRequestLine() {
+        put("GET /\r\n\r\n");
+        input.flip();
+        assertBadRequest(NioRequestParser.BAD_REQUEST);
+    }
+
+    @Test
+    public void testInvalidContentLength() {
+        put("POST / HTTP/1.1\r\nContent-Length: abc\r\n\r\n");
+        input.flip();
+        assertBadRequest(NioRequestParser.BAD_REQUEST);
+    }
+
+    @Test
+    public void testInvalidChunk() {
+        put("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n2\r\nabc\r\n");
+        input.flip();
+        assertBadRequest(NioRequestParser.BAD_REQUEST);
+    }
+
+    @Test
+    public void testEntityTooLarge() {
+        put("POST / HTTP/1.1\r\nContent-Length: " + (MAX_ENTITY_SIZE + 1) + "\r\n\r\n");
+        input.flip();
+        assertBadRequest(NioRequestParser.ENTITY_TOO_LARGE);
+    }
+
+    @Test
+    public void testHugeContentLengthIsRejectedBeforeAllocating() {
+        put("POST / HTTP/1.1\r\nContent-Length: 2147483647\r\n\r\n");
+        input.flip();
+        assertBadRequest(NioRequestParser.ENTITY_TOO_LARGE);
+    }
+
+    @Test
+    public void testChunkedEntityTooLarge() {
+        put("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n32\r\n");
+        for (int i = 0; i < 50; i++) {
+            put("a");
+        }
+        put("\r\n33\r\n");
+        input.flip();
+        assertBadRequest(NioRequestParser.ENTITY_TOO_LARGE);
+    }
+
+    @Test
+    public void testContent() throws Exception {
+        final NioRequest request = parse("POST / HTTP/1.1\r\ncontent-length: 3\r\n\r\nabc");
+        assertArrayEquals("abc".getBytes(), IOUtils.toByteArray(request.getInputStream()));
+    }
+
+    private NioRequest parse(final String request) throws NioRequestParser.BadRequestException {
+        put(request);
+        input.flip();
+        return parser.parse(input);
+    }
+
+    private void put(final String value) {
+        try {
+            input.put(value.getBytes("ISO-8859-1"));
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] remaining() {
+        final byte[] bytes = new byte[input.remaining()];
+        input.get(bytes);
+        return bytes;
+    }
+
+    private void assertBadRequest(final int httpCode) {
+        try {
+            parser.parse(input);
+            fail("Expected BadRequestException.");
+        } catch (final NioRequestParser.BadRequestException e) {
+            assertEquals(httpCode, e.getHttpCode());
+        }
+    }
+
+}
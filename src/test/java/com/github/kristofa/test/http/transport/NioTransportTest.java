@@ -0,0 +1,219 @@
+package com.github.kristofa.test.http.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NioTransportTest {
+
+    private static final String LARGE_PATH = "/large";
+    private static final String MAPPED_PATH = "/mapped";
+    private static final String FAIL_PATH = "/fail";
+    private static final int LARGE_SIZE = 100000;
+
+    private TransportServer server;
+    private Socket socket;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new NioTransport(1024, 16).start(new InetSocketAddress(0), new EchoHandler(), 2);
+        socket = new Socket("localhost", server.getAddress().getPort());
+        socket.setSoTimeout(5000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        socket.close();
+        server.close();
+    }
+
+    @Test
+    public void testKeepAlive() throws IOException {
+        send("GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals(response("GET /first"), read(response("GET /first").length()));
+        send("POST /second HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello");
+        assertEquals(response("POST /second hello"), read(response("POST /second hello").length()));
+    }
+
+    @Test
+    public void testPipelining() throws IOException {
+        send("GET /1 HTTP/1.1\r\n\r\nGET /2 HTTP/1.1\r\n\r\nGET /3 HTTP/1.1\r\n\r\n");
+        final String expected = response("GET /1") + response("GET /2") + response("GET /3");
+        assertEquals(expected, read(expected.length()));
+    }
+
+    @Test
+    public void testChunkedRequest() throws IOException {
+        send("POST /chunked HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n0\r\n\r\n");
+        assertEquals(response("POST /chunked abc"), read(response("POST /chunked abc").length()));
+    }
+
+    @Test
+    public void testExpectContinue() throws IOException {
+        send("PUT /continue HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 3\r\n\r\n");
+        assertEquals("HTTP/1.1 100 Continue\r\n\r\n", read(25));
+        send("abc");
+        assertEquals(response("PUT /continue abc"), read(response("PUT /continue abc").length()));
+    }
+
+    @Test
+    public void testChunkedResponse() throws IOException {
+        send("GET " + LARGE_PATH + " HTTP/1.1\r\nConnection: close\r\n\r\n");
+        final String response = readAll();
+        assertTrue(response.startsWith("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n"));
+        assertTrue(response.endsWith("\r\n0\r\n\r\n"));
+        final String body = response.substring(response.indexOf("\r\n\r\n") + 4);
+        final StringBuilder decoded = new StringBuilder();
+        int position = 0;
+        while (true) {
+            final int lineEnd = body.indexOf("\r\n", position);
+            final int size = Integer.parseInt(body.substring(position, lineEnd), 16);
+            if (size == 0) {
+                break;
+            }
+            decoded.append(body, lineEnd + 2, lineEnd + 2 + size);
+            position = lineEnd + 2 + size + 2;
+        }
+        assertEquals(LARGE_SIZE, decoded.length());
+    }
+
+    @Test
+    public void testHttp10StreamedResponseClosesConnection() throws IOException {
+        send("GET " + LARGE_PATH + " HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+        final String response = readAll();
+        assertTrue(response.startsWith("HTTP/1.1 200 OK\r\nConnection: close\r\n\r\n"));
+        assertEquals(LARGE_SIZE, response.length() - response.indexOf("\r\n\r\n") - 4);
+    }
+
+    @Test
+    public void testReadOnlyBufferWithContentLength() throws IOException {
+        send("GET " + MAPPED_PATH + " HTTP/1.1\r\nConnection: close\r\n\r\n");
+        final String response = readAll();
+        assertTrue(response.startsWith("HTTP/1.1 200 OK\r\nContent-Length: " + LARGE_SIZE + "\r\nConnection: close\r\n\r\n"));
+        assertEquals(LARGE_SIZE, response.length() - response.indexOf("\r\n\r\n") - 4);
+    }
+
+    @Test
+    public void testBadRequest() throws IOException {
+        send("NONSENSE\r\n\r\n");
+        final String response = readAll();
+        assertTrue(response.startsWith("HTTP/1.1 400 Bad Request\r\n"));
+        assertTrue(response.contains("Connection: close\r\n"));
+    }
+
+    @Test
+    public void testEntityTooLarge() throws IOException {
+        final TransportServer limitedServer =
+            new NioTransport(1024, 16, 10).start(new InetSocketAddress(0), new EchoHandler(), 1);
+        final Socket limitedSocket = new Socket("localhost", limitedServer.getAddress().getPort());
+        try {
+            limitedSocket.setSoTimeout(5000);
+            final OutputStream outputStream = limitedSocket.getOutputStream();
+            outputStream.write("POST /large HTTP/1.1\r\nContent-Length: 11\r\n\r\n".getBytes("ISO-8859-1"));
+            outputStream.flush();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            IOUtils.copy(limitedSocket.getInputStream(), bytes);
+            assertTrue(bytes.toString("ISO-8859-1").startsWith("HTTP/1.1 413 Request Entity Too Large\r\n"));
+        } finally {
+            limitedSocket.close();
+            limitedServer.close();
+        }
+    }
+
+    @Test
+    public void testHandlerException() throws IOException {
+        send("GET " + FAIL_PATH + " HTTP/1.1\r\n\r\n");
+        assertEquals("HTTP/1.1 500 Internal Server Error\r\nContent-Length: 0\r\nConnection: close\r\n\r\n", readAll());
+    }
+
+    @Test
+    public void testHead() throws IOException {
+        send("HEAD /head HTTP/1.1\r\n\r\nGET /next HTTP/1.1\r\n\r\n");
+        final String expected =
+            "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 10\r\n\r\n" + response("GET /next");
+        assertEquals(expected, read(expected.length()));
+    }
+
+    private void send(final String request) throws IOException {
+        final OutputStream outputStream = socket.getOutputStream();
+        outputStream.write(request.getBytes("ISO-8859-1"));
+        outputStream.flush();
+    }
+
+    private String read(final int length) throws IOException {
+        final InputStream inputStream = socket.getInputStream();
+        final byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            final int read = inputStream.read(bytes, offset, length - offset);
+            if (read == -1) {
+                break;
+            }
+            offset += read;
+        }
+        return new String(bytes, 0, offset, "ISO-8859-1");
+    }
+
+    private String readAll() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IOUtils.copy(socket.getInputStream(), bytes);
+        return bytes.toString("ISO-8859-1");
+    }
+
+    private static String response(final String body) {
+        return "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+    }
+
+    // Answers with method, path and content of request.
+    private static class EchoHandler implements RequestHandler {
+
+        @Override
+        public void handle(final TransportRequest request, final TransportResponse response) {
+            try {
+                if (LARGE_PATH.equals(request.getPath())) {
+                    final OutputStream outputStream = response.getOutputStream();
+                    for (int i = 0; i < LARGE_SIZE; i++) {
+                        outputStream.write('a' + i % 26);
+                    }
+                    outputStream.close();
+                    return;
+                }
+                if (MAPPED_PATH.equals(request.getPath())) {
+                    final ByteBuffer content = ByteBuffer.allocateDirect(LARGE_SIZE);
+                    while (content.hasRemaining()) {
+                        content.put((byte)'m');
+                    }
+                    content.flip();
+                    response.setContentLength(LARGE_SIZE);
+                    response.getByteChannel().write(content.asReadOnlyBuffer());
+                    response.getByteChannel().close();
+                    return;
+                }
+                if (FAIL_PATH.equals(request.getPath())) {
+                    throw new IllegalStateException("Failure on purpose.");
+                }
+                final String content = IOUtils.toString(request.getInputStream(), "ISO-8859-1");
+                response.setHeader("Content-Type", "text/plain");
+                final OutputStream outputStream = response.getOutputStream();
+                outputStream.write((request.getMethod() + " " + request.getPath()
+                    + (content.length() > 0 ? " " + content : "")).getBytes("ISO-8859-1"));
+                outputStream.close();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}